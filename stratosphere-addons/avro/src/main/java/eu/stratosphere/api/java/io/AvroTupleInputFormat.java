@@ -0,0 +1,481 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.avro.Schema;
+import org.apache.avro.file.DataFileReader;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.ResolvingDecoder;
+import org.apache.avro.util.Utf8;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.avro.FSDataInputStreamWrapper;
+import eu.stratosphere.api.common.io.FileInputFormat;
+import eu.stratosphere.api.common.io.ProjectableInputFormat;
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.operators.util.FieldSet;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.api.java.typeutils.ResultTypeQueryable;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.core.fs.FSDataInputStream;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.FileStatus;
+import eu.stratosphere.core.fs.FileSystem;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.types.TypeInformation;
+
+/**
+ * Reads fields of Avro data files directly into tuples. The i-th field of a tuple holds the Avro field with the i-th
+ * of the given names. Strings, enums, ints, longs, floats, doubles and booleans are supported, and unions of those with
+ * null. Nulls are produced as the empty or zero value of the tuple field's type. Strings and enums are read into
+ * String fields, numbers into numeric or String fields, and booleans into Boolean or String fields; other
+ * combinations are rejected when the schema of a file is read.
+ * <p>
+ * The records are decoded with a reader schema that contains only the fields that the program uses (see
+ * {@link ProjectableInputFormat}), so that the other fields are skipped instead of decoded. No Avro objects are
+ * created for the records. The files are split at arbitrary positions; every split reads the blocks whose sync marker
+ * lies within its range. The statistics reported to the compiler contain the exact number of records, taken from the
+ * block headers.
+ *
+ * @param <OUT> The type of the produced tuples.
+ */
+public class AvroTupleInputFormat<OUT extends Tuple> extends FileInputFormat<OUT>
+	implements ProjectableInputFormat, ResultTypeQueryable<OUT>
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Log LOG = LogFactory.getLog(AvroTupleInputFormat.class);
+
+	/** The length of the sync marker that follows every block. */
+	private static final int SYNC_SIZE = 16;
+
+	// --------------------------------------------------------------------------------------------
+
+	private final String[] fieldNames;
+
+	private final Class<?>[] fieldTypes;
+
+	private boolean[] fieldUsed;
+
+	// --------------------------------------------------------------------------------------------
+
+	private transient DataFileReader<OUT> dataFileReader;
+
+	private transient long splitEnd;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a new Avro tuple input format.
+	 *
+	 * @param filePath The path of the file or directory to read.
+	 * @param fieldNames The names of the Avro fields that make up the tuple fields.
+	 * @param fieldTypes The types of the tuple fields.
+	 */
+	public AvroTupleInputFormat(Path filePath, String[] fieldNames, Class<?>... fieldTypes) {
+		super(filePath);
+		if (fieldNames == null || fieldTypes == null) {
+			throw new NullPointerException("The field names and types must not be null.");
+		}
+		if (fieldNames.length != fieldTypes.length || fieldNames.length == 0 || fieldNames.length > Tuple.MAX_ARITY) {
+			throw new IllegalArgumentException("There must be between 1 and " + Tuple.MAX_ARITY
+				+ " field names, each with a type.");
+		}
+		for (Class<?> type : fieldTypes) {
+			if (type != String.class && type != Integer.class && type != Long.class && type != Float.class
+					&& type != Double.class && type != Boolean.class)
+			{
+				throw new IllegalArgumentException("Unsupported field type: " + type);
+			}
+		}
+
+		this.fieldNames = fieldNames;
+		this.fieldTypes = fieldTypes;
+	}
+
+	@Override
+	public void setUsedFields(FieldSet usedFields) {
+		if (usedFields == null) {
+			this.fieldUsed = null;
+			return;
+		}
+
+		this.fieldUsed = new boolean[this.fieldNames.length];
+		for (int i = 0; i < this.fieldUsed.length; i++) {
+			this.fieldUsed[i] = usedFields.contains(i);
+		}
+	}
+
+	@Override
+	public TypeInformation<OUT> getProducedType() {
+		return TupleTypeInfo.getBasicTupleTypeInfo(this.fieldTypes);
+	}
+
+	// --------------------------------------------------------------------------------------------
+	//  Reading
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void open(FileInputSplit split) throws IOException {
+		super.open(split);
+
+		final long fileLength = FileSystem.get(split.getPath().toUri()).getFileStatus(split.getPath()).getLen();
+		final FSDataInputStreamWrapper in = new FSDataInputStreamWrapper(this.stream, fileLength);
+		// the header is at the beginning of the file, regardless of the split
+		in.seek(0);
+
+		this.dataFileReader = new DataFileReader<OUT>(in, new TupleDatumReader<OUT>(this.fieldNames, this.fieldTypes,
+			this.fieldUsed));
+		this.dataFileReader.sync(this.splitStart);
+		this.splitEnd = this.splitLength < 0 ? Long.MAX_VALUE : this.splitStart + this.splitLength;
+	}
+
+	@Override
+	public boolean reachedEnd() throws IOException {
+		return !this.dataFileReader.hasNext() || this.dataFileReader.pastSync(this.splitEnd);
+	}
+
+	@Override
+	public OUT nextRecord(OUT reuse) throws IOException {
+		if (reachedEnd()) {
+			return null;
+		}
+		return this.dataFileReader.next(reuse);
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.dataFileReader != null) {
+			this.dataFileReader.close();
+			this.dataFileReader = null;
+		}
+		super.close();
+	}
+
+	// --------------------------------------------------------------------------------------------
+	//  Statistics
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public FileBaseStatistics getStatistics(BaseStatistics cachedStats) throws IOException {
+		final FileBaseStatistics cachedFileStats = (cachedStats != null && cachedStats instanceof FileBaseStatistics) ?
+			(FileBaseStatistics) cachedStats : null;
+
+		try {
+			final FileSystem fs = FileSystem.get(this.filePath.toUri());
+			final ArrayList<FileStatus> files = new ArrayList<FileStatus>(1);
+
+			final FileBaseStatistics stats = getFileStats(cachedFileStats, this.filePath, fs, files);
+			if (stats == null || stats.getAverageRecordWidth() != BaseStatistics.AVG_RECORD_BYTES_UNKNOWN) {
+				// no statistics, or still valid cached statistics that include the record width
+				return stats;
+			}
+
+			long numRecords = 0;
+			for (FileStatus file : files) {
+				numRecords += countRecords(fs.open(file.getPath()), file.getLen());
+			}
+
+			return new AvroFileStatistics(stats.getLastModificationTime(), stats.getTotalInputSize(), numRecords);
+		}
+		catch (IOException ioex) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn("Could not determine statistics for file '" + this.filePath + "' due to an io error: "
+						+ ioex.getMessage());
+			}
+		}
+		catch (Throwable t) {
+			if (LOG.isErrorEnabled()) {
+				LOG.error("Unexpected problem while getting the file statistics for file '" + this.filePath + "': "
+						+ t.getMessage(), t);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Sums up the record counts in the block headers of an Avro data file, seeking from header to header.
+	 */
+	private static long countRecords(FSDataInputStream in, long fileLength) throws IOException {
+		final DataFileReader<Object> reader = new DataFileReader<Object>(new FSDataInputStreamWrapper(in, fileLength),
+			new GenericDatumReader<Object>());
+		try {
+			long numRecords = 0;
+			long position = reader.previousSync();
+			while (position < fileLength) {
+				in.seek(position);
+				final long[] header = new long[2];
+				position += readVarLong(in, header, 0);
+				position += readVarLong(in, header, 1);
+				numRecords += header[0];
+				position += header[1] + SYNC_SIZE;
+			}
+			return numRecords;
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reads a zig-zag encoded variable length long into the given array and returns the number of bytes read.
+	 */
+	private static int readVarLong(FSDataInputStream in, long[] target, int index) throws IOException {
+		long value = 0;
+		int shift = 0;
+		int numBytes = 0;
+		int b;
+		do {
+			b = in.read();
+			if (b < 0) {
+				throw new EOFException("Truncated block header.");
+			}
+			value |= ((long) (b & 0x7f)) << shift;
+			shift += 7;
+			numBytes++;
+		} while ((b & 0x80) != 0);
+
+		target[index] = (value >>> 1) ^ -(value & 1);
+		return numBytes;
+	}
+
+	/**
+	 * File statistics with the exact number of records.
+	 */
+	private static final class AvroFileStatistics extends FileBaseStatistics {
+
+		private final long numberOfRecords;
+
+		AvroFileStatistics(long fileModTime, long fileSize, long numberOfRecords) {
+			super(fileModTime, fileSize, numberOfRecords == 0 || fileSize == SIZE_UNKNOWN ? 0.0f :
+				((float) fileSize) / numberOfRecords);
+			this.numberOfRecords = numberOfRecords;
+		}
+
+		@Override
+		public long getNumberOfRecords() {
+			return this.numberOfRecords;
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+	//  Decoding
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Decodes the used fields of the Avro records into tuples. The reader schema is derived from the writer schema
+	 * of the file and contains only the used fields, so the resolving decoder skips all others.
+	 */
+	private static final class TupleDatumReader<T extends Tuple> implements DatumReader<T> {
+
+		private final String[] fieldNames;
+
+		private final Class<?>[] fieldTypes;
+
+		private final boolean[] fieldUsed;
+
+		/** The tuple position of every field of the reader schema. */
+		private int[] positions;
+
+		private ResolvingDecoder resolver;
+
+		private Utf8 utf8 = new Utf8();
+
+		private TupleDatumReader(String[] fieldNames, Class<?>[] fieldTypes, boolean[] fieldUsed) {
+			this.fieldNames = fieldNames;
+			this.fieldTypes = fieldTypes;
+			this.fieldUsed = fieldUsed;
+		}
+
+		@Override
+		public void setSchema(Schema writerSchema) {
+			if (writerSchema.getType() != Schema.Type.RECORD) {
+				throw new IllegalArgumentException("The Avro schema " + writerSchema + " is not a record schema.");
+			}
+
+			final List<Schema.Field> fields = new ArrayList<Schema.Field>(this.fieldNames.length);
+			final List<Integer> positions = new ArrayList<Integer>(this.fieldNames.length);
+			for (int i = 0; i < this.fieldNames.length; i++) {
+				if (this.fieldUsed != null && !this.fieldUsed[i]) {
+					continue;
+				}
+				final Schema.Field field = writerSchema.getField(this.fieldNames[i]);
+				if (field == null) {
+					throw new IllegalArgumentException("The Avro schema has no field '" + this.fieldNames[i] + "'.");
+				}
+				checkSchema(field.schema(), this.fieldNames[i], this.fieldTypes[i]);
+				fields.add(new Schema.Field(field.name(), field.schema(), field.doc(), null));
+				positions.add(i);
+			}
+
+			final Schema readerSchema = Schema.createRecord(writerSchema.getName(), writerSchema.getDoc(),
+				writerSchema.getNamespace(), writerSchema.isError());
+			readerSchema.setFields(fields);
+
+			this.positions = new int[positions.size()];
+			for (int i = 0; i < this.positions.length; i++) {
+				this.positions[i] = positions.get(i);
+			}
+
+			try {
+				this.resolver = DecoderFactory.get().resolvingDecoder(writerSchema, readerSchema, null);
+			} catch (IOException ioex) {
+				throw new IllegalArgumentException("Cannot resolve the reader schema: " + ioex.getMessage(), ioex);
+			}
+		}
+
+		@Override
+		public T read(T reuse, Decoder in) throws IOException {
+			final ResolvingDecoder resolver = this.resolver;
+			resolver.configure(in);
+
+			if (this.fieldUsed != null) {
+				for (int i = 0; i < this.fieldUsed.length; i++) {
+					if (!this.fieldUsed[i]) {
+						reuse.setField(defaultValue(this.fieldTypes[i]), i);
+					}
+				}
+			}
+			for (Schema.Field field : resolver.readFieldOrder()) {
+				final int position = this.positions[field.pos()];
+				reuse.setField(readValue(field.schema(), this.fieldTypes[position]), position);
+			}
+
+			resolver.drain();
+			return reuse;
+		}
+
+		private Object readValue(Schema schema, Class<?> type) throws IOException {
+			switch (schema.getType()) {
+				case NULL:
+					this.resolver.readNull();
+					return defaultValue(type);
+				case UNION:
+					return readValue(schema.getTypes().get(this.resolver.readIndex()), type);
+				case STRING:
+					this.utf8 = this.resolver.readString(this.utf8);
+					return this.utf8.toString();
+				case ENUM:
+					return schema.getEnumSymbols().get(this.resolver.readEnum());
+				case INT:
+					return convert(this.resolver.readInt(), type);
+				case LONG:
+					return convert(this.resolver.readLong(), type);
+				case FLOAT:
+					return convert(this.resolver.readFloat(), type);
+				case DOUBLE:
+					return convert(this.resolver.readDouble(), type);
+				case BOOLEAN:
+					final boolean value = this.resolver.readBoolean();
+					return type == String.class ? String.valueOf(value) : value;
+				default:
+					throw new IOException("Unsupported Avro type: " + schema.getType());
+			}
+		}
+
+		private static Object convert(long value, Class<?> type) {
+			if (type == Long.class) {
+				return value;
+			} else if (type == Integer.class) {
+				return (int) value;
+			} else if (type == Double.class) {
+				return (double) value;
+			} else if (type == Float.class) {
+				return (float) value;
+			} else {
+				return String.valueOf(value);
+			}
+		}
+
+		private static Object convert(double value, Class<?> type) {
+			if (type == Double.class) {
+				return value;
+			} else if (type == Float.class) {
+				return (float) value;
+			} else if (type == Long.class) {
+				return (long) value;
+			} else if (type == Integer.class) {
+				return (int) value;
+			} else {
+				return String.valueOf(value);
+			}
+		}
+
+		private static Object defaultValue(Class<?> type) {
+			if (type == String.class) {
+				return "";
+			} else if (type == Boolean.class) {
+				return false;
+			} else {
+				return convert(0L, type);
+			}
+		}
+
+		/**
+		 * Checks that every value of the given schema can be read into a tuple field of the given type.
+		 */
+		private static void checkSchema(Schema schema, String fieldName, Class<?> type) {
+			final boolean compatible;
+			switch (schema.getType()) {
+				case UNION:
+					for (Schema branch : schema.getTypes()) {
+						checkSchema(branch, fieldName, type);
+					}
+					return;
+				case NULL:
+					compatible = true;
+					break;
+				case STRING:
+				case ENUM:
+					compatible = type == String.class;
+					break;
+				case INT:
+				case LONG:
+				case FLOAT:
+				case DOUBLE:
+					compatible = type != Boolean.class;
+					break;
+				case BOOLEAN:
+					compatible = type == Boolean.class || type == String.class;
+					break;
+				default:
+					throw new IllegalArgumentException("The Avro field '" + fieldName + "' has the unsupported type "
+						+ schema.getType() + ".");
+			}
+
+			if (!compatible) {
+				throw new IllegalArgumentException("The Avro field '" + fieldName + "' of type " + schema.getType()
+					+ " cannot be read into a tuple field of type " + type.getName() + ".");
+			}
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public String toString() {
+		return "AvroTupleInputFormat (" + this.filePath + ")";
+	}
+}
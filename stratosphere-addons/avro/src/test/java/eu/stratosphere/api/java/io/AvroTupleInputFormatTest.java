@@ -0,0 +1,176 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.apache.avro.file.DataFileWriter;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.operators.util.FieldSet;
+import eu.stratosphere.api.java.record.io.avro.generated.Colors;
+import eu.stratosphere.api.java.record.io.avro.generated.User;
+import eu.stratosphere.api.java.tuple.Tuple1;
+import eu.stratosphere.api.java.tuple.Tuple4;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.Path;
+
+/**
+ * Tests for the {@link AvroTupleInputFormat}.
+ */
+public class AvroTupleInputFormatTest {
+
+	private static final int NUM_USERS = 1000;
+
+	private File testFile;
+
+	@Before
+	public void createFile() throws IOException {
+		this.testFile = File.createTempFile("AvroTupleInputFormatTest", null);
+
+		final DataFileWriter<User> writer = new DataFileWriter<User>(new SpecificDatumWriter<User>(User.class));
+		// small blocks, such that the file has many sync markers to split at
+		writer.setSyncInterval(1024);
+		writer.create(User.SCHEMA$, this.testFile);
+		for (int i = 0; i < NUM_USERS; i++) {
+			writer.append(User.newBuilder()
+				.setName("user" + i)
+				.setFavoriteNumber(i % 2 == 0 ? i : null)
+				.setFavoriteColor("color" + i)
+				.setTypeLongTest((long) i)
+				.setTypeDoubleTest(i / 2.0)
+				.setTypeNullTest(null)
+				.setTypeBoolTest(i % 3 == 0)
+				.setTypeArrayString(new ArrayList<CharSequence>())
+				.setTypeArrayBoolean(new ArrayList<Boolean>())
+				.setTypeNullableArray(null)
+				.setTypeEnum(Colors.values()[i % 3])
+				.setTypeMap(new HashMap<CharSequence, Long>())
+				.build());
+		}
+		writer.close();
+	}
+
+	@After
+	public void deleteFile() {
+		this.testFile.delete();
+	}
+
+	@Test
+	public void testReadSplits() throws IOException {
+		final AvroTupleInputFormat<Tuple4<String, Integer, Double, String>> format = createFormat();
+
+		final FileInputSplit[] splits = format.createInputSplits(4);
+		assertTrue(splits.length > 1);
+
+		final boolean[] seen = new boolean[NUM_USERS];
+		Tuple4<String, Integer, Double, String> tuple = new Tuple4<String, Integer, Double, String>();
+		int count = 0;
+		for (FileInputSplit split : splits) {
+			format.open(split);
+			while (!format.reachedEnd()) {
+				tuple = format.nextRecord(tuple);
+				final int i = Integer.parseInt(tuple.f0.substring(4));
+				assertFalse("Record read twice", seen[i]);
+				seen[i] = true;
+				assertEquals(i % 2 == 0 ? i : 0, tuple.f1.intValue());
+				assertEquals(i / 2.0, tuple.f2.doubleValue(), 0.0);
+				assertEquals(Colors.values()[i % 3].toString(), tuple.f3);
+				count++;
+			}
+			format.close();
+		}
+		assertEquals(NUM_USERS, count);
+	}
+
+	@Test
+	public void testProjection() throws IOException {
+		final AvroTupleInputFormat<Tuple4<String, Integer, Double, String>> format = createFormat();
+		format.setUsedFields(new FieldSet(0, 3));
+
+		format.open(format.createInputSplits(1)[0]);
+		Tuple4<String, Integer, Double, String> tuple = format.nextRecord(new Tuple4<String, Integer, Double, String>());
+		assertEquals("user0", tuple.f0);
+		assertEquals(0, tuple.f1.intValue());
+		assertEquals(0.0, tuple.f2.doubleValue(), 0.0);
+		assertEquals("RED", tuple.f3);
+
+		tuple = format.nextRecord(tuple);
+		assertEquals("user1", tuple.f0);
+		assertEquals(0.0, tuple.f2.doubleValue(), 0.0);
+		assertEquals("GREEN", tuple.f3);
+		format.close();
+	}
+
+	@Test
+	public void testStatistics() throws IOException {
+		final AvroTupleInputFormat<Tuple4<String, Integer, Double, String>> format = createFormat();
+
+		final BaseStatistics stats = format.getStatistics(null);
+		assertEquals(NUM_USERS, stats.getNumberOfRecords());
+		assertEquals(this.testFile.length(), stats.getTotalInputSize());
+	}
+
+	@Test
+	public void testEnumIntoNumberIsRejected() throws IOException {
+		assertIncompatible("type_enum", Integer.class);
+	}
+
+	@Test
+	public void testStringIntoBooleanIsRejected() throws IOException {
+		assertIncompatible("name", Boolean.class);
+	}
+
+	@Test
+	public void testNumberIntoBooleanIsRejected() throws IOException {
+		assertIncompatible("type_long_test", Boolean.class);
+	}
+
+	private void assertIncompatible(String fieldName, Class<?> type) throws IOException {
+		final AvroTupleInputFormat<Tuple1<Object>> format = new AvroTupleInputFormat<Tuple1<Object>>(
+			new Path(this.testFile.toURI().toString()), new String[] { fieldName }, type);
+		format.configure(new Configuration());
+
+		try {
+			format.open(format.createInputSplits(1)[0]);
+			fail("Reading the field '" + fieldName + "' into " + type.getName() + " did not fail.");
+		} catch (IllegalArgumentException iaex) {
+			assertTrue(iaex.getMessage().contains(fieldName));
+		} finally {
+			format.close();
+		}
+	}
+
+	private AvroTupleInputFormat<Tuple4<String, Integer, Double, String>> createFormat() {
+		final AvroTupleInputFormat<Tuple4<String, Integer, Double, String>> format =
+			new AvroTupleInputFormat<Tuple4<String, Integer, Double, String>>(new Path(this.testFile.toURI().toString()),
+				new String[] { "name", "favorite_number", "type_double_test", "type_enum" },
+				String.class, Integer.class, Double.class, String.class);
+		format.configure(new Configuration());
+		return format;
+	}
+}
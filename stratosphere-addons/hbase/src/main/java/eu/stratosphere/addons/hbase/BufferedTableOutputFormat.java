@@ -0,0 +1,328 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.addons.hbase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+
+import eu.stratosphere.addons.hbase.common.HBaseUtil;
+import eu.stratosphere.api.common.io.OutputFormat;
+import eu.stratosphere.configuration.Configuration;
+
+/**
+ * {@link OutputFormat} that writes to an HTable with buffered puts. The puts are collected per region into batches
+ * of bounded size. A full batch is handed to a background thread, which writes it while the task continues to produce
+ * records. At most a bounded number of batches wait for the background thread; if they are exhausted, the task
+ * blocks until the thread catches up.
+ * <p>
+ * Failures of the background thread are reported by the next call to {@link #writeRecord(Object)} or by
+ * {@link #close()}. For very large outputs, consider writing HFiles with the {@link GenericTableOutputFormat} and
+ * loading them in bulk.
+ *
+ * @param <T> The type of the written records.
+ */
+public abstract class BufferedTableOutputFormat<T> implements OutputFormat<T> {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Log LOG = LogFactory.getLog(BufferedTableOutputFormat.class);
+
+	/** The default size of a batch, in bytes. */
+	public static final long DEFAULT_BATCH_SIZE = 2 * 1024 * 1024;
+
+	/** The default number of full batches that may wait for the background thread. */
+	public static final int DEFAULT_MAX_PENDING_BATCHES = 4;
+
+	/** The interval in milliseconds at which a blocked task checks whether the background thread is still running. */
+	private static final long ENQUEUE_POLL_INTERVAL = 1000;
+
+	/** Marks the end of the batches for the background thread. */
+	private static final List<Put> END_OF_BATCHES = new ArrayList<Put>(0);
+
+	// --------------------------------------------------------------------------------------------
+
+	private final String tableName;
+
+	private String configLocation;
+
+	private long batchSize = DEFAULT_BATCH_SIZE;
+
+	private int maxPendingBatches = DEFAULT_MAX_PENDING_BATCHES;
+
+	private boolean writeToWAL = true;
+
+	// --------------------------------------------------------------------------------------------
+
+	private transient HTable locator;
+
+	private transient Map<String, Batch> batches;
+
+	private transient long bufferedBytes;
+
+	private transient FlushThread flusher;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a format that writes to the given table.
+	 *
+	 * @param tableName The name of the table.
+	 */
+	public BufferedTableOutputFormat(String tableName) {
+		if (tableName == null) {
+			throw new NullPointerException("The table name must not be null.");
+		}
+		this.tableName = tableName;
+	}
+
+	/**
+	 * Sets the location of the hbase-site.xml. By default, the hbase-site.xml on the class path is used.
+	 */
+	public BufferedTableOutputFormat<T> setConfigLocation(String configLocation) {
+		this.configLocation = configLocation;
+		return this;
+	}
+
+	/**
+	 * Sets the size in bytes at which the batch of a region is written.
+	 */
+	public BufferedTableOutputFormat<T> setBatchSize(long batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("The batch size must be positive.");
+		}
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Sets the number of full batches that may wait for the background thread before the task blocks. The batches
+	 * that are not full yet are bounded by the same number of bytes.
+	 */
+	public BufferedTableOutputFormat<T> setMaxPendingBatches(int maxPendingBatches) {
+		if (maxPendingBatches < 1) {
+			throw new IllegalArgumentException("The number of pending batches must be positive.");
+		}
+		this.maxPendingBatches = maxPendingBatches;
+		return this;
+	}
+
+	/**
+	 * Sets whether the puts are written to the write-ahead log. Disabling the log speeds up loads that can be
+	 * repeated, at the risk of losing data if a region server fails.
+	 */
+	public BufferedTableOutputFormat<T> setWriteToWAL(boolean writeToWAL) {
+		this.writeToWAL = writeToWAL;
+		return this;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates the put for the given record.
+	 *
+	 * @param record The record to write.
+	 * @return The put, or null to skip the record.
+	 * @throws IOException Thrown, if the record cannot be converted.
+	 */
+	protected abstract Put createPut(T record) throws IOException;
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void configure(Configuration parameters) {}
+
+	@Override
+	public void open(int taskNumber, int numTasks) throws IOException {
+		final org.apache.hadoop.conf.Configuration hConf = HBaseUtil.createConfiguration(this.configLocation);
+		this.locator = new HTable(hConf, this.tableName);
+		this.batches = new HashMap<String, Batch>();
+		this.bufferedBytes = 0;
+
+		final HTable table = new HTable(hConf, this.tableName);
+		table.setAutoFlush(false);
+		this.flusher = new FlushThread(table, this.maxPendingBatches, "HBase flusher for task " + taskNumber);
+		this.flusher.start();
+	}
+
+	@Override
+	public void writeRecord(T record) throws IOException {
+		this.flusher.checkError();
+
+		final Put put = createPut(record);
+		if (put == null) {
+			return;
+		}
+		put.setWriteToWAL(this.writeToWAL);
+
+		final String region = this.locator.getRegionLocation(put.getRow()).getRegionInfo().getEncodedName();
+		Batch batch = this.batches.get(region);
+		if (batch == null) {
+			batch = new Batch();
+			this.batches.put(region, batch);
+		}
+
+		final long size = put.heapSize();
+		batch.puts.add(put);
+		batch.bytes += size;
+		this.bufferedBytes += size;
+
+		if (batch.bytes >= this.batchSize) {
+			flush(region);
+		} else if (this.bufferedBytes >= this.batchSize * this.maxPendingBatches) {
+			// many regions with small batches, make room by writing the largest one
+			String largest = null;
+			long largestBytes = -1;
+			for (Map.Entry<String, Batch> entry : this.batches.entrySet()) {
+				if (entry.getValue().bytes > largestBytes) {
+					largest = entry.getKey();
+					largestBytes = entry.getValue().bytes;
+				}
+			}
+			flush(largest);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.flusher == null) {
+			return;
+		}
+
+		try {
+			for (Iterator<Batch> iter = this.batches.values().iterator(); iter.hasNext();) {
+				this.flusher.enqueue(iter.next().puts);
+				iter.remove();
+			}
+			this.flusher.enqueue(END_OF_BATCHES);
+			this.flusher.join();
+			this.flusher.checkError();
+		} catch (InterruptedException iex) {
+			this.flusher.interrupt();
+			throw new IOException("Closing was interrupted.", iex);
+		} catch (IOException ioex) {
+			// the thread may still be waiting for batches
+			this.flusher.interrupt();
+			throw ioex;
+		} finally {
+			this.flusher = null;
+			this.batches = null;
+			this.locator.close();
+			this.locator = null;
+		}
+	}
+
+	private void flush(String region) throws IOException {
+		final Batch batch = this.batches.remove(region);
+		this.bufferedBytes -= batch.bytes;
+		try {
+			this.flusher.enqueue(batch.puts);
+		} catch (InterruptedException iex) {
+			throw new IOException("Write request was interrupted.", iex);
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * The puts buffered for a region.
+	 */
+	private static final class Batch {
+
+		private final List<Put> puts = new ArrayList<Put>();
+
+		private long bytes;
+	}
+
+	/**
+	 * The background thread that writes the batches.
+	 */
+	static final class FlushThread extends Thread {
+
+		private final HTable table;
+
+		private final BlockingQueue<List<Put>> queue;
+
+		private volatile Throwable error;
+
+		FlushThread(HTable table, int capacity, String name) {
+			super(name);
+			setDaemon(true);
+			this.table = table;
+			this.queue = new ArrayBlockingQueue<List<Put>>(capacity);
+		}
+
+		/**
+		 * Hands a batch to the thread. Blocks while the queue is full, but fails instead of blocking forever if
+		 * the thread has terminated, for example because it was interrupted.
+		 */
+		void enqueue(List<Put> batch) throws IOException, InterruptedException {
+			checkError();
+			while (!this.queue.offer(batch, ENQUEUE_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+				checkError();
+				if (!isAlive()) {
+					throw new IOException("The thread writing to HBase has terminated.");
+				}
+			}
+		}
+
+		void checkError() throws IOException {
+			final Throwable error = this.error;
+			if (error != null) {
+				throw new IOException("Writing to HBase failed: " + error.getMessage(), error);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				List<Put> batch;
+				while ((batch = this.queue.take()) != END_OF_BATCHES) {
+					// after a failure, the batches are only drained to unblock the producer
+					if (this.error == null) {
+						try {
+							this.table.put(batch);
+							this.table.flushCommits();
+						} catch (Throwable t) {
+							this.error = t;
+						}
+					}
+				}
+			} catch (InterruptedException iex) {
+				if (this.error == null) {
+					this.error = iex;
+				}
+			} finally {
+				try {
+					this.table.close();
+				} catch (IOException ioex) {
+					if (LOG.isWarnEnabled()) {
+						LOG.warn("Closing the table failed: " + ioex.getMessage());
+					}
+				}
+			}
+		}
+	}
+}
@@ -15,11 +15,15 @@ package eu.stratosphere.addons.hbase;
 
 import java.util.Random;
 
+import eu.stratosphere.addons.hbase.common.HBaseKey;
 import eu.stratosphere.api.java.record.operators.GenericDataSink;
 import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.Order;
+import eu.stratosphere.api.common.operators.Ordering;
 
 /**
- * A sink for writing to HBase
+ * A sink for writing to HBase. The {@link GenericTableOutputFormat} writes HFiles that are loaded into the table in
+ * bulk, which requires the key values to arrive sorted by row key.
  */
 public class HBaseDataSink extends GenericDataSink {
 	
@@ -38,4 +42,20 @@ public class HBaseDataSink extends GenericDataSink {
 		setParameter(GenericTableOutputFormat.JT_ID_KEY, bld.toString());
 		setParameter(GenericTableOutputFormat.JOB_ID_KEY, rnd.nextInt());
 	}
+
+	/**
+	 * Creates a sink that sorts the records of every parallel instance on the given row key field before they are
+	 * written. The field must hold the row key as an {@link HBaseKey}, which compares row keys in HBase's unsigned
+	 * lexicographic byte order, so that the HFile writer receives the rows in the order it requires. The key values
+	 * of a single row must be emitted sorted by family and qualifier.
+	 *
+	 * @param f the format that writes the HFiles
+	 * @param input the operator that produces the records
+	 * @param rowKeyField the position of the {@link HBaseKey} row key in the records
+	 * @param name the name of the sink
+	 */
+	public HBaseDataSink(GenericTableOutputFormat f, Operator input, int rowKeyField, String name) {
+		this(f, input, name);
+		setLocalOrder(new Ordering(rowKeyField, HBaseKey.class, Order.ASCENDING));
+	}
 }
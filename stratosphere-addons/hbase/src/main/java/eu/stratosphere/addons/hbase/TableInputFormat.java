@@ -308,7 +308,24 @@ public class TableInputFormat implements InputFormat<Record, TableInputSplit> {
 			throw new IOException("No table was provided.");
 		}
 
-		final Pair<byte[][], byte[][]> keys = this.table.getStartEndKeys();
+		return createTableSplits(this.table, this.scan);
+	}
+
+	/**
+	 * Creates one split for every region of the given table that overlaps the row range of the given scan. The
+	 * splits are located at the hosts of the region servers, such that they are preferably read locally.
+	 * 
+	 * @param table
+	 *        the table to create the splits for
+	 * @param scan
+	 *        the scan whose start and stop row restrict the splits
+	 * @return the splits, one per region
+	 * @throws IOException
+	 *         thrown, if the region boundaries or locations could not be obtained
+	 */
+	static TableInputSplit[] createTableSplits(final HTable table, final Scan scan) throws IOException {
+
+		final Pair<byte[][], byte[][]> keys = table.getStartEndKeys();
 
 		if (keys == null || keys.getFirst() == null || keys.getFirst().length == 0) {
 
@@ -322,9 +339,10 @@ public class TableInputFormat implements InputFormat<Record, TableInputSplit> {
 				continue;
 			}
 
-			final String regionLocation = this.table.getRegionLocation(keys.getFirst()[i], false).getHostnamePort();
-			final byte[] startRow = this.scan.getStartRow();
-			final byte[] stopRow = this.scan.getStopRow();
+			// the host name without the port, so that it matches the host names of the task managers
+			final String regionLocation = table.getRegionLocation(keys.getFirst()[i], false).getHostname();
+			final byte[] startRow = scan.getStartRow();
+			final byte[] stopRow = scan.getStopRow();
 
 			// determine if the given start an stop key fall into the region
 			if ((startRow.length == 0 || keys.getSecond()[i].length == 0 ||
@@ -340,7 +358,7 @@ public class TableInputFormat implements InputFormat<Record, TableInputSplit> {
 					keys.getSecond()[i].length > 0 ?
 					keys.getSecond()[i] : stopRow;
 				final TableInputSplit split = new TableInputSplit(splits.size(), new String[] { regionLocation },
-					this.table.getTableName(), splitStart, splitStop);
+					table.getTableName(), splitStart, splitStop);
 				splits.add(split);
 				if (LOG.isDebugEnabled()) {
 					LOG.debug("getSplits: split -> " + (count++) + " -> " + split);
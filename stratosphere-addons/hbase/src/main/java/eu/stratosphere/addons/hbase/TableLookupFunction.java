@@ -0,0 +1,198 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.addons.hbase;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import eu.stratosphere.addons.hbase.common.HBaseUtil;
+import eu.stratosphere.api.java.functions.FlatMapFunction;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.util.Collector;
+
+/**
+ * Enriches the elements of a data set with rows looked up in an HTable. For every element, the function determines
+ * the keys of the rows to look up, fetches the rows that are not cached with a single multi-get, and joins the
+ * element with the rows. Only the columns added with {@link #addColumn(String, String)} are fetched. Recently
+ * fetched rows are kept in a cache of configurable size, so that frequent keys cause no round trips.
+ * <p>
+ * The lookups of an element are not batched with those of other elements: the runtime reuses the element objects,
+ * and a function cannot emit results after its input is exhausted.
+ *
+ * @param <IN> The type of the elements to enrich.
+ * @param <OUT> The type of the enriched elements.
+ */
+public abstract class TableLookupFunction<IN, OUT> extends FlatMapFunction<IN, OUT> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default number of rows kept in the cache. */
+	public static final int DEFAULT_CACHE_SIZE = 10000;
+
+	// --------------------------------------------------------------------------------------------
+
+	private final String tableName;
+
+	private final List<byte[]> families = new ArrayList<byte[]>();
+
+	private final List<byte[]> qualifiers = new ArrayList<byte[]>();
+
+	private String configLocation;
+
+	private int cacheSize = DEFAULT_CACHE_SIZE;
+
+	// --------------------------------------------------------------------------------------------
+
+	private transient HTable table;
+
+	private transient Map<ImmutableBytesWritable, Result> cache;
+
+	private transient List<Get> gets;
+
+	private transient List<Integer> getPositions;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a function that looks up rows in the given table.
+	 *
+	 * @param tableName The name of the table.
+	 */
+	public TableLookupFunction(String tableName) {
+		if (tableName == null) {
+			throw new NullPointerException("The table name must not be null.");
+		}
+		this.tableName = tableName;
+	}
+
+	/**
+	 * Adds a column to fetch. If no column is added, the complete rows are fetched.
+	 */
+	public TableLookupFunction<IN, OUT> addColumn(String family, String qualifier) {
+		this.families.add(Bytes.toBytes(family));
+		this.qualifiers.add(Bytes.toBytes(qualifier));
+		return this;
+	}
+
+	/**
+	 * Sets the location of the hbase-site.xml. By default, the hbase-site.xml on the class path is used.
+	 */
+	public TableLookupFunction<IN, OUT> setConfigLocation(String configLocation) {
+		this.configLocation = configLocation;
+		return this;
+	}
+
+	/**
+	 * Sets the number of rows kept in the cache. Zero disables the cache.
+	 */
+	public TableLookupFunction<IN, OUT> setCacheSize(int cacheSize) {
+		if (cacheSize < 0) {
+			throw new IllegalArgumentException("The cache size must not be negative.");
+		}
+		this.cacheSize = cacheSize;
+		return this;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Determines the keys of the rows to look up for the given element.
+	 *
+	 * @param value The element to enrich.
+	 * @return The keys of the rows to look up.
+	 */
+	protected abstract byte[][] getRowKeys(IN value);
+
+	/**
+	 * Joins the given element with the rows looked up for it.
+	 *
+	 * @param value The element to enrich.
+	 * @param rows The rows, in the order of the row keys. A row that does not exist is given as an empty result.
+	 * @param out The collector for the enriched elements.
+	 * @throws Exception This method may throw exceptions, which cause the operation to fail.
+	 */
+	protected abstract void join(IN value, Result[] rows, Collector<OUT> out) throws Exception;
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void open(Configuration parameters) throws Exception {
+		this.table = new HTable(HBaseUtil.createConfiguration(this.configLocation), this.tableName);
+		this.gets = new ArrayList<Get>();
+		this.getPositions = new ArrayList<Integer>();
+
+		final int cacheSize = this.cacheSize;
+		this.cache = new LinkedHashMap<ImmutableBytesWritable, Result>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ImmutableBytesWritable, Result> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	@Override
+	public void flatMap(IN value, Collector<OUT> out) throws Exception {
+		final byte[][] rowKeys = getRowKeys(value);
+		final Result[] rows = new Result[rowKeys.length];
+
+		for (int i = 0; i < rowKeys.length; i++) {
+			final Result cached = this.cache.get(new ImmutableBytesWritable(rowKeys[i]));
+			if (cached != null) {
+				rows[i] = cached;
+			} else {
+				final Get get = new Get(rowKeys[i]);
+				for (int c = 0; c < this.families.size(); c++) {
+					get.addColumn(this.families.get(c), this.qualifiers.get(c));
+				}
+				this.gets.add(get);
+				this.getPositions.add(i);
+			}
+		}
+
+		if (!this.gets.isEmpty()) {
+			// one round trip per region server for all rows that are not cached
+			final Result[] fetched = this.table.get(this.gets);
+			for (int i = 0; i < fetched.length; i++) {
+				final int position = this.getPositions.get(i);
+				rows[position] = fetched[i];
+				if (this.cacheSize > 0) {
+					this.cache.put(new ImmutableBytesWritable(rowKeys[position]), fetched[i]);
+				}
+			}
+			this.gets.clear();
+			this.getPositions.clear();
+		}
+
+		join(value, rows, out);
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (this.table != null) {
+			this.table.close();
+			this.table = null;
+		}
+		this.cache = null;
+	}
+}
@@ -0,0 +1,329 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.addons.hbase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.FirstKeyOnlyFilter;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import eu.stratosphere.addons.hbase.common.HBaseUtil;
+import eu.stratosphere.api.common.io.InputFormat;
+import eu.stratosphere.api.common.io.ProjectableInputFormat;
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.operators.util.FieldSet;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.api.java.typeutils.BasicTypeInfo;
+import eu.stratosphere.api.java.typeutils.PrimitiveArrayTypeInfo;
+import eu.stratosphere.api.java.typeutils.ResultTypeQueryable;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.types.TypeInformation;
+
+/**
+ * {@link InputFormat} that reads an HTable into tuples. The first field of a tuple holds the row key, the following
+ * fields hold the cells of the columns added with {@link #addColumn(String, String, Class)}, in that order. Row keys and
+ * cells are decoded with {@link Bytes} into strings, longs, integers, shorts, doubles, floats or booleans, or are kept as
+ * byte arrays. Missing cells are produced as the empty or zero value of their type.
+ * <p>
+ * The format creates one split per region, located at the host of the region server. Only the columns that the program
+ * uses are fetched from the region servers (see {@link ProjectableInputFormat}), and the scanners fetch the configured
+ * number of rows per round trip.
+ *
+ * @param <OUT> The type of the produced tuples.
+ */
+public class TupleTableInputFormat<OUT extends Tuple> implements InputFormat<OUT, TableInputSplit>,
+		ProjectableInputFormat, ResultTypeQueryable<OUT>
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Log LOG = LogFactory.getLog(TupleTableInputFormat.class);
+
+	/** The default number of rows fetched by the scanners per round trip. */
+	public static final int DEFAULT_SCANNER_CACHING = 1000;
+
+	private static final byte[] EMPTY_BYTES = new byte[0];
+
+	// --------------------------------------------------------------------------------------------
+
+	private final String tableName;
+
+	private final List<Class<?>> fieldTypes = new ArrayList<Class<?>>();
+
+	private final List<byte[]> families = new ArrayList<byte[]>();
+
+	private final List<byte[]> qualifiers = new ArrayList<byte[]>();
+
+	private String configLocation;
+
+	private byte[] startRow = EMPTY_BYTES;
+
+	private byte[] stopRow = EMPTY_BYTES;
+
+	private int scannerCaching = DEFAULT_SCANNER_CACHING;
+
+	private boolean cacheBlocks;
+
+	private boolean[] fieldUsed;
+
+	// --------------------------------------------------------------------------------------------
+
+	private transient HTable table;
+
+	private transient ResultScanner scanner;
+
+	private transient Result next;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a format that reads the given table.
+	 *
+	 * @param tableName The name of the table.
+	 * @param rowKeyType The type of the row keys, which make up the first field of the tuples.
+	 */
+	public TupleTableInputFormat(String tableName, Class<?> rowKeyType) {
+		if (tableName == null) {
+			throw new NullPointerException("The table name must not be null.");
+		}
+		this.tableName = tableName;
+		this.fieldTypes.add(checkType(rowKeyType));
+	}
+
+	/**
+	 * Adds a column whose cells make up the next field of the tuples.
+	 *
+	 * @param family The column family.
+	 * @param qualifier The column qualifier.
+	 * @param type The type of the cells.
+	 * @return This format, to allow for function chaining.
+	 */
+	public TupleTableInputFormat<OUT> addColumn(String family, String qualifier, Class<?> type) {
+		if (this.fieldTypes.size() == Tuple.MAX_ARITY) {
+			throw new IllegalArgumentException("The tuples can hold at most " + (Tuple.MAX_ARITY - 1) + " columns.");
+		}
+		this.fieldTypes.add(checkType(type));
+		this.families.add(Bytes.toBytes(family));
+		this.qualifiers.add(Bytes.toBytes(qualifier));
+		return this;
+	}
+
+	/**
+	 * Sets the location of the hbase-site.xml. By default, the hbase-site.xml on the class path is used.
+	 */
+	public TupleTableInputFormat<OUT> setConfigLocation(String configLocation) {
+		this.configLocation = configLocation;
+		return this;
+	}
+
+	/**
+	 * Restricts the rows read to the given range. The start row is inclusive, the stop row is exclusive.
+	 */
+	public TupleTableInputFormat<OUT> setRowRange(byte[] startRow, byte[] stopRow) {
+		this.startRow = startRow == null ? EMPTY_BYTES : startRow;
+		this.stopRow = stopRow == null ? EMPTY_BYTES : stopRow;
+		return this;
+	}
+
+	/**
+	 * Sets the number of rows the scanners fetch from the region servers per round trip.
+	 */
+	public TupleTableInputFormat<OUT> setScannerCaching(int scannerCaching) {
+		if (scannerCaching < 1) {
+			throw new IllegalArgumentException("The scanner caching must be positive.");
+		}
+		this.scannerCaching = scannerCaching;
+		return this;
+	}
+
+	/**
+	 * Sets whether the region servers keep the blocks read by the scans in their block caches. This is disabled by
+	 * default, since full table scans evict the blocks of other clients.
+	 */
+	public TupleTableInputFormat<OUT> setCacheBlocks(boolean cacheBlocks) {
+		this.cacheBlocks = cacheBlocks;
+		return this;
+	}
+
+	@Override
+	public void setUsedFields(FieldSet usedFields) {
+		if (usedFields == null) {
+			this.fieldUsed = null;
+			return;
+		}
+
+		this.fieldUsed = new boolean[this.fieldTypes.size()];
+		for (int i = 0; i < this.fieldUsed.length; i++) {
+			this.fieldUsed[i] = usedFields.contains(i);
+		}
+	}
+
+	@Override
+	public TypeInformation<OUT> getProducedType() {
+		final TypeInformation<?>[] types = new TypeInformation<?>[this.fieldTypes.size()];
+		for (int i = 0; i < types.length; i++) {
+			final Class<?> type = this.fieldTypes.get(i);
+			types[i] = type == byte[].class ? PrimitiveArrayTypeInfo.BYTE_PRIMITIVE_ARRAY_TYPE_INFO
+				: BasicTypeInfo.getInfoFor(type);
+		}
+		return new TupleTypeInfo<OUT>(types);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void configure(Configuration parameters) {}
+
+	@Override
+	public BaseStatistics getStatistics(BaseStatistics cachedStatistics) {
+		return cachedStatistics;
+	}
+
+	@Override
+	public TableInputSplit[] createInputSplits(int minNumSplits) throws IOException {
+		final HTable table = new HTable(HBaseUtil.createConfiguration(this.configLocation), this.tableName);
+		try {
+			return TableInputFormat.createTableSplits(table, createScan());
+		} finally {
+			table.close();
+		}
+	}
+
+	@Override
+	public Class<TableInputSplit> getInputSplitType() {
+		return TableInputSplit.class;
+	}
+
+	@Override
+	public void open(TableInputSplit split) throws IOException {
+		if (split == null) {
+			throw new IOException("Input split is null!");
+		}
+
+		this.table = new HTable(HBaseUtil.createConfiguration(this.configLocation), this.tableName);
+
+		final Scan scan = createScan();
+		scan.setStartRow(split.getStartRow());
+		scan.setStopRow(split.getEndRow());
+		this.scanner = this.table.getScanner(scan);
+		this.next = this.scanner.next();
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Opened scanner on " + split);
+		}
+	}
+
+	@Override
+	public boolean reachedEnd() {
+		return this.next == null;
+	}
+
+	@Override
+	public OUT nextRecord(OUT reuse) throws IOException {
+		final Result result = this.next;
+		if (result == null) {
+			return null;
+		}
+
+		reuse.setField(decode(this.fieldTypes.get(0), result.getRow()), 0);
+		for (int i = 1; i < this.fieldTypes.size(); i++) {
+			final byte[] cell = isUsed(i) ? result.getValue(this.families.get(i - 1), this.qualifiers.get(i - 1)) : null;
+			reuse.setField(decode(this.fieldTypes.get(i), cell), i);
+		}
+
+		this.next = this.scanner.next();
+		return reuse;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.scanner != null) {
+			this.scanner.close();
+			this.scanner = null;
+		}
+		if (this.table != null) {
+			this.table.close();
+			this.table = null;
+		}
+		this.next = null;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates the scan for the whole row range, fetching only the used columns.
+	 */
+	private Scan createScan() {
+		final Scan scan = new Scan(this.startRow, this.stopRow);
+		scan.setCaching(this.scannerCaching);
+		scan.setCacheBlocks(this.cacheBlocks);
+
+		boolean anyColumn = false;
+		for (int i = 1; i < this.fieldTypes.size(); i++) {
+			if (isUsed(i)) {
+				scan.addColumn(this.families.get(i - 1), this.qualifiers.get(i - 1));
+				anyColumn = true;
+			}
+		}
+		if (!anyColumn) {
+			// only the row keys are needed, so the region servers return a single cell per row
+			scan.setFilter(new FirstKeyOnlyFilter());
+		}
+		return scan;
+	}
+
+	private boolean isUsed(int field) {
+		return this.fieldUsed == null || this.fieldUsed[field];
+	}
+
+	private static Class<?> checkType(Class<?> type) {
+		if (type != String.class && type != Long.class && type != Integer.class && type != Short.class
+				&& type != Double.class && type != Float.class && type != Boolean.class && type != byte[].class)
+		{
+			throw new IllegalArgumentException("Unsupported field type: " + type);
+		}
+		return type;
+	}
+
+	/**
+	 * Decodes the given bytes into the given type, returning the empty or zero value for missing bytes.
+	 */
+	private static Object decode(Class<?> type, byte[] bytes) {
+		if (type == String.class) {
+			return bytes == null ? "" : Bytes.toString(bytes);
+		} else if (type == Long.class) {
+			return bytes == null ? 0L : Bytes.toLong(bytes);
+		} else if (type == Integer.class) {
+			return bytes == null ? 0 : Bytes.toInt(bytes);
+		} else if (type == Short.class) {
+			return bytes == null ? (short) 0 : Bytes.toShort(bytes);
+		} else if (type == Double.class) {
+			return bytes == null ? 0.0 : Bytes.toDouble(bytes);
+		} else if (type == Float.class) {
+			return bytes == null ? 0.0f : Bytes.toFloat(bytes);
+		} else if (type == Boolean.class) {
+			return bytes == null ? false : Bytes.toBoolean(bytes);
+		} else {
+			return bytes == null ? EMPTY_BYTES : bytes;
+		}
+	}
+}
@@ -19,9 +19,13 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.util.Base64;
 
+import eu.stratosphere.util.OperatingSystem;
+
 /**
  * Utility for {@link TableInputFormat}
  */
@@ -59,4 +63,24 @@ public class HBaseUtil {
 		scan.readFields(dis);
 		return scan;
 	}
+
+	/**
+	 * Creates an HBase configuration from the given hbase-site.xml.
+	 * 
+	 * @param configLocation
+	 *        The local path of the hbase-site.xml, or null to use the hbase-site.xml on the class path.
+	 * @return The HBase configuration.
+	 */
+	public static org.apache.hadoop.conf.Configuration createConfiguration(String configLocation) {
+		if (configLocation == null) {
+			return HBaseConfiguration.create();
+		}
+		org.apache.hadoop.conf.Configuration siteConf = new org.apache.hadoop.conf.Configuration();
+		if (OperatingSystem.isWindows()) {
+			siteConf.addResource(new Path("file:/" + configLocation));
+		} else {
+			siteConf.addResource(new Path("file://" + configLocation));
+		}
+		return HBaseConfiguration.create(siteConf);
+	}
 }
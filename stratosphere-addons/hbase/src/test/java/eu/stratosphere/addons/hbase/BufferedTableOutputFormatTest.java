@@ -0,0 +1,96 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.addons.hbase;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+/**
+ * This class contains unit tests for the background thread of the {@link BufferedTableOutputFormat}.
+ */
+public final class BufferedTableOutputFormatTest {
+
+	private static List<Put> createBatch() {
+		return Collections.singletonList(new Put(Bytes.toBytes("row")));
+	}
+
+	/**
+	 * Tests that a failed write is reported to the producer, which is not blocked by the remaining batches.
+	 */
+	@Test(timeout = 10000)
+	public void testFailedWriteIsReported() throws Exception {
+
+		final HTable table = mock(HTable.class);
+		doThrow(new IOException("region server unavailable")).when(table).put(anyListOf(Put.class));
+
+		final BufferedTableOutputFormat.FlushThread flusher = new BufferedTableOutputFormat.FlushThread(table, 1,
+			"test flusher");
+		flusher.start();
+
+		try {
+			// the thread drains the batches after the failure, so enqueueing never blocks
+			while (true) {
+				flusher.enqueue(createBatch());
+				Thread.sleep(10);
+			}
+		} catch (IOException ioex) {
+			assertTrue(ioex.getCause() instanceof IOException);
+		} finally {
+			flusher.interrupt();
+			flusher.join();
+		}
+
+		verify(table).close();
+	}
+
+	/**
+	 * Tests that the producer fails instead of blocking forever once the thread has been interrupted.
+	 */
+	@Test(timeout = 10000)
+	public void testInterruptedThreadDoesNotBlockProducer() throws Exception {
+
+		final HTable table = mock(HTable.class);
+
+		final BufferedTableOutputFormat.FlushThread flusher = new BufferedTableOutputFormat.FlushThread(table, 1,
+			"test flusher");
+		flusher.start();
+		flusher.interrupt();
+		flusher.join();
+
+		try {
+			// more batches than the queue can hold
+			for (int i = 0; i < 3; i++) {
+				flusher.enqueue(createBatch());
+			}
+			fail("Enqueueing to a terminated thread did not fail.");
+		} catch (IOException ioex) {
+			assertTrue(ioex.getCause() instanceof InterruptedException);
+		}
+
+		verify(table).close();
+	}
+}
@@ -15,12 +15,16 @@
 package eu.stratosphere.api.java.io.jdbc;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Date;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -29,14 +33,18 @@ import eu.stratosphere.api.common.io.InputFormat;
 import eu.stratosphere.api.common.io.statistics.BaseStatistics;
 import eu.stratosphere.api.java.tuple.Tuple;
 import eu.stratosphere.configuration.Configuration;
-import eu.stratosphere.core.io.GenericInputSplit;
 import eu.stratosphere.core.io.InputSplit;
 import eu.stratosphere.types.NullValue;
 
 /**
  * InputFormat to read data from a database and generate tuples.
  * The InputFormat has to be configured using the supplied InputFormatBuilder.
- * 
+ * <p>
+ * If a partition column is configured, the result of the query is read in parallel: the range of the column,
+ * either given explicitly or discovered with a MIN/MAX query, is divided into equally wide ranges and every
+ * split executes the query restricted to one of them. The partition column must be a numeric, date or time stamp
+ * column of the query's result.
+ *
  * @param <OUT>
  * @see Tuple
  * @see DriverManager
@@ -44,7 +52,6 @@ import eu.stratosphere.types.NullValue;
 public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, InputSplit> {
 	private static final long serialVersionUID = 1L;
 
-	@SuppressWarnings("unused")
 	private static final Log LOG = LogFactory.getLog(JDBCInputFormat.class);
 
 	private String username;
@@ -53,9 +60,18 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 	private String dbURL;
 	private String query;
 
+	private String partitionColumn;
+	private int partitionBoundType = Types.NULL;
+	private long partitionLowerBound;
+	private long partitionUpperBound;
+	private int numPartitions;
+
+	private int fetchSize;
+
 	private transient Connection dbConn;
-	private transient Statement statement;
+	private transient PreparedStatement statement;
 	private transient ResultSet resultSet;
+	private transient boolean hasNext;
 
 	private int[] columnTypes = null;
 
@@ -67,17 +83,33 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 	}
 
 	/**
-	 * Connects to the source database and executes the query.
+	 * Connects to the source database and executes the query, restricted to the range of the split.
 	 *
-	 * @param ignored
+	 * @param split The split to read, or null to read the complete result of the query.
 	 * @throws IOException
 	 */
 	@Override
-	public void open(InputSplit ignored) throws IOException {
+	public void open(InputSplit split) throws IOException {
 		try {
 			establishConnection();
-			statement = dbConn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
-			resultSet = statement.executeQuery(query);
+			if (split instanceof JDBCInputSplit && ((JDBCInputSplit) split).getTotalNumberOfSplits() > 1) {
+				final JDBCInputSplit jdbcSplit = (JDBCInputSplit) split;
+				statement = dbConn.prepareStatement(getSplitQuery(jdbcSplit), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+				int index = 1;
+				if (!jdbcSplit.isFirst()) {
+					setBound(statement, index++, jdbcSplit.getBoundType(), jdbcSplit.getLowerBound());
+				}
+				if (!jdbcSplit.isLast()) {
+					setBound(statement, index++, jdbcSplit.getBoundType(), jdbcSplit.getUpperBound());
+				}
+			} else {
+				statement = dbConn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			}
+			if (fetchSize != 0) {
+				statement.setFetchSize(fetchSize);
+			}
+			resultSet = statement.executeQuery();
+			hasNext = resultSet.next();
 		} catch (SQLException se) {
 			close();
 			throw new IllegalArgumentException("open() failed." + se.getMessage(), se);
@@ -95,6 +127,35 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 		}
 	}
 
+	/**
+	 * Wraps the query into a query that selects the rows of the split's range.
+	 */
+	private String getSplitQuery(JDBCInputSplit split) {
+		final StringBuilder splitQuery = new StringBuilder("SELECT * FROM (");
+		splitQuery.append(query).append(") split_query WHERE ");
+		if (split.isFirst()) {
+			splitQuery.append(partitionColumn).append(" < ? OR ").append(partitionColumn).append(" IS NULL");
+		} else if (split.isLast()) {
+			splitQuery.append(partitionColumn).append(" >= ?");
+		} else {
+			splitQuery.append(partitionColumn).append(" >= ? AND ").append(partitionColumn).append(" < ?");
+		}
+		return splitQuery.toString();
+	}
+
+	private static void setBound(PreparedStatement statement, int index, int boundType, long bound) throws SQLException {
+		switch (boundType) {
+			case Types.DATE:
+				statement.setDate(index, new java.sql.Date(bound));
+				break;
+			case Types.TIMESTAMP:
+				statement.setTimestamp(index, new Timestamp(bound));
+				break;
+			default:
+				statement.setLong(index, bound);
+		}
+	}
+
 	/**
 	 * Closes all resources used.
 	 *
@@ -130,15 +191,7 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 	 */
 	@Override
 	public boolean reachedEnd() throws IOException {
-		try {
-			if (resultSet.isLast()) {
-				close();
-				return true;
-			}
-			return false;
-		} catch (SQLException se) {
-			throw new IOException("Couldn't evaluate reachedEnd() - " + se.getMessage(), se);
-		}
+		return !hasNext;
 	}
 
 	/**
@@ -150,12 +203,15 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 	 */
 	@Override
 	public OUT nextRecord(OUT tuple) throws IOException {
+		if (!hasNext) {
+			return null;
+		}
 		try {
-			resultSet.next();
 			if (columnTypes == null) {
 				extractTypes(tuple);
 			}
 			addValue(tuple);
+			hasNext = resultSet.next();
 			return tuple;
 		} catch (SQLException se) {
 			close();
@@ -274,20 +330,157 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 
 	@Override
 	public BaseStatistics getStatistics(BaseStatistics cachedStatistics) throws IOException {
-		return cachedStatistics;
+		if (cachedStatistics != null && cachedStatistics.getNumberOfRecords() != BaseStatistics.NUM_RECORDS_UNKNOWN) {
+			return cachedStatistics;
+		}
+		try {
+			establishConnection();
+			statement = dbConn.prepareStatement("SELECT COUNT(*) FROM (" + query + ") count_query");
+			resultSet = statement.executeQuery();
+			if (!resultSet.next()) {
+				return cachedStatistics;
+			}
+			return new JDBCStatistics(resultSet.getLong(1));
+		} catch (SQLException se) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn("Could not determine the number of records - " + se.getMessage());
+			}
+			return cachedStatistics;
+		} catch (ClassNotFoundException cnfe) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn("JDBC-Class not found. - " + cnfe.getMessage());
+			}
+			return cachedStatistics;
+		} finally {
+			close();
+		}
 	}
 
+	/**
+	 * Creates the splits. Without a partition column, a single split reads the complete result of the query.
+	 * Otherwise, the range of the partition column is divided into the configured number of partitions, or
+	 * into the minimal number of splits, if no number of partitions is configured. If no bounds were given,
+	 * they are determined by querying the minimum and maximum of the partition column.
+	 */
 	@Override
-	public InputSplit[] createInputSplits(int minNumSplits) throws IOException {
-		GenericInputSplit[] split = {
-			new GenericInputSplit(0, 1)
-		};
-		return split;
+	public JDBCInputSplit[] createInputSplits(int minNumSplits) throws IOException {
+		int numSplits = numPartitions > 0 ? numPartitions : minNumSplits;
+		if (partitionColumn == null || numSplits <= 1) {
+			return new JDBCInputSplit[] { new JDBCInputSplit(0, 1) };
+		}
+
+		int boundType = partitionBoundType;
+		long lower = partitionLowerBound;
+		long upper = partitionUpperBound;
+
+		if (boundType == Types.NULL) {
+			try {
+				establishConnection();
+				statement = dbConn.prepareStatement("SELECT MIN(" + partitionColumn + "), MAX(" + partitionColumn
+					+ ") FROM (" + query + ") bounds_query");
+				resultSet = statement.executeQuery();
+				if (!resultSet.next() || resultSet.getObject(1) == null) {
+					// empty result, nothing to divide
+					return new JDBCInputSplit[] { new JDBCInputSplit(0, 1) };
+				}
+
+				boundType = resultSet.getMetaData().getColumnType(1);
+				switch (boundType) {
+					case Types.DATE:
+						lower = resultSet.getDate(1).getTime();
+						upper = resultSet.getDate(2).getTime();
+						break;
+					case Types.TIMESTAMP:
+						lower = resultSet.getTimestamp(1).getTime();
+						upper = resultSet.getTimestamp(2).getTime();
+						break;
+					case Types.TINYINT:
+					case Types.SMALLINT:
+					case Types.INTEGER:
+					case Types.BIGINT:
+						lower = resultSet.getLong(1);
+						upper = resultSet.getLong(2);
+						break;
+					case Types.FLOAT:
+					case Types.REAL:
+					case Types.DOUBLE:
+					case Types.DECIMAL:
+					case Types.NUMERIC:
+						lower = (long) Math.floor(resultSet.getDouble(1));
+						upper = (long) Math.ceil(resultSet.getDouble(2));
+						boundType = Types.BIGINT;
+						break;
+					default:
+						throw new IOException("Unsupported sql-type [" + boundType + "] of partition column ["
+							+ partitionColumn + "]");
+				}
+			} catch (SQLException se) {
+				throw new IOException("Couldn't determine the bounds of partition column [" + partitionColumn + "] - "
+					+ se.getMessage(), se);
+			} catch (ClassNotFoundException cnfe) {
+				throw new IllegalArgumentException("JDBC-Class not found. - " + cnfe.getMessage(), cnfe);
+			} finally {
+				close();
+			}
+		}
+
+		// divide [lower, upper] into ranges whose widths differ by at most one. The width of the whole range
+		// does not fit into a long if the bounds are far apart, e.g. Long.MIN_VALUE and Long.MAX_VALUE.
+		final BigInteger span = BigInteger.valueOf(upper).subtract(BigInteger.valueOf(lower)).add(BigInteger.ONE);
+		if (span.compareTo(BigInteger.valueOf(numSplits)) < 0) {
+			numSplits = Math.max(1, span.intValue());
+		}
+		final BigInteger[] widthAndRemainder = span.divideAndRemainder(BigInteger.valueOf(numSplits));
+		final BigInteger width = widthAndRemainder[0];
+		final int remainder = widthAndRemainder[1].intValue();
+
+		final JDBCInputSplit[] splits = new JDBCInputSplit[numSplits];
+		BigInteger start = BigInteger.valueOf(lower);
+		for (int i = 0; i < numSplits; i++) {
+			final BigInteger end = i < remainder ? start.add(width).add(BigInteger.ONE) : start.add(width);
+			// the upper bound of the last split is ignored, and its exclusive end may exceed the range of a long
+			final long upperBound = i == numSplits - 1 ? upper : end.longValue();
+			splits[i] = new JDBCInputSplit(i, numSplits, boundType, start.longValue(), upperBound);
+			start = end;
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Created " + numSplits + " splits on partition column [" + partitionColumn + "] for range ["
+				+ lower + ", " + upper + "].");
+		}
+		return splits;
 	}
 
 	@Override
 	public Class<? extends InputSplit> getInputSplitType() {
-		return GenericInputSplit.class;
+		return JDBCInputSplit.class;
+	}
+
+	/**
+	 * The statistics of a query, which only know the number of records.
+	 */
+	private static final class JDBCStatistics implements BaseStatistics {
+
+		private final long numRecords;
+
+		private JDBCStatistics(long numRecords) {
+			this.numRecords = numRecords;
+		}
+
+		@Override
+		public long getTotalInputSize() {
+			return SIZE_UNKNOWN;
+		}
+
+		@Override
+		public long getNumberOfRecords() {
+			return this.numRecords;
+		}
+
+		@Override
+		public float getAverageRecordWidth() {
+			return AVG_RECORD_BYTES_UNKNOWN;
+		}
 	}
 
 	/**
@@ -330,6 +523,54 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 			return this;
 		}
 
+		/**
+		 * Sets the column by which the result of the query is divided into splits. Unless bounds are set,
+		 * the range of the column is determined by querying its minimum and maximum.
+		 */
+		public JDBCInputFormatBuilder setPartitionColumn(String partitionColumn) {
+			format.partitionColumn = partitionColumn;
+			return this;
+		}
+
+		/**
+		 * Sets the range of a numeric partition column that is divided into splits. Rows outside of the range
+		 * are read by the first and the last split.
+		 */
+		public JDBCInputFormatBuilder setPartitionBounds(long lowerBound, long upperBound) {
+			format.partitionBoundType = Types.BIGINT;
+			format.partitionLowerBound = lowerBound;
+			format.partitionUpperBound = upperBound;
+			return this;
+		}
+
+		/**
+		 * Sets the range of a date or time stamp partition column that is divided into splits. Rows outside of
+		 * the range are read by the first and the last split.
+		 */
+		public JDBCInputFormatBuilder setPartitionBounds(Date lowerBound, Date upperBound) {
+			format.partitionBoundType = lowerBound instanceof java.sql.Date ? Types.DATE : Types.TIMESTAMP;
+			format.partitionLowerBound = lowerBound.getTime();
+			format.partitionUpperBound = upperBound.getTime();
+			return this;
+		}
+
+		/**
+		 * Sets the number of splits created on the partition column. By default, as many splits as the
+		 * degree of parallelism of the source are created.
+		 */
+		public JDBCInputFormatBuilder setNumPartitions(int numPartitions) {
+			format.numPartitions = numPartitions;
+			return this;
+		}
+
+		/**
+		 * Sets the number of rows fetched from the database at once. Zero leaves the choice to the driver.
+		 */
+		public JDBCInputFormatBuilder setFetchSize(int fetchSize) {
+			format.fetchSize = fetchSize;
+			return this;
+		}
+
 		public JDBCInputFormat finish() {
 			if (format.username == null) {
 				LOG.info("Username was not supplied separately.");
@@ -346,6 +587,17 @@ public class JDBCInputFormat<OUT extends Tuple> implements InputFormat<OUT, Inpu
 			if (format.drivername == null) {
 				throw new IllegalArgumentException("No driver supplied");
 			}
+			if (format.partitionBoundType != Types.NULL) {
+				if (format.partitionColumn == null) {
+					throw new IllegalArgumentException("Partition bounds supplied without partition column");
+				}
+				if (format.partitionLowerBound > format.partitionUpperBound) {
+					throw new IllegalArgumentException("Lower partition bound is larger than upper partition bound");
+				}
+			}
+			if (format.numPartitions < 0) {
+				throw new IllegalArgumentException("Number of partitions must not be negative");
+			}
 			return format;
 		}
 	}
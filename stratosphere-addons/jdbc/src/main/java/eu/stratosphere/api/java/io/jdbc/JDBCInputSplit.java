@@ -0,0 +1,116 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.io.jdbc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.core.io.GenericInputSplit;
+
+/**
+ * An input split of the {@link JDBCInputFormat} that covers a range of values of the partition column. The
+ * range includes the lower bound and excludes the upper bound. The first split has no lower bound and
+ * additionally covers the rows where the partition column is NULL, the last split has no upper bound. Hence,
+ * the splits cover all rows of the query, even if the configured bounds do not.
+ */
+public class JDBCInputSplit extends GenericInputSplit {
+
+	/**
+	 * The SQL type of the bounds, as defined in {@link java.sql.Types}. Numeric bounds are bound as longs,
+	 * temporal bounds are given in milliseconds since the epoch.
+	 */
+	private int boundType;
+
+	private long lowerBound;
+
+	private long upperBound;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Default constructor for instantiation during de-serialization.
+	 */
+	public JDBCInputSplit() {}
+
+	/**
+	 * Creates a split that reads the complete result of the query.
+	 */
+	public JDBCInputSplit(int partitionNumber, int totalNumberOfPartitions) {
+		this(partitionNumber, totalNumberOfPartitions, java.sql.Types.NULL, 0L, 0L);
+	}
+
+	/**
+	 * Creates a split that reads the rows whose partition column lies in the given range.
+	 *
+	 * @param partitionNumber The number of the split's partition.
+	 * @param totalNumberOfPartitions The total number of the splits (partitions).
+	 * @param boundType The SQL type of the bounds.
+	 * @param lowerBound The inclusive lower bound. Ignored for the first split.
+	 * @param upperBound The exclusive upper bound. Ignored for the last split.
+	 */
+	public JDBCInputSplit(int partitionNumber, int totalNumberOfPartitions, int boundType, long lowerBound, long upperBound) {
+		super(partitionNumber, totalNumberOfPartitions);
+		this.boundType = boundType;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	public int getBoundType() {
+		return this.boundType;
+	}
+
+	public long getLowerBound() {
+		return this.lowerBound;
+	}
+
+	public long getUpperBound() {
+		return this.upperBound;
+	}
+
+	public boolean isFirst() {
+		return this.partitionNumber == 0;
+	}
+
+	public boolean isLast() {
+		return this.partitionNumber == this.totalNumberOfPartitions - 1;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		super.write(out);
+		out.writeInt(this.boundType);
+		out.writeLong(this.lowerBound);
+		out.writeLong(this.upperBound);
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		super.read(in);
+		this.boundType = in.readInt();
+		this.lowerBound = in.readLong();
+		this.upperBound = in.readLong();
+	}
+
+	@Override
+	public String toString() {
+		return "JDBCInputSplit (" + this.partitionNumber + "/" + this.totalNumberOfPartitions + ", ["
+			+ this.lowerBound + ", " + this.upperBound + "))";
+	}
+}
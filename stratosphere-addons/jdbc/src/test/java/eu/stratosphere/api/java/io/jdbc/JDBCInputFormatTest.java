@@ -27,8 +27,10 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
 import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.api.java.tuple.Tuple5;
+import eu.stratosphere.core.io.InputSplit;
 
 public class JDBCInputFormatTest {
 	JDBCInputFormat jdbcInputFormat;
@@ -189,4 +191,85 @@ public class JDBCInputFormatTest {
 		Assert.assertEquals(5, recordCount);
 	}
 
+	@Test
+	public void testPartitionedSplitsWithDiscoveredBounds() throws IOException {
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select * from books")
+				.setPartitionColumn("id")
+				.setFetchSize(2)
+				.finish();
+		InputSplit[] splits = jdbcInputFormat.createInputSplits(3);
+		Assert.assertEquals(3, splits.length);
+		Assert.assertEquals(5, readSplits(splits));
+	}
+
+	@Test
+	public void testPartitionedSplitsWithBounds() throws IOException {
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select * from books")
+				.setPartitionColumn("id")
+				.setPartitionBounds(1002, 1003)
+				.setNumPartitions(10)
+				.finish();
+		// the range contains only two values, the rows outside of it go to the first and last split
+		InputSplit[] splits = jdbcInputFormat.createInputSplits(1);
+		Assert.assertEquals(2, splits.length);
+		Assert.assertEquals(5, readSplits(splits));
+	}
+
+	@Test
+	public void testPartitionedSplitsWithFullLongRange() throws IOException {
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select * from books")
+				.setPartitionColumn("id")
+				.setPartitionBounds(Long.MIN_VALUE, Long.MAX_VALUE)
+				.setNumPartitions(4)
+				.finish();
+		// the width of the range overflows a long, the splits must still be consecutive and ascending
+		InputSplit[] splits = jdbcInputFormat.createInputSplits(1);
+		Assert.assertEquals(4, splits.length);
+		Assert.assertEquals(Long.MIN_VALUE, ((JDBCInputSplit) splits[0]).getLowerBound());
+		Assert.assertEquals(0L, ((JDBCInputSplit) splits[2]).getLowerBound());
+		for (int i = 1; i < splits.length; i++) {
+			Assert.assertEquals(((JDBCInputSplit) splits[i - 1]).getUpperBound(), ((JDBCInputSplit) splits[i]).getLowerBound());
+		}
+		Assert.assertEquals(Long.MAX_VALUE, ((JDBCInputSplit) splits[3]).getUpperBound());
+		// the splits are not read, the bounds exceed the range of the INTEGER column
+	}
+
+	@Test
+	public void testStatistics() throws IOException {
+		jdbcInputFormat = JDBCInputFormat.buildJDBCInputFormat()
+				.setDrivername("org.apache.derby.jdbc.EmbeddedDriver")
+				.setDBUrl("jdbc:derby:memory:ebookshop")
+				.setQuery("select * from books where qty > 20")
+				.finish();
+		BaseStatistics statistics = jdbcInputFormat.getStatistics(null);
+		Assert.assertEquals(4, statistics.getNumberOfRecords());
+	}
+
+	private int readSplits(InputSplit[] splits) throws IOException {
+		boolean[] seen = new boolean[dbData.length];
+		Tuple5 tuple = new Tuple5();
+		int recordCount = 0;
+		for (InputSplit split : splits) {
+			jdbcInputFormat.open(split);
+			while (!jdbcInputFormat.reachedEnd()) {
+				jdbcInputFormat.nextRecord(tuple);
+				int index = (Integer) tuple.getField(0) - 1001;
+				Assert.assertFalse("Row read twice", seen[index]);
+				seen[index] = true;
+				recordCount++;
+			}
+			jdbcInputFormat.close();
+		}
+		return recordCount;
+	}
+
 }
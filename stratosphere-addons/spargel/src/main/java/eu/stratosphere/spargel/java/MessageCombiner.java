@@ -0,0 +1,47 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.spargel.java;
+
+import java.io.Serializable;
+
+/**
+ * A message combiner merges the messages that are sent to the same target vertex into a single message. Combiners
+ * are optional and set via {@link VertexCentricIteration#setMessageCombiner(MessageCombiner)}. They reduce the
+ * number of messages that are shipped between the supersteps, because the messages are merged on the sending side
+ * already, before they are sent over the network.
+ * <p>
+ * The combiner may be applied any number of times, on any subset of the messages for a vertex and in any order. It
+ * must hence be associative and commutative, such as a sum (PageRank) or a minimum (shortest paths, connected
+ * components). When a combiner is set, the {@link VertexUpdateFunction} receives exactly one message per vertex.
+ * 
+ * <VertexKey> The vertex key type.
+ * <Message> The message type.
+ */
+public abstract class MessageCombiner<VertexKey extends Comparable<VertexKey>, Message> implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+	
+	/**
+	 * Merges two messages that are sent to the same vertex into one message. The method may return one of
+	 * the two given messages, after modifying it.
+	 * 
+	 * @param vertexKey The key (identifier) of the target vertex.
+	 * @param message1 The first message.
+	 * @param message2 The second message.
+	 * @return The merged message.
+	 * 
+	 * @throws Exception The combiner may throw exceptions, which causes the superstep to fail.
+	 */
+	public abstract Message combineMessages(VertexKey vertexKey, Message message1, Message message2) throws Exception;
+}
@@ -17,6 +17,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.apache.commons.lang3.Validate;
 
@@ -24,13 +25,18 @@ import eu.stratosphere.api.common.aggregators.Aggregator;
 import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.DeltaIteration;
 import eu.stratosphere.api.java.functions.CoGroupFunction;
+import eu.stratosphere.api.java.functions.JoinFunction;
+import eu.stratosphere.api.java.functions.ReduceFunction;
 import eu.stratosphere.api.java.operators.CoGroupOperator;
 import eu.stratosphere.api.java.operators.CustomUnaryOperation;
+import eu.stratosphere.api.java.operators.JoinOperator;
+import eu.stratosphere.api.java.operators.TwoInputUdfOperator;
 import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.api.java.tuple.Tuple3;
 import eu.stratosphere.api.java.typeutils.ResultTypeQueryable;
 import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
 import eu.stratosphere.api.java.typeutils.TypeExtractor;
+import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.types.TypeInformation;
 import eu.stratosphere.util.Collector;
@@ -59,6 +65,10 @@ import eu.stratosphere.util.Collector;
  * {@link #withPlainEdges(DataSet, VertexUpdateFunction, MessagingFunction, int)} method, or the
  * {@link #withValuedEdges(DataSet, VertexUpdateFunction, MessagingFunction, int)} method, depending on whether
  * the graph's edges are carrying values.
+ * <p>
+ * If the messages sent to a vertex can be merged, a {@link MessageCombiner} may be set via
+ * {@link #setMessageCombiner(MessageCombiner)}. The messages are then combined before they are sent, and the
+ * vertex update function receives a single message per vertex.
  *
  * @param <VertexKey> The type of the vertex key (the vertex identifier).
  * @param <VertexValue> The type of the vertex value (the state of the vertex).
@@ -86,6 +96,8 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 	
 	private final TypeInformation<Message> messageType;
 	
+	private MessageCombiner<VertexKey, Message> combiner;
+	
 	private DataSet<Tuple2<VertexKey, VertexValue>> initialVertices;
 	
 	private String name;
@@ -191,6 +203,25 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 		this.bcVarsUpdate.add(new Tuple2<String, DataSet<?>>(name, data));
 	}
 	
+	/**
+	 * Sets the combiner that merges the messages sent to the same vertex. With a combiner, the messages are merged
+	 * before they are shipped to the vertex, and the vertex update function receives exactly one message per vertex.
+	 * 
+	 * @param combiner The message combiner, or null, to not combine the messages.
+	 */
+	public void setMessageCombiner(MessageCombiner<VertexKey, Message> combiner) {
+		this.combiner = combiner;
+	}
+	
+	/**
+	 * Gets the combiner that merges the messages sent to the same vertex.
+	 * 
+	 * @return The message combiner, or null, if none is set.
+	 */
+	public MessageCombiner<VertexKey, Message> getMessageCombiner() {
+		return combiner;
+	}
+	
 	/**
 	 * Sets the name for the vertex-centric iteration. The name is displayed in logs and messages.
 	 * 
@@ -301,26 +332,56 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 			messages = this.edgesWithValue.coGroup(iteration.getWorkset()).where(0).equalTo(0).with(messenger);
 		}
 		
-		// configure coGroup message function with name and broadcast variables
-		messages = messages.name("Messaging");
+		// configure coGroup message function with name and broadcast variables. the edges are indexed
+		// once and kept across supersteps, the vertices of the workset look up their outgoing edges.
+		// the coGroup is then not called for the edges of vertices outside the workset, which does not
+		// change the result, because the messaging UDFs emit nothing for edges without a vertex state
+		Configuration messagingParameters = new Configuration();
+		messagingParameters.setString(PactCompiler.HINT_LOCAL_STRATEGY, PactCompiler.HINT_LOCAL_STRATEGY_HASH_INDEX_FIRST);
+		messages = messages.name("Messaging").withParameters(messagingParameters);
 		for (Tuple2<String, DataSet<?>> e : this.bcVarsMessaging) {
 			messages = messages.withBroadcastSet(e.f1, e.f0);
 		}
 		
-		VertexUpdateUdf<VertexKey, VertexValue, Message> updateUdf = new VertexUpdateUdf<VertexKey, VertexValue, Message>(updateFunction, vertexTypes);
-		
-		// build the update function (co group)
-		CoGroupOperator<?, ?, Tuple2<VertexKey, VertexValue>> updates =
-				messages.coGroup(iteration.getSolutionSet()).where(0).equalTo(0).with(updateUdf);
-		
-		// configure coGroup update function with name and broadcast variables
-		updates = updates.name("Vertex State Updates");
-		for (Tuple2<String, DataSet<?>> e : this.bcVarsUpdate) {
-			updates = updates.withBroadcastSet(e.f1, e.f0);
+		TwoInputUdfOperator<?, ?, Tuple2<VertexKey, VertexValue>, ?> updates;
+		if (this.combiner == null) {
+			// build the update function (co group)
+			VertexUpdateUdf<VertexKey, VertexValue, Message> updateUdf = new VertexUpdateUdf<VertexKey, VertexValue, Message>(updateFunction, vertexTypes);
+			CoGroupOperator<?, ?, Tuple2<VertexKey, VertexValue>> coGroup =
+					messages.coGroup(iteration.getSolutionSet()).where(0).equalTo(0).with(updateUdf);
+			
+			// configure coGroup update function with name and broadcast variables
+			coGroup = coGroup.name("Vertex State Updates");
+			for (Tuple2<String, DataSet<?>> e : this.bcVarsUpdate) {
+				coGroup = coGroup.withBroadcastSet(e.f1, e.f0);
+			}
+			
+			// let the operator know that we preserve the key field
+			updates = coGroup.withConstantSetFirst("0").withConstantSetSecond("0");
+		}
+		else {
+			// merge the messages per target vertex. the reduce is combinable, so the messages are merged
+			// before they are shipped, and every vertex receives exactly one message. the reduce preserves
+			// the key field, so that the messages need not be partitioned again for the update function
+			MessageCombinerUdf<VertexKey, Message> combinerUdf = new MessageCombinerUdf<VertexKey, Message>(this.combiner);
+			DataSet<Tuple2<VertexKey, Message>> combinedMessages = messages.groupBy(0).reduce(combinerUdf)
+					.name("Message Combiner").withConstantSet("0");
+			
+			// build the update function (join). a join with the solution set looks up the vertex state in
+			// the solution set's hash table for every message, so the messages need not be sorted
+			VertexUpdateJoinUdf<VertexKey, VertexValue, Message> updateUdf = new VertexUpdateJoinUdf<VertexKey, VertexValue, Message>(updateFunction, vertexTypes);
+			JoinOperator<?, ?, Tuple2<VertexKey, VertexValue>> join =
+					combinedMessages.join(iteration.getSolutionSet()).where(0).equalTo(0).with(updateUdf);
+			
+			// configure join update function with name and broadcast variables
+			join = join.name("Vertex State Updates");
+			for (Tuple2<String, DataSet<?>> e : this.bcVarsUpdate) {
+				join = join.withBroadcastSet(e.f1, e.f0);
+			}
+			
+			// let the operator know that we preserve the key field
+			updates = join.withConstantSetFirst("0").withConstantSetSecond("0");
 		}
-
-		// let the operator know that we preserve the key field
-		updates.withConstantSetFirst("0").withConstantSetSecond("0");
 		
 		return iteration.closeWith(updates, updates);
 		
@@ -453,6 +514,128 @@ public class VertexCentricIteration<VertexKey extends Comparable<VertexKey>, Ver
 		}
 	}
 	
+	/*
+	 * UDF that encapsulates the vertex update function for combined messages, where every vertex receives a single message.
+	 */
+	private static final class VertexUpdateJoinUdf<VertexKey extends Comparable<VertexKey>, VertexValue, Message> 
+		extends JoinFunction<Tuple2<VertexKey, Message>, Tuple2<VertexKey, VertexValue>, Tuple2<VertexKey, VertexValue>>
+		implements ResultTypeQueryable<Tuple2<VertexKey, VertexValue>>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final VertexUpdateFunction<VertexKey, VertexValue, Message> vertexUpdateFunction;
+
+		private final MessageIterator<Message> messageIter = new MessageIterator<Message>();
+		
+		private final SingleMessageIterator<Message> singleMessage = new SingleMessageIterator<Message>();
+		
+		private transient TypeInformation<Tuple2<VertexKey, VertexValue>> resultType;
+		
+		
+		private VertexUpdateJoinUdf(VertexUpdateFunction<VertexKey, VertexValue, Message> vertexUpdateFunction,
+				TypeInformation<Tuple2<VertexKey, VertexValue>> resultType)
+		{
+			this.vertexUpdateFunction = vertexUpdateFunction;
+			this.resultType = resultType;
+		}
+
+		@Override
+		public void join(Tuple2<VertexKey, Message> message, Tuple2<VertexKey, VertexValue> vertexState,
+				Collector<Tuple2<VertexKey, VertexValue>> out)
+			throws Exception
+		{
+			// the join with the solution set hands over messages without a vertex with a null vertex state
+			if (vertexState == null) {
+				throw new Exception("Target vertex '" + message.f0 + "' does not exist!.");
+			}
+			
+			singleMessage.set(message);
+			messageIter.setSource(singleMessage);
+			
+			vertexUpdateFunction.setOutput(vertexState, out);
+			vertexUpdateFunction.updateVertex(vertexState.f0, vertexState.f1, messageIter);
+		}
+		
+		@Override
+		public Tuple2<VertexKey, VertexValue> join(Tuple2<VertexKey, Message> message, Tuple2<VertexKey, VertexValue> vertexState) {
+			throw new UnsupportedOperationException();
+		}
+		
+		@Override
+		public void open(Configuration parameters) throws Exception {
+			if (getIterationRuntimeContext().getSuperstepNumber() == 1) {
+				this.vertexUpdateFunction.init(getIterationRuntimeContext());
+			}
+			this.vertexUpdateFunction.preSuperstep();
+		}
+		
+		@Override
+		public void close() throws Exception {
+			this.vertexUpdateFunction.postSuperstep();
+		}
+
+		@Override
+		public TypeInformation<Tuple2<VertexKey, VertexValue>> getProducedType() {
+			return this.resultType;
+		}
+	}
+	
+	/*
+	 * Iterator over the one combined message of a vertex.
+	 */
+	private static final class SingleMessageIterator<Message> implements Iterator<Tuple2<?, Message>>, java.io.Serializable {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private transient Tuple2<?, Message> message;
+		
+		void set(Tuple2<?, Message> message) {
+			this.message = message;
+		}
+		
+		@Override
+		public boolean hasNext() {
+			return this.message != null;
+		}
+		
+		@Override
+		public Tuple2<?, Message> next() {
+			if (this.message == null) {
+				throw new NoSuchElementException();
+			}
+			Tuple2<?, Message> next = this.message;
+			this.message = null;
+			return next;
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+	
+	/*
+	 * UDF that encapsulates the message combiner.
+	 */
+	private static final class MessageCombinerUdf<VertexKey extends Comparable<VertexKey>, Message> 
+		extends ReduceFunction<Tuple2<VertexKey, Message>>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final MessageCombiner<VertexKey, Message> combiner;
+		
+		
+		private MessageCombinerUdf(MessageCombiner<VertexKey, Message> combiner) {
+			this.combiner = combiner;
+		}
+		
+		@Override
+		public Tuple2<VertexKey, Message> reduce(Tuple2<VertexKey, Message> message1, Tuple2<VertexKey, Message> message2) throws Exception {
+			message1.f1 = combiner.combineMessages(message1.f0, message1.f1, message2.f1);
+			return message1;
+		}
+	}
+	
 	/*
 	 * UDF that encapsulates the message sending function for graphs where the edges have no associated values.
 	 */
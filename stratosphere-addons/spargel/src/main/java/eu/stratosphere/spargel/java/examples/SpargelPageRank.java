@@ -18,6 +18,7 @@ import eu.stratosphere.api.java.functions.FlatMapFunction;
 import eu.stratosphere.api.java.functions.MapFunction;
 import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.api.java.tuple.Tuple3;
+import eu.stratosphere.spargel.java.MessageCombiner;
 import eu.stratosphere.spargel.java.MessageIterator;
 import eu.stratosphere.spargel.java.MessagingFunction;
 import eu.stratosphere.spargel.java.OutgoingEdge;
@@ -60,9 +61,11 @@ public class SpargelPageRank {
 									}
 								});
 		
-		DataSet<Tuple2<Long, Double>> result = intialRanks.runOperation(
-			VertexCentricIteration.withValuedEdges(edgesWithProbability,
-						new VertexRankUpdater(numVertices, BETA), new RankMessenger(), 20));
+		VertexCentricIteration<Long, Double, Double, Double> iteration = VertexCentricIteration.withValuedEdges(edgesWithProbability,
+						new VertexRankUpdater(numVertices, BETA), new RankMessenger(), 20);
+		iteration.setMessageCombiner(new RankCombiner());
+		
+		DataSet<Tuple2<Long, Double>> result = intialRanks.runOperation(iteration);
 		
 		result.print();
 		env.execute("Spargel PageRank");
@@ -108,4 +111,15 @@ public class SpargelPageRank {
 			}
 		}
 	}
+	
+	/**
+	 * Sums up the partial ranks that are sent to the same vertex, before they are shipped.
+	 */
+	public static final class RankCombiner extends MessageCombiner<Long, Double> {
+		
+		@Override
+		public Double combineMessages(Long vertexKey, Double message1, Double message2) {
+			return message1 + message2;
+		}
+	}
 }
@@ -16,27 +16,38 @@
 package eu.stratosphere.spargel.java;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.Iterator;
+
 import org.junit.Test;
 
 import eu.stratosphere.api.common.Plan;
 import eu.stratosphere.api.common.operators.util.FieldList;
 import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.functions.CoGroupFunction;
 import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.compiler.CompilerException;
+import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.compiler.plan.DualInputPlanNode;
 import eu.stratosphere.compiler.plan.OptimizedPlan;
 import eu.stratosphere.compiler.plan.PlanNode;
+import eu.stratosphere.compiler.plan.SingleInputPlanNode;
 import eu.stratosphere.compiler.plan.SinkPlanNode;
 import eu.stratosphere.compiler.plan.WorksetIterationPlanNode;
+import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
 import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
+import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.CCCombiner;
 import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.CCMessager;
 import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.CCUpdater;
 import eu.stratosphere.spargel.java.examples.SpargelConnectedComponents.IdAssigner;
 import eu.stratosphere.test.compiler.util.CompilerTestBase;
+import eu.stratosphere.util.Collector;
 
 
 public class SpargelCompilerTest extends CompilerTestBase {
@@ -85,7 +96,8 @@ public class SpargelCompilerTest extends CompilerTestBase {
 			assertEquals(DEFAULT_PARALLELISM, edgeJoin.getDegreeOfParallelism());
 			assertEquals(ShipStrategyType.PARTITION_HASH, edgeJoin.getInput1().getShipStrategy());
 			assertEquals(ShipStrategyType.FORWARD, edgeJoin.getInput2().getShipStrategy());
-			assertTrue(edgeJoin.getInput1().getTempMode().isCached());
+			assertEquals(DriverStrategy.CO_GROUP_INDEXED_FIRST, edgeJoin.getDriverStrategy());
+			assertFalse(edgeJoin.getInput1().getTempMode().isCached());
 			
 			assertEquals(new FieldList(0), edgeJoin.getInput1().getShipStrategyKeys());
 			
@@ -160,7 +172,8 @@ public class SpargelCompilerTest extends CompilerTestBase {
 			assertEquals(DEFAULT_PARALLELISM, edgeJoin.getDegreeOfParallelism());
 			assertEquals(ShipStrategyType.PARTITION_HASH, edgeJoin.getInput1().getShipStrategy());
 			assertEquals(ShipStrategyType.FORWARD, edgeJoin.getInput2().getShipStrategy());
-			assertTrue(edgeJoin.getInput1().getTempMode().isCached());
+			assertEquals(DriverStrategy.CO_GROUP_INDEXED_FIRST, edgeJoin.getDriverStrategy());
+			assertFalse(edgeJoin.getInput1().getTempMode().isCached());
 			
 			assertEquals(new FieldList(0), edgeJoin.getInput1().getShipStrategyKeys());
 			
@@ -176,4 +189,106 @@ public class SpargelCompilerTest extends CompilerTestBase {
 			fail(e.getMessage());
 		}
 	}
+	
+	@Test
+	public void testSpargelCompilerWithMessageCombiner() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			// compose test program
+			{
+				DataSet<Long> vertexIds = env.generateSequence(1, 2);
+				
+				@SuppressWarnings("unchecked")
+				DataSet<Tuple2<Long, Long>> edges = env.fromElements(new Tuple2<Long, Long>(1L, 2L));
+				
+				DataSet<Tuple2<Long, Long>> initialVertices = vertexIds.map(new IdAssigner());
+				
+				VertexCentricIteration<Long, Long, Long, ?> vcIter = VertexCentricIteration.withPlainEdges(edges, new CCUpdater(), new CCMessager(), 100);
+				vcIter.setMessageCombiner(new CCCombiner());
+				
+				DataSet<Tuple2<Long, Long>> result = initialVertices.runOperation(vcIter);
+				
+				result.print();
+			}
+			
+			Plan p = env.createProgramPlan("Spargel Connected Components");
+			OptimizedPlan op = compileNoStats(p);
+			
+			// check the sink
+			SinkPlanNode sink = op.getDataSinks().iterator().next();
+			assertEquals(ShipStrategyType.FORWARD, sink.getInput().getShipStrategy());
+			
+			// check the iteration
+			WorksetIterationPlanNode iteration = (WorksetIterationPlanNode) sink.getInput().getSource();
+			assertEquals(DEFAULT_PARALLELISM, iteration.getDegreeOfParallelism());
+			
+			// check that the solution set is joined, not co-grouped, and that the messages are not sorted
+			PlanNode ssDelta = iteration.getSolutionSetDeltaPlanNode();
+			assertTrue(ssDelta instanceof DualInputPlanNode);
+			
+			DualInputPlanNode ssJoin = (DualInputPlanNode) ssDelta;
+			assertEquals(DriverStrategy.HYBRIDHASH_BUILD_SECOND, ssJoin.getDriverStrategy());
+			assertEquals(ShipStrategyType.FORWARD, ssJoin.getInput1().getShipStrategy());
+			assertEquals(LocalStrategy.NONE, ssJoin.getInput1().getLocalStrategy());
+			
+			// check that the messages are combined before they are partitioned
+			SingleInputPlanNode reducer = (SingleInputPlanNode) ssJoin.getInput1().getSource();
+			assertEquals(DriverStrategy.SORTED_REDUCE, reducer.getDriverStrategy());
+			assertEquals(ShipStrategyType.PARTITION_HASH, reducer.getInput().getShipStrategy());
+			assertEquals(new FieldList(0), reducer.getInput().getShipStrategyKeys());
+			
+			SingleInputPlanNode combiner = (SingleInputPlanNode) reducer.getInput().getSource();
+			assertEquals(DriverStrategy.SORTED_PARTIAL_REDUCE, combiner.getDriverStrategy());
+			assertEquals(ShipStrategyType.FORWARD, combiner.getInput().getShipStrategy());
+			
+			// check the workset set join
+			DualInputPlanNode edgeJoin = (DualInputPlanNode) combiner.getInput().getSource();
+			assertEquals(ShipStrategyType.PARTITION_HASH, edgeJoin.getInput1().getShipStrategy());
+			assertEquals(ShipStrategyType.FORWARD, edgeJoin.getInput2().getShipStrategy());
+			assertEquals(DriverStrategy.CO_GROUP_INDEXED_FIRST, edgeJoin.getDriverStrategy());
+			assertFalse(edgeJoin.getInput1().getTempMode().isCached());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testHashIndexHintOutsideIteration() {
+		ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+		
+		@SuppressWarnings("unchecked")
+		DataSet<Tuple2<Long, Long>> edges = env.fromElements(new Tuple2<Long, Long>(1L, 2L));
+		DataSet<Tuple2<Long, Long>> vertices = env.generateSequence(1, 2).map(new IdAssigner());
+		
+		Configuration parameters = new Configuration();
+		parameters.setString(PactCompiler.HINT_LOCAL_STRATEGY, PactCompiler.HINT_LOCAL_STRATEGY_HASH_INDEX_FIRST);
+		edges.coGroup(vertices).where(0).equalTo(0).with(new FirstInputCoGroup()).withParameters(parameters).print();
+		
+		try {
+			compileNoStats(env.createProgramPlan("Hash index outside of an iteration"));
+			fail("The hash index hint was accepted outside of an iteration.");
+		}
+		catch (CompilerException e) {
+			// expected
+		}
+	}
+	
+	private static final class FirstInputCoGroup extends CoGroupFunction<Tuple2<Long, Long>, Tuple2<Long, Long>, Tuple2<Long, Long>> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		public void coGroup(Iterator<Tuple2<Long, Long>> first, Iterator<Tuple2<Long, Long>> second,
+				Collector<Tuple2<Long, Long>> out)
+		{
+			while (first.hasNext()) {
+				out.collect(first.next());
+			}
+		}
+	}
 }
@@ -30,8 +30,8 @@ import eu.stratosphere.api.common.JobExecutionResult;
 import eu.stratosphere.api.common.Plan;
 import eu.stratosphere.api.java.ExecutionEnvironment;
 import eu.stratosphere.compiler.CompilerException;
-import eu.stratosphere.compiler.DataStatistics;
 import eu.stratosphere.compiler.PactCompiler;
+import eu.stratosphere.compiler.PersistentDataStatistics;
 import eu.stratosphere.compiler.contextcheck.ContextChecker;
 import eu.stratosphere.compiler.costs.DefaultCostEstimator;
 import eu.stratosphere.compiler.plan.OptimizedPlan;
@@ -77,7 +77,7 @@ public class Client {
 		configuration.setString(ConfigConstants.JOB_MANAGER_IPC_ADDRESS_KEY, jobManagerAddress.getAddress().getHostAddress());
 		configuration.setInteger(ConfigConstants.JOB_MANAGER_IPC_PORT_KEY, jobManagerAddress.getPort());
 		
-		this.compiler = new PactCompiler(new DataStatistics(), new DefaultCostEstimator(), jobManagerAddress);
+		this.compiler = new PactCompiler(PersistentDataStatistics.fromConfiguration(config), new DefaultCostEstimator(), jobManagerAddress);
 		
 		//  Disable Local Execution when using a Client
 		ContextEnvironment.disableLocalExecution();
@@ -105,7 +105,7 @@ public class Client {
 		}
 
 		final InetSocketAddress jobManagerAddress = new InetSocketAddress(address, port);
-		this.compiler = new PactCompiler(new DataStatistics(), new DefaultCostEstimator(), jobManagerAddress);
+		this.compiler = new PactCompiler(PersistentDataStatistics.fromConfiguration(config), new DefaultCostEstimator(), jobManagerAddress);
 		
 		//  Disable Local Execution when using a Client
 		ContextEnvironment.disableLocalExecution();
@@ -29,7 +29,13 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.io.ProjectableInputFormat;
+import eu.stratosphere.api.common.operators.AbstractUdfOperator;
+import eu.stratosphere.api.common.operators.DualInputOperator;
+import eu.stratosphere.api.common.operators.DualInputSemanticProperties;
 import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.SingleInputOperator;
+import eu.stratosphere.api.common.operators.SingleInputSemanticProperties;
 import eu.stratosphere.api.common.operators.Union;
 import eu.stratosphere.api.common.operators.base.BulkIterationBase;
 import eu.stratosphere.api.common.operators.base.BulkIterationBase.PartialSolutionPlaceHolder;
@@ -39,6 +45,7 @@ import eu.stratosphere.api.common.operators.base.CrossOperatorBase;
 import eu.stratosphere.api.common.operators.base.DeltaIterationBase;
 import eu.stratosphere.api.common.operators.base.DeltaIterationBase.SolutionSetPlaceHolder;
 import eu.stratosphere.api.common.operators.base.DeltaIterationBase.WorksetPlaceHolder;
+import eu.stratosphere.api.common.operators.base.DistinctOperatorBase;
 import eu.stratosphere.api.common.operators.base.FilterOperatorBase;
 import eu.stratosphere.api.common.operators.base.FlatMapOperatorBase;
 import eu.stratosphere.api.common.operators.base.GenericDataSinkBase;
@@ -47,6 +54,7 @@ import eu.stratosphere.api.common.operators.base.GroupReduceOperatorBase;
 import eu.stratosphere.api.common.operators.base.JoinOperatorBase;
 import eu.stratosphere.api.common.operators.base.MapOperatorBase;
 import eu.stratosphere.api.common.operators.base.ReduceOperatorBase;
+import eu.stratosphere.api.common.operators.util.FieldSet;
 import eu.stratosphere.compiler.costs.CostEstimator;
 import eu.stratosphere.compiler.costs.DefaultCostEstimator;
 import eu.stratosphere.compiler.dag.BinaryUnionNode;
@@ -57,6 +65,7 @@ import eu.stratosphere.compiler.dag.CollectorMapNode;
 import eu.stratosphere.compiler.dag.CrossNode;
 import eu.stratosphere.compiler.dag.DataSinkNode;
 import eu.stratosphere.compiler.dag.DataSourceNode;
+import eu.stratosphere.compiler.dag.DistinctNode;
 import eu.stratosphere.compiler.dag.FilterNode;
 import eu.stratosphere.compiler.dag.FlatMapNode;
 import eu.stratosphere.compiler.dag.GroupReduceNode;
@@ -66,9 +75,11 @@ import eu.stratosphere.compiler.dag.MatchNode;
 import eu.stratosphere.compiler.dag.OptimizerNode;
 import eu.stratosphere.compiler.dag.PactConnection;
 import eu.stratosphere.compiler.dag.ReduceNode;
+import eu.stratosphere.compiler.dag.SingleInputNode;
 import eu.stratosphere.compiler.dag.SinkJoiner;
 import eu.stratosphere.compiler.dag.SolutionSetNode;
 import eu.stratosphere.compiler.dag.TempMode;
+import eu.stratosphere.compiler.dag.TwoInputNode;
 import eu.stratosphere.compiler.dag.WorksetIterationNode;
 import eu.stratosphere.compiler.dag.WorksetNode;
 import eu.stratosphere.compiler.deadlockdetect.DeadlockPreventer;
@@ -275,6 +286,19 @@ public class PactCompiler {
 	 */
 	public static final String HINT_LOCAL_STRATEGY_HASH_BUILD_SECOND = "LOCAL_STRATEGY_HASH_BUILD_SECOND";
 
+	/**
+	 * Value for the local strategy compiler hint that enforces a <b>hash index</b> on the first input.
+	 * A <i>CoGroup</i> operator inside an iteration will index the groups of its static <b>first</b> input once
+	 * and probe the index with the groups of the second input in every superstep. The hint is rejected for
+	 * operators outside of iterations and for first inputs that change across supersteps.
+	 * <p>
+	 * The function is only called for the groups of the second input, so this hint is meant for library
+	 * operators whose functions ignore groups without a partner in the second input.
+	 * 
+	 * @see #HINT_LOCAL_STRATEGY
+	 */
+	public static final String HINT_LOCAL_STRATEGY_HASH_INDEX_FIRST = "LOCAL_STRATEGY_HASH_INDEX_FIRST";
+
 	/**
 	 * Value for the local strategy compiler hint that chooses the outer side of the <b>nested-loop</b> local strategy.
 	 * A <i>Cross</i> operator will process the data of the <b>first</b> input in the outer-loop of the nested loops.
@@ -689,6 +713,9 @@ public class PactCompiler {
 		// now that we have all nodes created and recorded which ones consume memory, tell the nodes their minimal
 		// guaranteed memory, for further cost estimations. we assume an equal distribution of memory among consumer tasks
 		
+		// tell the input formats that can skip unused fields which fields the program actually uses
+		rootNode.accept(new InputProjectionVisitor());
+		
 		rootNode.accept(new IdAndMemoryAndEstimatesVisitor(this.statistics,
 			graphCreator.getMemoryConsumerCount() == 0 ? 0 : memoryPerInstance / graphCreator.getMemoryConsumerCount()));
 		
@@ -845,6 +872,9 @@ public class PactCompiler {
 			else if (c instanceof FilterOperatorBase) {
 				n = new FilterNode((FilterOperatorBase<?, ?>) c);
 			}
+			else if (c instanceof DistinctOperatorBase) {
+				n = new DistinctNode((DistinctOperatorBase<?>) c);
+			}
 			else if (c instanceof ReduceOperatorBase) {
 				n = new ReduceNode((ReduceOperatorBase<?, ?>) c);
 			}
@@ -1103,6 +1133,191 @@ public class PactCompiler {
 		}
 	}
 	
+	/**
+	 * Visitor that determines for each data source with a {@link ProjectableInputFormat} the fields that are
+	 * used by the program and pushes them into the input format. A field is used if a consumer reads it, uses it
+	 * as a key or for a group order, or forwards it to a field that is used further downstream. The analysis relies
+	 * on the declared semantic properties. If any consumer does not declare both the fields it reads and its
+	 * constant fields, or is not a regular single or dual input operator, all fields are considered used.
+	 */
+	private static final class InputProjectionVisitor implements Visitor<OptimizerNode> {
+		
+		private final Set<OptimizerNode> seenBefore = new HashSet<OptimizerNode>();
+		
+		/** The used output fields per node. A null value means that all fields are used. */
+		private final Map<OptimizerNode, FieldSet> usedFields = new HashMap<OptimizerNode, FieldSet>();
+		
+		@Override
+		public boolean preVisit(OptimizerNode visitable) {
+			return this.seenBefore.add(visitable);
+		}
+
+		@Override
+		public void postVisit(OptimizerNode visitable) {
+			if (visitable instanceof IterationNode) {
+				((IterationNode) visitable).acceptForStepFunction(this);
+			}
+			
+			if (!(visitable instanceof DataSourceNode)) {
+				return;
+			}
+			
+			final Object format;
+			try {
+				format = ((DataSourceNode) visitable).getPactContract().getFormatWrapper().getUserCodeObject();
+			}
+			catch (Throwable t) {
+				// the format is instantiated again later, and reports the problem then
+				return;
+			}
+			
+			if (format instanceof ProjectableInputFormat) {
+				final FieldSet used = getUsedOutputFields(visitable);
+				((ProjectableInputFormat) format).setUsedFields(used);
+				
+				if (used != null && LOG.isDebugEnabled()) {
+					LOG.debug("Input '" + visitable.getPactContract().getName() + "' only produces fields " + used);
+				}
+			}
+		}
+		
+		private FieldSet getUsedOutputFields(OptimizerNode node) {
+			if (this.usedFields.containsKey(node)) {
+				return this.usedFields.get(node);
+			}
+			
+			FieldSet used = computeUsedOutputFields(node);
+			this.usedFields.put(node, used);
+			return used;
+		}
+		
+		private FieldSet computeUsedOutputFields(OptimizerNode node) {
+			final List<PactConnection> outConns = node.getOutgoingConnections();
+			final Operator<?> producer = node.getPactContract();
+			
+			if (outConns == null || outConns.isEmpty() || producer.getOperatorInfo() == null ||
+					producer.getOperatorInfo().getOutputType() == null ||
+					!producer.getOperatorInfo().getOutputType().isTupleType())
+			{
+				return null;
+			}
+			
+			final int arity = producer.getOperatorInfo().getOutputType().getArity();
+			FieldSet used = FieldSet.EMPTY_SET;
+			
+			for (PactConnection conn : outConns) {
+				final OptimizerNode target = conn.getTarget();
+				final FieldSet usedByTarget;
+				
+				if (target instanceof SingleInputNode && ((SingleInputNode) target).getIncomingConnection() == conn) {
+					usedByTarget = getFieldsUsedBySingleInput(target, arity);
+				}
+				else if (target instanceof TwoInputNode && ((TwoInputNode) target).getFirstIncomingConnection() == conn) {
+					usedByTarget = getFieldsUsedByDualInput(target, 0, arity);
+				}
+				else if (target instanceof TwoInputNode && ((TwoInputNode) target).getSecondIncomingConnection() == conn) {
+					usedByTarget = getFieldsUsedByDualInput(target, 1, arity);
+				}
+				else {
+					// sinks, broadcast variables, ...
+					usedByTarget = null;
+				}
+				
+				if (usedByTarget == null) {
+					return null;
+				}
+				used = used.addFields(usedByTarget);
+			}
+			
+			return used;
+		}
+		
+		private FieldSet getFieldsUsedBySingleInput(OptimizerNode target, int inputArity) {
+			if (!(target.getPactContract() instanceof SingleInputOperator)) {
+				return null;
+			}
+			
+			final SingleInputOperator<?, ?, ?> op = (SingleInputOperator<?, ?, ?>) target.getPactContract();
+			final SingleInputSemanticProperties props = op.getSemanticProperties();
+			if (props == null || props.getReadFields() == null) {
+				return null;
+			}
+			
+			FieldSet fields = props.getReadFields().addFields(getKeyFields(op, 0));
+			if (op instanceof GroupReduceOperatorBase && ((GroupReduceOperatorBase<?, ?, ?>) op).getGroupOrder() != null) {
+				fields = fields.addFields(((GroupReduceOperatorBase<?, ?, ?>) op).getGroupOrder().getInvolvedIndexes());
+			}
+			
+			// filters emit their input records as they are
+			if (op instanceof FilterOperatorBase) {
+				final FieldSet downstream = getUsedOutputFields(target);
+				return downstream == null ? null : fields.addFields(downstream);
+			}
+			
+			// without declared constant fields, the function may copy fields it does not read
+			boolean forwardingDeclared = false;
+			for (int i = 0; i < inputArity; i++) {
+				final FieldSet targets = props.getForwardedField(i);
+				if (targets != null) {
+					forwardingDeclared = true;
+					if (!fields.contains(i) && isAnyFieldUsed(target, targets)) {
+						fields = fields.addField(i);
+					}
+				}
+			}
+			return forwardingDeclared ? fields : null;
+		}
+		
+		private FieldSet getFieldsUsedByDualInput(OptimizerNode target, int input, int inputArity) {
+			if (!(target.getPactContract() instanceof DualInputOperator)) {
+				return null;
+			}
+			
+			final DualInputOperator<?, ?, ?, ?> op = (DualInputOperator<?, ?, ?, ?>) target.getPactContract();
+			final DualInputSemanticProperties props = op.getSemanticProperties();
+			final FieldSet readFields = props == null ? null : (input == 0 ? props.getReadFields1() : props.getReadFields2());
+			if (readFields == null) {
+				return null;
+			}
+			
+			FieldSet fields = readFields.addFields(getKeyFields(op, input));
+			if (op instanceof CoGroupOperatorBase && ((CoGroupOperatorBase<?, ?, ?, ?>) op).getGroupOrder(input) != null) {
+				fields = fields.addFields(((CoGroupOperatorBase<?, ?, ?, ?>) op).getGroupOrder(input).getInvolvedIndexes());
+			}
+			
+			// without declared constant fields, the function may copy fields it does not read
+			boolean forwardingDeclared = false;
+			for (int i = 0; i < inputArity; i++) {
+				final FieldSet targets = input == 0 ? props.getForwardedField1(i) : props.getForwardedField2(i);
+				if (targets != null) {
+					forwardingDeclared = true;
+					if (!fields.contains(i) && isAnyFieldUsed(target, targets)) {
+						fields = fields.addField(i);
+					}
+				}
+			}
+			return forwardingDeclared ? fields : null;
+		}
+		
+		private boolean isAnyFieldUsed(OptimizerNode node, FieldSet fields) {
+			final FieldSet used = getUsedOutputFields(node);
+			if (used == null) {
+				return true;
+			}
+			for (Integer field : fields) {
+				if (used.contains(field)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		
+		private static int[] getKeyFields(AbstractUdfOperator<?, ?> op, int input) {
+			final int[] keys = op.getKeyColumns(input);
+			return keys == null ? new int[0] : keys;
+		}
+	}
+	
 	/**
 	 * Simple visitor that sets the minimal guaranteed memory per task based on the amount of available memory,
 	 * the number of memory consumers, and on the task's degree of parallelism.
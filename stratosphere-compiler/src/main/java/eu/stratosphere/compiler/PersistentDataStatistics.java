@@ -0,0 +1,243 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.io.FileInputFormat.FileBaseStatistics;
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.Configuration;
+
+/**
+ * A variant of the {@link DataStatistics} that persists the statistics of file inputs to a local
+ * directory, such that they survive the compiler instance and are reused across job submissions.
+ * <p>
+ * Only {@link FileBaseStatistics} are persisted. They carry the modification time of the files
+ * they were computed for, so the input formats discard them as soon as any of the files changes
+ * (see {@link eu.stratosphere.api.common.io.FileInputFormat#getStatistics(BaseStatistics)}). The
+ * refreshed statistics then replace the outdated entry. The number of persisted entries is bounded;
+ * the least recently used entries are evicted first.
+ */
+public class PersistentDataStatistics extends DataStatistics {
+
+	private static final Log LOG = LogFactory.getLog(PersistentDataStatistics.class);
+
+	/**
+	 * The name of the file in the cache directory that holds the statistics.
+	 */
+	static final String CACHE_FILE_NAME = "file-statistics.cache";
+
+	/**
+	 * Version tag of the cache file format. Files with a different version are ignored.
+	 */
+	private static final int CACHE_FILE_VERSION = 1;
+
+	private final File cacheFile;
+
+	private final LinkedHashMap<String, FileBaseStatistics> persistentEntries;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a new statistics object that persists the file statistics in the given directory.
+	 * Statistics that were previously persisted in that directory are loaded.
+	 *
+	 * @param cacheDirectory The directory in which the statistics are persisted.
+	 * @param maxEntries The maximum number of persisted statistics.
+	 */
+	public PersistentDataStatistics(File cacheDirectory, final int maxEntries) {
+		if (cacheDirectory == null) {
+			throw new NullPointerException("The cache directory must not be null.");
+		}
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("The maximum number of cache entries must be at least one.");
+		}
+
+		this.cacheFile = new File(cacheDirectory, CACHE_FILE_NAME);
+		this.persistentEntries = new LinkedHashMap<String, FileBaseStatistics>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, FileBaseStatistics> eldest) {
+				return size() > maxEntries;
+			}
+		};
+
+		if (!cacheDirectory.exists() && !cacheDirectory.mkdirs()) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn("Could not create statistics cache directory '" + cacheDirectory.getAbsolutePath() +
+					"'. Statistics will not be persisted.");
+			}
+		}
+
+		load();
+	}
+
+	/**
+	 * Creates the statistics object described by the given configuration. If the configuration defines
+	 * a statistics cache directory, the statistics are persisted there. Otherwise, they are cached in memory only.
+	 *
+	 * @param config The configuration.
+	 * @return The statistics object.
+	 */
+	public static DataStatistics fromConfiguration(Configuration config) {
+		final String dir = config.getString(ConfigConstants.COMPILER_STATISTICS_CACHE_DIR_KEY, null);
+		if (dir == null || dir.trim().isEmpty()) {
+			return new DataStatistics();
+		}
+
+		final int maxEntries = config.getInteger(ConfigConstants.COMPILER_STATISTICS_CACHE_MAX_ENTRIES_KEY,
+			ConfigConstants.DEFAULT_COMPILER_STATISTICS_CACHE_MAX_ENTRIES);
+		return new PersistentDataStatistics(new File(dir.trim()), maxEntries);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public BaseStatistics getBaseStatistics(String inputIdentifier) {
+		synchronized (this.persistentEntries) {
+			final FileBaseStatistics persisted = this.persistentEntries.get(inputIdentifier);
+			if (persisted != null) {
+				return persisted;
+			}
+		}
+		return super.getBaseStatistics(inputIdentifier);
+	}
+
+	@Override
+	public void cacheBaseStatistics(BaseStatistics statistics, String identifyer) {
+		super.cacheBaseStatistics(statistics, identifyer);
+
+		if (statistics instanceof FileBaseStatistics) {
+			synchronized (this.persistentEntries) {
+				this.persistentEntries.put(identifyer, (FileBaseStatistics) statistics);
+				store();
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of statistics that are currently persisted.
+	 *
+	 * @return The number of persisted statistics.
+	 */
+	public int getNumberOfPersistedStatistics() {
+		synchronized (this.persistentEntries) {
+			return this.persistentEntries.size();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private void load() {
+		if (!this.cacheFile.exists()) {
+			return;
+		}
+
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.cacheFile)));
+
+			if (in.readInt() != CACHE_FILE_VERSION) {
+				if (LOG.isInfoEnabled()) {
+					LOG.info("Ignoring statistics cache file '" + this.cacheFile + "' with incompatible version.");
+				}
+				return;
+			}
+
+			final int num = in.readInt();
+			synchronized (this.persistentEntries) {
+				for (int i = 0; i < num; i++) {
+					final String key = in.readUTF();
+					final long modTime = in.readLong();
+					final long size = in.readLong();
+					final float avgWidth = in.readFloat();
+					this.persistentEntries.put(key, new FileBaseStatistics(modTime, size, avgWidth));
+				}
+			}
+		}
+		catch (IOException ioex) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn("Could not read statistics cache file '" + this.cacheFile + "': " + ioex.getMessage());
+			}
+		}
+		finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (Throwable t) {}
+			}
+		}
+	}
+
+	/**
+	 * Writes all persistent entries to a temporary file and atomically moves it to the cache file, such that
+	 * concurrent readers never see a partially written cache. Must be called while holding the lock on the entries.
+	 */
+	private void store() {
+		final File tmpFile = new File(this.cacheFile.getParentFile(), CACHE_FILE_NAME + '.' +
+			Long.toHexString(Thread.currentThread().getId()) + ".tmp");
+
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)));
+
+			out.writeInt(CACHE_FILE_VERSION);
+			out.writeInt(this.persistentEntries.size());
+			for (Map.Entry<String, FileBaseStatistics> entry : this.persistentEntries.entrySet()) {
+				final FileBaseStatistics stats = entry.getValue();
+				out.writeUTF(entry.getKey());
+				out.writeLong(stats.getLastModificationTime());
+				out.writeLong(stats.getTotalInputSize());
+				out.writeFloat(stats.getAverageRecordWidth());
+			}
+			out.close();
+			out = null;
+
+			if (!tmpFile.renameTo(this.cacheFile)) {
+				// some platforms do not replace existing files on rename
+				this.cacheFile.delete();
+				if (!tmpFile.renameTo(this.cacheFile)) {
+					throw new IOException("Could not move temporary file to '" + this.cacheFile + "'.");
+				}
+			}
+		}
+		catch (IOException ioex) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn("Could not write statistics cache file '" + this.cacheFile + "': " + ioex.getMessage());
+			}
+		}
+		finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (Throwable t) {}
+			}
+			tmpFile.delete();
+		}
+	}
+}
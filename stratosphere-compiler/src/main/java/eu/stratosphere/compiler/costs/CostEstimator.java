@@ -45,6 +45,8 @@ public abstract class CostEstimator {
 	public abstract void addLocalMergeCost(EstimateProvider estimates1, EstimateProvider estimates2, long memorySize, Costs costs);
 	
 	public abstract void addHybridHashCosts(EstimateProvider buildSide, EstimateProvider probeSide, long memorySize, Costs costs);
+	
+	public abstract void addHashDistinctCosts(EstimateProvider estimates, long memorySize, Costs costs);
 
 	public abstract void addStreamedNestedLoopsCosts(EstimateProvider outerSide, EstimateProvider innerSide, long bufferSize, Costs costs);
 
@@ -161,12 +163,16 @@ public abstract class CostEstimator {
 			// this operations does not do any actual grouping, since every element is in the same single group
 			
 		case CO_GROUP:
+		case CO_GROUP_INDEXED_FIRST:
 		case SORTED_GROUP_REDUCE:
 		case SORTED_REDUCE:
 			// grouping or co-grouping over sorted streams for free
 			
 		case SORTED_GROUP_COMBINE:
 			// partial grouping is always local and main memory resident. we should add a relative cpu cost at some point
+			
+		case HASHED_PARTIAL_DISTINCT:
+			// the hash combiner never spills and is costed like the sort-based combiners
 		
 		case UNION:
 			// pipelined local union is for free
@@ -175,6 +181,9 @@ public abstract class CostEstimator {
 		case MERGE:
 			addLocalMergeCost(firstInput, secondInput, availableMemory, driverCosts);
 			break;
+		case HASHED_DISTINCT:
+			addHashDistinctCosts(firstInput, availableMemory, driverCosts);
+			break;
 		case HYBRIDHASH_BUILD_FIRST:
 			addHybridHashCosts(firstInput, secondInput, availableMemory, driverCosts);
 			break;
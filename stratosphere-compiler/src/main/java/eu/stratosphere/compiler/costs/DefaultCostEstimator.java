@@ -156,6 +156,23 @@ public class DefaultCostEstimator extends CostEstimator {
 		costs.addHeuristicCpuCost((long) (HEURISTIC_COST_BASE * HASHING_CPU_FACTOR));
 	}
 
+	@Override
+	public void addHashDistinctCosts(EstimateProvider estimates, long availableMemory, Costs costs) {
+		final long s = estimates.getEstimatedOutputSize();
+		// in memory, every record is hashed once. otherwise, the records that do not fit are additionally sorted
+		if (s <= 0) {
+			costs.setDiskCost(Costs.UNKNOWN);
+			costs.setCpuCost(Costs.UNKNOWN);
+		} else if (availableMemory > 0 && s <= availableMemory) {
+			costs.addCpuCost((long) (s * HASHING_CPU_FACTOR));
+		} else {
+			costs.addDiskCost(2 * s);
+			costs.addCpuCost((long) (s * (HASHING_CPU_FACTOR + SORTING_CPU_FACTOR)));
+		}
+		// distinct typically reduces the data a lot, so we heuristically assume that the keys fit into memory
+		costs.addHeuristicCpuCost((long) (HEURISTIC_COST_BASE * HASHING_CPU_FACTOR));
+	}
+
 	@Override
 	public void addStreamedNestedLoopsCosts(EstimateProvider outerSide, EstimateProvider innerSide, long bufferSize, Costs costs) {
 		long is = innerSide.getEstimatedOutputSize(); 
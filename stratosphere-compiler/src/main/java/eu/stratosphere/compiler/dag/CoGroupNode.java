@@ -18,11 +18,15 @@ import java.util.List;
 
 import eu.stratosphere.api.common.operators.Ordering;
 import eu.stratosphere.api.common.operators.base.CoGroupOperatorBase;
+import eu.stratosphere.compiler.CompilerException;
 import eu.stratosphere.compiler.DataStatistics;
+import eu.stratosphere.compiler.PactCompiler;
 import eu.stratosphere.compiler.operators.CoGroupDescriptor;
+import eu.stratosphere.compiler.operators.CoGroupWithIndexedFirstDescriptor;
 import eu.stratosphere.compiler.operators.CoGroupWithSolutionSetFirstDescriptor;
 import eu.stratosphere.compiler.operators.CoGroupWithSolutionSetSecondDescriptor;
 import eu.stratosphere.compiler.operators.OperatorDescriptorDual;
+import eu.stratosphere.configuration.Configuration;
 
 /**
  * The Optimizer representation of a <i>CoGroup</i> operator.
@@ -66,8 +70,23 @@ public class CoGroupNode extends TwoInputNode {
 			groupOrder2 = null;
 		}
 		
+		// see if an internal hint dictates the strategy to use
+		Configuration conf = cgc.getParameters();
+		String localStrategy = conf.getString(PactCompiler.HINT_LOCAL_STRATEGY, null);
+		
 		List<OperatorDescriptorDual> l = new ArrayList<OperatorDescriptorDual>(1);
-		l.add(new CoGroupDescriptor(this.keys1, this.keys2, groupOrder1, groupOrder2));
+		if (localStrategy == null || PactCompiler.HINT_LOCAL_STRATEGY_SORT_BOTH_MERGE.equals(localStrategy) ||
+				PactCompiler.HINT_LOCAL_STRATEGY_MERGE.equals(localStrategy))
+		{
+			l.add(new CoGroupDescriptor(this.keys1, this.keys2, groupOrder1, groupOrder2));
+		} else if (PactCompiler.HINT_LOCAL_STRATEGY_HASH_INDEX_FIRST.equals(localStrategy)) {
+			if (groupOrder1 != null) {
+				throw new CompilerException("The hash index local strategy cannot be used with a group order on the first input.");
+			}
+			l.add(new CoGroupWithIndexedFirstDescriptor(this.keys1, this.keys2, groupOrder2));
+		} else {
+			throw new CompilerException("Invalid local strategy hint for CoGroup contract: " + localStrategy);
+		}
 		return l;
 	}
 	
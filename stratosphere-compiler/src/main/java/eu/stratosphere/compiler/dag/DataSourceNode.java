@@ -31,6 +31,7 @@ import eu.stratosphere.compiler.costs.Costs;
 import eu.stratosphere.compiler.plan.PlanNode;
 import eu.stratosphere.compiler.plan.SourcePlanNode;
 import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.fs.Path;
 import eu.stratosphere.util.Visitor;
 
 /**
@@ -134,9 +135,16 @@ public class DataSourceNode extends OptimizerNode {
 			}
 			catch (Throwable t) {}
 			
-			// first of all, get the statistics from the cache
-			final String statisticsKey = getPactContract().getStatisticsKey();
-			final BaseStatistics cachedStatistics = statistics.getBaseStatistics(statisticsKey);
+			// first of all, get the statistics from the cache. file inputs without an explicit key
+			// are cached under their format and path, such that persistent caches may reuse them
+			String statisticsKey = getPactContract().getStatisticsKey();
+			if (statisticsKey == null && format instanceof FileInputFormat) {
+				final Path filePath = ((FileInputFormat<?>) format).getFilePath();
+				if (filePath != null) {
+					statisticsKey = format.getClass().getName() + '@' + filePath.toUri().toString();
+				}
+			}
+			final BaseStatistics cachedStatistics = statisticsKey == null ? null : statistics.getBaseStatistics(statisticsKey);
 			
 			BaseStatistics bs = null;
 			try {
@@ -149,6 +157,11 @@ public class DataSourceNode extends OptimizerNode {
 			}
 			
 			if (bs != null) {
+				// remember new or refreshed statistics for later compilations
+				if (bs != cachedStatistics && statisticsKey != null) {
+					statistics.cacheBaseStatistics(bs, statisticsKey);
+				}
+				
 				final long len = bs.getTotalInputSize();
 				if (len == BaseStatistics.SIZE_UNKNOWN) {
 					if (PactCompiler.LOG.isInfoEnabled()) {
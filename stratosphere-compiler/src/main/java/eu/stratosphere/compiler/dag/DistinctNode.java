@@ -0,0 +1,72 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler.dag;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.stratosphere.api.common.operators.base.DistinctOperatorBase;
+import eu.stratosphere.compiler.operators.HashDistinctProperties;
+import eu.stratosphere.compiler.operators.OperatorDescriptorSingle;
+import eu.stratosphere.compiler.operators.ReduceProperties;
+
+/**
+ * The Optimizer representation of a <i>Distinct</i> operator. A distinct may be executed like a reduce,
+ * by sorting the input, or by removing the duplicates with hash tables.
+ */
+public class DistinctNode extends ReduceNode {
+	
+	private DistinctNode preDistinctUtilityNode;
+	
+
+	public DistinctNode(DistinctOperatorBase<?> operator) {
+		super(operator);
+	}
+	
+	public DistinctNode(DistinctNode distinctToCopyForCombiner) {
+		super(distinctToCopyForCombiner);
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public DistinctOperatorBase<?> getPactContract() {
+		return (DistinctOperatorBase<?>) super.getPactContract();
+	}
+
+	@Override
+	public String getName() {
+		return "Distinct";
+	}
+	
+	@Override
+	protected List<OperatorDescriptorSingle> getPossibleProperties() {
+		List<OperatorDescriptorSingle> props = new ArrayList<OperatorDescriptorSingle>(2);
+		props.add(new HashDistinctProperties(this.keys));
+		props.add(new ReduceProperties(this.keys));
+		return props;
+	}
+	
+	@Override
+	public DistinctNode getCombinerUtilityNode() {
+		if (this.preDistinctUtilityNode == null) {
+			this.preDistinctUtilityNode = new DistinctNode(this);
+			
+			// we conservatively assume the combiner returns the same data size as it consumes 
+			this.preDistinctUtilityNode.estimatedOutputSize = getPredecessorNode().getEstimatedOutputSize();
+			this.preDistinctUtilityNode.estimatedNumRecords = getPredecessorNode().getEstimatedNumRecords();
+		}
+		return this.preDistinctUtilityNode;
+	}
+}
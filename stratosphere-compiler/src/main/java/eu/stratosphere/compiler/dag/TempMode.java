@@ -54,6 +54,16 @@ public enum TempMode {
 		}
 	}
 	
+	public TempMode makeNonCached() {
+		if (this == CACHED) {
+			return NONE;
+		} else if (this == CACHING_PIPELINE_BREAKER) {
+			return PIPELINE_BREAKER;
+		} else {
+			return this;
+		}
+	}
+	
 	public TempMode makeCached() {
 		if (this == NONE) {
 			return CACHED;
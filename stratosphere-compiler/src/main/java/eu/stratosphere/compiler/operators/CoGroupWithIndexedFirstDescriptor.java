@@ -0,0 +1,52 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler.operators;
+
+import eu.stratosphere.api.common.operators.Ordering;
+import eu.stratosphere.api.common.operators.util.FieldList;
+import eu.stratosphere.compiler.CompilerException;
+import eu.stratosphere.compiler.dag.TwoInputNode;
+import eu.stratosphere.compiler.plan.Channel;
+import eu.stratosphere.compiler.plan.DualInputPlanNode;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+
+/**
+ * The properties of a CoGroup that indexes the groups of its first input in memory. Both inputs are sorted, like
+ * for the regular CoGroup, but the first input is read only once by the driver, which keeps the index across
+ * supersteps, so the first input does not need to be cached. The strategy is only valid on the dynamic path of an
+ * iteration with a static first input.
+ */
+public class CoGroupWithIndexedFirstDescriptor extends CoGroupDescriptor {
+	
+	public CoGroupWithIndexedFirstDescriptor(FieldList keys1, FieldList keys2, Ordering additionalOrdering2) {
+		super(keys1, keys2, null, additionalOrdering2);
+	}
+	
+	@Override
+	public DriverStrategy getStrategy() {
+		return DriverStrategy.CO_GROUP_INDEXED_FIRST;
+	}
+
+	@Override
+	public DualInputPlanNode instantiate(Channel in1, Channel in2, TwoInputNode node) {
+		if (!node.isOnDynamicPath() || in1.isOnDynamicPath()) {
+			throw new CompilerException("The hash index local strategy of CoGroup '" + node.getPactContract().getName()
+				+ "' can only be used inside an iteration, with a first input that does not change across supersteps.");
+		}
+		
+		// the index replaces the cache of the static input
+		in1.setTempMode(in1.getTempMode().makeNonCached());
+		return super.instantiate(in1, in2, node);
+	}
+}
@@ -0,0 +1,104 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler.operators;
+
+import java.util.Collections;
+import java.util.List;
+
+import eu.stratosphere.api.common.operators.util.FieldSet;
+import eu.stratosphere.compiler.costs.Costs;
+import eu.stratosphere.compiler.dag.DistinctNode;
+import eu.stratosphere.compiler.dag.SingleInputNode;
+import eu.stratosphere.compiler.dataproperties.GlobalProperties;
+import eu.stratosphere.compiler.dataproperties.LocalProperties;
+import eu.stratosphere.compiler.dataproperties.PartitioningProperty;
+import eu.stratosphere.compiler.dataproperties.RequestedGlobalProperties;
+import eu.stratosphere.compiler.dataproperties.RequestedLocalProperties;
+import eu.stratosphere.compiler.plan.Channel;
+import eu.stratosphere.compiler.plan.SingleInputPlanNode;
+import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+
+/**
+ * Removes the duplicates of a distinct with hash tables. A hash-based combiner drops the duplicates before
+ * the data is partitioned, and the final distinct needs no local sort of its input.
+ */
+public final class HashDistinctProperties extends OperatorDescriptorSingle {
+	
+	public HashDistinctProperties(FieldSet keys) {
+		super(keys);
+	}
+	
+	@Override
+	public DriverStrategy getStrategy() {
+		return DriverStrategy.HASHED_DISTINCT;
+	}
+
+	@Override
+	public SingleInputPlanNode instantiate(Channel in, SingleInputNode node) {
+		if (in.getShipStrategy() == ShipStrategyType.FORWARD ||
+				(node.getBroadcastConnections() != null && !node.getBroadcastConnections().isEmpty()))
+		{
+			return new SingleInputPlanNode(node, "Distinct ("+node.getPactContract().getName()+")", in, DriverStrategy.HASHED_DISTINCT, this.keyList);
+		}
+		else {
+			// non forward case. all local properties are killed anyways, so we can safely plug in a combiner
+			Channel toCombiner = new Channel(in.getSource());
+			toCombiner.setShipStrategy(ShipStrategyType.FORWARD);
+			
+			// create an input node for combine with same DOP as input node
+			DistinctNode combinerNode = ((DistinctNode) node).getCombinerUtilityNode();
+			combinerNode.setDegreeOfParallelism(in.getSource().getDegreeOfParallelism());
+			combinerNode.setSubtasksPerInstance(in.getSource().getSubtasksPerInstance());
+			
+			SingleInputPlanNode combiner = new SingleInputPlanNode(combinerNode, "Combine ("+node.getPactContract().getName()+")", toCombiner, DriverStrategy.HASHED_PARTIAL_DISTINCT, this.keyList);
+			combiner.setCosts(new Costs(0, 0));
+			combiner.initProperties(toCombiner.getGlobalProperties(), toCombiner.getLocalProperties());
+			
+			Channel toDistinct = new Channel(combiner);
+			toDistinct.setShipStrategy(in.getShipStrategy(), in.getShipStrategyKeys(), in.getShipStrategySortOrder());
+			toDistinct.setLocalStrategy(in.getLocalStrategy(), in.getLocalStrategyKeys(), in.getLocalStrategySortOrder());
+			return new SingleInputPlanNode(node, "Distinct ("+node.getPactContract().getName()+")", toDistinct, DriverStrategy.HASHED_DISTINCT, this.keyList);
+		}
+	}
+
+	@Override
+	protected List<RequestedGlobalProperties> createPossibleGlobalProperties() {
+		RequestedGlobalProperties props = new RequestedGlobalProperties();
+		props.setAnyPartitioning(this.keys);
+		return Collections.singletonList(props);
+	}
+
+	@Override
+	protected List<RequestedLocalProperties> createPossibleLocalProperties() {
+		return Collections.singletonList(new RequestedLocalProperties());
+	}
+
+	@Override
+	public GlobalProperties computeGlobalProperties(GlobalProperties gProps) {
+		if (gProps.getUniqueFieldCombination() != null && gProps.getUniqueFieldCombination().size() > 0 &&
+				gProps.getPartitioning() == PartitioningProperty.RANDOM)
+		{
+			gProps.setAnyPartitioning(gProps.getUniqueFieldCombination().iterator().next().toFieldList());
+		}
+		gProps.clearUniqueFieldCombinations();
+		return gProps;
+	}
+
+	@Override
+	public LocalProperties computeLocalProperties(LocalProperties lProps) {
+		// records that do not fit into the hash table are sorted and emitted last, so no order is retained
+		return new LocalProperties();
+	}
+}
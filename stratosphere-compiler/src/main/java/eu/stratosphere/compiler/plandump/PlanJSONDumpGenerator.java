@@ -433,6 +433,14 @@ public class PlanJSONDumpGenerator {
 				locString = "Sorted Combine";
 				break;
 
+			case HASHED_DISTINCT:
+				locString = "Hashed Distinct";
+				break;
+
+			case HASHED_PARTIAL_DISTINCT:
+				locString = "Hashed Combine/Distinct";
+				break;
+
 			case HYBRIDHASH_BUILD_FIRST:
 				locString = "Hybrid Hash (build: " + child1name + ")";
 				break;
@@ -461,6 +469,10 @@ public class PlanJSONDumpGenerator {
 				locString = "Co-Group";
 				break;
 
+			case CO_GROUP_INDEXED_FIRST:
+				locString = "Indexed Co-Group (Index: " + child1name + ")";
+				break;
+
 			default:
 				throw new CompilerException("Unknown local strategy '" + p.getDriverStrategy().name()
 					+ "' in JSON generator.");
@@ -0,0 +1,126 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.compiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.io.FileInputFormat.FileBaseStatistics;
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.Configuration;
+
+public class PersistentDataStatisticsTest {
+
+	private File cacheDir;
+
+	@Before
+	public void createCacheDir() throws Exception {
+		this.cacheDir = File.createTempFile("statistics-cache", "");
+		this.cacheDir.delete();
+	}
+
+	@After
+	public void deleteCacheDir() {
+		File[] files = this.cacheDir.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				f.delete();
+			}
+		}
+		this.cacheDir.delete();
+	}
+
+	@Test
+	public void testStatisticsSurviveInstance() {
+		PersistentDataStatistics stats = new PersistentDataStatistics(this.cacheDir, 100);
+		stats.cacheBaseStatistics(new FileBaseStatistics(1234L, 5678L, 12.5f), "file:/some/path");
+		assertTrue(new File(this.cacheDir, PersistentDataStatistics.CACHE_FILE_NAME).exists());
+
+		PersistentDataStatistics reloaded = new PersistentDataStatistics(this.cacheDir, 100);
+		BaseStatistics bs = reloaded.getBaseStatistics("file:/some/path");
+		assertNotNull(bs);
+		assertTrue(bs instanceof FileBaseStatistics);
+		assertEquals(1234L, ((FileBaseStatistics) bs).getLastModificationTime());
+		assertEquals(5678L, bs.getTotalInputSize());
+		assertEquals(12.5f, bs.getAverageRecordWidth(), 0.0f);
+	}
+
+	@Test
+	public void testRefreshedStatisticsReplaceOldOnes() {
+		PersistentDataStatistics stats = new PersistentDataStatistics(this.cacheDir, 100);
+		stats.cacheBaseStatistics(new FileBaseStatistics(1L, 100L, 10.0f), "key");
+		stats.cacheBaseStatistics(new FileBaseStatistics(2L, 200L, 20.0f), "key");
+
+		PersistentDataStatistics reloaded = new PersistentDataStatistics(this.cacheDir, 100);
+		assertEquals(1, reloaded.getNumberOfPersistedStatistics());
+		assertEquals(200L, reloaded.getBaseStatistics("key").getTotalInputSize());
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntriesAreEvicted() {
+		PersistentDataStatistics stats = new PersistentDataStatistics(this.cacheDir, 2);
+		stats.cacheBaseStatistics(new FileBaseStatistics(1L, 1L, 1.0f), "a");
+		stats.cacheBaseStatistics(new FileBaseStatistics(1L, 2L, 1.0f), "b");
+		stats.getBaseStatistics("a");
+		stats.cacheBaseStatistics(new FileBaseStatistics(1L, 3L, 1.0f), "c");
+
+		PersistentDataStatistics reloaded = new PersistentDataStatistics(this.cacheDir, 2);
+		assertEquals(2, reloaded.getNumberOfPersistedStatistics());
+		assertNotNull(reloaded.getBaseStatistics("a"));
+		assertNull(reloaded.getBaseStatistics("b"));
+		assertNotNull(reloaded.getBaseStatistics("c"));
+	}
+
+	@Test
+	public void testOtherStatisticsAreNotPersisted() {
+		PersistentDataStatistics stats = new PersistentDataStatistics(this.cacheDir, 100);
+		stats.cacheBaseStatistics(new BaseStatistics() {
+			@Override
+			public long getTotalInputSize() {
+				return 1;
+			}
+
+			@Override
+			public long getNumberOfRecords() {
+				return 1;
+			}
+
+			@Override
+			public float getAverageRecordWidth() {
+				return 1;
+			}
+		}, "generic");
+
+		assertNotNull(stats.getBaseStatistics("generic"));
+		assertNull(new PersistentDataStatistics(this.cacheDir, 100).getBaseStatistics("generic"));
+	}
+
+	@Test
+	public void testFromConfiguration() {
+		assertTrue(!(PersistentDataStatistics.fromConfiguration(new Configuration()) instanceof PersistentDataStatistics));
+
+		Configuration config = new Configuration();
+		config.setString(ConfigConstants.COMPILER_STATISTICS_CACHE_DIR_KEY, this.cacheDir.getAbsolutePath());
+		assertTrue(PersistentDataStatistics.fromConfiguration(config) instanceof PersistentDataStatistics);
+	}
+}
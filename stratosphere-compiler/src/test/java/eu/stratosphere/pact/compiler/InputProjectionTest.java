@@ -0,0 +1,171 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.compiler;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.common.operators.util.FieldSet;
+import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.functions.FunctionAnnotation.ConstantFields;
+import eu.stratosphere.api.java.functions.FunctionAnnotation.ReadFields;
+import eu.stratosphere.api.java.functions.MapFunction;
+import eu.stratosphere.api.java.io.CsvInputFormat;
+import eu.stratosphere.api.java.tuple.Tuple1;
+import eu.stratosphere.api.java.tuple.Tuple3;
+import eu.stratosphere.api.java.typeutils.BasicTypeInfo;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.core.fs.Path;
+
+@SuppressWarnings("serial")
+public class InputProjectionTest extends CompilerTestBase {
+
+	@Test
+	public void testProjectionIsPushedIntoSource() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			RecordingCsvInputFormat format = new RecordingCsvInputFormat();
+			
+			DataSet<Tuple3<Integer, String, Double>> data = env.createInput(format, TYPE);
+			data.project(2, 0).types(Double.class, Integer.class).print();
+			data.project(0).types(Integer.class).print();
+			
+			Plan p = env.createProgramPlan();
+			compileNoStats(p);
+			
+			assertTrue(format.usedFieldsSet);
+			assertEquals(new FieldSet(0, 2), format.usedFields);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testAllFieldsUsedByOpaqueFunction() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			RecordingCsvInputFormat format = new RecordingCsvInputFormat();
+			
+			DataSet<Tuple3<Integer, String, Double>> data = env.createInput(format, TYPE);
+			data.project(0).types(Integer.class).print();
+			data.map(new MapFunction<Tuple3<Integer, String, Double>, String>() {
+				@Override
+				public String map(Tuple3<Integer, String, Double> value) {
+					return value.f1;
+				}
+			}).print();
+			
+			Plan p = env.createProgramPlan();
+			compileNoStats(p);
+			
+			assertTrue(format.usedFieldsSet);
+			assertNull(format.usedFields);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testAllFieldsUsedWithoutConstantFields() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			RecordingCsvInputFormat format = new RecordingCsvInputFormat();
+			
+			DataSet<Tuple3<Integer, String, Double>> data = env.createInput(format, TYPE);
+			data.map(new ReadOnlyFirstMapper()).print();
+			
+			Plan p = env.createProgramPlan();
+			compileNoStats(p);
+			
+			// the mapper copies the fields it does not read, so they must still be produced
+			assertTrue(format.usedFieldsSet);
+			assertNull(format.usedFields);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testReadAndConstantFieldsArePushedIntoSource() {
+		try {
+			ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			RecordingCsvInputFormat format = new RecordingCsvInputFormat();
+			
+			DataSet<Tuple3<Integer, String, Double>> data = env.createInput(format, TYPE);
+			data.map(new FirstFieldMapper()).print();
+			
+			Plan p = env.createProgramPlan();
+			compileNoStats(p);
+			
+			assertTrue(format.usedFieldsSet);
+			assertEquals(new FieldSet(0), format.usedFields);
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getClass().getSimpleName() + " in test: " + e.getMessage());
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@ReadFields("0")
+	public static final class ReadOnlyFirstMapper extends MapFunction<Tuple3<Integer, String, Double>, Tuple3<Integer, String, Double>> {
+		
+		@Override
+		public Tuple3<Integer, String, Double> map(Tuple3<Integer, String, Double> value) {
+			value.f0 = value.f0 + 1;
+			return value;
+		}
+	}
+	
+	@ReadFields("0")
+	@ConstantFields("0")
+	public static final class FirstFieldMapper extends MapFunction<Tuple3<Integer, String, Double>, Tuple1<Integer>> {
+		
+		@Override
+		public Tuple1<Integer> map(Tuple3<Integer, String, Double> value) {
+			return new Tuple1<Integer>(value.f0);
+		}
+	}
+	
+	private static final TupleTypeInfo<Tuple3<Integer, String, Double>> TYPE =
+			new TupleTypeInfo<Tuple3<Integer, String, Double>>(BasicTypeInfo.INT_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.DOUBLE_TYPE_INFO);
+	
+	private static final class RecordingCsvInputFormat extends CsvInputFormat<Tuple3<Integer, String, Double>> {
+		
+		private boolean usedFieldsSet;
+		
+		private FieldSet usedFields;
+		
+		public RecordingCsvInputFormat() {
+			super(new Path("file:///some/file"), Integer.class, String.class, Double.class);
+		}
+		
+		@Override
+		public void setUsedFields(FieldSet usedFields) {
+			super.setUsedFields(usedFields);
+			this.usedFieldsSet = true;
+			this.usedFields = usedFields;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.accumulators;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.api.common.sketches.HyperLogLog;
+
+/**
+ * Estimates the number of distinct values with a {@link HyperLogLog} sketch. The sketch has a fixed size,
+ * which is determined by the relative standard error.
+ */
+public class ApproximateDistinctCount implements Accumulator<Object, Long> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final HyperLogLog sketch;
+
+	/**
+	 * Creates an accumulator with the default precision of the sketch.
+	 */
+	public ApproximateDistinctCount() {
+		this.sketch = new HyperLogLog();
+	}
+
+	/**
+	 * Creates an accumulator whose estimate has the given relative standard error.
+	 *
+	 * @param relativeError The relative standard error, for example 0.01.
+	 */
+	public ApproximateDistinctCount(double relativeError) {
+		this.sketch = new HyperLogLog(HyperLogLog.precisionForRelativeError(relativeError));
+	}
+
+	@Override
+	public void add(Object value) {
+		this.sketch.offer(value);
+	}
+
+	@Override
+	public Long getLocalValue() {
+		return this.sketch.estimate();
+	}
+
+	@Override
+	public void resetLocal() {
+		this.sketch.reset();
+	}
+
+	@Override
+	public void merge(Accumulator<Object, Long> other) {
+		this.sketch.merge(((ApproximateDistinctCount) other).sketch);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		this.sketch.write(out);
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.sketch.read(in);
+	}
+
+	@Override
+	public String toString() {
+		return "ApproximateDistinctCount " + this.sketch.estimate();
+	}
+}
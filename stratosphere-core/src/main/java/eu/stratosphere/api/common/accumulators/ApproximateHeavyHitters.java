@@ -0,0 +1,99 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.accumulators;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+import eu.stratosphere.api.common.sketches.CountMinSketch;
+import eu.stratosphere.api.common.sketches.FrequentItems;
+
+/**
+ * Finds the most frequent values (heavy hitters) and estimates their counts with a Count-Min sketch.
+ * The values must be strings, boxed primitives or characters. The accumulator has a fixed size, which
+ * is determined by the number of values to find and the error bounds of the counts.
+ */
+public class ApproximateHeavyHitters implements Accumulator<Object, Map<Object, Long>> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final FrequentItems sketch;
+
+	/**
+	 * Creates an accumulator with the default number of values and error bounds.
+	 */
+	public ApproximateHeavyHitters() {
+		this.sketch = new FrequentItems();
+	}
+
+	/**
+	 * Creates an accumulator that finds the given number of most frequent values.
+	 *
+	 * @param numValues The number of most frequent values to find.
+	 * @param epsilon The maximal overestimation of the counts, relative to the total count.
+	 * @param delta The probability that a count exceeds the maximal overestimation.
+	 */
+	public ApproximateHeavyHitters(int numValues, double epsilon, double delta) {
+		this.sketch = new FrequentItems(numValues, epsilon, delta);
+	}
+
+	/**
+	 * Creates an accumulator that finds the given number of most frequent values.
+	 *
+	 * @param numValues The number of most frequent values to find.
+	 */
+	public ApproximateHeavyHitters(int numValues) {
+		this(numValues, CountMinSketch.DEFAULT_EPSILON, CountMinSketch.DEFAULT_DELTA);
+	}
+
+	@Override
+	public void add(Object value) {
+		this.sketch.add(value);
+	}
+
+	/**
+	 * Gets the most frequent values with their estimated counts, in the order of descending counts.
+	 */
+	@Override
+	public Map<Object, Long> getLocalValue() {
+		return this.sketch.getFrequentItems();
+	}
+
+	@Override
+	public void resetLocal() {
+		this.sketch.reset();
+	}
+
+	@Override
+	public void merge(Accumulator<Object, Map<Object, Long>> other) {
+		this.sketch.merge(((ApproximateHeavyHitters) other).sketch);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		this.sketch.write(out);
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.sketch.read(in);
+	}
+
+	@Override
+	public String toString() {
+		return "ApproximateHeavyHitters " + this.sketch.getFrequentItems();
+	}
+}
@@ -0,0 +1,83 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.accumulators;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.api.common.sketches.QuantileDigest;
+
+/**
+ * Estimates quantiles of numbers with a {@link QuantileDigest}. The digest's size is bounded by its
+ * compression. The local value is the digest, which can be asked for arbitrary quantiles.
+ */
+public class ApproximateQuantiles implements Accumulator<Double, QuantileDigest> {
+
+	private static final long serialVersionUID = 1L;
+
+	private final QuantileDigest digest;
+
+	/**
+	 * Creates an accumulator with the default compression of the digest.
+	 */
+	public ApproximateQuantiles() {
+		this.digest = new QuantileDigest();
+	}
+
+	/**
+	 * Creates an accumulator with the given compression of the digest. Higher compressions give more
+	 * accurate quantiles and larger digests.
+	 *
+	 * @param compression The compression, at least 10.
+	 */
+	public ApproximateQuantiles(double compression) {
+		this.digest = new QuantileDigest(compression);
+	}
+
+	@Override
+	public void add(Double value) {
+		this.digest.add(value);
+	}
+
+	@Override
+	public QuantileDigest getLocalValue() {
+		return this.digest;
+	}
+
+	@Override
+	public void resetLocal() {
+		this.digest.reset();
+	}
+
+	@Override
+	public void merge(Accumulator<Double, QuantileDigest> other) {
+		this.digest.merge(((ApproximateQuantiles) other).digest);
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		this.digest.write(out);
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.digest.read(in);
+	}
+
+	@Override
+	public String toString() {
+		return "ApproximateQuantiles (median " + this.digest.quantile(0.5) + ")";
+	}
+}
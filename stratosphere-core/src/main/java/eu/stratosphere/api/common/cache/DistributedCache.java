@@ -33,6 +33,11 @@ public class DistributedCache {
 	public static class DistributedCacheEntry {
 		public String filePath;
 		public Boolean isExecutable;
+		/**
+		 * The hash of the file's content under which the job manager provides the file to the task managers,
+		 * <code>null</code> if the task managers copy the file from its original path.
+		 */
+		public String contentKey;
 		
 		public DistributedCacheEntry(String filePath, Boolean isExecutable){
 			this.filePath=filePath;
@@ -48,6 +53,8 @@ public class DistributedCache {
 	
 	final static String CACHE_FILE_EXE = "DISTRIBUTED_CACHE_FILE_EXE_";
 
+	final static String CACHE_FILE_KEY = "DISTRIBUTED_CACHE_FILE_KEY_";
+
 	public final static String TMP_PREFIX = "tmp_";
 
 	private Map<String, FutureTask<Path>> cacheCopyTasks = new HashMap<String, FutureTask<Path>>();
@@ -67,11 +74,31 @@ public class DistributedCache {
 			String name = conf.getString(CACHE_FILE_NAME + i, "");
 			String filePath = conf.getString(CACHE_FILE_PATH + i, "");
 			Boolean isExecutable = conf.getBoolean(CACHE_FILE_EXE + i, false);
-			cacheFiles.put(name, new DistributedCacheEntry(filePath, isExecutable));
+			DistributedCacheEntry entry = new DistributedCacheEntry(filePath, isExecutable);
+			entry.contentKey = conf.getString(CACHE_FILE_KEY + i, null);
+			cacheFiles.put(name, entry);
 		}
 		return cacheFiles.entrySet();
 	}
 
+	/**
+	 * Records the content key of the registered cache file with the given name in the job configuration.
+	 * 
+	 * @param name the name the file has been registered with
+	 * @param contentKey the hash of the file's content
+	 * @param conf the job configuration
+	 */
+	public static void writeContentKeyToConfig(String name, String contentKey, Configuration conf) {
+		int num = conf.getInteger(CACHE_FILE_NUM, 0);
+		for (int i = 1; i <= num; i++) {
+			if (name.equals(conf.getString(CACHE_FILE_NAME + i, null))) {
+				conf.setString(CACHE_FILE_KEY + i, contentKey);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("No cache file registered with name " + name);
+	}
+
 	public void setCopyTasks(Map<String, FutureTask<Path>> cpTasks) {
 			this.cacheCopyTasks = cpTasks;
 	}
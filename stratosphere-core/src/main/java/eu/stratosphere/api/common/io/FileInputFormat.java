@@ -19,6 +19,13 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -86,6 +93,27 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 	 */
 	private static long DEFAULT_OPENING_TIMEOUT;
 	
+	/**
+	 * The maximum number of threads that look up block locations when creating the input splits.
+	 */
+	private static int SPLIT_ENUMERATION_THREADS;
+	
+	/**
+	 * The number of files whose block locations are looked up together by one thread.
+	 */
+	static final int BLOCK_LOCATION_BATCH_SIZE = 32;
+	
+	/**
+	 * The time (in seconds) after which an idle split enumeration thread terminates.
+	 */
+	private static final long SPLIT_ENUMERATION_KEEP_ALIVE = 60;
+	
+	/**
+	 * The thread pool shared by all formats to look up block locations. It is created lazily and its threads
+	 * terminate when idle, so processes that never create splits do not hold on to any threads.
+	 */
+	private static ThreadPoolExecutor splitEnumerationExecutor;
+	
 	/**
 	 * Files with that suffix are unsplittable at a file level
 	 * and compressed.
@@ -114,6 +142,53 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 		} else {
 			DEFAULT_OPENING_TIMEOUT = to;
 		}
+		
+		final int threads = GlobalConfiguration.getInteger(ConfigConstants.FS_SPLIT_ENUMERATION_THREADS_KEY,
+			ConfigConstants.DEFAULT_FS_SPLIT_ENUMERATION_THREADS);
+		if (threads < 1) {
+			LOG.error("Invalid number of split enumeration threads: " + threads + ". Using default value of " +
+				ConfigConstants.DEFAULT_FS_SPLIT_ENUMERATION_THREADS);
+			SPLIT_ENUMERATION_THREADS = ConfigConstants.DEFAULT_FS_SPLIT_ENUMERATION_THREADS;
+		} else {
+			SPLIT_ENUMERATION_THREADS = threads;
+		}
+		
+		synchronized (FileInputFormat.class) {
+			if (splitEnumerationExecutor != null) {
+				// resize the existing pool, growing the maximum first so that it never drops below the core size
+				if (SPLIT_ENUMERATION_THREADS > splitEnumerationExecutor.getMaximumPoolSize()) {
+					splitEnumerationExecutor.setMaximumPoolSize(SPLIT_ENUMERATION_THREADS);
+					splitEnumerationExecutor.setCorePoolSize(SPLIT_ENUMERATION_THREADS);
+				} else {
+					splitEnumerationExecutor.setCorePoolSize(SPLIT_ENUMERATION_THREADS);
+					splitEnumerationExecutor.setMaximumPoolSize(SPLIT_ENUMERATION_THREADS);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the thread pool that looks up block locations, creating it if necessary. The pool has at most
+	 * {@link #SPLIT_ENUMERATION_THREADS} threads; batches of concurrent split creations queue up behind each other.
+	 * 
+	 * @return The shared split enumeration thread pool.
+	 */
+	private static synchronized ThreadPoolExecutor getSplitEnumerationExecutor() {
+		if (splitEnumerationExecutor == null) {
+			final ThreadPoolExecutor executor = new ThreadPoolExecutor(SPLIT_ENUMERATION_THREADS,
+				SPLIT_ENUMERATION_THREADS, SPLIT_ENUMERATION_KEEP_ALIVE, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					@Override
+					public Thread newThread(Runnable r) {
+						final Thread t = new Thread(r, "Input Split Enumerator");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+			executor.allowCoreThreadTimeOut(true);
+			splitEnumerationExecutor = executor;
+		}
+		return splitEnumerationExecutor;
 	}
 	
 	static final long getDefaultOpeningTimeout() {
@@ -429,11 +504,15 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 			files.add(pathFile);
 			totalLength += pathFile.getLen();
 		}
+		// look up the block locations of all files up front, because these are the expensive calls
+		final BlockLocation[][] fileBlocks = getBlockLocations(fs, files);
+		
 		// returns if unsplittable
 		if(unsplittable) {
 			int splitNum = 0;
-			for (final FileStatus file : files) {
-				final BlockLocation[] blocks = fs.getFileBlockLocations(file, 0, file.getLen());
+			for (int fileNum = 0; fileNum < files.size(); fileNum++) {
+				final FileStatus file = files.get(fileNum);
+				final BlockLocation[] blocks = fileBlocks[fileNum];
 				Set<String> hosts = new HashSet<String>();
 				for(BlockLocation block : blocks) {
 					hosts.addAll(Arrays.asList(block.getHosts()));
@@ -455,8 +534,9 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 
 		// now that we have the files, generate the splits
 		int splitNum = 0;
-		for (final FileStatus file : files) {
+		for (int fileNum = 0; fileNum < files.size(); fileNum++) {
 
+			final FileStatus file = files.get(fileNum);
 			final long len = file.getLen();
 			final long blockSize = file.getBlockSize();
 			
@@ -479,8 +559,8 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 
 			if (len > 0) {
 
-				// get the block locations and make sure they are in order with respect to their offset
-				final BlockLocation[] blocks = fs.getFileBlockLocations(file, 0, len);
+				// make sure the block locations are in order with respect to their offset
+				final BlockLocation[] blocks = fileBlocks[fileNum];
 				Arrays.sort(blocks);
 
 				long bytesUnassigned = len;
@@ -510,9 +590,9 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 				}
 			} else {
 				// special case with a file of zero bytes size
-				final BlockLocation[] blocks = fs.getFileBlockLocations(file, 0, 0);
+				final BlockLocation[] blocks = fileBlocks[fileNum];
 				String[] hosts;
-				if (blocks.length > 0) {
+				if (blocks != null && blocks.length > 0) {
 					hosts = blocks[0].getHosts();
 				} else {
 					hosts = new String[0];
@@ -525,6 +605,78 @@ public abstract class FileInputFormat<OT> implements InputFormat<OT, FileInputSp
 		return inputSplits.toArray(new FileInputSplit[inputSplits.size()]);
 	}
 
+	/**
+	 * Looks up the block locations of the given files. Each look-up is typically a remote call to the master
+	 * of a distributed file system, so for inputs with many files, the files are looked up in batches by a
+	 * bounded number of parallel threads.
+	 * 
+	 * @param fs The file system containing the files.
+	 * @param files The files to look up the block locations for.
+	 * @return The block locations, in the order of the given files.
+	 * @throws IOException Thrown, if the block locations of any file could not be determined.
+	 */
+	private BlockLocation[][] getBlockLocations(final FileSystem fs, final List<FileStatus> files) throws IOException {
+		final int numFiles = files.size();
+		final int numBatches = (numFiles + BLOCK_LOCATION_BATCH_SIZE - 1) / BLOCK_LOCATION_BATCH_SIZE;
+		final int numThreads = Math.min(numBatches, SPLIT_ENUMERATION_THREADS);
+		
+		if (numThreads <= 1) {
+			return fs.getFileBlockLocations(files.toArray(new FileStatus[numFiles]));
+		}
+		
+		final BlockLocation[][] locations = new BlockLocation[numFiles][];
+		final ThreadPoolExecutor executor = getSplitEnumerationExecutor();
+		final List<Future<Void>> batches = new ArrayList<Future<Void>>(numBatches);
+		boolean success = false;
+		
+		try {
+			for (int start = 0; start < numFiles; start += BLOCK_LOCATION_BATCH_SIZE) {
+				final int batchStart = start;
+				final int batchEnd = Math.min(start + BLOCK_LOCATION_BATCH_SIZE, numFiles);
+				
+				batches.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						final FileStatus[] batch = files.subList(batchStart, batchEnd).toArray(
+							new FileStatus[batchEnd - batchStart]);
+						final BlockLocation[][] batchLocations = fs.getFileBlockLocations(batch);
+						System.arraycopy(batchLocations, 0, locations, batchStart, batch.length);
+						return null;
+					}
+				}));
+			}
+			
+			for (Future<Void> batch : batches) {
+				try {
+					batch.get();
+				}
+				catch (ExecutionException eex) {
+					final Throwable cause = eex.getCause();
+					if (cause instanceof IOException) {
+						throw (IOException) cause;
+					} else {
+						throw new IOException("Error while looking up the block locations: " + cause.getMessage(), cause);
+					}
+				}
+				catch (InterruptedException iex) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while looking up the block locations.");
+				}
+			}
+			success = true;
+		}
+		finally {
+			if (!success) {
+				// the pool is shared, so only drop the batches of this call
+				for (Future<Void> batch : batches) {
+					batch.cancel(true);
+				}
+			}
+		}
+		
+		return locations;
+	}
+
 	private boolean testForUnsplittable(FileStatus pathFile) {
 		if(pathFile.getPath().getName().endsWith(DEFLATE_SUFFIX)) {
 			unsplittable = true;
@@ -22,6 +22,7 @@ import com.google.common.primitives.Ints;
 import eu.stratosphere.core.fs.FileInputSplit;
 import eu.stratosphere.core.fs.Path;
 import eu.stratosphere.types.parser.FieldParser;
+import eu.stratosphere.util.ByteScanUtils;
 import eu.stratosphere.util.InstantiationUtil;
 
 
@@ -51,6 +52,8 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 	private Class<?>[] fieldTypes = EMPTY_TYPES;
 	
 	private boolean[] fieldIncluded = EMPTY_INCLUDED;
+	
+	private boolean[] fieldUsed;
 		
 	private char fieldDelim = DEFAULT_FIELD_DELIMITER;
 	
@@ -111,6 +114,19 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 	
 	// --------------------------------------------------------------------------------------------
 	
+	/**
+	 * Sets which of the produced fields are used by the program. Included fields that are not used are
+	 * skipped during parsing and keep the initial value of their parser. 
+	 * 
+	 * @param fieldUsed A flag for each produced (included) field, or <code>null</code>, if all fields are used.
+	 */
+	protected void setFieldsUsed(boolean[] fieldUsed) {
+		if (fieldUsed != null && fieldUsed.length != this.fieldTypes.length) {
+			throw new IllegalArgumentException("The number of used flags must match the number of included fields.");
+		}
+		this.fieldUsed = fieldUsed;
+	}
+	
 	protected FieldParser<?>[] getFieldParsers() {
 		return this.fieldParsers;
 	}
@@ -159,6 +175,7 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 		
 		Class<?>[] denseTypeArray = (Class<?>[]) types.toArray(new Class[types.size()]);
 		this.fieldTypes = denseTypeArray;
+		this.fieldUsed = null;
 	}
 	
 	protected void setFieldsGeneric(int[] sourceFieldIndices, Class<?>[] fieldTypes) {
@@ -193,6 +210,7 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 
 		Class<?>[] denseTypeArray = (Class<?>[]) types.toArray(new Class[types.size()]);
 		this.fieldTypes = denseTypeArray;
+		this.fieldUsed = null;
 	}
 	
 	protected void setFieldsGeneric(boolean[] includedMask, Class<?>[] fieldTypes) {
@@ -225,6 +243,7 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 
 		Class<?>[] denseTypeArray = (Class<?>[]) types.toArray(new Class[types.size()]);
 		this.fieldTypes = denseTypeArray;
+		this.fieldUsed = null;
 		this.fieldIncluded = includedMask;
 	}
 
@@ -264,6 +283,7 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 	protected boolean parseRecord(Object[] holders, byte[] bytes, int offset, int numBytes) throws ParseException {
 		
 		boolean[] fieldIncluded = this.fieldIncluded;
+		boolean[] fieldUsed = this.fieldUsed;
 		
 		int startPos = offset;
 		final int limit = offset + numBytes;
@@ -279,7 +299,22 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 				}
 			}
 			
-			if (fieldIncluded[field]) {
+			if (fieldIncluded[field] && fieldUsed != null && !fieldUsed[output]) {
+				// included, but not used by the program. skip the field without parsing it
+				startPos = skipFields(bytes, startPos, limit, fieldDelim);
+				if (startPos < 0) {
+					if (lenient) {
+						return false;
+					} else {
+						String lineAsString = new String(bytes, offset, numBytes);
+						throw new ParseException("Line could not be parsed: '" + lineAsString+"'\n"
+								+ "Expect field types: "+fieldTypesToString()+" \n"
+								+ "in file: "+filePath);
+					}
+				}
+				output++;
+			}
+			else if (fieldIncluded[field]) {
 				// parse field
 				FieldParser<Object> parser = (FieldParser<Object>) this.fieldParsers[output];
 				Object reuse = holders[output];
@@ -369,10 +404,8 @@ public abstract class GenericCsvInputFormat<OT> extends DelimitedInputFormat<OT>
 		}
 		else {
 			// unquoted field
-			while (i < limit && bytes[i] != delByte) {
-				i++;
-			}
-			return (i == limit ? limit : i+1);
+			i = ByteScanUtils.indexOf(bytes, i, limit, delByte);
+			return (i < 0 ? limit : i+1);
 		}
 	}
 }
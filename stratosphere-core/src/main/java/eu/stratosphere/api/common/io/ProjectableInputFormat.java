@@ -0,0 +1,36 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.io;
+
+import eu.stratosphere.api.common.operators.util.FieldSet;
+
+/**
+ * Interface for input formats that can avoid the work of producing fields that the program does not use.
+ * The compiler determines the used fields from the semantic properties (read, key, and forwarded fields)
+ * of the operators that consume the input and passes them to the format before the job is submitted.
+ * <p>
+ * The layout of the produced records does not change. Fields that are not used may be left at an arbitrary
+ * (but valid, non-null) value.
+ * 
+ * @see InputFormat
+ */
+public interface ProjectableInputFormat {
+
+	/**
+	 * Tells the input format which fields of the produced records are used by the program.
+	 * 
+	 * @param usedFields The positions of the used fields, or <code>null</code>, if all fields are used.
+	 */
+	void setUsedFields(FieldSet usedFields);
+}
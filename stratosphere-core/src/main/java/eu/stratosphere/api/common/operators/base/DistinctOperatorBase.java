@@ -0,0 +1,57 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.operators.base;
+
+import eu.stratosphere.api.common.functions.AbstractFunction;
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.operators.UnaryOperatorInformation;
+
+
+/**
+ * Base data flow operator for Distinct. Keeps one element for every distinct combination of values in
+ * the key positions. The key positions are expected in the flattened common data model.
+ * <p>
+ * A distinct is a reduce that keeps the first of its two arguments, so the optimizer may execute it with
+ * the strategies of a reduce. In addition, it may remove the duplicates with hash tables instead of sorting.
+ *
+ * @param <T> The type of the elements.
+ */
+public class DistinctOperatorBase<T> extends ReduceOperatorBase<T, GenericReduce<T>> {
+
+	/**
+	 * Creates a distinct data flow operator.
+	 *
+	 * @param operatorInfo The type information, describing input and output types of the distinct.
+	 * @param keyPositions The positions of the key fields, in the common data model (flattened).
+	 * @param name The name of the operator (for logging and messages).
+	 */
+	public DistinctOperatorBase(UnaryOperatorInformation<T, T> operatorInfo, int[] keyPositions, String name) {
+		super(new FirstReducer<T>(), operatorInfo, keyPositions, name);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * The reduce function of a distinct, which keeps the first element.
+	 */
+	public static final class FirstReducer<T> extends AbstractFunction implements GenericReduce<T> {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public T reduce(T value1, T value2) {
+			return value1;
+		}
+	}
+}
@@ -0,0 +1,287 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.sketches;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import eu.stratosphere.types.Value;
+
+/**
+ * A Count-Min sketch that estimates how often items have been seen. The estimates never underestimate the
+ * true counts. With probability 1 - delta, they overestimate by at most epsilon times the total count.
+ * The sketch has ceil(e / epsilon) counters in each of its ceil(ln(1 / delta)) rows.
+ * Sketches with the same dimensions can be merged.
+ * <p>
+ * As long as the sketch has seen only few distinct items, it counts them exactly in a sorted sparse list,
+ * which makes sketches of few items cheap to reset and to serialize.
+ */
+public class CountMinSketch implements Value {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final double DEFAULT_EPSILON = 0.01;
+
+	public static final double DEFAULT_DELTA = 0.05;
+
+	// --------------------------------------------------------------------------------------------
+
+	private int depth;
+
+	private int width;
+
+	private long[] counts;
+
+	private long[] sparseHashes;
+
+	private long[] sparseCounts;
+
+	private int sparseSize;
+
+	private boolean dense;
+
+	private long totalCount;
+
+	/**
+	 * Creates an empty sketch with the default error bounds.
+	 */
+	public CountMinSketch() {
+		this(DEFAULT_EPSILON, DEFAULT_DELTA);
+	}
+
+	/**
+	 * Creates an empty sketch with the given error bounds.
+	 *
+	 * @param epsilon The maximal overestimation, relative to the total count.
+	 * @param delta The probability that an estimate exceeds the maximal overestimation.
+	 */
+	public CountMinSketch(double epsilon, double delta) {
+		if (epsilon <= 0.0 || epsilon >= 1.0 || delta <= 0.0 || delta >= 1.0) {
+			throw new IllegalArgumentException("Epsilon and delta must be between 0 and 1.");
+		}
+		this.width = (int) Math.ceil(Math.E / epsilon);
+		this.depth = (int) Math.ceil(Math.log(1.0 / delta));
+		this.sparseHashes = new long[8];
+		this.sparseCounts = new long[8];
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	public int getDepth() {
+		return this.depth;
+	}
+
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Gets the sum of the counts of all items.
+	 *
+	 * @return The total count.
+	 */
+	public long getTotalCount() {
+		return this.totalCount;
+	}
+
+	/**
+	 * Adds the given count for an item.
+	 *
+	 * @param item The item.
+	 * @param count The count to add, which must not be negative.
+	 */
+	public void add(Object item, long count) {
+		addHash(SketchUtils.hash(item), count);
+	}
+
+	/**
+	 * Adds the given count for an item, given by its 64 bit hash code. The hash code must be well distributed.
+	 *
+	 * @param hash The hash code of the item.
+	 * @param count The count to add, which must not be negative.
+	 */
+	public void addHash(long hash, long count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("The count must not be negative.");
+		}
+		this.totalCount += count;
+
+		if (this.dense) {
+			for (int row = 0; row < this.depth; row++) {
+				this.counts[row * this.width + index(hash, row)] += count;
+			}
+			return;
+		}
+
+		int pos = Arrays.binarySearch(this.sparseHashes, 0, this.sparseSize, hash);
+		if (pos >= 0) {
+			this.sparseCounts[pos] += count;
+			return;
+		}
+
+		if (this.sparseSize >= this.width / 4) {
+			toDense();
+			for (int row = 0; row < this.depth; row++) {
+				this.counts[row * this.width + index(hash, row)] += count;
+			}
+			return;
+		}
+		if (this.sparseSize == this.sparseHashes.length) {
+			this.sparseHashes = Arrays.copyOf(this.sparseHashes, this.sparseSize * 2);
+			this.sparseCounts = Arrays.copyOf(this.sparseCounts, this.sparseSize * 2);
+		}
+		pos = -pos - 1;
+		System.arraycopy(this.sparseHashes, pos, this.sparseHashes, pos + 1, this.sparseSize - pos);
+		System.arraycopy(this.sparseCounts, pos, this.sparseCounts, pos + 1, this.sparseSize - pos);
+		this.sparseHashes[pos] = hash;
+		this.sparseCounts[pos] = count;
+		this.sparseSize++;
+	}
+
+	/**
+	 * Estimates the count of the given item.
+	 *
+	 * @param item The item.
+	 * @return The estimated count, which is not smaller than the true count.
+	 */
+	public long estimateCount(Object item) {
+		return estimateCountHash(SketchUtils.hash(item));
+	}
+
+	/**
+	 * Estimates the count of an item, given by its 64 bit hash code.
+	 *
+	 * @param hash The hash code of the item.
+	 * @return The estimated count, which is not smaller than the true count.
+	 */
+	public long estimateCountHash(long hash) {
+		if (this.dense) {
+			long min = Long.MAX_VALUE;
+			for (int row = 0; row < this.depth; row++) {
+				min = Math.min(min, this.counts[row * this.width + index(hash, row)]);
+			}
+			return min;
+		} else {
+			final int pos = Arrays.binarySearch(this.sparseHashes, 0, this.sparseSize, hash);
+			return pos >= 0 ? this.sparseCounts[pos] : 0L;
+		}
+	}
+
+	/**
+	 * Merges the given sketch into this sketch. Both sketches must have the same dimensions.
+	 *
+	 * @param other The sketch to merge.
+	 */
+	public void merge(CountMinSketch other) {
+		if (other.depth != this.depth || other.width != this.width) {
+			throw new IllegalArgumentException("Cannot merge Count-Min sketches with different dimensions.");
+		}
+		if (other.dense) {
+			if (!this.dense) {
+				toDense();
+			}
+			for (int i = 0; i < this.counts.length; i++) {
+				this.counts[i] += other.counts[i];
+			}
+			this.totalCount += other.totalCount;
+		} else {
+			for (int i = 0; i < other.sparseSize; i++) {
+				addHash(other.sparseHashes[i], other.sparseCounts[i]);
+			}
+		}
+	}
+
+	/**
+	 * Removes all counts from the sketch.
+	 */
+	public void reset() {
+		if (this.dense) {
+			Arrays.fill(this.counts, 0L);
+		}
+		this.sparseSize = 0;
+		this.dense = false;
+		this.totalCount = 0;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private int index(long hash, int row) {
+		// derives the row hash functions from the two halves of the hash code
+		final int combined = ((int) hash) + row * ((int) (hash >>> 32));
+		return (combined & Integer.MAX_VALUE) % this.width;
+	}
+
+	private void toDense() {
+		if (this.counts == null || this.counts.length != this.depth * this.width) {
+			this.counts = new long[this.depth * this.width];
+		}
+		for (int i = 0; i < this.sparseSize; i++) {
+			for (int row = 0; row < this.depth; row++) {
+				this.counts[row * this.width + index(this.sparseHashes[i], row)] += this.sparseCounts[i];
+			}
+		}
+		this.sparseSize = 0;
+		this.dense = true;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(this.depth);
+		out.writeInt(this.width);
+		out.writeLong(this.totalCount);
+		out.writeBoolean(this.dense);
+		if (this.dense) {
+			for (int i = 0; i < this.counts.length; i++) {
+				out.writeLong(this.counts[i]);
+			}
+		} else {
+			out.writeInt(this.sparseSize);
+			for (int i = 0; i < this.sparseSize; i++) {
+				out.writeLong(this.sparseHashes[i]);
+				out.writeLong(this.sparseCounts[i]);
+			}
+		}
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.depth = in.readInt();
+		this.width = in.readInt();
+		this.totalCount = in.readLong();
+		this.dense = in.readBoolean();
+		if (this.dense) {
+			if (this.counts == null || this.counts.length != this.depth * this.width) {
+				this.counts = new long[this.depth * this.width];
+			}
+			for (int i = 0; i < this.counts.length; i++) {
+				this.counts[i] = in.readLong();
+			}
+			this.sparseSize = 0;
+		} else {
+			this.sparseSize = in.readInt();
+			if (this.sparseHashes.length < this.sparseSize) {
+				this.sparseHashes = new long[this.sparseSize];
+				this.sparseCounts = new long[this.sparseSize];
+			}
+			for (int i = 0; i < this.sparseSize; i++) {
+				this.sparseHashes[i] = in.readLong();
+				this.sparseCounts[i] = in.readLong();
+			}
+		}
+	}
+}
@@ -0,0 +1,310 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.sketches;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import eu.stratosphere.types.Value;
+
+/**
+ * A sketch that finds the most frequent items (heavy hitters). It counts all items in a {@link CountMinSketch}
+ * and keeps the items with the highest estimated counts as candidates. Because the candidates are serialized
+ * with the sketch, the items must be strings, boxed primitives or characters.
+ */
+public class FrequentItems implements Value {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private static final byte TYPE_STRING = 0;
+	private static final byte TYPE_LONG = 1;
+	private static final byte TYPE_INT = 2;
+	private static final byte TYPE_SHORT = 3;
+	private static final byte TYPE_BYTE = 4;
+	private static final byte TYPE_DOUBLE = 5;
+	private static final byte TYPE_FLOAT = 6;
+	private static final byte TYPE_BOOLEAN = 7;
+	private static final byte TYPE_CHAR = 8;
+
+	// --------------------------------------------------------------------------------------------
+
+	private final CountMinSketch sketch;
+
+	private int capacity;
+
+	private Object[] items;
+
+	private long[] hashes;
+
+	private long[] estimates;
+
+	private int size;
+
+	/**
+	 * Creates an empty sketch with the default capacity and error bounds.
+	 */
+	public FrequentItems() {
+		this(DEFAULT_CAPACITY, CountMinSketch.DEFAULT_EPSILON, CountMinSketch.DEFAULT_DELTA);
+	}
+
+	/**
+	 * Creates an empty sketch.
+	 *
+	 * @param capacity The number of most frequent items to keep.
+	 * @param epsilon The maximal overestimation of the counts, relative to the total count.
+	 * @param delta The probability that a count exceeds the maximal overestimation.
+	 */
+	public FrequentItems(int capacity, double epsilon, double delta) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity must be positive.");
+		}
+		this.sketch = new CountMinSketch(epsilon, delta);
+		setCapacity(capacity);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Adds an occurrence of the given item.
+	 *
+	 * @param item The item, which must be a string, a boxed primitive or a character.
+	 */
+	public void add(Object item) {
+		add(item, 1L);
+	}
+
+	/**
+	 * Adds the given count for an item.
+	 *
+	 * @param item The item, which must be a string, a boxed primitive or a character.
+	 * @param count The count to add, which must not be negative.
+	 */
+	public void add(Object item, long count) {
+		if (item == null) {
+			throw new NullPointerException();
+		}
+		final long hash = SketchUtils.hash(item);
+		this.sketch.addHash(hash, count);
+		offerCandidate(item, hash, this.sketch.estimateCountHash(hash));
+	}
+
+	/**
+	 * Gets the item with the highest estimated count.
+	 *
+	 * @return The most frequent item, or null, if the sketch is empty.
+	 */
+	public Object getMostFrequent() {
+		int max = -1;
+		for (int i = 0; i < this.size; i++) {
+			if (max < 0 || this.estimates[i] > this.estimates[max]) {
+				max = i;
+			}
+		}
+		return max < 0 ? null : this.items[max];
+	}
+
+	/**
+	 * Gets the most frequent items with their estimated counts, in the order of descending counts.
+	 *
+	 * @return The most frequent items with their estimated counts.
+	 */
+	public Map<Object, Long> getFrequentItems() {
+		final Integer[] order = new Integer[this.size];
+		for (int i = 0; i < this.size; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				final long e1 = FrequentItems.this.estimates[o1];
+				final long e2 = FrequentItems.this.estimates[o2];
+				return e1 > e2 ? -1 : e1 < e2 ? 1 : 0;
+			}
+		});
+
+		final Map<Object, Long> result = new LinkedHashMap<Object, Long>();
+		for (Integer i : order) {
+			result.put(this.items[i], this.estimates[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Estimates the count of the given item.
+	 *
+	 * @param item The item.
+	 * @return The estimated count, which is not smaller than the true count.
+	 */
+	public long estimateCount(Object item) {
+		return this.sketch.estimateCount(item);
+	}
+
+	/**
+	 * Merges the given sketch into this sketch. Both sketches must have the same error bounds.
+	 *
+	 * @param other The sketch to merge.
+	 */
+	public void merge(FrequentItems other) {
+		this.sketch.merge(other.sketch);
+
+		// the counts of all candidates have changed
+		for (int i = 0; i < this.size; i++) {
+			this.estimates[i] = this.sketch.estimateCountHash(this.hashes[i]);
+		}
+		for (int i = 0; i < other.size; i++) {
+			offerCandidate(other.items[i], other.hashes[i], this.sketch.estimateCountHash(other.hashes[i]));
+		}
+	}
+
+	/**
+	 * Removes all items from the sketch.
+	 */
+	public void reset() {
+		this.sketch.reset();
+		for (int i = 0; i < this.size; i++) {
+			this.items[i] = null;
+		}
+		this.size = 0;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private void offerCandidate(Object item, long hash, long estimate) {
+		int min = -1;
+		for (int i = 0; i < this.size; i++) {
+			if (this.hashes[i] == hash && this.items[i].equals(item)) {
+				this.estimates[i] = estimate;
+				return;
+			}
+			if (min < 0 || this.estimates[i] < this.estimates[min]) {
+				min = i;
+			}
+		}
+
+		if (this.size < this.capacity) {
+			min = this.size++;
+		} else if (estimate <= this.estimates[min]) {
+			return;
+		}
+		this.items[min] = item;
+		this.hashes[min] = hash;
+		this.estimates[min] = estimate;
+	}
+
+	private void setCapacity(int capacity) {
+		this.capacity = capacity;
+		this.items = new Object[capacity];
+		this.hashes = new long[capacity];
+		this.estimates = new long[capacity];
+		this.size = 0;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		this.sketch.write(out);
+		out.writeInt(this.capacity);
+		out.writeInt(this.size);
+		for (int i = 0; i < this.size; i++) {
+			writeItem(this.items[i], out);
+			out.writeLong(this.estimates[i]);
+		}
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.sketch.read(in);
+		final int capacity = in.readInt();
+		if (capacity != this.capacity) {
+			setCapacity(capacity);
+		}
+		this.size = in.readInt();
+		for (int i = 0; i < this.size; i++) {
+			this.items[i] = readItem(in);
+			this.hashes[i] = SketchUtils.hash(this.items[i]);
+			this.estimates[i] = in.readLong();
+		}
+	}
+
+	private static void writeItem(Object item, DataOutput out) throws IOException {
+		if (item instanceof String) {
+			out.writeByte(TYPE_STRING);
+			out.writeUTF((String) item);
+		} else if (item instanceof Long) {
+			out.writeByte(TYPE_LONG);
+			out.writeLong((Long) item);
+		} else if (item instanceof Integer) {
+			out.writeByte(TYPE_INT);
+			out.writeInt((Integer) item);
+		} else if (item instanceof Short) {
+			out.writeByte(TYPE_SHORT);
+			out.writeShort((Short) item);
+		} else if (item instanceof Byte) {
+			out.writeByte(TYPE_BYTE);
+			out.writeByte((Byte) item);
+		} else if (item instanceof Double) {
+			out.writeByte(TYPE_DOUBLE);
+			out.writeDouble((Double) item);
+		} else if (item instanceof Float) {
+			out.writeByte(TYPE_FLOAT);
+			out.writeFloat((Float) item);
+		} else if (item instanceof Boolean) {
+			out.writeByte(TYPE_BOOLEAN);
+			out.writeBoolean((Boolean) item);
+		} else if (item instanceof Character) {
+			out.writeByte(TYPE_CHAR);
+			out.writeChar((Character) item);
+		} else {
+			throw new IOException("Cannot serialize items of type " + item.getClass().getName() + " in a frequent items sketch.");
+		}
+	}
+
+	private static Object readItem(DataInput in) throws IOException {
+		final byte type = in.readByte();
+		switch (type) {
+		case TYPE_STRING:
+			return in.readUTF();
+		case TYPE_LONG:
+			return in.readLong();
+		case TYPE_INT:
+			return in.readInt();
+		case TYPE_SHORT:
+			return in.readShort();
+		case TYPE_BYTE:
+			return in.readByte();
+		case TYPE_DOUBLE:
+			return in.readDouble();
+		case TYPE_FLOAT:
+			return in.readFloat();
+		case TYPE_BOOLEAN:
+			return in.readBoolean();
+		case TYPE_CHAR:
+			return in.readChar();
+		default:
+			throw new IOException("Unknown item type " + type + " in frequent items sketch.");
+		}
+	}
+}
@@ -0,0 +1,288 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.sketches;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import eu.stratosphere.types.Value;
+
+/**
+ * A HyperLogLog sketch that estimates the number of distinct items it has seen. The sketch has
+ * 2<sup>precision</sup> registers of one byte, and its relative standard error is about
+ * 1.04 / sqrt(2<sup>precision</sup>). Sketches with the same precision can be merged.
+ * <p>
+ * As long as only few registers are set, the sketch keeps them in a sorted sparse list, which makes
+ * sketches of few items cheap to reset and to serialize. Once the sparse list would take more space
+ * than a quarter of the dense registers, the sketch switches to the dense representation.
+ */
+public class HyperLogLog implements Value {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The default precision, giving 4096 registers and a relative standard error of about 1.6%. */
+	public static final int DEFAULT_PRECISION = 12;
+
+	public static final int MIN_PRECISION = 4;
+
+	public static final int MAX_PRECISION = 18;
+
+	private static final int RANK_BITS = 6;
+
+	private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+
+	// --------------------------------------------------------------------------------------------
+
+	private int precision;
+
+	private byte[] registers;
+
+	private int[] sparse;
+
+	private int sparseSize;
+
+	private boolean dense;
+
+	/**
+	 * Creates an empty sketch with the default precision.
+	 */
+	public HyperLogLog() {
+		this(DEFAULT_PRECISION);
+	}
+
+	/**
+	 * Creates an empty sketch with the given precision.
+	 *
+	 * @param precision The precision, which is the logarithm of the number of registers.
+	 */
+	public HyperLogLog(int precision) {
+		if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+			throw new IllegalArgumentException("The precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ".");
+		}
+		this.precision = precision;
+		this.sparse = new int[16];
+	}
+
+	/**
+	 * Computes the smallest precision whose relative standard error does not exceed the given error.
+	 *
+	 * @param relativeError The maximal relative standard error, for example 0.01.
+	 * @return The precision for the given error.
+	 */
+	public static int precisionForRelativeError(double relativeError) {
+		if (relativeError <= 0.0 || relativeError >= 1.0) {
+			throw new IllegalArgumentException("The relative error must be between 0 and 1.");
+		}
+		final double registers = (1.04 / relativeError) * (1.04 / relativeError);
+		final int precision = (int) Math.ceil(Math.log(registers) / Math.log(2));
+		return Math.min(MAX_PRECISION, Math.max(MIN_PRECISION, precision));
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	public int getPrecision() {
+		return this.precision;
+	}
+
+	/**
+	 * Adds an item to the sketch.
+	 *
+	 * @param item The item to add.
+	 */
+	public void offer(Object item) {
+		offerHash(SketchUtils.hash(item));
+	}
+
+	/**
+	 * Adds an item to the sketch, given by its 64 bit hash code. The hash code must be well distributed.
+	 *
+	 * @param hash The hash code of the item.
+	 */
+	public void offerHash(long hash) {
+		final int index = (int) (hash >>> (64 - this.precision));
+		final int rank = Long.numberOfLeadingZeros((hash << this.precision) | (1L << (this.precision - 1))) + 1;
+		setRegister(index, rank);
+	}
+
+	/**
+	 * Estimates the number of distinct items added to this sketch and all sketches merged into it.
+	 *
+	 * @return The estimated number of distinct items.
+	 */
+	public long estimate() {
+		final int m = 1 << this.precision;
+		double sum = 0.0;
+		int zeros;
+
+		if (this.dense) {
+			zeros = 0;
+			for (int i = 0; i < m; i++) {
+				final int rank = this.registers[i];
+				if (rank == 0) {
+					zeros++;
+				}
+				sum += 1.0 / (1L << rank);
+			}
+		} else {
+			zeros = m - this.sparseSize;
+			sum = zeros;
+			for (int i = 0; i < this.sparseSize; i++) {
+				sum += 1.0 / (1L << (this.sparse[i] & RANK_MASK));
+			}
+		}
+
+		double estimate = alpha(m) * m * m / sum;
+		if (estimate <= 2.5 * m && zeros > 0) {
+			// linear counting for small cardinalities
+			estimate = m * Math.log((double) m / zeros);
+		}
+		return Math.round(estimate);
+	}
+
+	/**
+	 * Merges the given sketch into this sketch. Both sketches must have the same precision.
+	 *
+	 * @param other The sketch to merge.
+	 */
+	public void merge(HyperLogLog other) {
+		if (other.precision != this.precision) {
+			throw new IllegalArgumentException("Cannot merge HyperLogLog sketches with different precisions.");
+		}
+		if (other.dense) {
+			for (int i = 0; i < other.registers.length; i++) {
+				if (other.registers[i] != 0) {
+					setRegister(i, other.registers[i]);
+				}
+			}
+		} else {
+			for (int i = 0; i < other.sparseSize; i++) {
+				setRegister(other.sparse[i] >>> RANK_BITS, other.sparse[i] & RANK_MASK);
+			}
+		}
+	}
+
+	/**
+	 * Removes all items from the sketch.
+	 */
+	public void reset() {
+		if (this.dense) {
+			Arrays.fill(this.registers, (byte) 0);
+		}
+		this.sparseSize = 0;
+		this.dense = false;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private void setRegister(int index, int rank) {
+		if (this.dense) {
+			if (rank > this.registers[index]) {
+				this.registers[index] = (byte) rank;
+			}
+			return;
+		}
+
+		// the sparse entries are sorted by their register index
+		int pos = Arrays.binarySearch(this.sparse, 0, this.sparseSize, index << RANK_BITS);
+		if (pos < 0) {
+			pos = -pos - 1;
+		}
+		if (pos < this.sparseSize && (this.sparse[pos] >>> RANK_BITS) == index) {
+			if (rank > (this.sparse[pos] & RANK_MASK)) {
+				this.sparse[pos] = (index << RANK_BITS) | rank;
+			}
+			return;
+		}
+
+		if (this.sparseSize >= (1 << this.precision) / 16) {
+			toDense();
+			setRegister(index, rank);
+			return;
+		}
+		if (this.sparseSize == this.sparse.length) {
+			this.sparse = Arrays.copyOf(this.sparse, this.sparse.length * 2);
+		}
+		System.arraycopy(this.sparse, pos, this.sparse, pos + 1, this.sparseSize - pos);
+		this.sparse[pos] = (index << RANK_BITS) | rank;
+		this.sparseSize++;
+	}
+
+	private void toDense() {
+		if (this.registers == null || this.registers.length != (1 << this.precision)) {
+			this.registers = new byte[1 << this.precision];
+		}
+		for (int i = 0; i < this.sparseSize; i++) {
+			this.registers[this.sparse[i] >>> RANK_BITS] = (byte) (this.sparse[i] & RANK_MASK);
+		}
+		this.sparseSize = 0;
+		this.dense = true;
+	}
+
+	private static double alpha(int m) {
+		switch (m) {
+		case 16:
+			return 0.673;
+		case 32:
+			return 0.697;
+		case 64:
+			return 0.709;
+		default:
+			return 0.7213 / (1.0 + 1.079 / m);
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		out.writeByte(this.precision);
+		out.writeBoolean(this.dense);
+		if (this.dense) {
+			out.write(this.registers);
+		} else {
+			out.writeInt(this.sparseSize);
+			for (int i = 0; i < this.sparseSize; i++) {
+				out.writeInt(this.sparse[i]);
+			}
+		}
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		this.precision = in.readByte();
+		this.dense = in.readBoolean();
+		if (this.dense) {
+			if (this.registers == null || this.registers.length != (1 << this.precision)) {
+				this.registers = new byte[1 << this.precision];
+			}
+			in.readFully(this.registers);
+			this.sparseSize = 0;
+		} else {
+			this.sparseSize = in.readInt();
+			if (this.sparse.length < this.sparseSize) {
+				this.sparse = new int[this.sparseSize];
+			}
+			for (int i = 0; i < this.sparseSize; i++) {
+				this.sparse[i] = in.readInt();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "HyperLogLog (precision " + this.precision + ", estimate " + estimate() + ")";
+	}
+}
@@ -0,0 +1,328 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.sketches;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import eu.stratosphere.types.Value;
+
+/**
+ * A t-digest that estimates quantiles of a stream of numbers. The digest summarizes the numbers by weighted
+ * centroids, which are small close to the extreme quantiles and large around the median, so that the
+ * extreme quantiles are estimated most accurately. The digest has at most about as many centroids as
+ * its compression. Digests with the same compression can be merged.
+ * <p>
+ * New numbers are buffered and merged into the centroids whenever the buffer is full.
+ */
+public class QuantileDigest implements Value {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final double DEFAULT_COMPRESSION = 100.0;
+
+	private static final int BUFFER_FACTOR = 5;
+
+	// --------------------------------------------------------------------------------------------
+
+	private double compression;
+
+	private double[] means;
+
+	private long[] weights;
+
+	private int numCentroids;
+
+	private double[] spareMeans;
+
+	private long[] spareWeights;
+
+	private double[] bufferedMeans;
+
+	private long[] bufferedWeights;
+
+	private int numBuffered;
+
+	private long totalWeight;
+
+	private double min;
+
+	private double max;
+
+	/**
+	 * Creates an empty digest with the default compression.
+	 */
+	public QuantileDigest() {
+		this(DEFAULT_COMPRESSION);
+	}
+
+	/**
+	 * Creates an empty digest with the given compression. Higher compressions give more accurate
+	 * quantiles and larger digests.
+	 *
+	 * @param compression The compression, at least 10.
+	 */
+	public QuantileDigest(double compression) {
+		if (compression < 10.0) {
+			throw new IllegalArgumentException("The compression must be at least 10.");
+		}
+		setCompression(compression);
+		reset();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	public double getCompression() {
+		return this.compression;
+	}
+
+	/**
+	 * Gets the number of values added to the digest.
+	 *
+	 * @return The number of values.
+	 */
+	public long getCount() {
+		return this.totalWeight;
+	}
+
+	/**
+	 * Adds a value to the digest.
+	 *
+	 * @param value The value to add.
+	 */
+	public void add(double value) {
+		add(value, 1L);
+	}
+
+	/**
+	 * Adds a value with the given weight to the digest.
+	 *
+	 * @param value The value to add.
+	 * @param weight The weight of the value, which must be positive.
+	 */
+	public void add(double value, long weight) {
+		if (Double.isNaN(value)) {
+			throw new IllegalArgumentException("Cannot add NaN to a quantile digest.");
+		}
+		if (this.numBuffered == this.bufferedMeans.length) {
+			compress();
+		}
+		this.bufferedMeans[this.numBuffered] = value;
+		this.bufferedWeights[this.numBuffered] = weight;
+		this.numBuffered++;
+		this.totalWeight += weight;
+		this.min = Math.min(this.min, value);
+		this.max = Math.max(this.max, value);
+	}
+
+	/**
+	 * Merges the given digest into this digest.
+	 *
+	 * @param other The digest to merge.
+	 */
+	public void merge(QuantileDigest other) {
+		for (int i = 0; i < other.numCentroids; i++) {
+			add(other.means[i], other.weights[i]);
+		}
+		for (int i = 0; i < other.numBuffered; i++) {
+			add(other.bufferedMeans[i], other.bufferedWeights[i]);
+		}
+	}
+
+	/**
+	 * Estimates the value at the given quantile.
+	 *
+	 * @param q The quantile, between 0 and 1.
+	 * @return The estimated value at the quantile, or NaN, if the digest is empty.
+	 */
+	public double quantile(double q) {
+		if (q < 0.0 || q > 1.0) {
+			throw new IllegalArgumentException("The quantile must be between 0 and 1.");
+		}
+		compress();
+
+		if (this.numCentroids == 0) {
+			return Double.NaN;
+		}
+		if (this.numCentroids == 1) {
+			return this.means[0];
+		}
+
+		// the values are interpolated between the centers of the centroids
+		final double index = q * this.totalWeight;
+		if (index < this.weights[0] / 2.0) {
+			return this.min + (this.means[0] - this.min) * index / (this.weights[0] / 2.0);
+		}
+
+		double center = this.weights[0] / 2.0;
+		for (int i = 1; i < this.numCentroids; i++) {
+			final double nextCenter = center + (this.weights[i - 1] + this.weights[i]) / 2.0;
+			if (index <= nextCenter) {
+				final double fraction = (index - center) / (nextCenter - center);
+				return this.means[i - 1] + fraction * (this.means[i] - this.means[i - 1]);
+			}
+			center = nextCenter;
+		}
+
+		final int last = this.numCentroids - 1;
+		final double rest = this.totalWeight - center;
+		return rest <= 0.0 ? this.max : this.means[last] + (this.max - this.means[last]) * (index - center) / rest;
+	}
+
+	/**
+	 * Removes all values from the digest.
+	 */
+	public void reset() {
+		this.numCentroids = 0;
+		this.numBuffered = 0;
+		this.totalWeight = 0;
+		this.min = Double.POSITIVE_INFINITY;
+		this.max = Double.NEGATIVE_INFINITY;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Merges the buffered values into the centroids.
+	 */
+	private void compress() {
+		if (this.numBuffered == 0) {
+			return;
+		}
+
+		// the centroids are sorted by their means, the buffer is sorted here
+		final double[] bufferedMeans = this.bufferedMeans;
+		final Integer[] order = new Integer[this.numBuffered];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(bufferedMeans[o1], bufferedMeans[o2]);
+			}
+		});
+
+		final double[] oldMeans = this.means;
+		final long[] oldWeights = this.weights;
+		final int numOld = this.numCentroids;
+		if (this.spareMeans == null || this.spareMeans.length != oldMeans.length) {
+			this.spareMeans = new double[oldMeans.length];
+			this.spareWeights = new long[oldWeights.length];
+		}
+		this.means = this.spareMeans;
+		this.weights = this.spareWeights;
+		this.spareMeans = oldMeans;
+		this.spareWeights = oldWeights;
+		this.numCentroids = 0;
+
+		// merge both sorted sequences, combining neighbors as long as they cover at most one unit of the scale
+		final double total = this.totalWeight;
+		double weightSoFar = 0.0;
+		int nextOld = 0;
+		int nextBuffered = 0;
+		while (nextOld < numOld || nextBuffered < order.length) {
+			final double mean;
+			final long weight;
+			if (nextBuffered == order.length || (nextOld < numOld && oldMeans[nextOld] <= bufferedMeans[order[nextBuffered]])) {
+				mean = oldMeans[nextOld];
+				weight = oldWeights[nextOld];
+				nextOld++;
+			} else {
+				mean = bufferedMeans[order[nextBuffered]];
+				weight = this.bufferedWeights[order[nextBuffered]];
+				nextBuffered++;
+			}
+
+			final int last = this.numCentroids - 1;
+			if (last >= 0) {
+				final double proposed = this.weights[last] + weight;
+				if (scale(Math.min(1.0, (weightSoFar + proposed) / total)) - scale(weightSoFar / total) <= 1.0) {
+					this.means[last] += (mean - this.means[last]) * weight / proposed;
+					this.weights[last] += weight;
+					continue;
+				}
+				weightSoFar += this.weights[last];
+			}
+
+			if (this.numCentroids == this.means.length) {
+				this.means = Arrays.copyOf(this.means, this.numCentroids * 2);
+				this.weights = Arrays.copyOf(this.weights, this.numCentroids * 2);
+				this.spareMeans = null;
+			}
+			this.means[this.numCentroids] = mean;
+			this.weights[this.numCentroids] = weight;
+			this.numCentroids++;
+		}
+
+		this.numBuffered = 0;
+	}
+
+	/**
+	 * The scale function, which maps the quantiles to the range [-compression / 4, compression / 4]. It is steep
+	 * at the extreme quantiles. A centroid may cover the quantiles of at most one unit of the scale.
+	 */
+	private double scale(double q) {
+		return this.compression / (2 * Math.PI) * Math.asin(2 * q - 1);
+	}
+
+	private void setCompression(double compression) {
+		this.compression = compression;
+		final int capacity = (int) Math.ceil(2 * compression);
+		this.means = new double[capacity];
+		this.weights = new long[capacity];
+		this.bufferedMeans = new double[BUFFER_FACTOR * capacity];
+		this.bufferedWeights = new long[BUFFER_FACTOR * capacity];
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void write(DataOutput out) throws IOException {
+		compress();
+		out.writeDouble(this.compression);
+		out.writeLong(this.totalWeight);
+		out.writeDouble(this.min);
+		out.writeDouble(this.max);
+		out.writeInt(this.numCentroids);
+		for (int i = 0; i < this.numCentroids; i++) {
+			out.writeDouble(this.means[i]);
+			out.writeLong(this.weights[i]);
+		}
+	}
+
+	@Override
+	public void read(DataInput in) throws IOException {
+		final double compression = in.readDouble();
+		if (compression != this.compression) {
+			setCompression(compression);
+		}
+		this.totalWeight = in.readLong();
+		this.min = in.readDouble();
+		this.max = in.readDouble();
+		this.numCentroids = in.readInt();
+		this.numBuffered = 0;
+		if (this.means.length < this.numCentroids) {
+			this.means = new double[this.numCentroids];
+			this.weights = new long[this.numCentroids];
+		}
+		for (int i = 0; i < this.numCentroids; i++) {
+			this.means[i] = in.readDouble();
+			this.weights[i] = in.readLong();
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.common.sketches;
+
+/**
+ * Utility methods shared by the sketches.
+ */
+public final class SketchUtils {
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Computes a well distributed 64 bit hash code of the given item. Numbers and strings are hashed by their
+	 * value, such that the hash codes do not depend on their {@link Object#hashCode()}, which has only 32 bits.
+	 * Integral numbers of different types hash to the same code if their values are equal. All other objects
+	 * are hashed by their {@link Object#hashCode()}.
+	 *
+	 * @param item The item to hash.
+	 * @return The 64 bit hash code of the item.
+	 */
+	public static long hash(Object item) {
+		if (item instanceof Long || item instanceof Integer || item instanceof Short || item instanceof Byte) {
+			return hash(((Number) item).longValue());
+		}
+		else if (item instanceof Double || item instanceof Float) {
+			return hash(Double.doubleToLongBits(((Number) item).doubleValue()));
+		}
+		else if (item instanceof String) {
+			return hash((String) item);
+		}
+		else if (item == null) {
+			return 0L;
+		}
+		else {
+			return hash((long) item.hashCode());
+		}
+	}
+
+	/**
+	 * Computes a well distributed 64 bit hash code of the given number.
+	 *
+	 * @param value The number to hash.
+	 * @return The 64 bit hash code of the number.
+	 */
+	public static long hash(long value) {
+		// finalization mix of MurmurHash3
+		long h = value;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * Computes a well distributed 64 bit hash code of the given string.
+	 *
+	 * @param value The string to hash.
+	 * @return The 64 bit hash code of the string.
+	 */
+	public static long hash(String value) {
+		long h = FNV_OFFSET_BASIS;
+		for (int i = 0; i < value.length(); i++) {
+			h = (h ^ value.charAt(i)) * FNV_PRIME;
+		}
+		return hash(h);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private SketchUtils() {
+		throw new RuntimeException();
+	}
+}
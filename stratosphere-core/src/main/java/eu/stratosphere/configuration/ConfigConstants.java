@@ -47,6 +47,38 @@ public final class ConfigConstants {
 	 */
 	public static final String BLOB_SERVICE_DIRECTORY = "blob.service.directory";
 
+	/**
+	 * The config parameter defining the directory of the persistent BLOB cache kept by the task managers.
+	 */
+	public static final String BLOB_CACHE_DIRECTORY = "blob.cache.directory";
+
+	/**
+	 * The config parameter defining the maximum size of the task managers' BLOB cache in megabytes.
+	 */
+	public static final String BLOB_CACHE_SIZE = "blob.cache.size";
+
+	/**
+	 * The config parameter defining the number of chunks of a BLOB which are downloaded in parallel.
+	 */
+	public static final String BLOB_FETCH_PARALLELISM = "blob.fetch.parallelism";
+
+	/**
+	 * The config parameter defining the port the task managers serve cached BLOBs to their peers on. A value of 0
+	 * selects an ephemeral port, a negative value disables the peer-to-peer distribution of BLOBs.
+	 */
+	public static final String BLOB_PEER_PORT = "blob.peer.port";
+
+	/**
+	 * The config parameter defining the number of peers each holder of a BLOB serves the BLOB to.
+	 */
+	public static final String BLOB_PEER_FANOUT = "blob.peer.fanout";
+
+	/**
+	 * The config parameter defining the time in milliseconds after which a stalled transfer from a peer is abandoned
+	 * in favor of the BLOB server.
+	 */
+	public static final String BLOB_PEER_TIMEOUT = "blob.peer.timeout";
+
 	/**
 	 * The config parameter defining the network address to connect to
 	 * for communication with the job manager.
@@ -64,6 +96,23 @@ public final class ConfigConstants {
 	 */
 	public static final String JOB_MANAGER_IPC_HANDLERS_KEY = "jobmanager.rpc.numhandler";
 
+	/**
+	 * The config parameter defining the class name of the scheduler the job manager uses in cluster mode.
+	 */
+	public static final String JOB_MANAGER_SCHEDULER_CLASS_KEY = "jobmanager.scheduler.classname";
+
+	/**
+	 * The config parameter defining how often the slot scheduler may start later submitted jobs while the
+	 * longest waiting job does not fit into the free slots, before it holds back all other jobs for it.
+	 */
+	public static final String JOB_MANAGER_SCHEDULER_MAX_BYPASSES_KEY = "jobmanager.scheduler.max-bypasses";
+
+	/**
+	 * The job configuration parameter defining the scheduling priority of a job. Jobs with a higher priority
+	 * are given free slots first.
+	 */
+	public static final String JOB_SCHEDULING_PRIORITY_KEY = "job.scheduling.priority";
+
 	/**
 	 * The config parameter defining the task manager's IPC port from the configuration.
 	 */
@@ -135,6 +184,12 @@ public final class ConfigConstants {
 	 */
 	public static final String TASK_MANAGER_HEARTBEAT_INTERVAL_KEY = "taskmanager.heartbeat-interval";
 
+	/**
+	 * The maximum number of input splits a task fetches from the JobManager with a single request. Apart from the
+	 * first split of a request, only splits stored on the task's host are prefetched.
+	 */
+	public static final String TASK_MANAGER_INPUT_SPLIT_PREFETCH_KEY = "taskmanager.inputsplit.prefetch";
+
 	/**
 	 * Flag indicating whether to start a thread, which repeatedly logs the memory usage of the JVM.
 	 */
@@ -145,6 +200,12 @@ public final class ConfigConstants {
 	 */
 	public static final String TASK_MANAGER_DEBUG_MEMORY_USAGE_LOG_INTERVAL_MS = "taskmanager.debug.memory.logIntervalMs";
 
+	/**
+	 * The interval (in ms) in which the task manager logs a snapshot of its runtime metrics. A value of 0 disables
+	 * the logging, the metrics remain accessible via JMX.
+	 */
+	public static final String TASK_MANAGER_METRICS_LOG_INTERVAL_MS = "taskmanager.metrics.logIntervalMs";
+
 	/**
 	 * Parameter for the maximum fan for out-of-core algorithms.
 	 * Corresponds to the maximum fan-in for merge-sorts and the maximum fan-out
@@ -205,6 +266,12 @@ public final class ConfigConstants {
 	 */
 	public static final String FILESYSTEM_OUTPUT_ALWAYS_CREATE_DIRECTORY_KEY = "fs.output.always-create-directory";
 
+	/**
+	 * Key to specify the maximum number of threads used to look up the block locations of the input files
+	 * when creating the input splits for a file input.
+	 */
+	public static final String FS_SPLIT_ENUMERATION_THREADS_KEY = "fs.input-splits.enumeration-threads";
+
 	// ---------------------------- Compiler -------------------------------
 
 	/**
@@ -224,6 +291,17 @@ public final class ConfigConstants {
 	 */
 	public static final String DELIMITED_FORMAT_MAX_SAMPLE_LENGTH_KEY = "compiler.delimited-informat.max-sample-len";
 
+	/**
+	 * The directory in which the compiler persists the statistics of file inputs across job submissions.
+	 * If not set, statistics are only cached in memory for the lifetime of the compiler.
+	 */
+	public static final String COMPILER_STATISTICS_CACHE_DIR_KEY = "compiler.statistics-cache.dir";
+
+	/**
+	 * The maximum number of file input statistics entries kept in the persistent statistics cache.
+	 */
+	public static final String COMPILER_STATISTICS_CACHE_MAX_ENTRIES_KEY = "compiler.statistics-cache.max-entries";
+
 	// ------------------------- JobManager Web Frontend ----------------------
 
 	/**
@@ -246,6 +324,18 @@ public final class ConfigConstants {
 	 */
 	public static final String JOB_MANAGER_WEB_ARCHIVE_COUNT = "jobmanager.web.history";
 
+	/**
+	 * The config parameter defining the number of archived jobs whose management graph and events are kept in
+	 * memory. Older archived jobs are reduced to a summary.
+	 */
+	public static final String JOB_MANAGER_WEB_ARCHIVE_DETAILED_COUNT = "jobmanager.web.history.detailed";
+
+	/**
+	 * The config parameter defining the directory the details of summarized archived jobs are spilled to. If it is
+	 * not set, the details are discarded.
+	 */
+	public static final String JOB_MANAGER_WEB_ARCHIVE_SPILL_DIR = "jobmanager.web.history.spilldir";
+
 	public static final String JOB_MANAGER_WEB_LOG_PATH_KEY = "jobmanager.web.logpath";
 
 	// ------------------------------ Web Client ------------------------------
@@ -312,6 +402,31 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_BLOB_SERVICE_PORT = 6020;
 
+	/**
+	 * The default maximum size of the task managers' BLOB cache in megabytes.
+	 */
+	public static final int DEFAULT_BLOB_CACHE_SIZE = 2048;
+
+	/**
+	 * The default number of chunks of a BLOB which are downloaded in parallel.
+	 */
+	public static final int DEFAULT_BLOB_FETCH_PARALLELISM = 4;
+
+	/**
+	 * The default port the task managers serve cached BLOBs to their peers on. Peer serving is disabled by default.
+	 */
+	public static final int DEFAULT_BLOB_PEER_PORT = -1;
+
+	/**
+	 * The default number of peers each holder of a BLOB serves the BLOB to.
+	 */
+	public static final int DEFAULT_BLOB_PEER_FANOUT = 4;
+
+	/**
+	 * The default time in milliseconds after which a stalled transfer from a peer is abandoned.
+	 */
+	public static final int DEFAULT_BLOB_PEER_TIMEOUT = 30000;
+
 	/**
 	 * The default network port to connect to for communication with the job manager.
 	 */
@@ -322,6 +437,21 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_JOB_MANAGER_IPC_HANDLERS = 8;
 
+	/**
+	 * The default scheduler used in cluster mode.
+	 */
+	public static final String DEFAULT_JOB_MANAGER_SCHEDULER_CLASS = "eu.stratosphere.nephele.jobmanager.scheduler.queue.QueueScheduler";
+
+	/**
+	 * The default number of times the longest waiting job may be bypassed by the slot scheduler.
+	 */
+	public static final int DEFAULT_JOB_MANAGER_SCHEDULER_MAX_BYPASSES = 10;
+
+	/**
+	 * The default scheduling priority of a job.
+	 */
+	public static final int DEFAULT_JOB_SCHEDULING_PRIORITY = 0;
+
 	/**
 	 * The default network port the task manager expects incoming IPC connections.
 	 */
@@ -388,6 +518,11 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_TASK_MANAGER_HEARTBEAT_INTERVAL = 2000;
 
+	/**
+	 * The default maximum number of input splits a task fetches with a single request.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_INPUT_SPLIT_PREFETCH = 4;
+
 	/**
 	 * Flag indicating whether to start a thread, which repeatedly logs the memory usage of the JVM.
 	 */
@@ -398,6 +533,11 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_TASK_MANAGER_DEBUG_MEMORY_USAGE_LOG_INTERVAL_MS = 5000;
 
+	/**
+	 * The default interval (in ms) in which the task manager logs a snapshot of its runtime metrics, 0 means disabled.
+	 */
+	public static final int DEFAULT_TASK_MANAGER_METRICS_LOG_INTERVAL_MS = 0;
+
 	/**
 	 * The default value for the JobClient's polling interval. 2 Seconds.
 	 */
@@ -430,6 +570,11 @@ public final class ConfigConstants {
 	 */
 	public static final boolean DEFAULT_FILESYSTEM_ALWAYS_CREATE_DIRECTORY = false;
 
+	/**
+	 * The default maximum number of threads used to look up block locations during input split creation.
+	 */
+	public static final int DEFAULT_FS_SPLIT_ENUMERATION_THREADS = 8;
+
 	// ---------------------------- Compiler -------------------------------
 
 	/**
@@ -447,6 +592,11 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_DELIMITED_FORMAT_MAX_SAMPLE_LEN = 2 * 1024 * 1024;
 
+	/**
+	 * The default maximum number of entries in the persistent statistics cache.
+	 */
+	public static final int DEFAULT_COMPILER_STATISTICS_CACHE_MAX_ENTRIES = 10000;
+
 	// ------------------------- JobManager Web Frontend ----------------------
 
 	/**
@@ -469,6 +619,11 @@ public final class ConfigConstants {
 	 */
 	public static final int DEFAULT_JOB_MANAGER_WEB_ARCHIVE_COUNT = 5;
 
+	/**
+	 * The default number of archived jobs whose details are kept in memory
+	 */
+	public static final int DEFAULT_JOB_MANAGER_WEB_ARCHIVE_DETAILED_COUNT = 5;
+
 	// ------------------------------ Web Client ------------------------------
 
 	/**
@@ -289,6 +289,27 @@ public abstract class FileSystem {
 	 */
 	public abstract BlockLocation[] getFileBlockLocations(FileStatus file, long start, long len) throws IOException;
 
+	/**
+	 * Returns the block locations covering the entire contents of each of the given files. The i-th element
+	 * of the result describes the i-th file.
+	 * <p>
+	 * The default implementation looks up the files one by one. File systems that can answer the request for
+	 * many files with a single call should override this method.
+	 * 
+	 * @param files
+	 *        The files to get the block locations for.
+	 * @return The block locations of the files.
+	 * @throws IOException
+	 *         Thrown, if the block locations of any of the files could not be determined.
+	 */
+	public BlockLocation[][] getFileBlockLocations(FileStatus[] files) throws IOException {
+		final BlockLocation[][] locations = new BlockLocation[files.length][];
+		for (int i = 0; i < files.length; i++) {
+			locations[i] = getFileBlockLocations(files[i], 0, files[i].getLen());
+		}
+		return locations;
+	}
+
 	/**
 	 * Opens an FSDataInputStream at the indicated Path.
 	 * 
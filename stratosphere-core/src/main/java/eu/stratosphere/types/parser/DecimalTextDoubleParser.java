@@ -14,6 +14,7 @@
 package eu.stratosphere.types.parser;
 
 import eu.stratosphere.types.DoubleValue;
+import eu.stratosphere.util.ByteScanUtils;
 
 /**
  * Parses a text field into a DoubleValue.
@@ -25,24 +26,24 @@ public class DecimalTextDoubleParser extends FieldParser<DoubleValue> {
 	@Override
 	public int parseField(byte[] bytes, int startPos, int limit, char delim, DoubleValue reusable) {
 		
-		int i = startPos;
-		final byte delByte = (byte) delim;
+		final int delimPos = ByteScanUtils.indexOf(bytes, startPos, limit, (byte) delim);
+		final int i = delimPos < 0 ? limit : delimPos;
 		
-		while (i < limit && bytes[i] != delByte) {
-			i++;
-		}
-		
-		String str = new String(bytes, startPos, i-startPos);
-		try {
-			double value = Double.parseDouble(str);
-			reusable.setValue(value);
-			this.result = reusable;
-			return (i == limit) ? limit : i+1;
-		}
-		catch (NumberFormatException e) {
-			setErrorState(ParseErrorState.NUMERIC_VALUE_FORMAT_ERROR);
-			return -1;
+		double value = SimpleDecimalParsing.parseDouble(bytes, startPos, i);
+		if (Double.isNaN(value)) {
+			// not in simple decimal notation, use the general parsing
+			String str = new String(bytes, startPos, i-startPos);
+			try {
+				value = Double.parseDouble(str);
+			}
+			catch (NumberFormatException e) {
+				setErrorState(ParseErrorState.NUMERIC_VALUE_FORMAT_ERROR);
+				return -1;
+			}
 		}
+		reusable.setValue(value);
+		this.result = reusable;
+		return (i == limit) ? limit : i+1;
 	}
 	
 	@Override
@@ -13,6 +13,8 @@
 
 package eu.stratosphere.types.parser;
 
+import eu.stratosphere.util.ByteScanUtils;
+
 /**
  * Parses a text field into a Double.
  */
@@ -24,22 +26,23 @@ public class DoubleParser extends FieldParser<Double> {
 	
 	@Override
 	public int parseField(byte[] bytes, int startPos, int limit, char delimiter, Double reusable) {
-		int i = startPos;
-		final byte delByte = (byte) delimiter;
-		
-		while (i < limit && bytes[i] != delByte) {
-			i++;
-		}
+		final int delimPos = ByteScanUtils.indexOf(bytes, startPos, limit, (byte) delimiter);
+		final int i = delimPos < 0 ? limit : delimPos;
 		
-		String str = new String(bytes, startPos, i-startPos);
-		try {
-			this.result = Double.parseDouble(str);
-			return (i == limit) ? limit : i+1;
-		}
-		catch (NumberFormatException e) {
-			setErrorState(ParseErrorState.NUMERIC_VALUE_FORMAT_ERROR);
-			return -1;
+		double value = SimpleDecimalParsing.parseDouble(bytes, startPos, i);
+		if (Double.isNaN(value)) {
+			// not in simple decimal notation, use the general parsing
+			String str = new String(bytes, startPos, i-startPos);
+			try {
+				value = Double.parseDouble(str);
+			}
+			catch (NumberFormatException e) {
+				setErrorState(ParseErrorState.NUMERIC_VALUE_FORMAT_ERROR);
+				return -1;
+			}
 		}
+		this.result = value;
+		return (i == limit) ? limit : i+1;
 	}
 	
 	@Override
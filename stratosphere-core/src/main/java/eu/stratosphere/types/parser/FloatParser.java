@@ -13,6 +13,8 @@
 
 package eu.stratosphere.types.parser;
 
+import eu.stratosphere.util.ByteScanUtils;
+
 /**
  * Parses a text field into a {@link Float}.
  */
@@ -23,22 +25,23 @@ public class FloatParser extends FieldParser<Float> {
 	@Override
 	public int parseField(byte[] bytes, int startPos, int limit, char delim, Float reusable) {
 		
-		int i = startPos;
-		final byte delByte = (byte) delim;
+		final int delimPos = ByteScanUtils.indexOf(bytes, startPos, limit, (byte) delim);
+		final int i = delimPos < 0 ? limit : delimPos;
 		
-		while (i < limit && bytes[i] != delByte) {
-			i++;
-		}
-		
-		String str = new String(bytes, startPos, i-startPos);
-		try {
-			this.result = Float.parseFloat(str);
-			return (i == limit) ? limit : i+1;
-		}
-		catch (NumberFormatException e) {
-			setErrorState(ParseErrorState.NUMERIC_VALUE_FORMAT_ERROR);
-			return -1;
+		float value = SimpleDecimalParsing.parseFloat(bytes, startPos, i);
+		if (Float.isNaN(value)) {
+			// not in simple decimal notation, use the general parsing
+			String str = new String(bytes, startPos, i-startPos);
+			try {
+				value = Float.parseFloat(str);
+			}
+			catch (NumberFormatException e) {
+				setErrorState(ParseErrorState.NUMERIC_VALUE_FORMAT_ERROR);
+				return -1;
+			}
 		}
+		this.result = value;
+		return (i == limit) ? limit : i+1;
 	}
 	
 	@Override
@@ -0,0 +1,126 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.types.parser;
+
+/**
+ * Allocation free parsing of the common, simple decimal notation (an optional sign, digits, and an optional
+ * decimal point) into floating point numbers.
+ * <p>
+ * If the digits form an integer that is exactly representable in the floating point type and the number of
+ * fractional digits is small enough that the corresponding power of ten is exactly representable as well,
+ * a single (correctly rounded) division yields exactly the value that {@link Double#parseDouble(String)}
+ * and {@link Float#parseFloat(String)} return. All other inputs (exponents, special values, long mantissas)
+ * are rejected and must be parsed by the general methods.
+ */
+final class SimpleDecimalParsing {
+
+	/** 10^15 < 2^53, so fifteen digits always form an exactly representable double mantissa. */
+	private static final int MAX_DOUBLE_DIGITS = 15;
+
+	/** 10^7 < 2^24, so seven digits always form an exactly representable float mantissa. */
+	private static final int MAX_FLOAT_DIGITS = 7;
+
+	private static final double[] DOUBLE_POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+	};
+
+	private static final float[] FLOAT_POWERS_OF_TEN = {
+		1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f
+	};
+
+	/**
+	 * Parses the bytes in the range <code>[start, end)</code> as a double.
+	 *
+	 * @return The parsed value, or NaN, if the bytes are not in the simple decimal notation.
+	 */
+	static strictfp double parseDouble(byte[] bytes, int start, int end) {
+		final long mantissa = parseMantissa(bytes, start, end, MAX_DOUBLE_DIGITS);
+		if (mantissa < 0) {
+			return Double.NaN;
+		}
+
+		final int fractionDigits = (int) (mantissa >>> FRACTION_DIGITS_SHIFT);
+		final double value = (mantissa & MANTISSA_MASK) / DOUBLE_POWERS_OF_TEN[fractionDigits];
+		return bytes[start] == '-' ? -value : value;
+	}
+
+	/**
+	 * Parses the bytes in the range <code>[start, end)</code> as a float.
+	 *
+	 * @return The parsed value, or NaN, if the bytes are not in the simple decimal notation.
+	 */
+	static strictfp float parseFloat(byte[] bytes, int start, int end) {
+		final long mantissa = parseMantissa(bytes, start, end, MAX_FLOAT_DIGITS);
+		if (mantissa < 0) {
+			return Float.NaN;
+		}
+
+		final int fractionDigits = (int) (mantissa >>> FRACTION_DIGITS_SHIFT);
+		final float value = ((float) (mantissa & MANTISSA_MASK)) / FLOAT_POWERS_OF_TEN[fractionDigits];
+		return bytes[start] == '-' ? -value : value;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private static final int FRACTION_DIGITS_SHIFT = 56;
+
+	private static final long MANTISSA_MASK = (1L << FRACTION_DIGITS_SHIFT) - 1;
+
+	/**
+	 * Reads the digits of a simple decimal. Returns the digits as an integer in the lower bits and the number of
+	 * digits after the decimal point in the upper byte, or <code>-1</code>, if the bytes are not a simple decimal
+	 * with at most the given number of digits.
+	 */
+	private static long parseMantissa(byte[] bytes, int start, int end, int maxDigits) {
+		int i = start;
+		if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int fractionDigits = 0;
+		boolean fraction = false;
+
+		for (; i < end; i++) {
+			final byte b = bytes[i];
+			if (b >= '0' && b <= '9') {
+				if (++digits > maxDigits) {
+					return -1;
+				}
+				mantissa = mantissa * 10 + (b - '0');
+				if (fraction) {
+					fractionDigits++;
+				}
+			}
+			else if (b == '.' && !fraction) {
+				fraction = true;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		return digits == 0 ? -1 : (mantissa | (((long) fractionDigits) << FRACTION_DIGITS_SHIFT));
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private SimpleDecimalParsing() {
+		throw new RuntimeException();
+	}
+}
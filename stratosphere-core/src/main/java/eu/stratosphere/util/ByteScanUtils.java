@@ -0,0 +1,99 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.util;
+
+import java.nio.ByteOrder;
+
+import eu.stratosphere.core.memory.MemoryUtils;
+
+/**
+ * Utility methods to search byte arrays for single byte values, such as field and line delimiters.
+ * <p>
+ * The search examines eight bytes at a time: it loads a long word from the array and tests all of its
+ * bytes at once with a few arithmetic operations (SIMD within a register). Only the tail of the range
+ * that does not fill a complete word is examined byte by byte.
+ */
+public final class ByteScanUtils {
+
+	@SuppressWarnings("restriction")
+	private static final sun.misc.Unsafe UNSAFE = MemoryUtils.UNSAFE;
+
+	@SuppressWarnings("restriction")
+	private static final long BYTE_ARRAY_BASE_OFFSET = UNSAFE.arrayBaseOffset(byte[].class);
+
+	private static final boolean LITTLE_ENDIAN = (MemoryUtils.NATIVE_BYTE_ORDER == ByteOrder.LITTLE_ENDIAN);
+
+	private static final long ONES = 0x0101010101010101L;
+
+	private static final long LOW_SEVEN_BITS = 0x7f7f7f7f7f7f7f7fL;
+
+	/**
+	 * Ranges shorter than this are searched byte by byte, because setting up the word-wise search does not pay off.
+	 */
+	private static final int MIN_WORD_SCAN_LENGTH = 16;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Finds the first occurrence of the given byte in the range <code>[from, limit)</code> of the given array.
+	 *
+	 * @param bytes The array to search.
+	 * @param from The first position to examine.
+	 * @param limit The position one after the last position to examine.
+	 * @param value The byte to look for.
+	 * @return The position of the first occurrence of the byte, or <code>-1</code>, if the range does not contain it.
+	 */
+	@SuppressWarnings("restriction")
+	public static int indexOf(byte[] bytes, int from, int limit, byte value) {
+		if (from < 0 || limit > bytes.length) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		int i = from;
+
+		if (limit - from >= MIN_WORD_SCAN_LENGTH) {
+			final long pattern = (value & 0xffL) * ONES;
+			final int wordLimit = limit - 8;
+
+			for (; i <= wordLimit; i += 8) {
+				// bytes equal to the searched value become zero
+				final long word = UNSAFE.getLong(bytes, BYTE_ARRAY_BASE_OFFSET + i) ^ pattern;
+
+				// exact zero byte detection: sets the high bit of every byte that is zero, and only of those
+				final long zeros = ~(((word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | word | LOW_SEVEN_BITS);
+				if (zeros != 0) {
+					return i + (LITTLE_ENDIAN ?
+						Long.numberOfTrailingZeros(zeros) >>> 3 :
+						Long.numberOfLeadingZeros(zeros) >>> 3);
+				}
+			}
+		}
+
+		for (; i < limit; i++) {
+			if (bytes[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Private constructor to prevent instantiation.
+	 */
+	private ByteScanUtils() {
+		throw new RuntimeException();
+	}
+}
@@ -292,6 +292,41 @@ public class FileInputFormatTest {
 		}
 	}
 	
+	@Test
+	public void testSplitsForManyFiles() {
+		try {
+			// enough files to have the block locations looked up in several parallel batches
+			final int numFiles = 3 * FileInputFormat.BLOCK_LOCATION_BATCH_SIZE + 5;
+			final long[] sizes = new long[numFiles];
+			long totalSize = 0;
+			for (int i = 0; i < numFiles; i++) {
+				sizes[i] = 10 + i;
+				totalSize += sizes[i];
+			}
+			
+			final String tempDir = TestFileUtils.createTempFileDir(sizes);
+			final DummyFileInputFormat format = new DummyFileInputFormat();
+			format.setFilePath(tempDir);
+			format.configure(new Configuration());
+			
+			FileInputSplit[] splits = format.createInputSplits(1);
+			Assert.assertEquals(numFiles, splits.length);
+			
+			long splitSize = 0;
+			for (int i = 0; i < splits.length; i++) {
+				Assert.assertEquals(i, splits[i].getSplitNumber());
+				Assert.assertEquals(0L, splits[i].getStart());
+				Assert.assertNotNull(splits[i].getHostNames());
+				splitSize += splits[i].getLength();
+			}
+			Assert.assertEquals(totalSize, splitSize);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			Assert.fail(ex.getMessage());
+		}
+	}
+	
 	// ------------------------------------------------------------------------
 	
 	private class DummyFileInputFormat extends FileInputFormat<IntValue> {
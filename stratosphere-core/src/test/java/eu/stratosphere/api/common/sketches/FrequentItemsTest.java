@@ -0,0 +1,117 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.common.sketches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class FrequentItemsTest {
+
+	@Test
+	public void testCountMinNeverUnderestimates() {
+		CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+		for (long i = 0; i < 10000; i++) {
+			sketch.add(i % 1000, i % 7);
+		}
+		long total = 0;
+		for (long item = 0; item < 1000; item++) {
+			long count = 0;
+			for (long i = item; i < 10000; i += 1000) {
+				count += i % 7;
+			}
+			total += count;
+			final long estimate = sketch.estimateCount(item);
+			assertTrue(estimate >= count);
+			assertTrue(estimate <= count + 0.01 * sketch.getTotalCount() * 5);
+		}
+		assertEquals(total, sketch.getTotalCount());
+	}
+
+	@Test
+	public void testSparseCountsAreExact() {
+		CountMinSketch sketch = new CountMinSketch();
+		sketch.add("a", 3);
+		sketch.add("b", 1);
+		sketch.add("a", 2);
+		assertEquals(5L, sketch.estimateCount("a"));
+		assertEquals(1L, sketch.estimateCount("b"));
+		assertEquals(0L, sketch.estimateCount("c"));
+	}
+
+	@Test
+	public void testHeavyHitters() throws IOException {
+		FrequentItems first = new FrequentItems(3, 0.001, 0.01);
+		FrequentItems second = new FrequentItems(3, 0.001, 0.01);
+
+		// a skewed distribution, split across two sketches
+		for (int i = 0; i < 100000; i++) {
+			final String item;
+			if (i % 2 == 0) {
+				item = "hot";
+			} else if (i % 5 == 1) {
+				item = "warm";
+			} else {
+				item = "cold-" + i;
+			}
+			if (i < 60000) {
+				first.add(item);
+			} else {
+				second.add(item);
+			}
+		}
+
+		FrequentItems merged = roundTrip(first, new FrequentItems());
+		merged.merge(roundTrip(second, new FrequentItems()));
+
+		assertEquals("hot", merged.getMostFrequent());
+		Map<Object, Long> items = merged.getFrequentItems();
+		Iterator<Map.Entry<Object, Long>> iter = items.entrySet().iterator();
+		Map.Entry<Object, Long> hot = iter.next();
+		Map.Entry<Object, Long> warm = iter.next();
+		assertEquals("hot", hot.getKey());
+		assertEquals("warm", warm.getKey());
+		assertTrue(hot.getValue() >= 50000 && hot.getValue() <= 50000 + 100000 * 0.001 * 5);
+		assertTrue(warm.getValue() >= 10000 && warm.getValue() <= 10000 + 100000 * 0.001 * 5);
+	}
+
+	@Test
+	public void testSerializationOfItemTypes() throws IOException {
+		FrequentItems sketch = new FrequentItems();
+		Object[] items = new Object[] { "s", 1L, 2, (short) 3, (byte) 4, 5.0, 6.0f, true, 'c' };
+		for (Object item : items) {
+			sketch.add(item);
+		}
+		Map<Object, Long> copy = roundTrip(sketch, new FrequentItems()).getFrequentItems();
+		assertEquals(items.length, copy.size());
+		for (Object item : items) {
+			assertEquals(Long.valueOf(1L), copy.get(item));
+		}
+	}
+
+	private static FrequentItems roundTrip(FrequentItems sketch, FrequentItems target) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		sketch.write(new DataOutputStream(bytes));
+		target.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		return target;
+	}
+}
@@ -0,0 +1,90 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.common.sketches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class HyperLogLogTest {
+
+	@Test
+	public void testSmallCardinalities() {
+		HyperLogLog sketch = new HyperLogLog();
+		for (int round = 0; round < 3; round++) {
+			for (long i = 0; i < 100; i++) {
+				sketch.offer(i);
+			}
+		}
+		assertEquals(100L, sketch.estimate(), 2);
+
+		sketch.reset();
+		assertEquals(0L, sketch.estimate());
+	}
+
+	@Test
+	public void testLargeCardinalities() {
+		HyperLogLog sketch = new HyperLogLog(HyperLogLog.precisionForRelativeError(0.01));
+		final int n = 1000000;
+		for (int i = 0; i < n; i++) {
+			sketch.offer("item-" + i);
+		}
+		// the relative standard error is 1%, allow for five standard deviations
+		assertEquals(n, sketch.estimate(), n * 0.05);
+	}
+
+	@Test
+	public void testMergeAndSerialization() throws IOException {
+		HyperLogLog first = new HyperLogLog(10);
+		HyperLogLog second = new HyperLogLog(10);
+		HyperLogLog all = new HyperLogLog(10);
+
+		// the first sketch stays sparse, the second one becomes dense
+		for (long i = 0; i < 20; i++) {
+			first.offer(i);
+			all.offer(i);
+		}
+		for (long i = 10; i < 50000; i++) {
+			second.offer(i);
+			all.offer(i);
+		}
+
+		HyperLogLog copy = roundTrip(first, new HyperLogLog());
+		copy.merge(roundTrip(second, new HyperLogLog(10)));
+		assertEquals(all.estimate(), copy.estimate());
+
+		// merging the other way round gives the same result
+		second.merge(first);
+		assertEquals(all.estimate(), second.estimate());
+		assertTrue(Math.abs(all.estimate() - 50000) < 50000 * 0.2);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeDifferentPrecisions() {
+		new HyperLogLog(10).merge(new HyperLogLog(11));
+	}
+
+	private static HyperLogLog roundTrip(HyperLogLog sketch, HyperLogLog target) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		sketch.write(new DataOutputStream(bytes));
+		target.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		return target;
+	}
+}
@@ -0,0 +1,94 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+package eu.stratosphere.api.common.sketches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuantileDigestTest {
+
+	@Test
+	public void testUniformQuantiles() {
+		QuantileDigest digest = new QuantileDigest();
+		Random rnd = new Random(42);
+		final int n = 100000;
+		for (int i = 0; i < n; i++) {
+			digest.add(rnd.nextDouble());
+		}
+
+		assertEquals(n, digest.getCount());
+		for (double q : new double[] {0.001, 0.01, 0.1, 0.5, 0.9, 0.99, 0.999}) {
+			assertEquals(q, digest.quantile(q), 0.01);
+		}
+		assertEquals(0.0, digest.quantile(0.0), 0.001);
+		assertEquals(1.0, digest.quantile(1.0), 0.001);
+	}
+
+	@Test
+	public void testSizeIsBounded() throws IOException {
+		QuantileDigest digest = new QuantileDigest(50);
+		for (int i = 0; i < 200000; i++) {
+			digest.add(i);
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		digest.write(new DataOutputStream(bytes));
+		// a header and at most one centroid per unit of compression
+		assertTrue(bytes.size() <= 32 + 50 * 16);
+	}
+
+	@Test
+	public void testMergeAndSerialization() throws IOException {
+		QuantileDigest first = new QuantileDigest();
+		QuantileDigest second = new QuantileDigest();
+		for (int i = 0; i < 10000; i++) {
+			if (i % 3 == 0) {
+				first.add(i);
+			} else {
+				second.add(i);
+			}
+		}
+
+		QuantileDigest merged = roundTrip(first, new QuantileDigest(20));
+		merged.merge(roundTrip(second, new QuantileDigest()));
+
+		assertEquals(10000, merged.getCount());
+		assertEquals(5000.0, merged.quantile(0.5), 100.0);
+		assertEquals(9900.0, merged.quantile(0.99), 20.0);
+		assertEquals(9999.0, merged.quantile(1.0), 0.0);
+	}
+
+	@Test
+	public void testSingleValueAndEmpty() {
+		QuantileDigest digest = new QuantileDigest();
+		assertTrue(Double.isNaN(digest.quantile(0.5)));
+		digest.add(7.0);
+		assertEquals(7.0, digest.quantile(0.1), 0.0);
+		assertEquals(7.0, digest.quantile(0.9), 0.0);
+	}
+
+	private static QuantileDigest roundTrip(QuantileDigest digest, QuantileDigest target) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		digest.write(new DataOutputStream(bytes));
+		target.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		return target;
+	}
+}
@@ -0,0 +1,127 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.types.parser;
+
+import java.util.Random;
+
+import eu.stratosphere.util.ByteScanUtils;
+
+/**
+ * Measures the throughput of scanning for delimiters and of parsing decimal fields, comparing the word-wise scan and
+ * the allocation-free decimal parsing with a byte-by-byte scan and String based parsing. The first argument is the
+ * duration of a run in seconds (default 5), the second the number of fields (default 1000000).
+ */
+public class DoubleParserBenchmark {
+
+	private static final char DELIMITER = '|';
+
+	private static double sink;
+
+	public static void main(final String[] args) throws Exception {
+
+		final long durationMillis = 1000L * (args.length > 0 ? Integer.parseInt(args[0]) : 5);
+		final int numFields = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+
+		final byte[] bytes = createFields(numFields);
+
+		for (int run = 0; run < 2; run++) {
+			// the first run warms up
+			final long duration = run == 0 ? durationMillis / 5 : durationMillis;
+
+			final long bytewise = runScan(bytes, false, duration);
+			final long wordwise = runScan(bytes, true, duration);
+			final long string = runParse(bytes, false, duration);
+			final long simple = runParse(bytes, true, duration);
+
+			if (run > 0) {
+				print("byte-wise scan", bytewise, bytes.length, duration);
+				print("word-wise scan", wordwise, bytes.length, duration);
+				print("String parsing", string, bytes.length, duration);
+				print("DoubleParser", simple, bytes.length, duration);
+			}
+		}
+	}
+
+	private static byte[] createFields(final int numFields) {
+		final Random rnd = new Random(42);
+		final StringBuilder bld = new StringBuilder();
+		for (int i = 0; i < numFields; i++) {
+			bld.append(rnd.nextInt(100000)).append('.').append(rnd.nextInt(1000)).append(DELIMITER);
+		}
+		return bld.toString().getBytes();
+	}
+
+	private static long runScan(final byte[] bytes, final boolean wordwise, final long durationMillis) {
+		final long end = System.currentTimeMillis() + durationMillis;
+		long passes = 0;
+		long found = 0;
+
+		while (System.currentTimeMillis() < end) {
+			int pos = 0;
+			while (pos < bytes.length) {
+				final int next = wordwise ?
+					ByteScanUtils.indexOf(bytes, pos, bytes.length, (byte) DELIMITER) :
+					indexOf(bytes, pos, bytes.length, (byte) DELIMITER);
+				if (next < 0) {
+					break;
+				}
+				found++;
+				pos = next + 1;
+			}
+			passes++;
+		}
+
+		sink += found;
+		return passes;
+	}
+
+	private static long runParse(final byte[] bytes, final boolean simple, final long durationMillis) {
+		final DoubleParser parser = new DoubleParser();
+		final Double reuse = parser.createValue();
+		final long end = System.currentTimeMillis() + durationMillis;
+		long passes = 0;
+		double sum = 0.0;
+
+		while (System.currentTimeMillis() < end) {
+			int pos = 0;
+			while (pos < bytes.length) {
+				if (simple) {
+					pos = parser.parseField(bytes, pos, bytes.length, DELIMITER, reuse);
+					sum += parser.getLastResult().doubleValue();
+				} else {
+					final int next = indexOf(bytes, pos, bytes.length, (byte) DELIMITER);
+					sum += Double.parseDouble(new String(bytes, pos, next - pos));
+					pos = next + 1;
+				}
+			}
+			passes++;
+		}
+
+		sink += sum;
+		return passes;
+	}
+
+	private static int indexOf(final byte[] bytes, final int from, final int limit, final byte value) {
+		for (int i = from; i < limit; i++) {
+			if (bytes[i] == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void print(final String name, final long passes, final int length, final long durationMillis) {
+		System.out.println(name + ": " + (passes * length / 1000 / durationMillis) + " MB/sec");
+	}
+}
@@ -0,0 +1,71 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.types.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SimpleDecimalParsingTest {
+
+	@Test
+	public void testRejectsNonSimpleNotation() {
+		String[] values = { "", "-", ".", "1e5", "1.2.3", "NaN", "Infinity", "12a", "1234567890123456", " 1" };
+		for (String v : values) {
+			byte[] bytes = v.getBytes();
+			assertTrue(v, Double.isNaN(SimpleDecimalParsing.parseDouble(bytes, 0, bytes.length)));
+		}
+		byte[] bytes = "12345678".getBytes();
+		assertTrue(Float.isNaN(SimpleDecimalParsing.parseFloat(bytes, 0, bytes.length)));
+	}
+
+	@Test
+	public void testSameResultAsGeneralParsing() {
+		final Random rnd = new Random(2384762387462L);
+
+		for (int i = 0; i < 100000; i++) {
+			final StringBuilder bld = new StringBuilder();
+			switch (rnd.nextInt(3)) {
+			case 0: bld.append('-'); break;
+			case 1: bld.append('+'); break;
+			default:
+			}
+
+			final int digits = 1 + rnd.nextInt(15);
+			final int pointPos = rnd.nextInt(digits + 1);
+			for (int d = 0; d < digits; d++) {
+				if (d == pointPos) {
+					bld.append('.');
+				}
+				bld.append((char) ('0' + rnd.nextInt(10)));
+			}
+
+			final String str = bld.toString();
+			final byte[] bytes = str.getBytes();
+
+			assertEquals(str, Double.doubleToLongBits(Double.parseDouble(str)),
+				Double.doubleToLongBits(SimpleDecimalParsing.parseDouble(bytes, 0, bytes.length)));
+
+			final float f = SimpleDecimalParsing.parseFloat(bytes, 0, bytes.length);
+			if (digits <= 7) {
+				assertEquals(str, Float.floatToIntBits(Float.parseFloat(str)), Float.floatToIntBits(f));
+			} else {
+				assertTrue(str, Float.isNaN(f));
+			}
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteScanUtilsTest {
+
+	@Test
+	public void testFindsFirstOccurrence() {
+		final byte[] bytes = "abc,def,ghi,jkl,mno,pqr,stu,vwx".getBytes();
+		assertEquals(3, ByteScanUtils.indexOf(bytes, 0, bytes.length, (byte) ','));
+		assertEquals(7, ByteScanUtils.indexOf(bytes, 4, bytes.length, (byte) ','));
+		assertEquals(27, ByteScanUtils.indexOf(bytes, 24, bytes.length, (byte) ','));
+		assertEquals(-1, ByteScanUtils.indexOf(bytes, 28, bytes.length, (byte) ','));
+		assertEquals(-1, ByteScanUtils.indexOf(bytes, 0, bytes.length, (byte) '\n'));
+		assertEquals(-1, ByteScanUtils.indexOf(bytes, 0, 3, (byte) ','));
+	}
+
+	@Test
+	public void testHighBitBytes() {
+		final byte[] bytes = new byte[40];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (0x80 | i);
+		}
+		bytes[33] = (byte) 0xff;
+		assertEquals(33, ByteScanUtils.indexOf(bytes, 0, bytes.length, (byte) 0xff));
+		assertEquals(1, ByteScanUtils.indexOf(bytes, 0, bytes.length, (byte) 0x81));
+	}
+
+	@Test
+	public void testAgainstLinearSearch() {
+		final Random rnd = new Random(7652389457L);
+		final byte[] bytes = new byte[200];
+
+		for (int round = 0; round < 2000; round++) {
+			// small alphabet, so that matches are frequent and appear next to zero and 0x01 bytes
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = (byte) (rnd.nextInt(12) - 2);
+			}
+			final int from = rnd.nextInt(bytes.length);
+			final int limit = from + rnd.nextInt(bytes.length - from + 1);
+			final byte value = (byte) (rnd.nextInt(12) - 2);
+
+			int expected = -1;
+			for (int i = from; i < limit; i++) {
+				if (bytes[i] == value) {
+					expected = i;
+					break;
+				}
+			}
+			assertEquals(expected, ByteScanUtils.indexOf(bytes, from, limit, value));
+		}
+	}
+}
@@ -18,6 +18,7 @@ import org.apache.commons.lang3.Validate;
 
 import eu.stratosphere.api.common.io.FileOutputFormat;
 import eu.stratosphere.api.common.io.OutputFormat;
+import eu.stratosphere.api.java.aggregation.AggregationFunctionFactory;
 import eu.stratosphere.api.java.aggregation.Aggregations;
 import eu.stratosphere.api.java.functions.CoGroupFunction;
 import eu.stratosphere.api.java.functions.FilterFunction;
@@ -36,6 +37,7 @@ import eu.stratosphere.api.java.operators.CrossOperator;
 import eu.stratosphere.api.java.operators.CrossOperator.DefaultCross;
 import eu.stratosphere.api.java.operators.CustomUnaryOperation;
 import eu.stratosphere.api.java.operators.DataSink;
+import eu.stratosphere.api.java.operators.DistinctOperator;
 import eu.stratosphere.api.java.operators.FilterOperator;
 import eu.stratosphere.api.java.operators.FlatMapOperator;
 import eu.stratosphere.api.java.operators.Grouping;
@@ -224,6 +226,36 @@ public abstract class DataSet<T> {
 		return new AggregateOperator<T>(this, agg, field);
 	}
 
+	/**
+	 * Applies an Aggregate transformation with a configured aggregation function, such as an approximate
+	 * aggregation with a given accuracy (see {@link Aggregations#approxCountDistinct(double)}).
+	 * 
+	 * @param factory The factory of the aggregation function that is computed.
+	 * @param field The index of the Tuple field on which the aggregation function is applied.
+	 * @return An AggregateOperator that represents the aggregated DataSet.
+	 * 
+	 * @see #aggregate(Aggregations, int)
+	 */
+	public AggregateOperator<T> aggregate(AggregationFunctionFactory factory, int field) {
+		return new AggregateOperator<T>(this, factory, field);
+	}
+
+	/**
+	 * Applies an Aggregate transformation with a configured aggregation function and writes its result into
+	 * a separate field, for example the {@code Long} estimate of an approximate distinct count of a
+	 * {@code String} field (see {@link Aggregations#approxCountDistinct(double)}).
+	 * 
+	 * @param factory The factory of the aggregation function that is computed.
+	 * @param field The index of the Tuple field on which the aggregation function is applied.
+	 * @param resultField The index of the Tuple field that receives the result of the aggregation function.
+	 * @return An AggregateOperator that represents the aggregated DataSet.
+	 * 
+	 * @see #aggregate(AggregationFunctionFactory, int)
+	 */
+	public AggregateOperator<T> aggregate(AggregationFunctionFactory factory, int field, int resultField) {
+		return new AggregateOperator<T>(this, factory, field, resultField);
+	}
+
 	/**
 	 * Syntactic sugar for aggregate (SUM, field)
 	 * @param field The index of the Tuple field on which the aggregation function is applied.
@@ -256,6 +288,17 @@ public abstract class DataSet<T> {
 	public AggregateOperator<T> min (int field) {
 		return this.aggregate (Aggregations.MIN, field);
 	}
+
+	/**
+	 * Syntactic sugar for aggregate (AVG, field)
+	 * @param field The index of the Tuple field on which the aggregation function is applied.
+	 * @return An AggregateOperator that represents the averaged DataSet.
+	 *
+	 * @see eu.stratosphere.api.java.operators.AggregateOperator
+	 */
+	public AggregateOperator<T> avg (int field) {
+		return this.aggregate (Aggregations.AVG, field);
+	}
 	
 	/**
 	 * Applies a Reduce transformation on a non-grouped {@link DataSet}.<br/>
@@ -301,13 +344,38 @@ public abstract class DataSet<T> {
 	//  distinct
 	// --------------------------------------------------------------------------------------------
 	
-//	public <K extends Comparable<K>> DistinctOperator<T> distinct(KeySelector<T, K> keyExtractor) {
-//		return new DistinctOperator<T>(this, new Keys.SelectorFunctionKeys<T, K>(keyExtractor, getType()));
-//	}
+	/**
+	 * Returns a distinct set of a {@link DataSet} using a {@link KeySelector} function.
+	 * The KeySelector function is called for each element of the DataSet and extracts a single key value on which the
+	 *   decision is made if two elements are distinct or not. Of all elements with the same key, one is retained.
+	 * 
+	 * @param keyExtractor The KeySelector function which extracts the key values from the DataSet on which the
+	 *                     distinction of the DataSet is decided.
+	 * @return A DistinctOperator that represents the distinct DataSet.
+	 * 
+	 * @see KeySelector
+	 * @see DistinctOperator
+	 */
+	public <K extends Comparable<K>> DistinctOperator<T> distinct(KeySelector<T, K> keyExtractor) {
+		return new DistinctOperator<T>(this, new Keys.SelectorFunctionKeys<T, K>(keyExtractor, getType()));
+	}
 	
-//	public DistinctOperator<T> distinct(int... fields) {
-//		return new DistinctOperator<T>(this, new Keys.FieldPositionKeys<T>(fields, getType(), true));
-//	}
+	/**
+	 * Returns a distinct set of a {@link Tuple} {@link DataSet} using field position keys.
+	 * The field position keys specify the fields of Tuples on which the decision is made if two Tuples are distinct or
+	 *   not. Of all Tuples with the same values in the key fields, one is retained.<br/>
+	 * <b>Note: Field position keys can only be specified for Tuple DataSets.</b>
+	 * 
+	 * @param fields One or more field positions on which the distinction of the DataSet is decided. If no field
+	 *               positions are given, all fields are used.
+	 * @return A DistinctOperator that represents the distinct DataSet.
+	 * 
+	 * @see Tuple
+	 * @see DistinctOperator
+	 */
+	public DistinctOperator<T> distinct(int... fields) {
+		return new DistinctOperator<T>(this, new Keys.FieldPositionKeys<T>(fields, getType(), true));
+	}
 	
 	// --------------------------------------------------------------------------------------------
 	//  Grouping
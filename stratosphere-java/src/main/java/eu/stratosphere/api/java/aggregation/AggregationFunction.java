@@ -27,4 +27,15 @@ public abstract class AggregationFunction<T> implements java.io.Serializable {
 	public abstract void aggregate(T value);
 	
 	public abstract T getAggregate();
+	
+	/**
+	 * Gets the type of the aggregate, given the type of the aggregated values. Most aggregations produce
+	 * an aggregate of the same type, which is then written into the aggregated field.
+	 * 
+	 * @param valueType The type of the aggregated values.
+	 * @return The type of the aggregate.
+	 */
+	public Class<?> getAggregateType(Class<?> valueType) {
+		return valueType;
+	}
 }
@@ -14,15 +14,20 @@
  **********************************************************************************************************************/
 package eu.stratosphere.api.java.aggregation;
 
+import eu.stratosphere.api.common.sketches.HyperLogLog;
+
 /**
  *
  */
 public enum Aggregations {
 	
 	SUM (new SumAggregationFunction.SumAggregationFunctionFactory()),
-	MIN (new MinAggregationFunction.MinAggregationFunctionFactory()),
-	MAX (new MaxAggregationFunction.MaxAggregationFunctionFactory()),
-//	AVG (new AvgAggregationFunction.AvgAggregationFunctionFactory())
+	MIN (new MinMaxAggregationFunction.MinMaxAggregationFunctionFactory(false)),
+	MAX (new MinMaxAggregationFunction.MinMaxAggregationFunctionFactory(true)),
+	AVG (new AvgAggregationFunction.AvgAggregationFunctionFactory()),
+	APPROX_COUNT_DISTINCT (new ApproximateAggregationFunction.CountDistinctFactory()),
+	APPROX_MEDIAN (new ApproximateAggregationFunction.QuantileFactory(0.5)),
+	APPROX_MOST_FREQUENT (new ApproximateAggregationFunction.MostFrequentFactory())
 	;
 //	STD_DEV;
 	
@@ -38,4 +43,46 @@ public enum Aggregations {
 		return this.factory;
 	}
 	
+	// --------------------------------------------------------------------------------------------
+	//  Approximate aggregations with configured accuracy
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Creates an approximate distinct count whose estimate has the given relative standard error.
+	 * The size of its sketch is about (1.04 / relativeError)^2 bytes. The estimate is a Long, which is
+	 * written into the counted field if that is a Long field, or into a separate result field.
+	 * 
+	 * @param relativeError The relative standard error, for example 0.01.
+	 * @return The factory for the aggregation function.
+	 */
+	public static AggregationFunctionFactory approxCountDistinct(double relativeError) {
+		return new ApproximateAggregationFunction.CountDistinctFactory(HyperLogLog.precisionForRelativeError(relativeError));
+	}
+	
+	/**
+	 * Creates an approximate quantile with the given compression of its digest. Higher compressions
+	 * give more accurate quantiles and larger digests.
+	 * 
+	 * @param quantile The quantile, between 0 and 1.
+	 * @param compression The compression of the digest, at least 10.
+	 * @return The factory for the aggregation function.
+	 */
+	public static AggregationFunctionFactory approxQuantile(double quantile, double compression) {
+		return new ApproximateAggregationFunction.QuantileFactory(quantile, compression);
+	}
+	
+	/**
+	 * Creates an approximate most frequent value, whose Count-Min sketch overestimates the counts by at
+	 * most epsilon times the number of values, with probability 1 - delta. The complete set of heavy
+	 * hitters is tracked by the {@link eu.stratosphere.api.common.accumulators.ApproximateHeavyHitters}
+	 * accumulator.
+	 * 
+	 * @param epsilon The maximal overestimation of the counts, relative to the number of values.
+	 * @param delta The probability that a count exceeds the maximal overestimation.
+	 * @return The factory for the aggregation function.
+	 */
+	public static AggregationFunctionFactory approxMostFrequent(double epsilon, double delta) {
+		return new ApproximateAggregationFunction.MostFrequentFactory(epsilon, delta);
+	}
+	
 }
@@ -0,0 +1,358 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.aggregation;
+
+import eu.stratosphere.api.common.sketches.CountMinSketch;
+import eu.stratosphere.api.common.sketches.FrequentItems;
+import eu.stratosphere.api.common.sketches.HyperLogLog;
+import eu.stratosphere.api.common.sketches.QuantileDigest;
+import eu.stratosphere.types.Value;
+
+/**
+ * Approximate aggregations, backed by sketches of a bounded size. The sketches are the partial states of
+ * the aggregations, so they are built in the combiner and merged in the reducer, and only the sketches are
+ * shipped.
+ * <p>
+ * The approximate distinct count is a {@code Long}, regardless of the type of the counted values. It is
+ * written into the aggregated field if that is a {@code Long} field, and otherwise into a separate result
+ * field (see {@link eu.stratosphere.api.java.DataSet#aggregate(AggregationFunctionFactory, int, int)}).
+ * Quantiles and the most frequent value have the type of the aggregated field. The complete set of heavy
+ * hitters is tracked by the {@link eu.stratosphere.api.common.accumulators.ApproximateHeavyHitters}
+ * accumulator.
+ */
+public abstract class ApproximateAggregationFunction<T, P extends Value> extends PartialAggregationFunction<T, P> {
+	private static final long serialVersionUID = 1L;
+	
+	protected final Class<T> type;
+	
+	protected ApproximateAggregationFunction(Class<T> type) {
+		this.type = type;
+	}
+	
+	@Override
+	public P createPartial() {
+		P partial = createSketch();
+		resetPartial(partial);
+		return partial;
+	}
+	
+	/**
+	 * Creates a new sketch with the configured accuracy.
+	 * 
+	 * @return A new sketch.
+	 */
+	protected abstract P createSketch();
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Estimates the number of distinct values with a {@link HyperLogLog} sketch. The estimate is a {@code Long}.
+	 */
+	public static final class CountDistinctAgg extends ApproximateAggregationFunction<Object, HyperLogLog> {
+		private static final long serialVersionUID = 1L;
+		
+		private final int precision;
+		
+		public CountDistinctAgg(int precision) {
+			super(Object.class);
+			this.precision = precision;
+		}
+
+		@Override
+		public Class<HyperLogLog> getPartialType() {
+			return HyperLogLog.class;
+		}
+
+		@Override
+		protected HyperLogLog createSketch() {
+			return new HyperLogLog(this.precision);
+		}
+
+		@Override
+		public void resetPartial(HyperLogLog partial) {
+			partial.reset();
+		}
+
+		@Override
+		public void accumulate(HyperLogLog partial, Object value) {
+			partial.offer(value);
+		}
+
+		@Override
+		public void merge(HyperLogLog partial, HyperLogLog other) {
+			partial.merge(other);
+		}
+
+		@Override
+		public Object getResult(HyperLogLog partial) {
+			return Long.valueOf(partial.estimate());
+		}
+		
+		@Override
+		public Class<?> getAggregateType(Class<?> valueType) {
+			return Long.class;
+		}
+		
+		@Override
+		public String toString() {
+			return "APPROX_COUNT_DISTINCT";
+		}
+	}
+	
+	/**
+	 * Estimates a quantile of the values with a {@link QuantileDigest}.
+	 */
+	public static final class QuantileAgg<T> extends ApproximateAggregationFunction<T, QuantileDigest> {
+		private static final long serialVersionUID = 1L;
+		
+		private final double quantile;
+		
+		private final double compression;
+		
+		public QuantileAgg(Class<T> type, double quantile, double compression) {
+			super(type);
+			this.quantile = quantile;
+			this.compression = compression;
+		}
+
+		@Override
+		public Class<QuantileDigest> getPartialType() {
+			return QuantileDigest.class;
+		}
+
+		@Override
+		protected QuantileDigest createSketch() {
+			return new QuantileDigest(this.compression);
+		}
+
+		@Override
+		public void resetPartial(QuantileDigest partial) {
+			partial.reset();
+		}
+
+		@Override
+		public void accumulate(QuantileDigest partial, T value) {
+			partial.add(((Number) value).doubleValue());
+		}
+
+		@Override
+		public void merge(QuantileDigest partial, QuantileDigest other) {
+			partial.merge(other);
+		}
+
+		@Override
+		public T getResult(QuantileDigest partial) {
+			return toNumber(partial.quantile(this.quantile), this.type);
+		}
+		
+		@Override
+		public String toString() {
+			return "APPROX_QUANTILE_" + this.quantile;
+		}
+	}
+	
+	/**
+	 * Finds the most frequent value with a Count-Min sketch.
+	 */
+	public static final class MostFrequentAgg<T> extends ApproximateAggregationFunction<T, FrequentItems> {
+		private static final long serialVersionUID = 1L;
+		
+		private final double epsilon;
+		
+		private final double delta;
+		
+		public MostFrequentAgg(Class<T> type, double epsilon, double delta) {
+			super(type);
+			this.epsilon = epsilon;
+			this.delta = delta;
+		}
+
+		@Override
+		public Class<FrequentItems> getPartialType() {
+			return FrequentItems.class;
+		}
+
+		@Override
+		protected FrequentItems createSketch() {
+			return new FrequentItems(FrequentItems.DEFAULT_CAPACITY, this.epsilon, this.delta);
+		}
+
+		@Override
+		public void resetPartial(FrequentItems partial) {
+			partial.reset();
+		}
+
+		@Override
+		public void accumulate(FrequentItems partial, T value) {
+			partial.add(value);
+		}
+
+		@Override
+		public void merge(FrequentItems partial, FrequentItems other) {
+			partial.merge(other);
+		}
+
+		@Override
+		public T getResult(FrequentItems partial) {
+			return this.type.cast(partial.getMostFrequent());
+		}
+		
+		@Override
+		public String toString() {
+			return "APPROX_MOST_FREQUENT";
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//  Factories
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class CountDistinctFactory implements AggregationFunctionFactory {
+		private static final long serialVersionUID = 1L;
+		
+		private final int precision;
+		
+		public CountDistinctFactory() {
+			this(HyperLogLog.DEFAULT_PRECISION);
+		}
+		
+		/**
+		 * @param precision The precision of the HyperLogLog sketch, which is the logarithm of its size.
+		 */
+		public CountDistinctFactory(int precision) {
+			this.precision = precision;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T> AggregationFunction<T> createAggregationFunction(Class<T> type) {
+			if (isHashable(type)) {
+				return (AggregationFunction<T>) new CountDistinctAgg(this.precision);
+			} else {
+				throw new UnsupportedAggregationTypeException("The type " + type.getName() + 
+					" is not supported for approximate distinct counts.");
+			}
+		}
+	}
+	
+	public static final class QuantileFactory implements AggregationFunctionFactory {
+		private static final long serialVersionUID = 1L;
+		
+		private final double quantile;
+		
+		private final double compression;
+		
+		public QuantileFactory(double quantile) {
+			this(quantile, QuantileDigest.DEFAULT_COMPRESSION);
+		}
+		
+		/**
+		 * @param quantile The quantile to estimate, between 0 and 1.
+		 * @param compression The compression of the digest, which bounds its size.
+		 */
+		public QuantileFactory(double quantile, double compression) {
+			if (quantile < 0.0 || quantile > 1.0) {
+				throw new IllegalArgumentException("The quantile must be between 0 and 1.");
+			}
+			this.quantile = quantile;
+			this.compression = compression;
+		}
+
+		@Override
+		public <T> AggregationFunction<T> createAggregationFunction(Class<T> type) {
+			if (isNumber(type)) {
+				return new QuantileAgg<T>(type, this.quantile, this.compression);
+			} else {
+				throw new UnsupportedAggregationTypeException("The type " + type.getName() + 
+					" is not supported for approximate quantiles.");
+			}
+		}
+	}
+	
+	public static final class MostFrequentFactory implements AggregationFunctionFactory {
+		private static final long serialVersionUID = 1L;
+		
+		private final double epsilon;
+		
+		private final double delta;
+		
+		public MostFrequentFactory() {
+			this(CountMinSketch.DEFAULT_EPSILON, CountMinSketch.DEFAULT_DELTA);
+		}
+		
+		/**
+		 * @param epsilon The maximal overestimation of the counts, relative to the total count.
+		 * @param delta The probability that a count exceeds the maximal overestimation.
+		 */
+		public MostFrequentFactory(double epsilon, double delta) {
+			this.epsilon = epsilon;
+			this.delta = delta;
+		}
+
+		@Override
+		public <T> AggregationFunction<T> createAggregationFunction(Class<T> type) {
+			if (isHashable(type)) {
+				return new MostFrequentAgg<T>(type, this.epsilon, this.delta);
+			} else {
+				throw new UnsupportedAggregationTypeException("The type " + type.getName() + 
+					" is not supported for approximate most frequent values.");
+			}
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static boolean isNumber(Class<?> type) {
+		return type == Long.class || type == Integer.class || type == Short.class || type == Byte.class ||
+				type == Double.class || type == Float.class;
+	}
+	
+	/**
+	 * Checks whether the sketches can hash values of the given type.
+	 */
+	private static boolean isHashable(Class<?> type) {
+		return isNumber(type) || type == String.class || type == Boolean.class || type == Character.class;
+	}
+	
+	/**
+	 * Converts the given number to the given numeric type. Integral types are rounded and saturated.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> T toNumber(double value, Class<T> type) {
+		if (type == Double.class) {
+			return (T) Double.valueOf(value);
+		}
+		else if (type == Float.class) {
+			return (T) Float.valueOf((float) value);
+		}
+		
+		final long rounded = Math.round(value);
+		if (type == Long.class) {
+			return (T) Long.valueOf(rounded);
+		}
+		else if (type == Integer.class) {
+			return (T) Integer.valueOf((int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, rounded)));
+		}
+		else if (type == Short.class) {
+			return (T) Short.valueOf((short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, rounded)));
+		}
+		else if (type == Byte.class) {
+			return (T) Byte.valueOf((byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, rounded)));
+		}
+		else {
+			throw new IllegalArgumentException("Not a numeric type: " + type.getName());
+		}
+	}
+}
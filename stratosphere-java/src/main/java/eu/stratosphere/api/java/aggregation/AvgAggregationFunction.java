@@ -12,195 +12,233 @@
  * specific language governing permissions and limitations under the License.
  *
  **********************************************************************************************************************/
-//package eu.stratosphere.api.java.aggregation;
-//
-//
-//public abstract class AvgAggregationFunction<T> extends AggregationFunction<T> {
-//	private static final long serialVersionUID = 1L;
-//
-//
-//	@Override
-//	public String toString() {
-//		return "AVG";
-//	}
-//	
-//	// --------------------------------------------------------------------------------------------
-//	
-//	public static final class ByteAvgAgg extends AvgAggregationFunction<Byte> {
-//		private static final long serialVersionUID = 1L;
-//		
-//		private long sum;
-//		private long count;
-//
-//		@Override
-//		public void initializeAggregate() {
-//			sum = 0;
-//			count = 0;
-//		}
-//
-//		@Override
-//		public void aggregate(Byte value) {
-//			sum += value.byteValue();
-//			count++;
-//		}
-//
-//		@Override
-//		public Byte getAggregate() {
-//			return (byte) (sum / count);
-//		}
-//	}
-//	
-//	public static final class ShortAvgAgg extends AvgAggregationFunction<Short> {
-//		private static final long serialVersionUID = 1L;
-//		
-//		private long sum;
-//		private long count;
-//
-//		@Override
-//		public void initializeAggregate() {
-//			sum = 0;
-//			count = 0;
-//		}
-//
-//		@Override
-//		public void aggregate(Short value) {
-//			sum += value.shortValue();
-//			count++;
-//		}
-//
-//		@Override
-//		public Short getAggregate() {
-//			return (short) (sum / count);
-//		}
-//	}
-//	
-//	public static final class IntAvgAgg extends AvgAggregationFunction<Integer> {
-//		private static final long serialVersionUID = 1L;
-//		
-//		private long sum;
-//		private long count;
-//
-//		@Override
-//		public void initializeAggregate() {
-//			sum = 0;
-//			count = 0;
-//		}
-//
-//		@Override
-//		public void aggregate(Integer value) {
-//			sum += value.intValue();
-//			count++;
-//		}
-//
-//		@Override
-//		public Integer getAggregate() {
-//			return (int) (sum / count);
-//		}
-//	}
-//	
-//	public static final class LongAvgAgg extends AvgAggregationFunction<Long> {
-//		private static final long serialVersionUID = 1L;
-//		
-//		private long sum;
-//		private long count;
-//
-//		@Override
-//		public void initializeAggregate() {
-//			sum = 0;
-//			count = 0;
-//		}
-//
-//		@Override
-//		public void aggregate(Long value) {
-//			sum += value.longValue();
-//			count++;
-//		}
-//
-//		@Override
-//		public Long getAggregate() {
-//			return sum / count;
-//		}
-//	}
-//	
-//	public static final class FloatAvgAgg extends AvgAggregationFunction<Float> {
-//		private static final long serialVersionUID = 1L;
-//		
-//		private float sum;
-//		private long count;
-//
-//		@Override
-//		public void initializeAggregate() {
-//			sum = 0.0f;
-//			count = 0;
-//		}
-//
-//		@Override
-//		public void aggregate(Float value) {
-//			sum += value.floatValue();
-//			count++;
-//		}
-//
-//		@Override
-//		public Float getAggregate() {
-//			return sum / count;
-//		}
-//	}
-//	
-//	public static final class DoubleAvgAgg extends AvgAggregationFunction<Double> {
-//		private static final long serialVersionUID = 1L;
-//		
-//		private double sum;
-//		private long count;
-//
-//		@Override
-//		public void initializeAggregate() {
-//			sum = 0.0;
-//			count = 0;
-//		}
-//
-//		@Override
-//		public void aggregate(Double value) {
-//			sum += value.doubleValue();
-//			count++;
-//		}
-//
-//		@Override
-//		public Double getAggregate() {
-//			return sum / count;
-//		}
-//	}
-//
-//	
-//	// --------------------------------------------------------------------------------------------
-//	
-//	public static final class AvgAggregationFunctionFactory implements AggregationFunctionFactory {
-//		private static final long serialVersionUID = 1L;
-//
-//		@SuppressWarnings("unchecked")
-//		@Override
-//		public <T> AggregationFunction<T> createAggregationFunction(Class<T> type) {
-//			if (type == Long.class) {
-//				return (AggregationFunction<T>) new LongAvgAgg();
-//			}
-//			else if (type == Integer.class) {
-//				return (AggregationFunction<T>) new IntAvgAgg();
-//			}
-//			else if (type == Double.class) {
-//				return (AggregationFunction<T>) new DoubleAvgAgg();
-//			}
-//			else if (type == Float.class) {
-//				return (AggregationFunction<T>) new FloatAvgAgg();
-//			}
-//			else if (type == Byte.class) {
-//				return (AggregationFunction<T>) new ByteAvgAgg();
-//			}
-//			else if (type == Short.class) {
-//				return (AggregationFunction<T>) new ShortAvgAgg();
-//			}
-//			else {
-//				throw new UnsupportedAggregationTypeException("The type " + type.getName() + 
-//					" has currently not supported for built-in average aggregations.");
-//			}
-//		}
-//	}
-//}
+package eu.stratosphere.api.java.aggregation;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.types.Value;
+
+/**
+ * The average aggregation. Its partial state is the sum and the count of the aggregated values, so that
+ * it can be computed in the combiner. The average has the type of the aggregated field, which means that
+ * averages of integral types are rounded towards zero.
+ */
+public abstract class AvgAggregationFunction<T, P extends Value> extends PartialAggregationFunction<T, P> {
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public String toString() {
+		return "AVG";
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//  Partial states
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * The sum and the count of integral values.
+	 */
+	public static final class LongSumCount implements Value {
+		private static final long serialVersionUID = 1L;
+		
+		private long sum;
+		private long count;
+		
+		public long getSum() {
+			return sum;
+		}
+		
+		public long getCount() {
+			return count;
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			out.writeLong(sum);
+			out.writeLong(count);
+		}
+
+		@Override
+		public void read(DataInput in) throws IOException {
+			sum = in.readLong();
+			count = in.readLong();
+		}
+	}
+	
+	/**
+	 * The sum and the count of floating point values.
+	 */
+	public static final class DoubleSumCount implements Value {
+		private static final long serialVersionUID = 1L;
+		
+		private double sum;
+		private long count;
+		
+		public double getSum() {
+			return sum;
+		}
+		
+		public long getCount() {
+			return count;
+		}
+
+		@Override
+		public void write(DataOutput out) throws IOException {
+			out.writeDouble(sum);
+			out.writeLong(count);
+		}
+
+		@Override
+		public void read(DataInput in) throws IOException {
+			sum = in.readDouble();
+			count = in.readLong();
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private abstract static class IntegralAvgAgg<T extends Number> extends AvgAggregationFunction<T, LongSumCount> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Class<LongSumCount> getPartialType() {
+			return LongSumCount.class;
+		}
+
+		@Override
+		public void resetPartial(LongSumCount partial) {
+			partial.sum = 0;
+			partial.count = 0;
+		}
+
+		@Override
+		public void accumulate(LongSumCount partial, T value) {
+			partial.sum += value.longValue();
+			partial.count++;
+		}
+
+		@Override
+		public void merge(LongSumCount partial, LongSumCount other) {
+			partial.sum += other.sum;
+			partial.count += other.count;
+		}
+	}
+	
+	private abstract static class FloatingPointAvgAgg<T extends Number> extends AvgAggregationFunction<T, DoubleSumCount> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Class<DoubleSumCount> getPartialType() {
+			return DoubleSumCount.class;
+		}
+
+		@Override
+		public void resetPartial(DoubleSumCount partial) {
+			partial.sum = 0.0;
+			partial.count = 0;
+		}
+
+		@Override
+		public void accumulate(DoubleSumCount partial, T value) {
+			partial.sum += value.doubleValue();
+			partial.count++;
+		}
+
+		@Override
+		public void merge(DoubleSumCount partial, DoubleSumCount other) {
+			partial.sum += other.sum;
+			partial.count += other.count;
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class ByteAvgAgg extends IntegralAvgAgg<Byte> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Byte getResult(LongSumCount partial) {
+			return (byte) (partial.sum / partial.count);
+		}
+	}
+	
+	public static final class ShortAvgAgg extends IntegralAvgAgg<Short> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Short getResult(LongSumCount partial) {
+			return (short) (partial.sum / partial.count);
+		}
+	}
+	
+	public static final class IntAvgAgg extends IntegralAvgAgg<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Integer getResult(LongSumCount partial) {
+			return (int) (partial.sum / partial.count);
+		}
+	}
+	
+	public static final class LongAvgAgg extends IntegralAvgAgg<Long> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Long getResult(LongSumCount partial) {
+			return partial.sum / partial.count;
+		}
+	}
+	
+	public static final class FloatAvgAgg extends FloatingPointAvgAgg<Float> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Float getResult(DoubleSumCount partial) {
+			return (float) (partial.sum / partial.count);
+		}
+	}
+	
+	public static final class DoubleAvgAgg extends FloatingPointAvgAgg<Double> {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Double getResult(DoubleSumCount partial) {
+			return partial.sum / partial.count;
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class AvgAggregationFunctionFactory implements AggregationFunctionFactory {
+		private static final long serialVersionUID = 1L;
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T> AggregationFunction<T> createAggregationFunction(Class<T> type) {
+			if (type == Long.class) {
+				return (AggregationFunction<T>) new LongAvgAgg();
+			}
+			else if (type == Integer.class) {
+				return (AggregationFunction<T>) new IntAvgAgg();
+			}
+			else if (type == Double.class) {
+				return (AggregationFunction<T>) new DoubleAvgAgg();
+			}
+			else if (type == Float.class) {
+				return (AggregationFunction<T>) new FloatAvgAgg();
+			}
+			else if (type == Byte.class) {
+				return (AggregationFunction<T>) new ByteAvgAgg();
+			}
+			else if (type == Short.class) {
+				return (AggregationFunction<T>) new ShortAvgAgg();
+			}
+			else {
+				throw new UnsupportedAggregationTypeException("The type " + type.getName() + 
+					" has currently not supported for built-in average aggregations.");
+			}
+		}
+	}
+}
@@ -0,0 +1,564 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.aggregation;
+
+import eu.stratosphere.types.ByteValue;
+import eu.stratosphere.types.DoubleValue;
+import eu.stratosphere.types.FloatValue;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.LongValue;
+import eu.stratosphere.types.ShortValue;
+
+/**
+ * The minimum and maximum aggregations, which only differ in the direction of the comparison. The factory
+ * picks a specialized function for the primitive types and their mutable value counterparts, which keeps
+ * the current extremum as a primitive. All other comparable types fall back to a generic function that
+ * compares the objects.
+ */
+public abstract class MinMaxAggregationFunction<T> extends AggregationFunction<T> {
+	
+	private static final long serialVersionUID = 1L;
+	
+	/** True to keep the maximum, false to keep the minimum. */
+	protected final boolean max;
+	
+	protected MinMaxAggregationFunction(boolean max) {
+		this.max = max;
+	}
+	
+	/**
+	 * Checks whether a value replaces the current extremum, given the result of comparing the two.
+	 */
+	protected final boolean replaces(int cmp) {
+		return max ? cmp > 0 : cmp < 0;
+	}
+
+	@Override
+	public String toString() {
+		return max ? "MAX" : "MIN";
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class GenericMinMaxAgg<T extends Comparable<T>> extends MinMaxAggregationFunction<T> {
+		private static final long serialVersionUID = 1L;
+
+		private T value;
+		
+		public GenericMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			value = null;
+		}
+
+		@Override
+		public void aggregate(T val) {
+			if (value == null || replaces(val.compareTo(value))) {
+				value = val;
+			}
+		}
+
+		@Override
+		public T getAggregate() {
+			return value;
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//  Specializations for the boxed primitive types. The extremum is kept as a primitive and boxed
+	//  only once per group.
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class ByteMinMaxAgg extends MinMaxAggregationFunction<Byte> {
+		private static final long serialVersionUID = 1L;
+		
+		private byte agg;
+		
+		private boolean empty;
+		
+		public ByteMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(Byte value) {
+			final byte v = value.byteValue();
+			if (empty || (max ? v > agg : v < agg)) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public Byte getAggregate() {
+			return empty ? null : agg;
+		}
+	}
+	
+	public static final class ShortMinMaxAgg extends MinMaxAggregationFunction<Short> {
+		private static final long serialVersionUID = 1L;
+		
+		private short agg;
+		
+		private boolean empty;
+		
+		public ShortMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(Short value) {
+			final short v = value.shortValue();
+			if (empty || (max ? v > agg : v < agg)) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public Short getAggregate() {
+			return empty ? null : agg;
+		}
+	}
+	
+	public static final class IntMinMaxAgg extends MinMaxAggregationFunction<Integer> {
+		private static final long serialVersionUID = 1L;
+		
+		private int agg;
+		
+		private boolean empty;
+		
+		public IntMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(Integer value) {
+			final int v = value.intValue();
+			if (empty || (max ? v > agg : v < agg)) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public Integer getAggregate() {
+			return empty ? null : agg;
+		}
+	}
+	
+	public static final class LongMinMaxAgg extends MinMaxAggregationFunction<Long> {
+		private static final long serialVersionUID = 1L;
+		
+		private long agg;
+		
+		private boolean empty;
+		
+		public LongMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(Long value) {
+			final long v = value.longValue();
+			if (empty || (max ? v > agg : v < agg)) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public Long getAggregate() {
+			return empty ? null : agg;
+		}
+	}
+	
+	public static final class FloatMinMaxAgg extends MinMaxAggregationFunction<Float> {
+		private static final long serialVersionUID = 1L;
+		
+		private float agg;
+		
+		private boolean empty;
+		
+		public FloatMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(Float value) {
+			final float v = value.floatValue();
+			if (empty || replaces(Float.compare(v, agg))) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public Float getAggregate() {
+			return empty ? null : agg;
+		}
+	}
+	
+	public static final class DoubleMinMaxAgg extends MinMaxAggregationFunction<Double> {
+		private static final long serialVersionUID = 1L;
+		
+		private double agg;
+		
+		private boolean empty;
+		
+		public DoubleMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(Double value) {
+			final double v = value.doubleValue();
+			if (empty || replaces(Double.compare(v, agg))) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public Double getAggregate() {
+			return empty ? null : agg;
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	//  Specializations for the mutable value types. The extremum is written into a reused value, so
+	//  that aggregating neither allocates objects nor holds on to values the runtime may reuse.
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class ByteValueMinMaxAgg extends MinMaxAggregationFunction<ByteValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private byte agg;
+		
+		private boolean empty;
+		
+		private transient ByteValue result;
+		
+		public ByteValueMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(ByteValue value) {
+			final byte v = value.getValue();
+			if (empty || (max ? v > agg : v < agg)) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public ByteValue getAggregate() {
+			if (result == null) {
+				result = new ByteValue();
+			}
+			result.setValue(agg);
+			return result;
+		}
+	}
+	
+	public static final class ShortValueMinMaxAgg extends MinMaxAggregationFunction<ShortValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private short agg;
+		
+		private boolean empty;
+		
+		private transient ShortValue result;
+		
+		public ShortValueMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(ShortValue value) {
+			final short v = value.getValue();
+			if (empty || (max ? v > agg : v < agg)) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public ShortValue getAggregate() {
+			if (result == null) {
+				result = new ShortValue();
+			}
+			result.setValue(agg);
+			return result;
+		}
+	}
+	
+	public static final class IntValueMinMaxAgg extends MinMaxAggregationFunction<IntValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private int agg;
+		
+		private boolean empty;
+		
+		private transient IntValue result;
+		
+		public IntValueMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(IntValue value) {
+			final int v = value.getValue();
+			if (empty || (max ? v > agg : v < agg)) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public IntValue getAggregate() {
+			if (result == null) {
+				result = new IntValue();
+			}
+			result.setValue(agg);
+			return result;
+		}
+	}
+	
+	public static final class LongValueMinMaxAgg extends MinMaxAggregationFunction<LongValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private long agg;
+		
+		private boolean empty;
+		
+		private transient LongValue result;
+		
+		public LongValueMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(LongValue value) {
+			final long v = value.getValue();
+			if (empty || (max ? v > agg : v < agg)) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public LongValue getAggregate() {
+			if (result == null) {
+				result = new LongValue();
+			}
+			result.setValue(agg);
+			return result;
+		}
+	}
+	
+	public static final class FloatValueMinMaxAgg extends MinMaxAggregationFunction<FloatValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private float agg;
+		
+		private boolean empty;
+		
+		private transient FloatValue result;
+		
+		public FloatValueMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(FloatValue value) {
+			final float v = value.getValue();
+			if (empty || replaces(Float.compare(v, agg))) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public FloatValue getAggregate() {
+			if (result == null) {
+				result = new FloatValue();
+			}
+			result.setValue(agg);
+			return result;
+		}
+	}
+	
+	public static final class DoubleValueMinMaxAgg extends MinMaxAggregationFunction<DoubleValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private double agg;
+		
+		private boolean empty;
+		
+		private transient DoubleValue result;
+		
+		public DoubleValueMinMaxAgg(boolean max) {
+			super(max);
+		}
+
+		@Override
+		public void initializeAggregate() {
+			empty = true;
+		}
+
+		@Override
+		public void aggregate(DoubleValue value) {
+			final double v = value.getValue();
+			if (empty || replaces(Double.compare(v, agg))) {
+				agg = v;
+				empty = false;
+			}
+		}
+
+		@Override
+		public DoubleValue getAggregate() {
+			if (result == null) {
+				result = new DoubleValue();
+			}
+			result.setValue(agg);
+			return result;
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class MinMaxAggregationFunctionFactory implements AggregationFunctionFactory {
+		private static final long serialVersionUID = 1L;
+		
+		private final boolean max;
+		
+		/**
+		 * @param max True to create maximum aggregations, false to create minimum aggregations.
+		 */
+		public MinMaxAggregationFunctionFactory(boolean max) {
+			this.max = max;
+		}
+		
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		@Override
+		public <T> AggregationFunction<T> createAggregationFunction(Class<T> type) {
+			if (type == Long.class) {
+				return (AggregationFunction<T>) new LongMinMaxAgg(max);
+			}
+			else if (type == Integer.class) {
+				return (AggregationFunction<T>) new IntMinMaxAgg(max);
+			}
+			else if (type == Double.class) {
+				return (AggregationFunction<T>) new DoubleMinMaxAgg(max);
+			}
+			else if (type == Float.class) {
+				return (AggregationFunction<T>) new FloatMinMaxAgg(max);
+			}
+			else if (type == Byte.class) {
+				return (AggregationFunction<T>) new ByteMinMaxAgg(max);
+			}
+			else if (type == Short.class) {
+				return (AggregationFunction<T>) new ShortMinMaxAgg(max);
+			}
+			else if (type == LongValue.class) {
+				return (AggregationFunction<T>) new LongValueMinMaxAgg(max);
+			}
+			else if (type == IntValue.class) {
+				return (AggregationFunction<T>) new IntValueMinMaxAgg(max);
+			}
+			else if (type == DoubleValue.class) {
+				return (AggregationFunction<T>) new DoubleValueMinMaxAgg(max);
+			}
+			else if (type == FloatValue.class) {
+				return (AggregationFunction<T>) new FloatValueMinMaxAgg(max);
+			}
+			else if (type == ByteValue.class) {
+				return (AggregationFunction<T>) new ByteValueMinMaxAgg(max);
+			}
+			else if (type == ShortValue.class) {
+				return (AggregationFunction<T>) new ShortValueMinMaxAgg(max);
+			}
+			else if (Comparable.class.isAssignableFrom(type)) {
+				return (AggregationFunction<T>) new GenericMinMaxAgg(max);
+			}
+			else {
+				final String name = max ? "maximum" : "minimum";
+				throw new UnsupportedAggregationTypeException("The type " + type.getName() + 
+					" is not supported for " + name + " aggregation. " +
+					"Types aggregated by their " + name + " must implement the Comparable interface.");
+			}
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.aggregation;
+
+import eu.stratosphere.types.Value;
+import eu.stratosphere.util.InstantiationUtil;
+
+/**
+ * An aggregation function whose running aggregate is kept in an explicit partial state. Partial states
+ * are computed from individual values, merged with each other, and finally turned into the result.
+ * Because the result of an aggregation (such as an average) in general cannot be aggregated again, the
+ * aggregate operator ships the partial states between the combiner and the reducer rather than the results.
+ * <p>
+ * The partial state is a {@link Value}, so it can be serialized compactly and deserialized in place.
+ * It must have a public nullary constructor.
+ *
+ * @param <T> The type to be aggregated.
+ * @param <P> The type of the partial state.
+ */
+public abstract class PartialAggregationFunction<T, P extends Value> extends AggregationFunction<T> {
+	private static final long serialVersionUID = 1L;
+	
+	private transient P partial;
+	
+	/**
+	 * Gets the class of the partial state.
+	 * 
+	 * @return The class of the partial state.
+	 */
+	public abstract Class<P> getPartialType();
+	
+	/**
+	 * Resets the given partial state, such that it represents the aggregate of no values.
+	 * 
+	 * @param partial The partial state to reset.
+	 */
+	public abstract void resetPartial(P partial);
+	
+	/**
+	 * Adds a value to the given partial state.
+	 * 
+	 * @param partial The partial state.
+	 * @param value The value to add.
+	 */
+	public abstract void accumulate(P partial, T value);
+	
+	/**
+	 * Merges the second partial state into the first one. The second partial state is not modified.
+	 * 
+	 * @param partial The partial state to merge into.
+	 * @param other The partial state to merge.
+	 */
+	public abstract void merge(P partial, P other);
+	
+	/**
+	 * Computes the result of the aggregation from the given partial state.
+	 * 
+	 * @param partial The partial state, representing at least one value.
+	 * @return The result of the aggregation.
+	 */
+	public abstract T getResult(P partial);
+	
+	/**
+	 * Creates a new partial state that represents the aggregate of no values.
+	 * 
+	 * @return A new, empty partial state.
+	 */
+	public P createPartial() {
+		P partial = InstantiationUtil.instantiate(getPartialType(), Value.class);
+		resetPartial(partial);
+		return partial;
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	@Override
+	public void initializeAggregate() {
+		if (this.partial == null) {
+			this.partial = createPartial();
+		} else {
+			resetPartial(this.partial);
+		}
+	}
+	
+	@Override
+	public void aggregate(T value) {
+		accumulate(this.partial, value);
+	}
+	
+	@Override
+	public T getAggregate() {
+		return getResult(this.partial);
+	}
+}
@@ -14,6 +14,12 @@
  **********************************************************************************************************************/
 package eu.stratosphere.api.java.aggregation;
 
+import eu.stratosphere.types.ByteValue;
+import eu.stratosphere.types.DoubleValue;
+import eu.stratosphere.types.FloatValue;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.LongValue;
+import eu.stratosphere.types.ShortValue;
 
 public abstract class SumAggregationFunction<T> extends AggregationFunction<T> {
 	
@@ -152,6 +158,168 @@ public abstract class SumAggregationFunction<T> extends AggregationFunction<T> {
 		}
 	}
 	
+	// --------------------------------------------------------------------------------------------
+	//  Sums over mutable values. The aggregates are kept as primitives and written into a reused
+	//  value, so that aggregating does not allocate objects.
+	// --------------------------------------------------------------------------------------------
+	
+	public static final class ByteValueSumAgg extends SumAggregationFunction<ByteValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private long agg;
+		
+		private transient ByteValue result;
+
+		@Override
+		public void initializeAggregate() {
+			agg = 0;
+		}
+
+		@Override
+		public void aggregate(ByteValue value) {
+			agg += value.getValue();
+		}
+
+		@Override
+		public ByteValue getAggregate() {
+			if (result == null) {
+				result = new ByteValue();
+			}
+			result.setValue((byte) agg);
+			return result;
+		}
+	}
+	public static final class ShortValueSumAgg extends SumAggregationFunction<ShortValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private long agg;
+		
+		private transient ShortValue result;
+
+		@Override
+		public void initializeAggregate() {
+			agg = 0;
+		}
+
+		@Override
+		public void aggregate(ShortValue value) {
+			agg += value.getValue();
+		}
+
+		@Override
+		public ShortValue getAggregate() {
+			if (result == null) {
+				result = new ShortValue();
+			}
+			result.setValue((short) agg);
+			return result;
+		}
+	}
+	public static final class IntValueSumAgg extends SumAggregationFunction<IntValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private long agg;
+		
+		private transient IntValue result;
+
+		@Override
+		public void initializeAggregate() {
+			agg = 0;
+		}
+
+		@Override
+		public void aggregate(IntValue value) {
+			agg += value.getValue();
+		}
+
+		@Override
+		public IntValue getAggregate() {
+			if (result == null) {
+				result = new IntValue();
+			}
+			result.setValue((int) agg);
+			return result;
+		}
+	}
+	public static final class LongValueSumAgg extends SumAggregationFunction<LongValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private long agg;
+		
+		private transient LongValue result;
+
+		@Override
+		public void initializeAggregate() {
+			agg = 0L;
+		}
+
+		@Override
+		public void aggregate(LongValue value) {
+			agg += value.getValue();
+		}
+
+		@Override
+		public LongValue getAggregate() {
+			if (result == null) {
+				result = new LongValue();
+			}
+			result.setValue(agg);
+			return result;
+		}
+	}
+	public static final class FloatValueSumAgg extends SumAggregationFunction<FloatValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private float agg;
+		
+		private transient FloatValue result;
+
+		@Override
+		public void initializeAggregate() {
+			agg = 0.0f;
+		}
+
+		@Override
+		public void aggregate(FloatValue value) {
+			agg += value.getValue();
+		}
+
+		@Override
+		public FloatValue getAggregate() {
+			if (result == null) {
+				result = new FloatValue();
+			}
+			result.setValue(agg);
+			return result;
+		}
+	}
+	public static final class DoubleValueSumAgg extends SumAggregationFunction<DoubleValue> {
+		private static final long serialVersionUID = 1L;
+		
+		private double agg;
+		
+		private transient DoubleValue result;
+
+		@Override
+		public void initializeAggregate() {
+			agg = 0.0;
+		}
+
+		@Override
+		public void aggregate(DoubleValue value) {
+			agg += value.getValue();
+		}
+
+		@Override
+		public DoubleValue getAggregate() {
+			if (result == null) {
+				result = new DoubleValue();
+			}
+			result.setValue(agg);
+			return result;
+		}
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	
 	public static final class SumAggregationFunctionFactory implements AggregationFunctionFactory {
@@ -178,6 +346,24 @@ public abstract class SumAggregationFunction<T> extends AggregationFunction<T> {
 			else if (type == Short.class) {
 				return (AggregationFunction<T>) new ShortSumAgg();
 			}
+			else if (type == LongValue.class) {
+				return (AggregationFunction<T>) new LongValueSumAgg();
+			}
+			else if (type == IntValue.class) {
+				return (AggregationFunction<T>) new IntValueSumAgg();
+			}
+			else if (type == DoubleValue.class) {
+				return (AggregationFunction<T>) new DoubleValueSumAgg();
+			}
+			else if (type == FloatValue.class) {
+				return (AggregationFunction<T>) new FloatValueSumAgg();
+			}
+			else if (type == ByteValue.class) {
+				return (AggregationFunction<T>) new ByteValueSumAgg();
+			}
+			else if (type == ShortValue.class) {
+				return (AggregationFunction<T>) new ShortValueSumAgg();
+			}
 			else {
 				throw new UnsupportedAggregationTypeException("The type " + type.getName() + 
 					" has currently not supported for built-in sum aggregations.");
@@ -0,0 +1,164 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import java.io.Serializable;
+
+/**
+ * A simple comparison of a single tuple field against a constant, used by the {@link ColumnarInputFormat}
+ * to filter records. Since the comparison is declarative (rather than an arbitrary filter function), the
+ * input format evaluates it against the minimum and maximum values stored for every block of the file and
+ * skips all blocks that cannot contain a matching record without reading them.
+ * <p>
+ * Predicates can only be evaluated on fields whose values implement {@link Comparable}.
+ */
+public final class ColumnPredicate implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The supported comparison operators.
+	 */
+	public static enum Comparison {
+		EQUAL, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private final int field;
+
+	private final Comparison comparison;
+
+	private final Comparable<?> value;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a new predicate that compares the given field with the given value.
+	 *
+	 * @param field The position of the tuple field.
+	 * @param comparison The comparison operator.
+	 * @param value The value to compare the field with. Must be serializable.
+	 */
+	public ColumnPredicate(int field, Comparison comparison, Comparable<?> value) {
+		if (field < 0) {
+			throw new IllegalArgumentException("The field position must not be negative.");
+		}
+		if (comparison == null || value == null) {
+			throw new NullPointerException();
+		}
+		if (!(value instanceof Serializable)) {
+			throw new IllegalArgumentException("The value of the predicate must be serializable.");
+		}
+
+		this.field = field;
+		this.comparison = comparison;
+		this.value = value;
+	}
+
+	public static ColumnPredicate equal(int field, Comparable<?> value) {
+		return new ColumnPredicate(field, Comparison.EQUAL, value);
+	}
+
+	public static ColumnPredicate lessThan(int field, Comparable<?> value) {
+		return new ColumnPredicate(field, Comparison.LESS, value);
+	}
+
+	public static ColumnPredicate lessOrEqual(int field, Comparable<?> value) {
+		return new ColumnPredicate(field, Comparison.LESS_OR_EQUAL, value);
+	}
+
+	public static ColumnPredicate greaterThan(int field, Comparable<?> value) {
+		return new ColumnPredicate(field, Comparison.GREATER, value);
+	}
+
+	public static ColumnPredicate greaterOrEqual(int field, Comparable<?> value) {
+		return new ColumnPredicate(field, Comparison.GREATER_OR_EQUAL, value);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	public int getField() {
+		return this.field;
+	}
+
+	public Comparison getComparison() {
+		return this.comparison;
+	}
+
+	public Comparable<?> getValue() {
+		return this.value;
+	}
+
+	/**
+	 * Checks whether the given field value satisfies this predicate.
+	 *
+	 * @param fieldValue The value of the field.
+	 * @return True, if the value satisfies the predicate, false otherwise.
+	 */
+	public boolean matches(Object fieldValue) {
+		final int cmp = compareToValue(fieldValue);
+		switch (this.comparison) {
+		case EQUAL:
+			return cmp == 0;
+		case LESS:
+			return cmp < 0;
+		case LESS_OR_EQUAL:
+			return cmp <= 0;
+		case GREATER:
+			return cmp > 0;
+		case GREATER_OR_EQUAL:
+			return cmp >= 0;
+		default:
+			throw new RuntimeException("Unknown comparison: " + this.comparison);
+		}
+	}
+
+	/**
+	 * Checks whether any value in the range <code>[min, max]</code> may satisfy this predicate.
+	 *
+	 * @param min The smallest value of the field in the range.
+	 * @param max The largest value of the field in the range.
+	 * @return False, if no value in the range satisfies the predicate, true otherwise.
+	 */
+	public boolean mayMatch(Object min, Object max) {
+		switch (this.comparison) {
+		case EQUAL:
+			return compareToValue(min) <= 0 && compareToValue(max) >= 0;
+		case LESS:
+			return compareToValue(min) < 0;
+		case LESS_OR_EQUAL:
+			return compareToValue(min) <= 0;
+		case GREATER:
+			return compareToValue(max) > 0;
+		case GREATER_OR_EQUAL:
+			return compareToValue(max) >= 0;
+		default:
+			throw new RuntimeException("Unknown comparison: " + this.comparison);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private int compareToValue(Object fieldValue) {
+		if (!(fieldValue instanceof Comparable)) {
+			throw new IllegalArgumentException("Field " + this.field + " is not comparable.");
+		}
+		return ((Comparable<Object>) fieldValue).compareTo(this.value);
+	}
+
+	@Override
+	public String toString() {
+		return "field " + this.field + ' ' + this.comparison + ' ' + this.value;
+	}
+}
@@ -0,0 +1,210 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.stratosphere.core.fs.FSDataInputStream;
+
+/**
+ * The meta data of a file written by the {@link ColumnarOutputFormat}. The file layout is
+ * <pre>
+ *   MAGIC VERSION
+ *   block_0: page(column_0) ... page(column_n)
+ *   ...
+ *   block_m: page(column_0) ... page(column_n)
+ *   footer footer_length MAGIC
+ * </pre>
+ * Every page holds the deflate compressed values of one column in one block, serialized with the column's
+ * serializer. The footer describes the columns and, for every block, the row count, the positions and sizes
+ * of the pages, and the serialized minimum and maximum value of every comparable column.
+ */
+final class ColumnarFileFooter {
+
+	static final int MAGIC = 0x53434f4c;
+
+	static final int VERSION = 1;
+
+	static final int HEADER_LENGTH = 8;
+
+	static final int TRAILER_LENGTH = 8;
+
+	// --------------------------------------------------------------------------------------------
+
+	private final String[] columnSerializers;
+
+	private final List<BlockMetaData> blocks;
+
+	ColumnarFileFooter(String[] columnSerializers) {
+		this.columnSerializers = columnSerializers;
+		this.blocks = new ArrayList<BlockMetaData>();
+	}
+
+	int getNumberOfColumns() {
+		return this.columnSerializers.length;
+	}
+
+	String getColumnSerializer(int column) {
+		return this.columnSerializers[column];
+	}
+
+	List<BlockMetaData> getBlocks() {
+		return this.blocks;
+	}
+
+	void addBlock(BlockMetaData block) {
+		this.blocks.add(block);
+	}
+
+	long getNumberOfRecords() {
+		long count = 0;
+		for (BlockMetaData block : this.blocks) {
+			count += block.rowCount;
+		}
+		return count;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	void write(DataOutput out) throws IOException {
+		out.writeInt(this.columnSerializers.length);
+		for (String serializer : this.columnSerializers) {
+			out.writeUTF(serializer);
+		}
+
+		out.writeInt(this.blocks.size());
+		for (BlockMetaData block : this.blocks) {
+			out.writeLong(block.startOffset);
+			out.writeLong(block.rowCount);
+			for (int i = 0; i < this.columnSerializers.length; i++) {
+				out.writeInt(block.compressedLengths[i]);
+				out.writeInt(block.uncompressedLengths[i]);
+				writeValue(out, block.minValues[i]);
+				writeValue(out, block.maxValues[i]);
+			}
+		}
+	}
+
+	static ColumnarFileFooter read(DataInput in) throws IOException {
+		final String[] serializers = new String[in.readInt()];
+		for (int i = 0; i < serializers.length; i++) {
+			serializers[i] = in.readUTF();
+		}
+
+		final ColumnarFileFooter footer = new ColumnarFileFooter(serializers);
+		final int numBlocks = in.readInt();
+		for (int b = 0; b < numBlocks; b++) {
+			final BlockMetaData block = new BlockMetaData(serializers.length);
+			block.startOffset = in.readLong();
+			block.rowCount = in.readLong();
+			for (int i = 0; i < serializers.length; i++) {
+				block.compressedLengths[i] = in.readInt();
+				block.uncompressedLengths[i] = in.readInt();
+				block.minValues[i] = readValue(in);
+				block.maxValues[i] = readValue(in);
+			}
+			footer.addBlock(block);
+		}
+		return footer;
+	}
+
+	/**
+	 * Reads the footer of a columnar file. The position of the stream is undefined afterwards.
+	 *
+	 * @param stream The stream to read the file from.
+	 * @param fileLength The length of the file.
+	 * @return The footer of the file.
+	 * @throws IOException Thrown, if the footer could not be read or the file is not a columnar file.
+	 */
+	static ColumnarFileFooter read(FSDataInputStream stream, long fileLength) throws IOException {
+		if (fileLength < HEADER_LENGTH + TRAILER_LENGTH) {
+			throw new IOException("The file is too short to be a columnar file.");
+		}
+
+		final DataInputStream in = new DataInputStream(stream);
+		stream.seek(fileLength - TRAILER_LENGTH);
+		final int footerLength = in.readInt();
+		if (in.readInt() != MAGIC) {
+			throw new IOException("The file is not a columnar file.");
+		}
+		if (footerLength < 0 || footerLength > fileLength - HEADER_LENGTH - TRAILER_LENGTH) {
+			throw new IOException("The footer of the columnar file is corrupt.");
+		}
+
+		stream.seek(fileLength - TRAILER_LENGTH - footerLength);
+		return read(in);
+	}
+
+	private static void writeValue(DataOutput out, byte[] value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(value.length);
+			out.write(value);
+		}
+	}
+
+	private static byte[] readValue(DataInput in) throws IOException {
+		final int len = in.readInt();
+		if (len < 0) {
+			return null;
+		}
+		final byte[] value = new byte[len];
+		in.readFully(value);
+		return value;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * The meta data of one block. The pages of the columns are stored consecutively, starting at the
+	 * start offset of the block.
+	 */
+	static final class BlockMetaData {
+
+		long startOffset;
+
+		long rowCount;
+
+		final int[] compressedLengths;
+
+		final int[] uncompressedLengths;
+
+		/** The serialized smallest value per column, or null, if the column is not comparable. */
+		final byte[][] minValues;
+
+		/** The serialized largest value per column, or null, if the column is not comparable. */
+		final byte[][] maxValues;
+
+		BlockMetaData(int numColumns) {
+			this.compressedLengths = new int[numColumns];
+			this.uncompressedLengths = new int[numColumns];
+			this.minValues = new byte[numColumns][];
+			this.maxValues = new byte[numColumns][];
+		}
+
+		long getPageOffset(int column) {
+			long offset = this.startOffset;
+			for (int i = 0; i < column; i++) {
+				offset += this.compressedLengths[i];
+			}
+			return offset;
+		}
+	}
+}
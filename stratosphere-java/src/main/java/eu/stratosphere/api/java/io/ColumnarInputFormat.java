@@ -0,0 +1,412 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.io.FileInputFormat;
+import eu.stratosphere.api.common.io.ProjectableInputFormat;
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.operators.util.FieldSet;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.java.io.ColumnarFileFooter.BlockMetaData;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.api.java.typeutils.ResultTypeQueryable;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.core.fs.FSDataInputStream;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.FileStatus;
+import eu.stratosphere.core.fs.FileSystem;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.core.memory.InputViewDataInputWrapper;
+import eu.stratosphere.types.TypeInformation;
+
+/**
+ * Reads the tuples from files written by the {@link ColumnarOutputFormat}.
+ * <p>
+ * The format reads and decompresses only the columns that the program uses (see {@link ProjectableInputFormat}).
+ * Predicates added with {@link #addPredicate(ColumnPredicate)} filter the produced tuples; blocks whose minimum
+ * and maximum values show that none of their tuples can satisfy all predicates are skipped entirely. The
+ * statistics reported to the compiler contain the exact number of tuples, taken from the file footers.
+ * <p>
+ * The files may be split arbitrarily; every split reads the blocks that start within its range.
+ */
+public class ColumnarInputFormat<OUT extends Tuple> extends FileInputFormat<OUT>
+	implements ProjectableInputFormat, ResultTypeQueryable<OUT>
+{
+	private static final long serialVersionUID = 1L;
+
+	private static final Log LOG = LogFactory.getLog(ColumnarInputFormat.class);
+
+	// --------------------------------------------------------------------------------------------
+
+	private final TypeSerializer<Object>[] serializers;
+
+	private final List<ColumnPredicate> predicates = new ArrayList<ColumnPredicate>();
+
+	private boolean[] fieldUsed;
+
+	private transient TupleTypeInfo<OUT> type;
+
+	// --------------------------------------------------------------------------------------------
+
+	private transient List<BlockMetaData> blocks;
+
+	private transient int blockIndex;
+
+	private transient long rowsRemaining;
+
+	private transient boolean[] columnRead;
+
+	private transient InputViewDataInputWrapper[] columnViews;
+
+	private transient Inflater inflater;
+
+	private transient int skippedBlocks;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a new columnar input format.
+	 *
+	 * @param filePath The path of the file or directory to read.
+	 * @param type The type of the tuples stored in the files.
+	 */
+	@SuppressWarnings("unchecked")
+	public ColumnarInputFormat(Path filePath, TupleTypeInfo<OUT> type) {
+		super(filePath);
+		if (type == null) {
+			throw new NullPointerException("The tuple type must not be null.");
+		}
+
+		this.type = type;
+		this.serializers = new TypeSerializer[type.getArity()];
+		for (int i = 0; i < this.serializers.length; i++) {
+			this.serializers[i] = (TypeSerializer<Object>) type.getTypeAt(i).createSerializer();
+		}
+	}
+
+	/**
+	 * Adds a predicate that all produced tuples must satisfy.
+	 *
+	 * @param predicate The predicate.
+	 */
+	public void addPredicate(ColumnPredicate predicate) {
+		if (predicate.getField() >= this.serializers.length) {
+			throw new IllegalArgumentException("The predicate refers to field " + predicate.getField() +
+				", but the tuples have only " + this.serializers.length + " fields.");
+		}
+		this.predicates.add(predicate);
+	}
+
+	@Override
+	public void setUsedFields(FieldSet usedFields) {
+		if (usedFields == null) {
+			this.fieldUsed = null;
+			return;
+		}
+
+		this.fieldUsed = new boolean[this.serializers.length];
+		for (int i = 0; i < this.fieldUsed.length; i++) {
+			this.fieldUsed[i] = usedFields.contains(i);
+		}
+	}
+
+	@Override
+	public TypeInformation<OUT> getProducedType() {
+		return this.type;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void open(FileInputSplit split) throws IOException {
+		super.open(split);
+
+		final Path file = split.getPath();
+		final long fileLength = file.getFileSystem().getFileStatus(file).getLen();
+		final ColumnarFileFooter footer = ColumnarFileFooter.read(this.stream, fileLength);
+		checkColumns(footer, file);
+
+		// the columns to read are the used ones and the ones that the predicates refer to
+		final int numColumns = this.serializers.length;
+		this.columnRead = new boolean[numColumns];
+		this.columnViews = new InputViewDataInputWrapper[numColumns];
+		for (int i = 0; i < numColumns; i++) {
+			this.columnRead[i] = this.fieldUsed == null || this.fieldUsed[i];
+		}
+		for (ColumnPredicate predicate : this.predicates) {
+			this.columnRead[predicate.getField()] = true;
+		}
+		for (int i = 0; i < numColumns; i++) {
+			if (this.columnRead[i]) {
+				this.columnViews[i] = new InputViewDataInputWrapper();
+			}
+		}
+
+		// select the blocks that start in this split and may contain matching tuples
+		final long splitEnd = this.splitStart + this.splitLength;
+		this.blocks = new ArrayList<BlockMetaData>();
+		this.skippedBlocks = 0;
+		for (BlockMetaData block : footer.getBlocks()) {
+			if (this.splitLength != READ_WHOLE_SPLIT_FLAG &&
+					(block.startOffset < this.splitStart || block.startOffset >= splitEnd)) {
+				continue;
+			}
+			if (mayMatch(block)) {
+				this.blocks.add(block);
+			} else {
+				this.skippedBlocks++;
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Reading " + this.blocks.size() + " blocks of " + file + ", skipping " + this.skippedBlocks +
+				" blocks due to predicates.");
+		}
+
+		this.inflater = new Inflater();
+		this.blockIndex = 0;
+		this.rowsRemaining = 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.inflater != null) {
+			this.inflater.end();
+			this.inflater = null;
+		}
+		this.blocks = null;
+		this.columnViews = null;
+		super.close();
+	}
+
+	@Override
+	public boolean reachedEnd() throws IOException {
+		return this.rowsRemaining == 0 && this.blockIndex >= this.blocks.size();
+	}
+
+	@Override
+	public OUT nextRecord(OUT reuse) throws IOException {
+		final TypeSerializer<Object>[] serializers = this.serializers;
+
+		while (true) {
+			if (this.rowsRemaining == 0 && !readNextBlock()) {
+				return null;
+			}
+			this.rowsRemaining--;
+
+			for (int i = 0; i < serializers.length; i++) {
+				final Object current = reuse.getField(i);
+				if (this.columnRead[i]) {
+					reuse.setField(serializers[i].deserialize(current != null ? current : serializers[i].createInstance(),
+						this.columnViews[i]), i);
+				}
+				else if (current == null) {
+					reuse.setField(serializers[i].createInstance(), i);
+				}
+			}
+
+			if (matches(reuse)) {
+				return reuse;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of blocks of the current split that are skipped because of the predicates.
+	 */
+	int getNumberOfSkippedBlocks() {
+		return this.skippedBlocks;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private boolean readNextBlock() throws IOException {
+		while (this.blockIndex < this.blocks.size()) {
+			final BlockMetaData block = this.blocks.get(this.blockIndex++);
+			if (block.rowCount == 0) {
+				continue;
+			}
+
+			for (int i = 0; i < this.serializers.length; i++) {
+				if (this.columnRead[i]) {
+					final byte[] page = readPage(block, i);
+					this.columnViews[i].setDelegate(new DataInputStream(new ByteArrayInputStream(page)));
+				}
+			}
+
+			this.rowsRemaining = block.rowCount;
+			return true;
+		}
+		return false;
+	}
+
+	private byte[] readPage(BlockMetaData block, int column) throws IOException {
+		final byte[] compressed = new byte[block.compressedLengths[column]];
+		final byte[] page = new byte[block.uncompressedLengths[column]];
+
+		this.stream.seek(block.getPageOffset(column));
+		new DataInputStream(this.stream).readFully(compressed);
+
+		final Inflater inflater = this.inflater;
+		inflater.reset();
+		inflater.setInput(compressed);
+		try {
+			int len = 0;
+			while (len < page.length) {
+				final int read = inflater.inflate(page, len, page.length - len);
+				if (read == 0) {
+					throw new IOException("Page of column " + column + " is truncated.");
+				}
+				len += read;
+			}
+		}
+		catch (DataFormatException dfex) {
+			throw new IOException("Page of column " + column + " is corrupt: " + dfex.getMessage(), dfex);
+		}
+		return page;
+	}
+
+	private boolean mayMatch(BlockMetaData block) throws IOException {
+		for (ColumnPredicate predicate : this.predicates) {
+			final int field = predicate.getField();
+			if (block.minValues[field] == null || block.maxValues[field] == null) {
+				continue;
+			}
+
+			final Object min = deserializeValue(field, block.minValues[field]);
+			final Object max = deserializeValue(field, block.maxValues[field]);
+			if (!predicate.mayMatch(min, max)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean matches(OUT record) {
+		for (int i = 0; i < this.predicates.size(); i++) {
+			final ColumnPredicate predicate = this.predicates.get(i);
+			if (!predicate.matches(record.getField(predicate.getField()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Object deserializeValue(int column, byte[] bytes) throws IOException {
+		final InputViewDataInputWrapper view = new InputViewDataInputWrapper();
+		view.setDelegate(new DataInputStream(new ByteArrayInputStream(bytes)));
+		final TypeSerializer<Object> serializer = this.serializers[column];
+		return serializer.deserialize(serializer.createInstance(), view);
+	}
+
+	private void checkColumns(ColumnarFileFooter footer, Path file) throws IOException {
+		if (footer.getNumberOfColumns() != this.serializers.length) {
+			throw new IOException("The file " + file + " has " + footer.getNumberOfColumns() +
+				" columns, but the format expects " + this.serializers.length + ".");
+		}
+		for (int i = 0; i < this.serializers.length; i++) {
+			if (!this.serializers[i].getClass().getName().equals(footer.getColumnSerializer(i))) {
+				throw new IOException("Column " + i + " of file " + file + " was written with " +
+					footer.getColumnSerializer(i) + ", which does not match the type of the format.");
+			}
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+	//  Statistics
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Gets the statistics of the input. The number of records is exact, it is taken from the footers of the files.
+	 */
+	@Override
+	public FileBaseStatistics getStatistics(BaseStatistics cachedStats) throws IOException {
+		final FileBaseStatistics cachedFileStats = (cachedStats != null && cachedStats instanceof FileBaseStatistics) ?
+			(FileBaseStatistics) cachedStats : null;
+
+		try {
+			final FileSystem fs = FileSystem.get(this.filePath.toUri());
+			final ArrayList<FileStatus> files = new ArrayList<FileStatus>(1);
+
+			final FileBaseStatistics stats = getFileStats(cachedFileStats, this.filePath, fs, files);
+			if (stats == null || stats.getAverageRecordWidth() != BaseStatistics.AVG_RECORD_BYTES_UNKNOWN) {
+				// no statistics, or still valid cached statistics that include the record width
+				return stats;
+			}
+
+			long numRecords = 0;
+			for (FileStatus file : files) {
+				final FSDataInputStream in = fs.open(file.getPath());
+				try {
+					numRecords += ColumnarFileFooter.read(in, file.getLen()).getNumberOfRecords();
+				} finally {
+					in.close();
+				}
+			}
+
+			return new ColumnarFileStatistics(stats.getLastModificationTime(), stats.getTotalInputSize(), numRecords);
+		}
+		catch (IOException ioex) {
+			if (LOG.isWarnEnabled()) {
+				LOG.warn("Could not determine statistics for file '" + this.filePath + "' due to an io error: "
+						+ ioex.getMessage());
+			}
+		}
+		catch (Throwable t) {
+			if (LOG.isErrorEnabled()) {
+				LOG.error("Unexpected problem while getting the file statistics for file '" + this.filePath + "': "
+						+ t.getMessage(), t);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * File statistics with the exact number of records.
+	 */
+	private static final class ColumnarFileStatistics extends FileBaseStatistics {
+
+		private final long numberOfRecords;
+
+		ColumnarFileStatistics(long fileModTime, long fileSize, long numberOfRecords) {
+			super(fileModTime, fileSize, numberOfRecords == 0 || fileSize == SIZE_UNKNOWN ? 0.0f :
+				((float) fileSize) / numberOfRecords);
+			this.numberOfRecords = numberOfRecords;
+		}
+
+		@Override
+		public long getNumberOfRecords() {
+			return this.numberOfRecords;
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public String toString() {
+		return "ColumnarInputFormat (" + this.filePath + ")";
+	}
+}
@@ -0,0 +1,335 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+import eu.stratosphere.api.common.InvalidProgramException;
+import eu.stratosphere.api.common.io.FileOutputFormat;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.java.io.ColumnarFileFooter.BlockMetaData;
+import eu.stratosphere.api.java.tuple.Tuple;
+import eu.stratosphere.api.java.typeutils.InputTypeConfigurable;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.core.memory.OutputViewDataOutputWrapper;
+import eu.stratosphere.types.TypeInformation;
+
+/**
+ * An output format that writes tuples column by column into a compact binary file. The tuples are grouped into
+ * blocks. Within a block, the values of every field are serialized into a separate page that is compressed
+ * with deflate. For every block, the file records the smallest and largest value of each comparable field.
+ * <p>
+ * The files are read with the {@link ColumnarInputFormat}, which reads only the columns the program uses and
+ * skips blocks that cannot match the predicates of the program.
+ *
+ * @see ColumnarFileFooter
+ */
+public class ColumnarOutputFormat<T extends Tuple> extends FileOutputFormat<T> implements InputTypeConfigurable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * The default maximal number of tuples in a block.
+	 */
+	public static final int DEFAULT_MAX_ROWS_PER_BLOCK = 64 * 1024;
+
+	/**
+	 * The default maximal size of the uncompressed pages of a block, in bytes.
+	 */
+	public static final int DEFAULT_MAX_BLOCK_SIZE = 4 * 1024 * 1024;
+
+	// --------------------------------------------------------------------------------------------
+
+	private TypeSerializer<Object>[] serializers;
+
+	private int maxRowsPerBlock = DEFAULT_MAX_ROWS_PER_BLOCK;
+
+	private int maxBlockSize = DEFAULT_MAX_BLOCK_SIZE;
+
+	private int compressionLevel = Deflater.BEST_SPEED;
+
+	// --------------------------------------------------------------------------------------------
+
+	private transient ByteArrayOutputStream[] pages;
+
+	private transient OutputViewDataOutputWrapper[] pageViews;
+
+	private transient Object[] minValues;
+
+	private transient Object[] maxValues;
+
+	private transient int rowsInBlock;
+
+	private transient long position;
+
+	private transient ColumnarFileFooter footer;
+
+	private transient Deflater deflater;
+
+	private transient byte[] compressBuffer;
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Creates a new columnar output format. The field types are configured when the format is used to write
+	 * a data set.
+	 *
+	 * @param outputPath The path of the file or directory to write to.
+	 */
+	public ColumnarOutputFormat(Path outputPath) {
+		super(outputPath);
+	}
+
+	/**
+	 * Creates a new columnar output format for tuples of the given type.
+	 *
+	 * @param outputPath The path of the file or directory to write to.
+	 * @param type The type of the written tuples.
+	 */
+	public ColumnarOutputFormat(Path outputPath, TupleTypeInfo<T> type) {
+		super(outputPath);
+		setInputType(type);
+	}
+
+	/**
+	 * Sets the maximal number of tuples in a block. Smaller blocks allow the reader to skip data at a
+	 * finer granularity, larger blocks compress better.
+	 *
+	 * @param maxRowsPerBlock The maximal number of tuples in a block.
+	 */
+	public void setMaxRowsPerBlock(int maxRowsPerBlock) {
+		if (maxRowsPerBlock < 1) {
+			throw new IllegalArgumentException("A block must hold at least one row.");
+		}
+		this.maxRowsPerBlock = maxRowsPerBlock;
+	}
+
+	/**
+	 * Sets the maximal size of the uncompressed pages of a block. A block is completed when either the
+	 * size or the row limit is reached.
+	 *
+	 * @param maxBlockSize The maximal uncompressed size of a block, in bytes.
+	 */
+	public void setMaxBlockSize(int maxBlockSize) {
+		if (maxBlockSize < 1) {
+			throw new IllegalArgumentException("The block size must be positive.");
+		}
+		this.maxBlockSize = maxBlockSize;
+	}
+
+	/**
+	 * Sets the deflate compression level of the pages, from 0 (no compression) to 9 (best compression).
+	 * By default, the pages are compressed for speed.
+	 *
+	 * @param compressionLevel The compression level.
+	 */
+	public void setCompressionLevel(int compressionLevel) {
+		if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("The compression level must be between 0 and 9.");
+		}
+		this.compressionLevel = compressionLevel;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public void setInputType(TypeInformation<?> type) {
+		if (!type.isTupleType()) {
+			throw new InvalidProgramException("The " + ColumnarOutputFormat.class.getSimpleName() +
+				" can only be used to write tuple data sets.");
+		}
+
+		final TupleTypeInfo<?> tupleType = (TupleTypeInfo<?>) type;
+		this.serializers = new TypeSerializer[tupleType.getArity()];
+		for (int i = 0; i < this.serializers.length; i++) {
+			this.serializers[i] = (TypeSerializer<Object>) tupleType.getTypeAt(i).createSerializer();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public void open(int taskNumber, int numTasks) throws IOException {
+		if (this.serializers == null) {
+			throw new IllegalStateException("The type of the written tuples has not been set.");
+		}
+
+		super.open(taskNumber, numTasks);
+
+		final int numColumns = this.serializers.length;
+		this.pages = new ByteArrayOutputStream[numColumns];
+		this.pageViews = new OutputViewDataOutputWrapper[numColumns];
+		this.minValues = new Object[numColumns];
+		this.maxValues = new Object[numColumns];
+
+		final String[] serializerNames = new String[numColumns];
+		for (int i = 0; i < numColumns; i++) {
+			this.pages[i] = new ByteArrayOutputStream();
+			this.pageViews[i] = new OutputViewDataOutputWrapper();
+			this.pageViews[i].setDelegate(new DataOutputStream(this.pages[i]));
+			serializerNames[i] = this.serializers[i].getClass().getName();
+		}
+
+		this.footer = new ColumnarFileFooter(serializerNames);
+		this.deflater = new Deflater(this.compressionLevel);
+		this.compressBuffer = new byte[64 * 1024];
+		this.rowsInBlock = 0;
+
+		final DataOutputStream out = new DataOutputStream(this.stream);
+		out.writeInt(ColumnarFileFooter.MAGIC);
+		out.writeInt(ColumnarFileFooter.VERSION);
+		this.position = ColumnarFileFooter.HEADER_LENGTH;
+	}
+
+	@Override
+	public void writeRecord(T record) throws IOException {
+		final TypeSerializer<Object>[] serializers = this.serializers;
+		if (record.getArity() != serializers.length) {
+			throw new IOException("Tuple has " + record.getArity() + " fields, but the format expects " +
+				serializers.length + ".");
+		}
+
+		int blockSize = 0;
+		for (int i = 0; i < serializers.length; i++) {
+			final Object value = record.getField(i);
+			if (value == null) {
+				throw new IOException("Cannot write tuple with <null> value at position: " + i);
+			}
+
+			serializers[i].serialize(value, this.pageViews[i]);
+			updateMinMax(i, value);
+			blockSize += this.pages[i].size();
+		}
+
+		if (++this.rowsInBlock >= this.maxRowsPerBlock || blockSize >= this.maxBlockSize) {
+			writeBlock();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			if (this.footer != null && this.stream != null) {
+				if (this.rowsInBlock > 0) {
+					writeBlock();
+				}
+
+				final ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+				this.footer.write(new DataOutputStream(footerBytes));
+
+				final DataOutputStream out = new DataOutputStream(this.stream);
+				footerBytes.writeTo(out);
+				out.writeInt(footerBytes.size());
+				out.writeInt(ColumnarFileFooter.MAGIC);
+				out.flush();
+			}
+		}
+		finally {
+			if (this.deflater != null) {
+				this.deflater.end();
+				this.deflater = null;
+			}
+			this.footer = null;
+			this.pages = null;
+			this.pageViews = null;
+			super.close();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@SuppressWarnings("unchecked")
+	private void updateMinMax(int column, Object value) {
+		if (!(value instanceof Comparable)) {
+			return;
+		}
+
+		final Comparable<Object> comparable = (Comparable<Object>) value;
+		final Object min = this.minValues[column];
+		if (min == null || comparable.compareTo(min) < 0) {
+			this.minValues[column] = copy(column, value);
+		}
+		final Object max = this.maxValues[column];
+		if (max == null || comparable.compareTo(max) > 0) {
+			this.maxValues[column] = copy(column, value);
+		}
+	}
+
+	private Object copy(int column, Object value) {
+		final TypeSerializer<Object> serializer = this.serializers[column];
+		return serializer.isImmutableType() ? value : serializer.copy(value, serializer.createInstance());
+	}
+
+	private void writeBlock() throws IOException {
+		final int numColumns = this.serializers.length;
+		final BlockMetaData block = new BlockMetaData(numColumns);
+		block.startOffset = this.position;
+		block.rowCount = this.rowsInBlock;
+
+		for (int i = 0; i < numColumns; i++) {
+			final ByteArrayOutputStream page = this.pages[i];
+			block.uncompressedLengths[i] = page.size();
+			block.compressedLengths[i] = compressPage(page.toByteArray());
+			block.minValues[i] = serializeValue(i, this.minValues[i]);
+			block.maxValues[i] = serializeValue(i, this.maxValues[i]);
+
+			page.reset();
+			this.minValues[i] = null;
+			this.maxValues[i] = null;
+		}
+
+		this.footer.addBlock(block);
+		this.rowsInBlock = 0;
+	}
+
+	/**
+	 * Compresses the page into the output stream and returns the length of the compressed page.
+	 */
+	private int compressPage(byte[] page) throws IOException {
+		final Deflater deflater = this.deflater;
+		deflater.reset();
+		deflater.setInput(page);
+		deflater.finish();
+
+		int length = 0;
+		while (!deflater.finished()) {
+			final int len = deflater.deflate(this.compressBuffer);
+			this.stream.write(this.compressBuffer, 0, len);
+			length += len;
+		}
+		this.position += length;
+		return length;
+	}
+
+	private byte[] serializeValue(int column, Object value) throws IOException {
+		if (value == null) {
+			return null;
+		}
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final OutputViewDataOutputWrapper view = new OutputViewDataOutputWrapper();
+		view.setDelegate(new DataOutputStream(bytes));
+		this.serializers[column].serialize(value, view);
+		return bytes.toByteArray();
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	@Override
+	public String toString() {
+		return "ColumnarOutputFormat (path: " + this.getOutputFilePath() + ")";
+	}
+}
@@ -22,6 +22,8 @@ import java.util.TreeMap;
 import com.google.common.base.Preconditions;
 
 import eu.stratosphere.api.common.io.GenericCsvInputFormat;
+import eu.stratosphere.api.common.io.ProjectableInputFormat;
+import eu.stratosphere.api.common.operators.util.FieldSet;
 import eu.stratosphere.api.java.tuple.Tuple;
 import eu.stratosphere.core.fs.FileInputSplit;
 import eu.stratosphere.core.fs.Path;
@@ -29,7 +31,7 @@ import eu.stratosphere.types.parser.FieldParser;
 import eu.stratosphere.util.StringUtils;
 
 
-public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT> {
+public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT> implements ProjectableInputFormat {
 
 	private static final long serialVersionUID = 1L;
 	
@@ -90,6 +92,26 @@ public class CsvInputFormat<OUT extends Tuple> extends GenericCsvInputFormat<OUT
 		return super.getGenericFieldTypes();
 	}
 	
+	/**
+	 * Tells the format which tuple fields are used by the program. Unused fields are not parsed, but
+	 * skipped. They still hold a valid default value in the produced tuples.
+	 * 
+	 * @param usedFields The positions of the used tuple fields, or <code>null</code>, if all fields are used.
+	 */
+	@Override
+	public void setUsedFields(FieldSet usedFields) {
+		if (usedFields == null) {
+			setFieldsUsed(null);
+			return;
+		}
+		
+		boolean[] used = new boolean[getNumberOfNonNullFields()];
+		for (int i = 0; i < used.length; i++) {
+			used[i] = usedFields.contains(i);
+		}
+		setFieldsUsed(used);
+	}
+	
 	@Override
 	public void open(FileInputSplit split) throws IOException {
 		super.open(split);
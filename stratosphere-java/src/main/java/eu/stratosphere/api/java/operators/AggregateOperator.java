@@ -22,19 +22,26 @@ import org.apache.commons.lang3.Validate;
 
 import eu.stratosphere.api.common.InvalidProgramException;
 import eu.stratosphere.api.common.functions.GenericGroupReduce;
+import eu.stratosphere.api.common.functions.GenericMap;
 import eu.stratosphere.api.common.operators.Operator;
 import eu.stratosphere.api.common.operators.SingleInputSemanticProperties;
 import eu.stratosphere.api.common.operators.UnaryOperatorInformation;
 import eu.stratosphere.api.common.operators.base.GroupReduceOperatorBase;
+import eu.stratosphere.api.common.operators.base.MapOperatorBase;
 import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.aggregation.AggregationFunction;
 import eu.stratosphere.api.java.aggregation.AggregationFunctionFactory;
 import eu.stratosphere.api.java.aggregation.Aggregations;
+import eu.stratosphere.api.java.aggregation.PartialAggregationFunction;
 import eu.stratosphere.api.java.functions.GroupReduceFunction;
 import eu.stratosphere.api.java.functions.GroupReduceFunction.Combinable;
+import eu.stratosphere.api.java.functions.MapFunction;
 import eu.stratosphere.api.java.tuple.Tuple;
 import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.api.java.typeutils.ValueTypeInfo;
 import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.types.TypeInformation;
+import eu.stratosphere.types.Value;
 import eu.stratosphere.util.Collector;
 
 /**
@@ -49,6 +56,8 @@ public class AggregateOperator<IN> extends SingleInputOperator<IN, IN, Aggregate
 	
 	private final List<Integer> fields = new ArrayList<Integer>(4);
 	
+	private final List<Integer> resultFields = new ArrayList<Integer>(4);
+	
 	private final Grouping<IN> grouping;
 	
 	/**
@@ -56,26 +65,36 @@ public class AggregateOperator<IN> extends SingleInputOperator<IN, IN, Aggregate
 	 * Non grouped aggregation
 	 */
 	public AggregateOperator(DataSet<IN> input, Aggregations function, int field) {
+		this(input, Validate.notNull(function).getFactory(), field);
+	}
+	
+	/**
+	 * <p>
+	 * Non grouped aggregation with a configured aggregation function
+	 */
+	public AggregateOperator(DataSet<IN> input, AggregationFunctionFactory factory, int field) {
+		this(input, factory, field, field);
+	}
+	
+	/**
+	 * <p>
+	 * Non grouped aggregation with a configured aggregation function, whose result is written into a separate field
+	 */
+	public AggregateOperator(DataSet<IN> input, AggregationFunctionFactory factory, int field, int resultField) {
 		super(Validate.notNull(input), input.getType());
 		
-		Validate.notNull(function);
+		Validate.notNull(factory);
 		
 		if (!input.getType().isTupleType()) {
 			throw new InvalidProgramException("Aggregating on field positions is only possible on tuple data types.");
 		}
 		
-		TupleTypeInfo<?> inType = (TupleTypeInfo<?>) input.getType();
-		
-		if (field < 0 || field >= inType.getArity()) {
-			throw new IllegalArgumentException("Aggregation field position is out of range.");
-		}
-		
-		AggregationFunctionFactory factory = function.getFactory();
-		AggregationFunction<?> aggFunct = factory.createAggregationFunction(inType.getTypeAt(field).getTypeClass());
+		AggregationFunction<?> aggFunct = createAggregationFunction((TupleTypeInfo<?>) input.getType(), factory, field, resultField);
 		
 		// this is the first aggregation operator after a regular data set (non grouped aggregation)
 		this.aggregationFunctions.add(aggFunct);
 		this.fields.add(field);
+		this.resultFields.add(resultField);
 		this.grouping = null;
 	}
 	
@@ -88,47 +107,100 @@ public class AggregateOperator<IN> extends SingleInputOperator<IN, IN, Aggregate
 	 * @param field
 	 */
 	public AggregateOperator(Grouping<IN> input, Aggregations function, int field) {
+		this(input, Validate.notNull(function).getFactory(), field);
+	}
+	
+	/**
+	 * 
+	 * Grouped aggregation with a configured aggregation function
+	 * 
+	 * @param input
+	 * @param factory
+	 * @param field
+	 */
+	public AggregateOperator(Grouping<IN> input, AggregationFunctionFactory factory, int field) {
+		this(input, factory, field, field);
+	}
+	
+	/**
+	 * 
+	 * Grouped aggregation with a configured aggregation function, whose result is written into a separate field
+	 * 
+	 * @param input
+	 * @param factory
+	 * @param field
+	 * @param resultField
+	 */
+	public AggregateOperator(Grouping<IN> input, AggregationFunctionFactory factory, int field, int resultField) {
 		super(Validate.notNull(input).getDataSet(), input.getDataSet().getType());
 		
-		Validate.notNull(function);
+		Validate.notNull(factory);
 		
 		if (!input.getDataSet().getType().isTupleType()) {
 			throw new InvalidProgramException("Aggregating on field positions is only possible on tuple data types.");
 		}
 		
-		TupleTypeInfo<?> inType = (TupleTypeInfo<?>) input.getDataSet().getType();
-		
-		if (field < 0 || field >= inType.getArity()) {
-			throw new IllegalArgumentException("Aggregation field position is out of range.");
-		}
-		
-		AggregationFunctionFactory factory = function.getFactory();
-		AggregationFunction<?> aggFunct = factory.createAggregationFunction(inType.getTypeAt(field).getTypeClass());
+		AggregationFunction<?> aggFunct = createAggregationFunction((TupleTypeInfo<?>) input.getDataSet().getType(), factory, field, resultField);
 		
 		// set the aggregation fields
 		this.aggregationFunctions.add(aggFunct);
 		this.fields.add(field);
+		this.resultFields.add(resultField);
 		this.grouping = input;
 	}
 	
 	
 	public AggregateOperator<IN> and(Aggregations function, int field) {
-		Validate.notNull(function);
+		return and(Validate.notNull(function).getFactory(), field);
+	}
+	
+	public AggregateOperator<IN> and(AggregationFunctionFactory factory, int field) {
+		return and(factory, field, field);
+	}
+	
+	public AggregateOperator<IN> and(AggregationFunctionFactory factory, int field, int resultField) {
+		Validate.notNull(factory);
 		
-		TupleTypeInfo<?> inType = (TupleTypeInfo<?>) getType();
+		AggregationFunction<?> aggFunct = createAggregationFunction((TupleTypeInfo<?>) getType(), factory, field, resultField);
 		
+		this.aggregationFunctions.add(aggFunct);
+		this.fields.add(field);
+		this.resultFields.add(resultField);
+
+		return this;
+	}
+	
+	/**
+	 * Creates the aggregation function for the given field and checks that its result fits into the result field.
+	 * Only aggregations that ship partial states keep the aggregated field intact until the end, so only they may
+	 * write their result into a separate field.
+	 */
+	private static AggregationFunction<?> createAggregationFunction(TupleTypeInfo<?> inType, AggregationFunctionFactory factory,
+			int field, int resultField)
+	{
 		if (field < 0 || field >= inType.getArity()) {
 			throw new IllegalArgumentException("Aggregation field position is out of range.");
 		}
+		if (resultField < 0 || resultField >= inType.getArity()) {
+			throw new IllegalArgumentException("Aggregation result field position is out of range.");
+		}
 		
+		Class<?> fieldType = inType.getTypeAt(field).getTypeClass();
+		AggregationFunction<?> aggFunct = factory.createAggregationFunction(fieldType);
 		
-		AggregationFunctionFactory factory = function.getFactory();
-		AggregationFunction<?> aggFunct = factory.createAggregationFunction(inType.getTypeAt(field).getTypeClass());
+		if (resultField != field && !(aggFunct instanceof PartialAggregationFunction)) {
+			throw new InvalidProgramException("The aggregation " + aggFunct + " can only write its result into the aggregated field.");
+		}
 		
-		this.aggregationFunctions.add(aggFunct);
-		this.fields.add(field);
-
-		return this;
+		Class<?> aggregateType = aggFunct.getAggregateType(fieldType);
+		Class<?> resultType = inType.getTypeAt(resultField).getTypeClass();
+		if (aggregateType != resultType) {
+			throw new InvalidProgramException("The result of the aggregation " + aggFunct + " on field " + field + 
+				" is of type " + aggregateType.getName() + ", but the result field " + resultField + " is of type " + 
+				resultType.getName() + (resultField == field ? ". Write the result into a separate field instead." : "."));
+		}
+		
+		return aggFunct;
 	}
 
 
@@ -144,10 +216,14 @@ public class AggregateOperator<IN> extends SingleInputOperator<IN, IN, Aggregate
 		return this.and(Aggregations.MAX, field);
 	}
 
+	public AggregateOperator<IN> andAvg (int field) {
+		return this.and(Aggregations.AVG, field);
+	}
+
 
 	@SuppressWarnings("unchecked")
 	@Override
-	protected eu.stratosphere.api.common.operators.base.GroupReduceOperatorBase<IN, IN, GenericGroupReduce<IN, IN>> translateToDataFlow(Operator<IN> input) {
+	protected eu.stratosphere.api.common.operators.SingleInputOperator<?, IN, ?> translateToDataFlow(Operator<IN> input) {
 		
 		// sanity check
 		if (this.aggregationFunctions.isEmpty() || this.aggregationFunctions.size() != this.fields.size()) {
@@ -158,23 +234,34 @@ public class AggregateOperator<IN> extends SingleInputOperator<IN, IN, Aggregate
 		// construct the aggregation function
 		AggregationFunction<Object>[] aggFunctions = new AggregationFunction[this.aggregationFunctions.size()];
 		int[] fields = new int[this.fields.size()];
+		int[] resultFields = new int[this.resultFields.size()];
 		StringBuilder genName = new StringBuilder();
 		
 		for (int i = 0; i < fields.length; i++) {
 			aggFunctions[i] = (AggregationFunction<Object>) this.aggregationFunctions.get(i);
 			fields[i] = this.fields.get(i);
+			resultFields[i] = this.resultFields.get(i);
 			
-			genName.append(aggFunctions[i].toString()).append('(').append(fields[i]).append(')').append(',');
+			genName.append(aggFunctions[i].toString()).append('(').append(fields[i]);
+			if (resultFields[i] != fields[i]) {
+				genName.append("->").append(resultFields[i]);
+			}
+			genName.append(')').append(',');
 		}
 		genName.setLength(genName.length()-1);
 		
+		String name = getName() != null ? getName() : genName.toString();
+		
+		// aggregations whose results cannot be aggregated again ship partial states instead
+		for (int i = 0; i < aggFunctions.length; i++) {
+			if (aggFunctions[i] instanceof PartialAggregationFunction) {
+				return translateToPartialAggregation(input, aggFunctions, fields, resultFields, name);
+			}
+		}
 		
 		@SuppressWarnings("rawtypes")
 		GroupReduceFunction<IN, IN> function = new AggregatingUdf(aggFunctions, fields);
 		
-		
-		String name = getName() != null ? getName() : genName.toString();
-		
 		// distinguish between grouped reduce and non-grouped reduce
 		if (this.grouping == null) {
 			// non grouped aggregation
@@ -206,26 +293,7 @@ public class AggregateOperator<IN> extends SingleInputOperator<IN, IN, Aggregate
 			// set dop
 			po.setDegreeOfParallelism(this.getParallelism());
 			
-			SingleInputSemanticProperties props = new SingleInputSemanticProperties();
-			
-			for (int i = 0; i < logicalKeyPositions.length; i++) {
-				int keyField = logicalKeyPositions[i];
-				boolean keyFieldUsedInAgg = false;
-				
-				for (int k = 0; k < fields.length; k++) {
-					int aggField = fields[k];
-					if (keyField == aggField) {
-						keyFieldUsedInAgg = true;
-						break;
-					}
-				}
-				
-				if (!keyFieldUsedInAgg) {
-					props.addForwardedField(keyField, keyField);
-				}
-			}
-			
-			po.setSemanticProperties(props);
+			po.setSemanticProperties(getForwardedKeyFields(logicalKeyPositions, fields, fields));
 			
 			return po;
 		}
@@ -238,6 +306,108 @@ public class AggregateOperator<IN> extends SingleInputOperator<IN, IN, Aggregate
 		
 	}
 	
+	/**
+	 * Translates an aggregation that contains at least one {@link PartialAggregationFunction}. The fields of the
+	 * input tuples are extended by the partial states of these functions: a map computes the partial state of
+	 * every single tuple, a combinable group reduce merges the partial states (and computes the other aggregates
+	 * on their fields directly), and a final map replaces the aggregated fields by the results.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private eu.stratosphere.api.common.operators.SingleInputOperator<?, IN, ?> translateToPartialAggregation(Operator<IN> input,
+			AggregationFunction<Object>[] aggFunctions, int[] fields, int[] resultFields, String name)
+	{
+		final int[] logicalKeyPositions;
+		
+		if (this.grouping == null) {
+			logicalKeyPositions = new int[0];
+		}
+		else if (this.grouping.getKeys() instanceof Keys.FieldPositionKeys) {
+			logicalKeyPositions = this.grouping.getKeys().computeLogicalKeyPositions();
+		}
+		else if (this.grouping.getKeys() instanceof Keys.SelectorFunctionKeys) {
+			throw new UnsupportedOperationException("Aggregate does not support grouping with KeySelector functions, yet.");
+		}
+		else {
+			throw new UnsupportedOperationException("Unrecognized key type.");
+		}
+		
+		// the partial states are appended to the fields of the input tuples
+		TupleTypeInfo<?> inType = (TupleTypeInfo<?>) getInputType();
+		int arity = inType.getArity();
+		
+		int[] partialPositions = new int[fields.length];
+		List<TypeInformation<?>> types = new ArrayList<TypeInformation<?>>(arity + fields.length);
+		for (int i = 0; i < arity; i++) {
+			types.add(inType.getTypeAt(i));
+		}
+		for (int i = 0; i < fields.length; i++) {
+			if (aggFunctions[i] instanceof PartialAggregationFunction) {
+				partialPositions[i] = types.size();
+				types.add(new ValueTypeInfo(((PartialAggregationFunction<?, ?>) aggFunctions[i]).getPartialType()));
+			} else {
+				partialPositions[i] = -1;
+			}
+		}
+		
+		if (types.size() > Tuple.MAX_ARITY) {
+			throw new InvalidProgramException("The aggregation needs " + (types.size() - arity) + 
+				" additional fields for its partial aggregates, which exceeds the maximal tuple arity of " + Tuple.MAX_ARITY + ".");
+		}
+		
+		TupleTypeInfo<Tuple> partialType = new TupleTypeInfo<Tuple>(types.toArray(new TypeInformation<?>[types.size()]));
+		SingleInputSemanticProperties props = getForwardedKeyFields(logicalKeyPositions, fields, resultFields);
+		
+		MapOperatorBase<IN, Tuple, GenericMap<IN, Tuple>> initializer = new MapOperatorBase<IN, Tuple, GenericMap<IN, Tuple>>(
+				new PartialAggregateInitializer(aggFunctions, fields, partialPositions, partialType.getTypeClass()),
+				new UnaryOperatorInformation<IN, Tuple>(getInputType(), partialType), "Aggregate Initializer");
+		
+		GroupReduceOperatorBase<Tuple, Tuple, GenericGroupReduce<Tuple, Tuple>> reducer = new GroupReduceOperatorBase<Tuple, Tuple, GenericGroupReduce<Tuple, Tuple>>(
+				new PartialAggregatingUdf(aggFunctions, fields, partialPositions),
+				new UnaryOperatorInformation<Tuple, Tuple>(partialType, partialType), logicalKeyPositions, name);
+		reducer.setCombinable(true);
+		
+		MapOperatorBase<Tuple, IN, GenericMap<Tuple, IN>> finalizer = new MapOperatorBase<Tuple, IN, GenericMap<Tuple, IN>>(
+				new PartialAggregateFinalizer(aggFunctions, resultFields, partialPositions, getResultType().getTypeClass()),
+				new UnaryOperatorInformation<Tuple, IN>(partialType, getResultType()), "Aggregate Finalizer");
+		
+		initializer.setInput(input);
+		reducer.setInput(initializer);
+		finalizer.setInput(reducer);
+		
+		initializer.setSemanticProperties(props);
+		reducer.setSemanticProperties(props);
+		finalizer.setSemanticProperties(props);
+		
+		// set dop
+		initializer.setDegreeOfParallelism(input.getDegreeOfParallelism());
+		reducer.setDegreeOfParallelism(this.getParallelism());
+		finalizer.setDegreeOfParallelism(this.getParallelism());
+		
+		return finalizer;
+	}
+	
+	private static SingleInputSemanticProperties getForwardedKeyFields(int[] logicalKeyPositions, int[] fields, int[] resultFields) {
+		SingleInputSemanticProperties props = new SingleInputSemanticProperties();
+		
+		for (int i = 0; i < logicalKeyPositions.length; i++) {
+			int keyField = logicalKeyPositions[i];
+			boolean keyFieldUsedInAgg = false;
+			
+			for (int k = 0; k < fields.length; k++) {
+				if (keyField == fields[k] || keyField == resultFields[k]) {
+					keyFieldUsedInAgg = true;
+					break;
+				}
+			}
+			
+			if (!keyFieldUsedInAgg) {
+				props.addForwardedField(keyField, keyField);
+			}
+		}
+		
+		return props;
+	}
+	
 	// --------------------------------------------------------------------------------------------
 	
 	@Combinable
@@ -293,4 +463,196 @@ public class AggregateOperator<IN> extends SingleInputOperator<IN, IN, Aggregate
 		}
 		
 	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Extends every tuple by the partial states of the partial aggregation functions, computed from the
+	 * single value of the aggregated field.
+	 */
+	@SuppressWarnings("unchecked")
+	public static final class PartialAggregateInitializer<T extends Tuple> extends MapFunction<T, Tuple> {
+		private static final long serialVersionUID = 1L;
+		
+		private final AggregationFunction<Object>[] aggFunctions;
+		
+		private final int[] fieldPositions;
+		
+		private final int[] partialPositions;
+		
+		private final Class<? extends Tuple> partialTupleType;
+		
+		private transient Tuple result;
+		
+		private transient Value[] partials;
+		
+		
+		public PartialAggregateInitializer(AggregationFunction<Object>[] aggFunctions, int[] fieldPositions,
+				int[] partialPositions, Class<? extends Tuple> partialTupleType)
+		{
+			this.aggFunctions = aggFunctions;
+			this.fieldPositions = fieldPositions;
+			this.partialPositions = partialPositions;
+			this.partialTupleType = partialTupleType;
+		}
+		
+		@Override
+		public void open(Configuration parameters) throws Exception {
+			this.result = this.partialTupleType.newInstance();
+			this.partials = new Value[this.aggFunctions.length];
+			for (int i = 0; i < this.aggFunctions.length; i++) {
+				if (this.partialPositions[i] >= 0) {
+					this.partials[i] = ((PartialAggregationFunction<Object, Value>) this.aggFunctions[i]).createPartial();
+				}
+			}
+		}
+		
+		@Override
+		public Tuple map(T value) {
+			final Tuple result = this.result;
+			
+			for (int i = 0; i < value.getArity(); i++) {
+				result.setField(value.getField(i), i);
+			}
+			
+			for (int i = 0; i < this.aggFunctions.length; i++) {
+				if (this.partialPositions[i] >= 0) {
+					PartialAggregationFunction<Object, Value> function = (PartialAggregationFunction<Object, Value>) this.aggFunctions[i];
+					Value partial = this.partials[i];
+					function.resetPartial(partial);
+					function.accumulate(partial, value.getField(this.fieldPositions[i]));
+					result.setField(partial, this.partialPositions[i]);
+				}
+			}
+			
+			return result;
+		}
+	}
+	
+	/**
+	 * Merges the partial states of a group and aggregates the fields of the other aggregation functions.
+	 * Because its input and output are partial aggregates, it serves as the combiner as well.
+	 */
+	@SuppressWarnings("unchecked")
+	@Combinable
+	public static final class PartialAggregatingUdf extends GroupReduceFunction<Tuple, Tuple> {
+		private static final long serialVersionUID = 1L;
+		
+		private final AggregationFunction<Object>[] aggFunctions;
+		
+		private final int[] fieldPositions;
+		
+		private final int[] partialPositions;
+		
+		private transient Value[] partials;
+		
+		
+		public PartialAggregatingUdf(AggregationFunction<Object>[] aggFunctions, int[] fieldPositions, int[] partialPositions) {
+			this.aggFunctions = aggFunctions;
+			this.fieldPositions = fieldPositions;
+			this.partialPositions = partialPositions;
+		}
+		
+		@Override
+		public void open(Configuration parameters) throws Exception {
+			this.partials = new Value[this.aggFunctions.length];
+			for (int i = 0; i < this.aggFunctions.length; i++) {
+				if (this.partialPositions[i] >= 0) {
+					this.partials[i] = ((PartialAggregationFunction<Object, Value>) this.aggFunctions[i]).createPartial();
+				} else {
+					this.aggFunctions[i].initializeAggregate();
+				}
+			}
+		}
+		
+		@Override
+		public void reduce(Iterator<Tuple> values, Collector<Tuple> out) {
+			final AggregationFunction<Object>[] aggFunctions = this.aggFunctions;
+			final int[] fieldPositions = this.fieldPositions;
+			final int[] partialPositions = this.partialPositions;
+			final Value[] partials = this.partials;
+			
+			// aggregators and partial states are initialized from before
+			
+			Tuple current = null;
+			while (values.hasNext()) {
+				current = values.next();
+				
+				for (int i = 0; i < aggFunctions.length; i++) {
+					if (partialPositions[i] >= 0) {
+						((PartialAggregationFunction<Object, Value>) aggFunctions[i]).merge(partials[i], current.<Value>getField(partialPositions[i]));
+					} else {
+						aggFunctions[i].aggregate(current.getField(fieldPositions[i]));
+					}
+				}
+			}
+			
+			for (int i = 0; i < aggFunctions.length; i++) {
+				if (partialPositions[i] >= 0) {
+					// the merged state is copied into the tuple, because the tuple's fields may be reused for the next group
+					PartialAggregationFunction<Object, Value> function = (PartialAggregationFunction<Object, Value>) aggFunctions[i];
+					Value target = current.getField(partialPositions[i]);
+					function.resetPartial(target);
+					function.merge(target, partials[i]);
+					function.resetPartial(partials[i]);
+				} else {
+					current.setField(aggFunctions[i].getAggregate(), fieldPositions[i]);
+					aggFunctions[i].initializeAggregate();
+				}
+			}
+			
+			out.collect(current);
+		}
+	}
+	
+	/**
+	 * Writes the results of the partial states into the result fields and removes the partial states.
+	 */
+	@SuppressWarnings("unchecked")
+	public static final class PartialAggregateFinalizer<T extends Tuple> extends MapFunction<Tuple, T> {
+		private static final long serialVersionUID = 1L;
+		
+		private final AggregationFunction<Object>[] aggFunctions;
+		
+		private final int[] resultPositions;
+		
+		private final int[] partialPositions;
+		
+		private final Class<T> tupleType;
+		
+		private transient T result;
+		
+		
+		public PartialAggregateFinalizer(AggregationFunction<Object>[] aggFunctions, int[] resultPositions,
+				int[] partialPositions, Class<T> tupleType)
+		{
+			this.aggFunctions = aggFunctions;
+			this.resultPositions = resultPositions;
+			this.partialPositions = partialPositions;
+			this.tupleType = tupleType;
+		}
+		
+		@Override
+		public void open(Configuration parameters) throws Exception {
+			this.result = this.tupleType.newInstance();
+		}
+		
+		@Override
+		public T map(Tuple value) {
+			final T result = this.result;
+			
+			for (int i = 0; i < result.getArity(); i++) {
+				result.setField(value.getField(i), i);
+			}
+			
+			for (int i = 0; i < this.aggFunctions.length; i++) {
+				if (this.partialPositions[i] >= 0) {
+					PartialAggregationFunction<Object, Value> function = (PartialAggregationFunction<Object, Value>) this.aggFunctions[i];
+					result.setField(function.getResult(value.<Value>getField(this.partialPositions[i])), this.resultPositions[i]);
+				}
+			}
+			
+			return result;
+		}
+	}
 }
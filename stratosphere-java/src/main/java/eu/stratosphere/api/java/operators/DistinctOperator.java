@@ -14,8 +14,17 @@
  **********************************************************************************************************************/
 package eu.stratosphere.api.java.operators;
 
+import eu.stratosphere.api.common.functions.GenericMap;
 import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.UnaryOperatorInformation;
+import eu.stratosphere.api.common.operators.base.DistinctOperatorBase;
+import eu.stratosphere.api.common.operators.base.MapOperatorBase;
 import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.operators.translation.KeyExtractingMapper;
+import eu.stratosphere.api.java.operators.translation.KeyRemovingMapper;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.types.TypeInformation;
 
 /**
  * This operator represents the application of a "distinct" function on a data set, and the
@@ -25,7 +34,6 @@ import eu.stratosphere.api.java.DataSet;
  */
 public class DistinctOperator<T> extends SingleInputOperator<T, T, DistinctOperator<T>> {
 	
-	@SuppressWarnings("unused")
 	private final Keys<T> keys;
 	
 	public DistinctOperator(DataSet<T> input, Keys<T> keys) {
@@ -39,7 +47,63 @@ public class DistinctOperator<T> extends SingleInputOperator<T, T, DistinctOpera
 	}
 
 	@Override
-	protected eu.stratosphere.api.common.operators.SingleInputOperator<T, T, ?> translateToDataFlow(Operator<T> input) {
-		throw new UnsupportedOperationException("NOT IMPLEMENTED");
+	protected eu.stratosphere.api.common.operators.SingleInputOperator<?, T, ?> translateToDataFlow(Operator<T> input) {
+		
+		String name = getName() != null ? getName() : "Distinct";
+		
+		if (keys instanceof Keys.SelectorFunctionKeys) {
+			
+			// distinct with key selector function
+			@SuppressWarnings("unchecked")
+			Keys.SelectorFunctionKeys<T, ?> selectorKeys = (Keys.SelectorFunctionKeys<T, ?>) keys;
+			
+			return translateSelectorFunctionDistinct(selectorKeys, getInputType(), name, input, this.getParallelism());
+		}
+		else if (keys instanceof Keys.FieldPositionKeys) {
+			
+			// distinct with field positions
+			int[] logicalKeyPositions = keys.computeLogicalKeyPositions();
+			UnaryOperatorInformation<T, T> operatorInfo = new UnaryOperatorInformation<T, T>(getInputType(), getInputType());
+			DistinctOperatorBase<T> po = new DistinctOperatorBase<T>(operatorInfo, logicalKeyPositions, name);
+			
+			// set input
+			po.setInput(input);
+			// set dop
+			po.setDegreeOfParallelism(this.getParallelism());
+			
+			return po;
+		}
+		else {
+			throw new UnsupportedOperationException("Unrecognized key type.");
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static <T, K> MapOperatorBase<Tuple2<K, T>, T, ?> translateSelectorFunctionDistinct(Keys.SelectorFunctionKeys<T, ?> rawKeys,
+			TypeInformation<T> inputType, String name, Operator<T> input, int dop)
+	{
+		@SuppressWarnings("unchecked")
+		final Keys.SelectorFunctionKeys<T, K> keys = (Keys.SelectorFunctionKeys<T, K>) rawKeys;
+		
+		TypeInformation<Tuple2<K, T>> typeInfoWithKey = new TupleTypeInfo<Tuple2<K, T>>(keys.getKeyType(), inputType);
+		
+		KeyExtractingMapper<T, K> extractor = new KeyExtractingMapper<T, K>(keys.getKeyExtractor());
+		
+		DistinctOperatorBase<Tuple2<K, T>> distinct = new DistinctOperatorBase<Tuple2<K, T>>(new UnaryOperatorInformation<Tuple2<K, T>, Tuple2<K, T>>(typeInfoWithKey, typeInfoWithKey), keys.computeLogicalKeyPositions(), name);
+		
+		MapOperatorBase<T, Tuple2<K, T>, GenericMap<T, Tuple2<K, T>>> keyExtractingMap = new MapOperatorBase<T, Tuple2<K, T>, GenericMap<T, Tuple2<K, T>>>(extractor, new UnaryOperatorInformation<T, Tuple2<K, T>>(inputType, typeInfoWithKey), "Key Extractor");
+		MapOperatorBase<Tuple2<K, T>, T, GenericMap<Tuple2<K, T>, T>> keyRemovingMap = new MapOperatorBase<Tuple2<K, T>, T, GenericMap<Tuple2<K, T>, T>>(new KeyRemovingMapper<T, K>(), new UnaryOperatorInformation<Tuple2<K, T>, T>(typeInfoWithKey, inputType), "Key Remover");
+
+		keyExtractingMap.setInput(input);
+		distinct.setInput(keyExtractingMap);
+		keyRemovingMap.setInput(distinct);
+		
+		// set dop
+		keyExtractingMap.setDegreeOfParallelism(input.getDegreeOfParallelism());
+		distinct.setDegreeOfParallelism(dop);
+		keyRemovingMap.setDegreeOfParallelism(dop);
+		
+		return keyRemovingMap;
 	}
 }
@@ -18,6 +18,8 @@ import java.util.Arrays;
 
 import eu.stratosphere.api.common.functions.GenericMap;
 import eu.stratosphere.api.common.operators.Operator;
+import eu.stratosphere.api.common.operators.SingleInputSemanticProperties;
+import eu.stratosphere.api.common.operators.util.FieldSet;
 import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.operators.translation.PlanProjectOperator;
 //CHECKSTYLE.OFF: AvoidStarImport - Needed for TupleGenerator
@@ -50,6 +52,13 @@ public class ProjectOperator<IN, OUT extends Tuple>
 		String name = getName() != null ? getName() : "Projection " + Arrays.toString(fields);
 		// create operator
 		PlanProjectOperator<IN, OUT> ppo = new PlanProjectOperator<IN, OUT>(fields, name, getInputType(), getResultType());
+		// the projection copies the selected fields without reading them
+		SingleInputSemanticProperties props = new SingleInputSemanticProperties();
+		props.setReadFields(FieldSet.EMPTY_SET);
+		for (int i = 0; i < fields.length; i++) {
+			props.addForwardedField(fields[i], i);
+		}
+		ppo.setSemanticProperties(props);
 		// set input
 		ppo.setInput(input);
 		// set dop
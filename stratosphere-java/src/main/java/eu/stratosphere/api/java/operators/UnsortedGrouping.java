@@ -16,6 +16,7 @@ package eu.stratosphere.api.java.operators;
 
 import eu.stratosphere.api.common.operators.Order;
 import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.aggregation.AggregationFunctionFactory;
 import eu.stratosphere.api.java.aggregation.Aggregations;
 import eu.stratosphere.api.java.functions.GroupReduceFunction;
 import eu.stratosphere.api.java.functions.ReduceFunction;
@@ -50,6 +51,36 @@ public class UnsortedGrouping<T> extends Grouping<T> {
 		return new AggregateOperator<T>(this, agg, field);
 	}
 
+	/**
+	 * Applies an Aggregate transformation with a configured aggregation function, such as an approximate
+	 * aggregation with a given accuracy (see {@link Aggregations#approxCountDistinct(double)}).
+	 * 
+	 * @param factory The factory of the aggregation function that is computed.
+	 * @param field The index of the Tuple field on which the aggregation function is applied.
+	 * @return An AggregateOperator that represents the aggregated DataSet.
+	 * 
+	 * @see #aggregate(Aggregations, int)
+	 */
+	public AggregateOperator<T> aggregate(AggregationFunctionFactory factory, int field) {
+		return new AggregateOperator<T>(this, factory, field);
+	}
+
+	/**
+	 * Applies an Aggregate transformation with a configured aggregation function and writes its result into
+	 * a separate field, for example the {@code Long} estimate of an approximate distinct count of a
+	 * {@code String} field (see {@link Aggregations#approxCountDistinct(double)}).
+	 * 
+	 * @param factory The factory of the aggregation function that is computed.
+	 * @param field The index of the Tuple field on which the aggregation function is applied.
+	 * @param resultField The index of the Tuple field that receives the result of the aggregation function.
+	 * @return An AggregateOperator that represents the aggregated DataSet.
+	 * 
+	 * @see #aggregate(AggregationFunctionFactory, int)
+	 */
+	public AggregateOperator<T> aggregate(AggregationFunctionFactory factory, int field, int resultField) {
+		return new AggregateOperator<T>(this, factory, field, resultField);
+	}
+
 	/**
 	 * Syntactic sugar for aggregate (SUM, field)
 	 * @param field The index of the Tuple field on which the aggregation function is applied.
@@ -82,6 +113,17 @@ public class UnsortedGrouping<T> extends Grouping<T> {
 	public AggregateOperator<T> min (int field) {
 		return this.aggregate (Aggregations.MIN, field);
 	}
+
+	/**
+	 * Syntactic sugar for aggregate (AVG, field)
+	 * @param field The index of the Tuple field on which the aggregation function is applied.
+	 * @return An AggregateOperator that represents the averaged DataSet.
+	 *
+	 * @see eu.stratosphere.api.java.operators.AggregateOperator
+	 */
+	public AggregateOperator<T> avg (int field) {
+		return this.aggregate (Aggregations.AVG, field);
+	}
 	
 	/**
 	 * Applies a Reduce transformation on a grouped {@link DataSet}.<br/>
@@ -0,0 +1,164 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+package eu.stratosphere.api.java.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import org.junit.Test;
+
+import eu.stratosphere.types.DoubleValue;
+import eu.stratosphere.types.IntValue;
+import eu.stratosphere.types.LongValue;
+import eu.stratosphere.types.StringValue;
+
+public class AggregationFunctionTest {
+
+	@Test
+	public void testFactoriesPickSpecializations() {
+		assertTrue(Aggregations.SUM.getFactory().createAggregationFunction(IntValue.class) instanceof SumAggregationFunction.IntValueSumAgg);
+		assertTrue(Aggregations.MIN.getFactory().createAggregationFunction(Long.class) instanceof MinMaxAggregationFunction.LongMinMaxAgg);
+		assertTrue(Aggregations.MAX.getFactory().createAggregationFunction(DoubleValue.class) instanceof MinMaxAggregationFunction.DoubleValueMinMaxAgg);
+		assertTrue(Aggregations.MIN.getFactory().createAggregationFunction(String.class) instanceof MinMaxAggregationFunction.GenericMinMaxAgg);
+		
+		assertEquals("SUM", Aggregations.SUM.getFactory().createAggregationFunction(Long.class).toString());
+		assertEquals("MIN", Aggregations.MIN.getFactory().createAggregationFunction(Long.class).toString());
+		assertEquals("MAX", Aggregations.MAX.getFactory().createAggregationFunction(StringValue.class).toString());
+	}
+	
+	@Test
+	public void testBoxedMinMax() {
+		AggregationFunction<Integer> min = Aggregations.MIN.getFactory().createAggregationFunction(Integer.class);
+		AggregationFunction<Double> max = Aggregations.MAX.getFactory().createAggregationFunction(Double.class);
+		
+		for (int round = 0; round < 2; round++) {
+			min.initializeAggregate();
+			max.initializeAggregate();
+			
+			for (int i = 0; i < 10; i++) {
+				min.aggregate((i * 7 + round) % 10 - 3);
+				max.aggregate(-1.0 * ((i * 3) % 10) - round);
+			}
+			assertEquals(-3, min.getAggregate().intValue());
+			assertEquals(-round, max.getAggregate().doubleValue(), 0.0);
+		}
+	}
+	
+	@Test
+	public void testValuesAreReused() {
+		AggregationFunction<LongValue> sum = Aggregations.SUM.getFactory().createAggregationFunction(LongValue.class);
+		AggregationFunction<IntValue> min = Aggregations.MIN.getFactory().createAggregationFunction(IntValue.class);
+		AggregationFunction<IntValue> max = Aggregations.MAX.getFactory().createAggregationFunction(IntValue.class);
+		
+		sum.initializeAggregate();
+		min.initializeAggregate();
+		max.initializeAggregate();
+		
+		// the same instance is handed in for every element, the way the runtime reuses objects
+		final LongValue longValue = new LongValue();
+		final IntValue intValue = new IntValue();
+		for (int i = 1; i <= 100; i++) {
+			longValue.setValue(i);
+			intValue.setValue(50 - i);
+			sum.aggregate(longValue);
+			min.aggregate(intValue);
+			max.aggregate(intValue);
+		}
+		
+		final LongValue total = sum.getAggregate();
+		assertEquals(5050L, total.getValue());
+		assertEquals(-50, min.getAggregate().getValue());
+		assertEquals(49, max.getAggregate().getValue());
+		
+		// the next group writes into the same result
+		sum.initializeAggregate();
+		sum.aggregate(new LongValue(7));
+		assertSame(total, sum.getAggregate());
+		assertEquals(7L, total.getValue());
+	}
+	
+	@Test
+	public void testAvgPartials() {
+		AvgAggregationFunction.IntAvgAgg avg = new AvgAggregationFunction.IntAvgAgg();
+		
+		AvgAggregationFunction.LongSumCount first = avg.createPartial();
+		AvgAggregationFunction.LongSumCount second = avg.createPartial();
+		for (int i = 1; i <= 4; i++) {
+			avg.accumulate(first, i);
+		}
+		avg.accumulate(second, 20);
+		
+		// merging the averages 2 and 20 must not give their average
+		avg.merge(first, second);
+		assertEquals(5L, first.getCount());
+		assertEquals(6, avg.getResult(first).intValue());
+		assertEquals(1L, second.getCount());
+		
+		// the direct path computes the same
+		avg.initializeAggregate();
+		for (int i : new int[] {1, 2, 3, 4, 20}) {
+			avg.aggregate(i);
+		}
+		assertEquals(6, avg.getAggregate().intValue());
+	}
+	
+	@Test
+	public void testApproximateAggregations() {
+		AggregationFunction<Long> distinct = Aggregations.APPROX_COUNT_DISTINCT.getFactory().createAggregationFunction(Long.class);
+		AggregationFunction<Double> median = Aggregations.approxQuantile(0.5, 50).createAggregationFunction(Double.class);
+		AggregationFunction<String> mostFrequent = Aggregations.APPROX_MOST_FREQUENT.getFactory().createAggregationFunction(String.class);
+		
+		assertTrue(distinct instanceof PartialAggregationFunction);
+		
+		distinct.initializeAggregate();
+		median.initializeAggregate();
+		mostFrequent.initializeAggregate();
+		for (int i = 0; i < 1000; i++) {
+			distinct.aggregate((long) (i % 50));
+			median.aggregate((double) i);
+			mostFrequent.aggregate(i % 3 == 0 ? "a" : String.valueOf(i));
+		}
+		
+		assertEquals(50, distinct.getAggregate().intValue(), 1);
+		assertEquals(500.0, median.getAggregate(), 10.0);
+		assertEquals("a", mostFrequent.getAggregate());
+	}
+	
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void testApproximateDistinctCountOfStrings() {
+		AggregationFunction<String> function = Aggregations.approxCountDistinct(0.01).createAggregationFunction(String.class);
+		
+		// the estimate is a Long, whatever the type of the counted values
+		assertEquals(Long.class, function.getAggregateType(String.class));
+		AggregationFunction<Object> distinct = (AggregationFunction) function;
+		
+		distinct.initializeAggregate();
+		for (int i = 0; i < 1000; i++) {
+			distinct.aggregate(String.valueOf(i % 100));
+		}
+		Object estimate = distinct.getAggregate();
+		assertTrue(estimate instanceof Long);
+		assertEquals(100L, ((Long) estimate).longValue(), 3);
+	}
+	
+	@Test(expected = UnsupportedAggregationTypeException.class)
+	public void testApproximateDistinctCountOfUnhashableType() {
+		Aggregations.approxCountDistinct(0.01).createAggregationFunction(Date.class);
+	}
+}
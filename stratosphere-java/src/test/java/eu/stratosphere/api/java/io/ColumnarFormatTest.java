@@ -0,0 +1,212 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.api.java.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.io.FileOutputFormat.OutputDirectoryMode;
+import eu.stratosphere.api.common.io.statistics.BaseStatistics;
+import eu.stratosphere.api.common.operators.util.FieldSet;
+import eu.stratosphere.api.java.tuple.Tuple3;
+import eu.stratosphere.api.java.typeutils.BasicTypeInfo;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.fs.FileSystem.WriteMode;
+import eu.stratosphere.core.fs.Path;
+
+public class ColumnarFormatTest {
+
+	private static final int NUM_RECORDS = 10000;
+
+	private static final int ROWS_PER_BLOCK = 500;
+
+	private static final TupleTypeInfo<Tuple3<Integer, String, Double>> TYPE =
+			new TupleTypeInfo<Tuple3<Integer, String, Double>>(BasicTypeInfo.INT_TYPE_INFO,
+				BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.DOUBLE_TYPE_INFO);
+
+	private File tempFile;
+
+	@Before
+	public void writeFile() throws IOException {
+		this.tempFile = File.createTempFile("columnar_test", ".col");
+
+		ColumnarOutputFormat<Tuple3<Integer, String, Double>> output =
+				new ColumnarOutputFormat<Tuple3<Integer, String, Double>>(new Path(this.tempFile.toURI()), TYPE);
+		output.setMaxRowsPerBlock(ROWS_PER_BLOCK);
+		output.setWriteMode(WriteMode.OVERWRITE);
+		output.setOutputDirectoryMode(OutputDirectoryMode.PARONLY);
+		output.configure(new Configuration());
+		output.open(0, 1);
+
+		Tuple3<Integer, String, Double> record = new Tuple3<Integer, String, Double>();
+		for (int i = 0; i < NUM_RECORDS; i++) {
+			record.f0 = i;
+			record.f1 = "value-" + (i % 17);
+			record.f2 = i / 2.0;
+			output.writeRecord(record);
+		}
+		output.close();
+	}
+
+	@After
+	public void deleteFile() {
+		if (this.tempFile != null) {
+			this.tempFile.delete();
+		}
+	}
+
+	@Test
+	public void testReadAllSplits() {
+		try {
+			ColumnarInputFormat<Tuple3<Integer, String, Double>> input = createInputFormat();
+			FileInputSplit[] splits = input.createInputSplits(7);
+
+			boolean[] seen = new boolean[NUM_RECORDS];
+			int count = 0;
+			for (FileInputSplit split : splits) {
+				input.open(split);
+				Tuple3<Integer, String, Double> record = new Tuple3<Integer, String, Double>();
+				while (!input.reachedEnd()) {
+					Tuple3<Integer, String, Double> next = input.nextRecord(record);
+					if (next != null) {
+						int i = next.f0;
+						assertTrue("Record " + i + " was read twice.", !seen[i]);
+						seen[i] = true;
+						assertEquals("value-" + (i % 17), next.f1);
+						assertEquals(i / 2.0, next.f2, 0.0);
+						count++;
+					}
+				}
+				input.close();
+			}
+			assertEquals(NUM_RECORDS, count);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Test failed due to a " + ex.getClass().getName() + ": " + ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testProjection() {
+		try {
+			ColumnarInputFormat<Tuple3<Integer, String, Double>> input = createInputFormat();
+			input.setUsedFields(new FieldSet(2));
+
+			int count = 0;
+			for (FileInputSplit split : input.createInputSplits(1)) {
+				input.open(split);
+				Tuple3<Integer, String, Double> record = new Tuple3<Integer, String, Double>();
+				while (!input.reachedEnd()) {
+					Tuple3<Integer, String, Double> next = input.nextRecord(record);
+					if (next != null) {
+						assertEquals(count / 2.0, next.f2, 0.0);
+						assertNotNull(next.f0);
+						assertNotNull(next.f1);
+						count++;
+					}
+				}
+				input.close();
+			}
+			assertEquals(NUM_RECORDS, count);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Test failed due to a " + ex.getClass().getName() + ": " + ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testPredicateSkipsBlocks() {
+		try {
+			ColumnarInputFormat<Tuple3<Integer, String, Double>> input = createInputFormat();
+			input.addPredicate(ColumnPredicate.greaterOrEqual(0, 9000));
+			input.addPredicate(ColumnPredicate.lessThan(2, 4750.0));
+			input.setUsedFields(new FieldSet(1));
+
+			FileInputSplit[] splits = input.createInputSplits(1);
+			assertEquals(1, splits.length);
+
+			input.open(splits[0]);
+			assertEquals(NUM_RECORDS / ROWS_PER_BLOCK - 1, input.getNumberOfSkippedBlocks());
+
+			int count = 0;
+			Tuple3<Integer, String, Double> record = new Tuple3<Integer, String, Double>();
+			while (!input.reachedEnd()) {
+				Tuple3<Integer, String, Double> next = input.nextRecord(record);
+				if (next != null) {
+					assertTrue(next.f0 >= 9000 && next.f0 < 9500);
+					count++;
+				}
+			}
+			input.close();
+			assertEquals(500, count);
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Test failed due to a " + ex.getClass().getName() + ": " + ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testStatistics() {
+		try {
+			BaseStatistics stats = createInputFormat().getStatistics(null);
+			assertNotNull(stats);
+			assertEquals(NUM_RECORDS, stats.getNumberOfRecords());
+			assertEquals(this.tempFile.length(), stats.getTotalInputSize());
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Test failed due to a " + ex.getClass().getName() + ": " + ex.getMessage());
+		}
+	}
+
+	@Test
+	public void testMismatchingTypeIsRejected() {
+		try {
+			ColumnarInputFormat<Tuple3<Long, String, Double>> input = new ColumnarInputFormat<Tuple3<Long, String, Double>>(
+					new Path(this.tempFile.toURI()), new TupleTypeInfo<Tuple3<Long, String, Double>>(
+						BasicTypeInfo.LONG_TYPE_INFO, BasicTypeInfo.STRING_TYPE_INFO, BasicTypeInfo.DOUBLE_TYPE_INFO));
+			input.configure(new Configuration());
+			input.open(input.createInputSplits(1)[0]);
+			fail("The format did not detect the mismatching column type.");
+		}
+		catch (IOException ioex) {
+			// expected
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Test failed due to a " + ex.getClass().getName() + ": " + ex.getMessage());
+		}
+	}
+
+	private ColumnarInputFormat<Tuple3<Integer, String, Double>> createInputFormat() {
+		ColumnarInputFormat<Tuple3<Integer, String, Double>> input =
+				new ColumnarInputFormat<Tuple3<Integer, String, Double>>(new Path(this.tempFile.toURI()), TYPE);
+		input.configure(new Configuration());
+		return input;
+	}
+}
@@ -29,6 +29,7 @@ import org.apache.log4j.Level;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import eu.stratosphere.api.common.operators.util.FieldSet;
 import eu.stratosphere.api.java.tuple.Tuple1;
 import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.api.java.tuple.Tuple3;
@@ -361,6 +362,42 @@ public class CsvInputFormatTest {
 		return new FileInputSplit(0, new Path(tempFile.toURI().toString()), 0, tempFile.length(), new String[] {"localhost"});
 	}
 	
+	@Test
+	public void testSkipUnusedFields() throws IOException {
+		try {
+			// the unused second field is not a valid integer and must not be parsed
+			final String fileContent = "111|abc|333\n444|def|666\n";
+			final FileInputSplit split = createTempFile(fileContent);
+			
+			final CsvInputFormat<Tuple3<Integer, Integer, Integer>> format = new CsvInputFormat<Tuple3<Integer, Integer, Integer>>(PATH, "\n", '|', Integer.class, Integer.class, Integer.class);
+			format.setUsedFields(new FieldSet(0, 2));
+			
+			format.configure(new Configuration());
+			format.open(split);
+			
+			Tuple3<Integer, Integer, Integer> result = new Tuple3<Integer, Integer, Integer>();
+			
+			result = format.nextRecord(result);
+			assertNotNull(result);
+			assertEquals(Integer.valueOf(111), result.f0);
+			assertNotNull(result.f1);
+			assertEquals(Integer.valueOf(333), result.f2);
+			
+			result = format.nextRecord(result);
+			assertNotNull(result);
+			assertEquals(Integer.valueOf(444), result.f0);
+			assertEquals(Integer.valueOf(666), result.f2);
+			
+			result = format.nextRecord(result);
+			assertNull(result);
+			assertTrue(format.reachedEnd());
+		}
+		catch (Exception ex) {
+			ex.printStackTrace();
+			fail("Test failed due to a " + ex.getClass().getName() + ": " + ex.getMessage());
+		}
+	}
+	
 	@Test
 	public void testWindowsLineEndRemoval() {
 		
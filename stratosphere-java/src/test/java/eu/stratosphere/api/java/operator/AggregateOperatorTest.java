@@ -112,4 +112,40 @@ public class AggregateOperatorTest {
 			Assert.fail(e.getMessage());
 		}
 	}
+	
+	@Test
+	public void testAggregationResultFields() {
+		final ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+		DataSet<Tuple5<Integer, Long, String, Long, Integer>> tupleDs = env.fromCollection(emptyTupleData, tupleTypeInfo);
+		
+		// should work: the distinct count of a string field goes into a long field
+		try {
+			tupleDs.groupBy(0).aggregate(Aggregations.approxCountDistinct(0.01), 2, 3);
+			tupleDs.aggregate(Aggregations.APPROX_COUNT_DISTINCT, 1);
+		} catch(Exception e) {
+			Assert.fail(e.getMessage());
+		}
+		
+		// should not work: the distinct count does not fit into the counted string or int field
+		try {
+			tupleDs.aggregate(Aggregations.APPROX_COUNT_DISTINCT, 2);
+			Assert.fail();
+		} catch(InvalidProgramException ipe) {
+			// we're good here
+		}
+		try {
+			tupleDs.aggregate(Aggregations.approxCountDistinct(0.01), 2, 4);
+			Assert.fail();
+		} catch(InvalidProgramException ipe) {
+			// we're good here
+		}
+		
+		// should not work: aggregations without partial states write into the aggregated field
+		try {
+			tupleDs.aggregate(Aggregations.MIN.getFactory(), 1, 3);
+			Assert.fail();
+		} catch(InvalidProgramException ipe) {
+			// we're good here
+		}
+	}
 }
@@ -25,6 +25,7 @@ import eu.stratosphere.api.common.Plan;
 import eu.stratosphere.api.common.operators.base.GenericDataSinkBase;
 import eu.stratosphere.api.common.operators.base.GenericDataSourceBase;
 import eu.stratosphere.api.common.operators.base.GroupReduceOperatorBase;
+import eu.stratosphere.api.common.operators.base.MapOperatorBase;
 import eu.stratosphere.api.java.DataSet;
 import eu.stratosphere.api.java.ExecutionEnvironment;
 import eu.stratosphere.api.java.aggregation.Aggregations;
@@ -66,4 +67,42 @@ public class AggregateTranslationTest {
 			fail("Test caused an error: " + e.getMessage());
 		}
 	}
+	
+	@Test
+	public void translatePartialAggregate() {
+		try {
+			final int DOP = 8;
+			ExecutionEnvironment env = ExecutionEnvironment.createLocalEnvironment(DOP);
+			
+			@SuppressWarnings("unchecked")
+			DataSet<Tuple3<Double, StringValue, Long>> initialData = 
+					env.fromElements(new Tuple3<Double, StringValue, Long>(3.141592, new StringValue("foobar"), new Long(77)));
+			
+			initialData.groupBy(1).aggregate(Aggregations.AVG, 0).and(Aggregations.SUM, 2).print();
+			
+			Plan p = env.createProgramPlan();
+			
+			GenericDataSinkBase<?> sink = p.getDataSinks().iterator().next();
+			
+			// the partial states are added by a map before and removed by a map after the reducer
+			MapOperatorBase<?, ?, ?> finalizer = (MapOperatorBase<?, ?, ?>) sink.getInput();
+			GroupReduceOperatorBase<?, ?, ?> reducer = (GroupReduceOperatorBase<?, ?, ?>) finalizer.getInput();
+			MapOperatorBase<?, ?, ?> initializer = (MapOperatorBase<?, ?, ?>) reducer.getInput();
+			
+			assertEquals(1, reducer.getKeyColumns(0).length);
+			assertEquals(1, reducer.getKeyColumns(0)[0]);
+			assertTrue(reducer.isCombinable());
+			
+			// one partial state for the average
+			assertEquals(4, reducer.getOperatorInfo().getInputType().getArity());
+			assertEquals(3, finalizer.getOperatorInfo().getOutputType().getArity());
+			
+			assertTrue(initializer.getInput() instanceof GenericDataSourceBase<?, ?>);
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			fail("Test caused an error: " + e.getMessage());
+		}
+	}
 }
@@ -202,6 +202,9 @@ function fillTable(table, json) {
 							  		<th>status</th>\
 							  		<th>instancename</th>\
 							  		<th>instancetype</th>\
+							  		<th>busy</th>\
+							  		<th>backpressure</th>\
+							  		<th>idle</th>\
 							  	</tr>";
 							$.each(groupvertex.groupmembers, function(k, vertex) {
 								jobtable += "<tr id="+vertex.vertexid+" lastupdate=\""+job.time+"\">\
@@ -209,6 +212,9 @@ function fillTable(table, json) {
        								<td class=\"status\">"+ vertex.vertexstatus + "</td>\
        								<td>"+ vertex.vertexinstancename + "</td>\
        								<td>"+ vertex.vertexinstancetype + "</td>\
+       								<td class=\"busy\">"+ formattedRatio(vertex.busy) + "</td>\
+       								<td class=\"backpressure\">"+ formattedRatio(vertex.backpressure) + "</td>\
+       								<td class=\"idle\">"+ formattedRatio(vertex.idle) + "</td>\
        							</tr>";
 							});
 							jobtable += "</table></div>\
@@ -236,6 +242,13 @@ function fillTable(table, json) {
 
 }
 
+/*
+ * Formats the fraction of time a vertex spent in an activity as a percentage
+ */
+function formattedRatio(ratio) {
+	return Math.round(ratio * 100) + "%";
+}
+
 /*
  * Generates the progress bars
  */
@@ -354,6 +367,13 @@ function updateTable(json) {
 		}
 	});
 	
+	// handle activity of the vertices
+	$.each(json.vertexactivity , function(i, activity) {
+		$("#"+activity.vertexid).children(".busy").html(formattedRatio(activity.busy));
+		$("#"+activity.vertexid).children(".backpressure").html(formattedRatio(activity.backpressure));
+		$("#"+activity.vertexid).children(".idle").html(formattedRatio(activity.idle));
+	});
+	
 	// handle jobevents
 	$.each(json.jobevents , function(i, event) {
 		console.log(event.newstate);
@@ -36,6 +36,7 @@ import eu.stratosphere.nephele.protocols.AccumulatorProtocol;
 import eu.stratosphere.nephele.protocols.JobManagementProtocol;
 import eu.stratosphere.nephele.services.accumulators.AccumulatorEvent;
 import eu.stratosphere.nephele.types.IntegerRecord;
+import eu.stratosphere.pact.runtime.cache.FileCache;
 import eu.stratosphere.util.StringUtils;
 
 /**
@@ -217,13 +218,16 @@ public class JobClient {
 
 		synchronized (this.jobSubmitClient) {
 
-			// We submit the required files with the BLOB service before the submission of the actual job graph
+			// We submit the required files and the registered cache files with the BLOB service before the submission
+			// of the actual job graph
 			final int blobManagerPort = this.configuration.getInteger(ConfigConstants.BLOB_SERVICE_PORT,
 				ConfigConstants.DEFAULT_BLOB_SERVICE_PORT);
 			final InetSocketAddress blobServerAddress = new InetSocketAddress(this.jobManagerAddress.getAddress(),
 				blobManagerPort);
 
 			this.jobGraph.uploadRequiredJarFiles(blobServerAddress);
+			FileCache.publishCachedFiles(this.jobGraph.getJobID(), this.jobGraph.getJobConfiguration(),
+				blobServerAddress);
 
 			return this.jobSubmitClient.submitJob(this.jobGraph);
 		}
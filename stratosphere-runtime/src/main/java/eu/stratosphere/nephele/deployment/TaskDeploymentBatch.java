@@ -0,0 +1,306 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.deployment;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.core.io.StringRecord;
+import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.services.blob.BlobKey;
+import eu.stratosphere.nephele.template.AbstractInvokable;
+import eu.stratosphere.nephele.util.SerializableArrayList;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * A task deployment batch carries all {@link TaskDeploymentDescriptor} objects which are deployed to one task manager
+ * at the same time. Unlike a plain list of descriptors, the batch transmits the data the descriptors have in common
+ * only once: the required JAR files of each job, and every job and task configuration object referenced by more than
+ * one descriptor. The descriptors then refer to these shared entries by index.
+ * <p>
+ * On the receiving side, each descriptor still gets its own copies of the configurations, so tasks cannot observe
+ * each other's modifications.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class TaskDeploymentBatch implements IOReadableWritable {
+
+	/**
+	 * The task deployment descriptors contained in this batch.
+	 */
+	private final List<TaskDeploymentDescriptor> tasks;
+
+	/**
+	 * Constructs a new batch with the given task deployment descriptors.
+	 *
+	 * @param tasks
+	 *        the task deployment descriptors to be deployed
+	 */
+	public TaskDeploymentBatch(final List<TaskDeploymentDescriptor> tasks) {
+
+		if (tasks == null) {
+			throw new IllegalArgumentException("Argument tasks must not be null");
+		}
+
+		this.tasks = tasks;
+	}
+
+	/**
+	 * Default constructor required by the serialization process.
+	 */
+	public TaskDeploymentBatch() {
+		this.tasks = new ArrayList<TaskDeploymentDescriptor>();
+	}
+
+	/**
+	 * Returns the task deployment descriptors contained in this batch.
+	 *
+	 * @return the task deployment descriptors contained in this batch
+	 */
+	public List<TaskDeploymentDescriptor> getTasks() {
+
+		return Collections.unmodifiableList(this.tasks);
+	}
+
+	/**
+	 * Returns the number of task deployment descriptors contained in this batch.
+	 *
+	 * @return the number of task deployment descriptors contained in this batch
+	 */
+	public int size() {
+
+		return this.tasks.size();
+	}
+
+	@Override
+	public void write(final DataOutput out) throws IOException {
+
+		// Collect the jobs and the distinct configuration objects of the batch
+		final Map<JobID, Integer> jobIndices = new HashMap<JobID, Integer>();
+		final List<TaskDeploymentDescriptor> jobRepresentatives = new ArrayList<TaskDeploymentDescriptor>();
+		final Map<Configuration, Integer> configurationIndices = new IdentityHashMap<Configuration, Integer>();
+		final List<Configuration> configurations = new ArrayList<Configuration>();
+		final List<Integer> configurationJobs = new ArrayList<Integer>();
+
+		for (final TaskDeploymentDescriptor tdd : this.tasks) {
+
+			Integer jobIndex = jobIndices.get(tdd.getJobID());
+			if (jobIndex == null) {
+				jobIndex = Integer.valueOf(jobRepresentatives.size());
+				jobIndices.put(tdd.getJobID(), jobIndex);
+				jobRepresentatives.add(tdd);
+			}
+
+			addConfiguration(tdd.getJobConfiguration(), jobIndex, configurationIndices, configurations,
+				configurationJobs);
+			addConfiguration(tdd.getTaskConfiguration(), jobIndex, configurationIndices, configurations,
+				configurationJobs);
+		}
+
+		// Write the jobs along with the BLOB keys of their required JAR files
+		out.writeInt(jobRepresentatives.size());
+		for (final TaskDeploymentDescriptor tdd : jobRepresentatives) {
+			tdd.getJobID().write(out);
+			final List<BlobKey> requiredJarFiles = tdd.getRequiredJarFiles();
+			out.writeInt(requiredJarFiles.size());
+			for (final BlobKey key : requiredJarFiles) {
+				key.write(out);
+			}
+		}
+
+		// Write the distinct configurations, each along with the job whose class loader it requires
+		out.writeInt(configurations.size());
+		for (int i = 0; i < configurations.size(); ++i) {
+			out.writeInt(configurationJobs.get(i).intValue());
+			configurations.get(i).write(out);
+		}
+
+		// Write the descriptors, which refer to the jobs and configurations by index
+		out.writeInt(this.tasks.size());
+		for (final TaskDeploymentDescriptor tdd : this.tasks) {
+
+			out.writeInt(jobIndices.get(tdd.getJobID()).intValue());
+			tdd.getVertexID().write(out);
+			StringRecord.writeString(out, tdd.getTaskName());
+			out.writeInt(tdd.getIndexInSubtaskGroup());
+			out.writeInt(tdd.getCurrentNumberOfSubtasks());
+
+			if (tdd.getInvokableClass() == null) {
+				throw new IOException("Invokable class of task " + tdd.getTaskName() + " is null");
+			}
+			StringRecord.writeString(out, tdd.getInvokableClass().getName());
+
+			out.writeInt(configurationIndices.get(tdd.getJobConfiguration()).intValue());
+			out.writeInt(configurationIndices.get(tdd.getTaskConfiguration()).intValue());
+
+			tdd.getOutputGates().write(out);
+			tdd.getInputGates().write(out);
+		}
+	}
+
+	@Override
+	public void read(final DataInput in) throws IOException {
+
+		this.tasks.clear();
+
+		// Read the jobs
+		int registeredJobs = 0;
+		boolean success = false;
+		final int numberOfJobs = in.readInt();
+		final JobID[] jobIDs = new JobID[numberOfJobs];
+		final List<List<BlobKey>> requiredJarFiles = new ArrayList<List<BlobKey>>(numberOfJobs);
+		final ClassLoader[] classLoaders = new ClassLoader[numberOfJobs];
+		try {
+			for (int i = 0; i < numberOfJobs; ++i) {
+
+				jobIDs[i] = new JobID();
+				jobIDs[i].read(in);
+
+				final int numberOfJarFiles = in.readInt();
+				final List<BlobKey> keys = new ArrayList<BlobKey>(numberOfJarFiles);
+				for (int j = 0; j < numberOfJarFiles; ++j) {
+					final BlobKey key = new BlobKey();
+					key.read(in);
+					keys.add(key);
+				}
+				requiredJarFiles.add(keys);
+
+				// Hold a reference to the job's libraries while the batch is read, the tasks register below
+				LibraryCacheManager.register(jobIDs[i], keys);
+				registeredJobs = i + 1;
+				classLoaders[i] = LibraryCacheManager.getClassLoader(jobIDs[i]);
+			}
+
+			// Read the shared configurations
+			final int numberOfConfigurations = in.readInt();
+			final Configuration[] configurations = new Configuration[numberOfConfigurations];
+			for (int i = 0; i < numberOfConfigurations; ++i) {
+				final int jobIndex = readIndex(in, numberOfJobs);
+				configurations[i] = new Configuration(classLoaders[jobIndex]);
+				configurations[i].read(in);
+			}
+
+			// Read the descriptors
+			final Map<String, Class<? extends AbstractInvokable>> invokableClasses = new HashMap<String, Class<? extends AbstractInvokable>>();
+			final int numberOfTasks = in.readInt();
+			for (int i = 0; i < numberOfTasks; ++i) {
+
+				final int jobIndex = readIndex(in, numberOfJobs);
+				final ExecutionVertexID vertexID = new ExecutionVertexID();
+				vertexID.read(in);
+				final String taskName = StringRecord.readString(in);
+				final int indexInSubtaskGroup = in.readInt();
+				final int currentNumberOfSubtasks = in.readInt();
+				final String invokableClassName = StringRecord.readString(in);
+				final Class<? extends AbstractInvokable> invokableClass = loadInvokableClass(invokableClassName,
+					jobIndex, classLoaders[jobIndex], invokableClasses);
+
+				final Configuration jobConfiguration = copy(configurations[readIndex(in, numberOfConfigurations)],
+					classLoaders[jobIndex]);
+				final Configuration taskConfiguration = copy(configurations[readIndex(in, numberOfConfigurations)],
+					classLoaders[jobIndex]);
+
+				final SerializableArrayList<GateDeploymentDescriptor> outputGates = new SerializableArrayList<GateDeploymentDescriptor>();
+				outputGates.read(in);
+				final SerializableArrayList<GateDeploymentDescriptor> inputGates = new SerializableArrayList<GateDeploymentDescriptor>();
+				inputGates.read(in);
+
+				// Like a descriptor read on its own, every task holds a reference to its job's libraries
+				LibraryCacheManager.register(jobIDs[jobIndex], requiredJarFiles.get(jobIndex));
+
+				this.tasks.add(new TaskDeploymentDescriptor(jobIDs[jobIndex], vertexID, taskName, indexInSubtaskGroup,
+					currentNumberOfSubtasks, jobConfiguration, taskConfiguration, invokableClass, outputGates, inputGates,
+					requiredJarFiles.get(jobIndex)));
+			}
+
+			success = true;
+		} finally {
+			if (!success) {
+				// The tasks read so far will never be set up, so release the references they hold
+				for (final TaskDeploymentDescriptor tdd : this.tasks) {
+					LibraryCacheManager.unregister(tdd.getJobID());
+				}
+				this.tasks.clear();
+			}
+			for (int i = 0; i < registeredJobs; ++i) {
+				LibraryCacheManager.unregister(jobIDs[i]);
+			}
+		}
+	}
+
+	private static void addConfiguration(final Configuration configuration, final Integer jobIndex,
+			final Map<Configuration, Integer> configurationIndices, final List<Configuration> configurations,
+			final List<Integer> configurationJobs) {
+
+		if (!configurationIndices.containsKey(configuration)) {
+			configurationIndices.put(configuration, Integer.valueOf(configurations.size()));
+			configurations.add(configuration);
+			configurationJobs.add(jobIndex);
+		}
+	}
+
+	private static int readIndex(final DataInput in, final int size) throws IOException {
+
+		final int index = in.readInt();
+		if (index < 0 || index >= size) {
+			throw new IOException("Invalid reference " + index + " in task deployment batch");
+		}
+
+		return index;
+	}
+
+	private static Configuration copy(final Configuration configuration, final ClassLoader classLoader) {
+
+		final Configuration copy = new Configuration(classLoader);
+		copy.addAll(configuration);
+
+		return copy;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends AbstractInvokable> loadInvokableClass(final String className, final int jobIndex,
+			final ClassLoader classLoader, final Map<String, Class<? extends AbstractInvokable>> cache)
+			throws IOException {
+
+		if (className == null) {
+			throw new IOException("invokableClassName is null");
+		}
+
+		// Different jobs may use different classes of the same name
+		final String key = jobIndex + ":" + className;
+		Class<? extends AbstractInvokable> invokableClass = cache.get(key);
+		if (invokableClass == null) {
+			try {
+				invokableClass = (Class<? extends AbstractInvokable>) Class.forName(className, true, classLoader);
+			} catch (ClassNotFoundException cnfe) {
+				throw new IOException("Class " + className + " not found in one of the supplied jar files: "
+					+ StringUtils.stringifyException(cnfe));
+			}
+			cache.put(key, invokableClass);
+		}
+
+		return invokableClass;
+	}
+}
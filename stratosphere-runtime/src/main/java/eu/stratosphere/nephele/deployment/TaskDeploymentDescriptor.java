@@ -253,30 +253,40 @@ public final class TaskDeploymentDescriptor implements IOReadableWritable {
 		// Now register data with the library manager
 		LibraryCacheManager.register(this.jobID, this.requiredJarFiles);
 
-		// Get ClassLoader from Library Manager
-		final ClassLoader cl = LibraryCacheManager.getClassLoader(this.jobID);
-
-		// Read the name of the invokable class;
-		final String invokableClassName = StringRecord.readString(in);
-
-		if (invokableClassName == null) {
-			throw new IOException("invokableClassName is null");
-		}
-
+		boolean success = false;
 		try {
-			this.invokableClass = (Class<? extends AbstractInvokable>) Class.forName(invokableClassName, true, cl);
-		} catch (ClassNotFoundException cnfe) {
-			throw new IOException("Class " + invokableClassName + " not found in one of the supplied jar files: "
-				+ StringUtils.stringifyException(cnfe));
+			// Get ClassLoader from Library Manager
+			final ClassLoader cl = LibraryCacheManager.getClassLoader(this.jobID);
+
+			// Read the name of the invokable class;
+			final String invokableClassName = StringRecord.readString(in);
+
+			if (invokableClassName == null) {
+				throw new IOException("invokableClassName is null");
+			}
+
+			try {
+				this.invokableClass = (Class<? extends AbstractInvokable>) Class.forName(invokableClassName, true, cl);
+			} catch (ClassNotFoundException cnfe) {
+				throw new IOException("Class " + invokableClassName + " not found in one of the supplied jar files: "
+					+ StringUtils.stringifyException(cnfe));
+			}
+
+			this.jobConfiguration = new Configuration(cl);
+			this.jobConfiguration.read(in);
+			this.taskConfiguration = new Configuration(cl);
+			this.taskConfiguration.read(in);
+
+			this.outputGates.read(in);
+			this.inputGates.read(in);
+
+			success = true;
+		} finally {
+			if (!success) {
+				// The task will never be set up, so nobody else releases the libraries
+				LibraryCacheManager.unregister(this.jobID);
+			}
 		}
-
-		this.jobConfiguration = new Configuration(cl);
-		this.jobConfiguration.read(in);
-		this.taskConfiguration = new Configuration(cl);
-		this.taskConfiguration.read(in);
-
-		this.outputGates.read(in);
-		this.inputGates.read(in);
 	}
 
 	/**
@@ -402,4 +412,34 @@ public final class TaskDeploymentDescriptor implements IOReadableWritable {
 
 		return this.inputGates.get(index);
 	}
+
+	/**
+	 * Returns the BLOB keys of the JAR files required to run the task.
+	 * 
+	 * @return the BLOB keys of the required JAR files
+	 */
+	List<BlobKey> getRequiredJarFiles() {
+
+		return this.requiredJarFiles;
+	}
+
+	/**
+	 * Returns the output gate deployment descriptors of the task.
+	 * 
+	 * @return the output gate deployment descriptors
+	 */
+	SerializableArrayList<GateDeploymentDescriptor> getOutputGates() {
+
+		return this.outputGates;
+	}
+
+	/**
+	 * Returns the input gate deployment descriptors of the task.
+	 * 
+	 * @return the input gate deployment descriptors
+	 */
+	SerializableArrayList<GateDeploymentDescriptor> getInputGates() {
+
+		return this.inputGates;
+	}
 }
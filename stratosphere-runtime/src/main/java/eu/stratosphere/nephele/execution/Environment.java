@@ -223,5 +223,13 @@ public interface Environment {
 	 */
 	BufferProvider getOutputBufferProvider();
 
+	/**
+	 * Returns the activity of the task running in this environment, which records the time the task spends waiting
+	 * for output buffers and for input.
+	 *
+	 * @return the activity of the task running in this environment
+	 */
+	TaskActivity getTaskActivity();
+
 	Map<String, FutureTask<Path>> getCopyTask();
 }
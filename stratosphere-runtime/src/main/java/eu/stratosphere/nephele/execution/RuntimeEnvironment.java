@@ -157,6 +157,11 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 	 */
 	private final String taskName;
 
+	/**
+	 * The activity of the task, sampled periodically by the task manager.
+	 */
+	private final TaskActivity taskActivity = new TaskActivity();
+
 	private LocalBufferPool outputBufferPool;
 
 	private Map<String,FutureTask<Path>> cacheCopyTasks = new HashMap<String, FutureTask<Path>>();
@@ -281,7 +286,12 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 		try {
 			ClassLoader cl = LibraryCacheManager.getClassLoader(jobID);
 			Thread.currentThread().setContextClassLoader(cl);
-			this.invokable.invoke();
+			this.taskActivity.start();
+			try {
+				this.invokable.invoke();
+			} finally {
+				this.taskActivity.stop();
+			}
 
 			// Make sure, we enter the catch block when the task has been canceled
 			if (this.executionObserver.isCanceled()) {
@@ -350,7 +360,7 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 
 	@Override
 	public <T extends IOReadableWritable> InputGate<T> createAndRegisterInputGate() {
-		InputGate<T> gate = new InputGate<T>(getJobID(), new GateID(), getNumberOfInputGates());
+		InputGate<T> gate = new InputGate<T>(getJobID(), new GateID(), getNumberOfInputGates(), this.taskActivity);
 		this.inputGates.add(gate);
 
 		return gate;
@@ -728,6 +738,11 @@ public class RuntimeEnvironment implements Environment, BufferProvider, LocalBuf
 		return this;
 	}
 
+	@Override
+	public TaskActivity getTaskActivity() {
+		return this.taskActivity;
+	}
+
 	// -----------------------------------------------------------------------------------------------------------------
 	//                                            BufferProvider methods
 	// -----------------------------------------------------------------------------------------------------------------
@@ -0,0 +1,236 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.execution;
+
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+
+/**
+ * A task activity keeps track of how the thread of a task spends its time. The thread is either blocked waiting for an
+ * empty output buffer (back pressure from its consumers), blocked waiting for input (starved by its producers) or
+ * busy, which means running user code or the runtime code around it.
+ * <p>
+ * The task thread records the begin and end of every blocking wait. Another thread periodically takes a
+ * {@link TaskActivitySample}, which contains the fraction of the time spent in each activity since the previous sample.
+ * Waits that are still in progress when the sample is taken are accounted for up to the time of the sample.
+ * <p>
+ * The recording methods must only be called by the task thread. The sampling method may be called by any thread.
+ */
+public final class TaskActivity {
+
+	/**
+	 * Marks that the task thread is currently not waiting.
+	 */
+	private static final long NOT_WAITING = Long.MIN_VALUE;
+
+	/**
+	 * The time the task has been started at in nanoseconds, only valid if {@link #started} is set.
+	 */
+	private volatile long startTime;
+
+	/**
+	 * The time the task has been stopped at in nanoseconds, only valid if {@link #stopped} is set.
+	 */
+	private volatile long stopTime;
+
+	private volatile boolean started;
+
+	private volatile boolean stopped;
+
+	/**
+	 * The accumulated time of finished waits for empty output buffers in nanoseconds.
+	 */
+	private volatile long backPressureTime;
+
+	/**
+	 * The accumulated time of finished waits for input in nanoseconds.
+	 */
+	private volatile long idleTime;
+
+	/**
+	 * The time the current wait for an empty output buffer has begun at or {@link #NOT_WAITING}.
+	 */
+	private volatile long backPressureSince = NOT_WAITING;
+
+	/**
+	 * The time the current wait for input has begun at or {@link #NOT_WAITING}.
+	 */
+	private volatile long idleSince = NOT_WAITING;
+
+	/**
+	 * The time of the previous sample in nanoseconds, only valid if {@link #sampled} is set.
+	 */
+	private long lastSampleTime;
+
+	private boolean sampled;
+
+	/**
+	 * The accumulated back pressure time at the previous sample.
+	 */
+	private long lastBackPressureTime;
+
+	/**
+	 * The accumulated idle time at the previous sample.
+	 */
+	private long lastIdleTime;
+
+	/**
+	 * Marks the start of the task.
+	 */
+	public void start() {
+
+		this.startTime = System.nanoTime();
+		this.started = true;
+	}
+
+	/**
+	 * Marks the end of the task. Samples taken afterwards only cover the time until the task has been stopped.
+	 */
+	public void stop() {
+
+		this.stopTime = System.nanoTime();
+		this.stopped = true;
+	}
+
+	/**
+	 * Marks the begin of a wait for an empty output buffer.
+	 *
+	 * @param now
+	 *        the current time in nanoseconds as returned by {@link System#nanoTime()}, which the caller may also use
+	 *        for its own measurements
+	 */
+	public void beginBackPressure(final long now) {
+
+		this.backPressureSince = now;
+	}
+
+	/**
+	 * Marks the end of a wait for an empty output buffer.
+	 *
+	 * @param now
+	 *        the current time in nanoseconds as returned by {@link System#nanoTime()}
+	 */
+	public void endBackPressure(final long now) {
+
+		final long since = this.backPressureSince;
+		if (since != NOT_WAITING) {
+			this.backPressureSince = NOT_WAITING;
+			this.backPressureTime += now - since;
+		}
+	}
+
+	/**
+	 * Marks the begin of a wait for input.
+	 *
+	 * @param now
+	 *        the current time in nanoseconds as returned by {@link System#nanoTime()}, which the caller may also use
+	 *        for its own measurements
+	 */
+	public void beginIdle(final long now) {
+
+		this.idleSince = now;
+	}
+
+	/**
+	 * Marks the end of a wait for input.
+	 *
+	 * @param now
+	 *        the current time in nanoseconds as returned by {@link System#nanoTime()}
+	 */
+	public void endIdle(final long now) {
+
+		final long since = this.idleSince;
+		if (since != NOT_WAITING) {
+			this.idleSince = NOT_WAITING;
+			this.idleTime += now - since;
+		}
+	}
+
+	/**
+	 * Takes a sample of the task's activity since the previous sample or, for the first sample, since the task has
+	 * been started.
+	 *
+	 * @param jobID
+	 *        the ID of the job the task belongs to
+	 * @param vertexID
+	 *        the ID of the task
+	 * @return the sample or <code>null</code> if the task has not been started yet or no time has passed since the
+	 *         previous sample
+	 */
+	public synchronized TaskActivitySample sample(final JobID jobID, final ExecutionVertexID vertexID) {
+
+		if (!this.started) {
+			return null;
+		}
+
+		final long now = this.stopped ? this.stopTime : System.nanoTime();
+		if (!this.sampled) {
+			this.lastSampleTime = this.startTime;
+			this.sampled = true;
+		}
+
+		final long interval = now - this.lastSampleTime;
+		if (interval <= 0L) {
+			return null;
+		}
+
+		final long backPressure = accumulated(true, now);
+		final long idle = accumulated(false, now);
+
+		final float backPressureRatio = ratio(backPressure - this.lastBackPressureTime, interval);
+		final float idleRatio = ratio(idle - this.lastIdleTime, interval);
+		final float busyRatio = Math.max(0.0f, 1.0f - backPressureRatio - idleRatio);
+
+		this.lastSampleTime = now;
+		this.lastBackPressureTime = backPressure;
+		this.lastIdleTime = idle;
+
+		return new TaskActivitySample(jobID, vertexID, busyRatio, backPressureRatio, idleRatio);
+	}
+
+	/**
+	 * Returns the accumulated time of one kind of wait, including the part of a wait that is still in progress.
+	 *
+	 * @param backPressure
+	 *        <code>true</code> to return the back pressure time, <code>false</code> to return the idle time
+	 * @param now
+	 *        the current time in nanoseconds
+	 * @return the accumulated time in nanoseconds
+	 */
+	private long accumulated(final boolean backPressure, final long now) {
+
+		long total;
+		long since;
+		// Retry if the task thread finished a wait while we read the two fields
+		do {
+			total = backPressure ? this.backPressureTime : this.idleTime;
+			since = backPressure ? this.backPressureSince : this.idleSince;
+		} while (total != (backPressure ? this.backPressureTime : this.idleTime));
+
+		if (since != NOT_WAITING && since < now) {
+			total += now - since;
+		}
+
+		return total;
+	}
+
+	private static float ratio(final long part, final long interval) {
+
+		if (part <= 0L) {
+			return 0.0f;
+		}
+
+		return Math.min(1.0f, (float) part / (float) interval);
+	}
+}
@@ -0,0 +1,137 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.execution;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+
+/**
+ * A task activity sample contains the fractions of a sampling interval a task has spent busy, waiting for empty output
+ * buffers (back pressure) and waiting for input (idle). The three ratios add up to one.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class TaskActivitySample implements IOReadableWritable {
+
+	private JobID jobID;
+
+	private ExecutionVertexID vertexID;
+
+	private float busyRatio;
+
+	private float backPressureRatio;
+
+	private float idleRatio;
+
+	/**
+	 * Constructs a new task activity sample.
+	 *
+	 * @param jobID
+	 *        the ID of the job the task belongs to
+	 * @param vertexID
+	 *        the ID of the task
+	 * @param busyRatio
+	 *        the fraction of the interval the task has been busy
+	 * @param backPressureRatio
+	 *        the fraction of the interval the task has waited for empty output buffers
+	 * @param idleRatio
+	 *        the fraction of the interval the task has waited for input
+	 */
+	public TaskActivitySample(final JobID jobID, final ExecutionVertexID vertexID, final float busyRatio,
+			final float backPressureRatio, final float idleRatio) {
+		this.jobID = jobID;
+		this.vertexID = vertexID;
+		this.busyRatio = busyRatio;
+		this.backPressureRatio = backPressureRatio;
+		this.idleRatio = idleRatio;
+	}
+
+	/**
+	 * Default constructor required by the serialization process.
+	 */
+	public TaskActivitySample() {
+	}
+
+	/**
+	 * Returns the ID of the job the task belongs to.
+	 *
+	 * @return the ID of the job the task belongs to
+	 */
+	public JobID getJobID() {
+		return this.jobID;
+	}
+
+	/**
+	 * Returns the ID of the task.
+	 *
+	 * @return the ID of the task
+	 */
+	public ExecutionVertexID getVertexID() {
+		return this.vertexID;
+	}
+
+	/**
+	 * Returns the fraction of the interval the task has been busy.
+	 *
+	 * @return the fraction of the interval the task has been busy
+	 */
+	public float getBusyRatio() {
+		return this.busyRatio;
+	}
+
+	/**
+	 * Returns the fraction of the interval the task has waited for empty output buffers.
+	 *
+	 * @return the fraction of the interval the task has waited for empty output buffers
+	 */
+	public float getBackPressureRatio() {
+		return this.backPressureRatio;
+	}
+
+	/**
+	 * Returns the fraction of the interval the task has waited for input.
+	 *
+	 * @return the fraction of the interval the task has waited for input
+	 */
+	public float getIdleRatio() {
+		return this.idleRatio;
+	}
+
+	@Override
+	public void write(final DataOutput out) throws IOException {
+
+		this.jobID.write(out);
+		this.vertexID.write(out);
+		out.writeFloat(this.busyRatio);
+		out.writeFloat(this.backPressureRatio);
+		out.writeFloat(this.idleRatio);
+	}
+
+	@Override
+	public void read(final DataInput in) throws IOException {
+
+		this.jobID = new JobID();
+		this.jobID.read(in);
+		this.vertexID = new ExecutionVertexID();
+		this.vertexID.read(in);
+		this.busyRatio = in.readFloat();
+		this.backPressureRatio = in.readFloat();
+		this.idleRatio = in.readFloat();
+	}
+}
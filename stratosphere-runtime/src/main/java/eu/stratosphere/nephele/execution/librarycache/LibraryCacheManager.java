@@ -16,8 +16,10 @@ package eu.stratosphere.nephele.execution.librarycache;
 import java.io.IOException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -32,6 +34,9 @@ import eu.stratosphere.nephele.services.blob.BlobService;
  * caches library files in order to avoid unnecessary retransmission of data. It is based on a singleton
  * programming pattern, so there exists at most on library manager at a time.
  * <p>
+ * Every job receives its own class loader, so the static state of user classes is never shared between jobs. The
+ * libraries are pinned in the BLOB service's cache as long as a class loader refers to them.
+ * <p>
  * This class is thread-safe.
  */
 public final class LibraryCacheManager {
@@ -51,6 +56,11 @@ public final class LibraryCacheManager {
 	 */
 	private final ConcurrentMap<JobID, ClassLoader> classLoaders = new ConcurrentHashMap<JobID, ClassLoader>();
 
+	/**
+	 * Map to translate a job ID to the libraries the job requires.
+	 */
+	private final ConcurrentMap<JobID, List<BlobKey>> jobLibraries = new ConcurrentHashMap<JobID, List<BlobKey>>();
+
 	/**
 	 * Map to store the number of references to a specific library manager entry.
 	 */
@@ -156,28 +166,20 @@ public final class LibraryCacheManager {
 				throw new IllegalStateException("Library cache manager already contains entry for job ID " + id);
 			}
 
-			// Check if all the required jar files exist in the cache
-			URL[] urls = null;
-			if (requiredJarFiles != null) {
-
-				urls = new URL[requiredJarFiles.size()];
-				int count = 0;
-				for (final Iterator<BlobKey> it = requiredJarFiles.iterator(); it.hasNext();) {
-
-					final BlobKey key = it.next();
-					final URL url = BlobService.getURL(key);
-					if (url == null) {
-						throw new IOException(key + " does not exist in the library cache");
-					}
-
-					// Add file to the URL array
-					urls[count++] = url;
+			final List<BlobKey> libraries = (requiredJarFiles == null) ? Collections.<BlobKey> emptyList()
+				: Collections.unmodifiableList(new ArrayList<BlobKey>(requiredJarFiles));
+
+			boolean success = false;
+			try {
+				this.classLoaders.put(id, acquireClassLoader(libraries));
+				this.jobLibraries.put(id, libraries);
+				success = true;
+			} finally {
+				if (!success) {
+					decrementReferenceCounter(id);
 				}
 			}
 
-			final ClassLoader classLoader = new URLClassLoader(urls);
-			this.classLoaders.put(id, classLoader);
-
 		} finally {
 			this.lockMap.remove(id);
 		}
@@ -208,11 +210,75 @@ public final class LibraryCacheManager {
 		while (this.lockMap.putIfAbsent(id, LOCK_OBJECT) != null)
 			;
 
-		if (decrementReferenceCounter(id) == 0) {
-			this.classLoaders.remove(id);
+		try {
+			if (decrementReferenceCounter(id) == 0) {
+				this.classLoaders.remove(id);
+				releaseClassLoader(this.jobLibraries.remove(id));
+			}
+		} finally {
+			this.lockMap.remove(id);
 		}
+	}
+
+	/**
+	 * Returns a new class loader for the given libraries. The libraries are fetched from the BLOB service and pinned in
+	 * its cache.
+	 * 
+	 * @param libraries
+	 *        the libraries to return the class loader for
+	 * @return the class loader for the given libraries
+	 * @throws IOException
+	 *         thrown if one of the libraries cannot be retrieved
+	 */
+	private ClassLoader acquireClassLoader(final List<BlobKey> libraries) throws IOException {
+
+		// Pin and fetch the libraries. The caller holds the job's lock, so only registrations of the same job wait
+		// for the downloads
+		final URL[] urls = new URL[libraries.size()];
+		int pinned = 0;
+		try {
+			for (int i = 0; i < urls.length; ++i) {
 
-		this.lockMap.remove(id);
+				final BlobKey key = libraries.get(i);
+				BlobService.pin(key);
+				++pinned;
+
+				final URL url = BlobService.getURL(key);
+				if (url == null) {
+					throw new IOException(key + " does not exist in the library cache");
+				}
+				urls[i] = url;
+			}
+
+			final ClassLoader classLoader = new URLClassLoader(urls);
+
+			// The pins are released together with the class loader
+			pinned = 0;
+
+			return classLoader;
+
+		} finally {
+			for (int i = 0; i < pinned; ++i) {
+				BlobService.unpin(libraries.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Releases a class loader obtained through {@link #acquireClassLoader(List)}.
+	 * 
+	 * @param libraries
+	 *        the libraries the class loader has been acquired for
+	 */
+	private void releaseClassLoader(final List<BlobKey> libraries) {
+
+		if (libraries == null) {
+			return;
+		}
+
+		for (final BlobKey key : libraries) {
+			BlobService.unpin(key);
+		}
 	}
 
 	/**
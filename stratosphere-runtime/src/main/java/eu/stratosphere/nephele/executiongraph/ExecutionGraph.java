@@ -51,6 +51,8 @@ import eu.stratosphere.nephele.jobgraph.JobEdge;
 import eu.stratosphere.nephele.jobgraph.JobFileOutputVertex;
 import eu.stratosphere.nephele.jobgraph.JobGraph;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.metrics.Histogram;
+import eu.stratosphere.nephele.metrics.MetricRegistry;
 import eu.stratosphere.nephele.services.blob.BlobKey;
 import eu.stratosphere.nephele.taskmanager.ExecutorThreadFactory;
 import eu.stratosphere.nephele.template.AbstractInputTask;
@@ -72,6 +74,12 @@ public class ExecutionGraph implements ExecutionListener {
 	 */
 	private static final Log LOG = LogFactory.getLog(ExecutionGraph.class);
 
+	/**
+	 * The time in milliseconds the input vertices took to create their input splits.
+	 */
+	private static final Histogram SPLIT_CREATION_TIME = MetricRegistry.getInstance().histogram(
+		"jobmanager.splitCreationMillis");
+
 	/**
 	 * The ID of the job this graph has been built for.
 	 */
@@ -536,6 +544,7 @@ public class ExecutionGraph implements ExecutionListener {
 		if (jobVertex instanceof AbstractJobInputVertex) {
 
 			final InputSplit[] inputSplits;
+			final long splitCreationStart = System.currentTimeMillis();
 
 			// let the task code compute the input splits
 			if (groupVertex.getEnvironment().getInvokable() instanceof AbstractInputTask) {
@@ -549,11 +558,14 @@ public class ExecutionGraph implements ExecutionListener {
 				throw new GraphConversionException("JobInputVertex contained a task class which was not an input task.");
 			}
 
+			final long splitCreationTime = System.currentTimeMillis() - splitCreationStart;
+			SPLIT_CREATION_TIME.update(splitCreationTime);
 			if (inputSplits == null) {
-				LOG.info("Job input vertex " + jobVertex.getName() + " generated 0 input splits");
+				LOG.info("Job input vertex " + jobVertex.getName() + " generated 0 input splits in "
+					+ splitCreationTime + " ms");
 			} else {
 				LOG.info("Job input vertex " + jobVertex.getName() + " generated " + inputSplits.length
-					+ " input splits");
+					+ " input splits in " + splitCreationTime + " ms");
 			}
 
 			// assign input splits
@@ -18,6 +18,7 @@ import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Set;
 
+import eu.stratosphere.nephele.deployment.TaskDeploymentBatch;
 import eu.stratosphere.nephele.deployment.TaskDeploymentDescriptor;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
 import eu.stratosphere.nephele.taskmanager.TaskKillResult;
@@ -147,7 +148,7 @@ public abstract class AbstractInstance extends NetworkNode {
 	public synchronized List<TaskSubmissionResult> submitTasks(final List<TaskDeploymentDescriptor> tasks)
 			throws IOException {
 
-		return getTaskManagerProxy().submitTasks(tasks);
+		return getTaskManagerProxy().submitTasks(new TaskDeploymentBatch(tasks));
 	}
 
 	/**
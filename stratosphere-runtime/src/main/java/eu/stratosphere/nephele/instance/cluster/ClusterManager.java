@@ -43,6 +43,7 @@ import eu.stratosphere.nephele.instance.InstanceTypeDescription;
 import eu.stratosphere.nephele.instance.InstanceTypeDescriptionFactory;
 import eu.stratosphere.nephele.instance.InstanceTypeFactory;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.services.blob.BlobService;
 import eu.stratosphere.nephele.topology.NetworkNode;
 import eu.stratosphere.nephele.topology.NetworkTopology;
 import eu.stratosphere.nephele.util.SerializableHashMap;
@@ -218,6 +219,11 @@ public class ClusterManager implements InstanceManager {
 
 				registeredHosts.entrySet().removeAll(hostsToRemove);
 
+				// the lost hosts can no longer serve BLOBs to their peers
+				for (Map.Entry<InstanceConnectionInfo, ClusterInstance> entry : hostsToRemove) {
+					BlobService.removePeerHost(entry.getKey().address());
+				}
+
 				updateInstaceTypeDescriptionMap();
 
 				final Iterator<Map.Entry<JobID, List<AllocatedResource>>> it = staleResources.entrySet().iterator();
@@ -565,7 +571,7 @@ public class ClusterManager implements InstanceManager {
 					}
 
 					// TODO: Introduce topology awareness here
-					final AllocatedSlice slice = getSliceOfType(jobID, requestedInstanceType);
+					final AllocatedSlice slice = getSliceOfType(jobID, requestedInstanceType, null);
 					if (slice == null) {
 						break;
 					} else {
@@ -601,20 +607,39 @@ public class ClusterManager implements InstanceManager {
 	}
 
 	/**
-	 * Attempts to allocate a slice of the given type for the given job. The method first attempts to allocate this
-	 * slice by finding a physical host which exactly matches the given instance type. If this attempt failed, it tries
-	 * to allocate the slice by partitioning the resources of a more powerful host.
+	 * Attempts to allocate a slice of the given type for the given job. If a split affinity list is given, the method
+	 * first attempts to allocate the slice on one of the listed hosts, in the order of the list. Otherwise, or if this
+	 * attempt failed, the method attempts to allocate this slice by finding a physical host which exactly matches the
+	 * given instance type. If this attempt failed, it tries to allocate the slice by partitioning the resources of a
+	 * more powerful host.
 	 * 
 	 * @param jobID
 	 *        the ID of the job the slice shall be allocated for
 	 * @param instanceType
 	 *        the instance type of the requested slice
+	 * @param splitAffinityList
+	 *        the names of the hosts which store the job's input data, most preferred first, or <code>null</code>
 	 * @return the allocated slice or <code>null</code> if no such slice could be allocated
 	 */
-	private AllocatedSlice getSliceOfType(final JobID jobID, final InstanceType instanceType) {
+	private AllocatedSlice getSliceOfType(final JobID jobID, final InstanceType instanceType,
+			final List<String> splitAffinityList) {
 
 		AllocatedSlice slice = null;
 
+		// Try the hosts that store the input data first
+		if (splitAffinityList != null) {
+			for (final String hostName : splitAffinityList) {
+				for (final ClusterInstance host : this.registeredHosts.values()) {
+					if (isHostNamed(host, hostName)) {
+						slice = host.createSlice(instanceType, jobID);
+						if (slice != null) {
+							return slice;
+						}
+					}
+				}
+			}
+		}
+
 		// Try to match the instance type without slicing first
 		for (final ClusterInstance host : this.registeredHosts.values()) {
 			if (host.getType().equals(instanceType)) {
@@ -640,6 +665,20 @@ public class ClusterManager implements InstanceManager {
 	}
 
 
+	/**
+	 * Checks whether the given host is known under the given name, which may be its host name, its fully qualified
+	 * domain name, or its IP address.
+	 */
+	private static boolean isHostNamed(final ClusterInstance host, final String name) {
+
+		final InstanceConnectionInfo ici = host.getInstanceConnectionInfo();
+		if (name.equalsIgnoreCase(ici.hostname()) || name.equals(ici.address().getHostAddress())) {
+			return true;
+		}
+
+		return ici.domainName() != null && name.equalsIgnoreCase(ici.hostname() + '.' + ici.domainName());
+	}
+
 	@Override
 	public void requestInstance(JobID jobID, Configuration conf,  InstanceRequestMap instanceRequestMap, List<String> splitAffinityList)
 		throws InstanceException
@@ -659,7 +698,7 @@ public class ClusterManager implements InstanceManager {
 	
 					LOG.info("Trying to allocate instance of type " + entry.getKey().getIdentifier());
 					
-					final AllocatedSlice slice = getSliceOfType(jobID, entry.getKey());
+					final AllocatedSlice slice = getSliceOfType(jobID, entry.getKey(), splitAffinityList);
 	
 					if (slice == null) {
 						if (i < instanceRequestMap.getMinimumNumberOfInstances(entry.getKey())) {
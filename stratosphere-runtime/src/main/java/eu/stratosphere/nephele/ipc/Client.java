@@ -24,7 +24,6 @@ import eu.stratosphere.core.io.StringRecord;
 import eu.stratosphere.nephele.net.NetUtils;
 import eu.stratosphere.nephele.util.IOUtils;
 import eu.stratosphere.runtime.io.serialization.DataOutputSerializer;
-import eu.stratosphere.util.ClassUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -45,13 +44,27 @@ import java.nio.ByteBuffer;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A client for an IPC service. IPC calls take a single {@link Writable} as a
  * parameter, and return a {@link Writable} as their value. A service runs on
  * a port and is defined by a parameter class and a value class.
+ * <p>
+ * Calls can be made synchronously with {@link #call(IOReadableWritable, InetSocketAddress, Class)} or asynchronously
+ * with {@link #callAsync(IOReadableWritable, InetSocketAddress, Class)}. All calls to the same server and protocol
+ * share one connection. Any number of calls can be outstanding on a connection at the same time, and calls issued
+ * concurrently by different threads are written to the socket together.
  * 
  * @see Server
  */
@@ -61,7 +74,7 @@ public class Client {
 
 	private Hashtable<ConnectionId, Connection> connections = new Hashtable<ConnectionId, Connection>();
 
-	private int counter; // counter for call ids
+	private final AtomicInteger counter = new AtomicInteger(); // counter for call ids
 
 	private AtomicBoolean running = new AtomicBoolean(true); // if client runs
 
@@ -105,12 +118,14 @@ public class Client {
 		return refCount == 0;
 	}
 
-	/** A call waiting for a value. */
-	private class Call {
+	/** A call waiting for a value. The call is also the future handed out to asynchronous callers. */
+	private class Call implements Future<IOReadableWritable> {
 		int id; // call id
 
 		IOReadableWritable param; // parameter
 
+		InetSocketAddress address; // address of the server, used to describe local errors
+
 		IOReadableWritable value; // value, null if error
 
 		IOException error; // exception, null if value
@@ -119,9 +134,8 @@ public class Client {
 
 		protected Call(IOReadableWritable param) {
 			this.param = param;
-			synchronized (Client.this) {
-				this.id = counter++;
-			}
+			// Call IDs must never collide with the ID of a ping
+			this.id = counter.getAndIncrement() & Integer.MAX_VALUE;
 		}
 
 		/**
@@ -156,6 +170,71 @@ public class Client {
 			this.value = value;
 			callComplete();
 		}
+
+		@Override
+		public boolean cancel(final boolean mayInterruptIfRunning) {
+			// A call cannot be revoked once it has been sent
+			return false;
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+
+		@Override
+		public synchronized boolean isDone() {
+			return this.done;
+		}
+
+		@Override
+		public synchronized IOReadableWritable get() throws InterruptedException, ExecutionException {
+
+			while (!this.done) {
+				wait();
+			}
+
+			return getResult();
+		}
+
+		@Override
+		public synchronized IOReadableWritable get(final long timeout, final TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+
+			final long deadline = System.nanoTime() + unit.toNanos(timeout);
+			while (!this.done) {
+				final long remaining = deadline - System.nanoTime();
+				if (remaining <= 0L) {
+					throw new TimeoutException("Call " + this.id + " to " + this.address + " did not complete in time");
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+
+			return getResult();
+		}
+
+		private IOReadableWritable getResult() throws ExecutionException {
+
+			if (this.error != null) {
+				throw new ExecutionException(getException());
+			}
+
+			return this.value;
+		}
+
+		/**
+		 * Returns the exception to report for a failed call: remote exceptions are passed on, local exceptions are
+		 * wrapped with the address of the server.
+		 */
+		private IOException getException() {
+
+			if (this.error instanceof RemoteException) {
+				this.error.fillInStackTrace();
+				return this.error;
+			}
+
+			return wrapException(this.address, this.error);
+		}
 	}
 
 	/**
@@ -177,7 +256,13 @@ public class Client {
 		private DataOutputStream out;
 
 		// currently active calls
-		private Hashtable<Integer, Call> calls = new Hashtable<Integer, Call>();
+		private final ConcurrentMap<Integer, Call> calls = new ConcurrentHashMap<Integer, Call>();
+
+		// serialized calls waiting to be written to the socket
+		private final Queue<DataOutputSerializer> pendingWrites = new ConcurrentLinkedQueue<DataOutputSerializer>();
+
+		// true while a thread writes the pending calls to the socket
+		private final AtomicBoolean writing = new AtomicBoolean();
 
 		private AtomicLong lastActivity = new AtomicLong();// last I/O activity time
 
@@ -450,33 +535,55 @@ public class Client {
 		 * Initiates a call by sending the parameter to the remote server.
 		 * Note: this is not called from the Connection thread, but by other
 		 * threads.
+		 * <p>
+		 * The call is serialized by the calling thread and then queued. Whichever thread finds the socket idle writes
+		 * all queued calls and flushes them at once, so calls issued concurrently share a single write.
 		 */
 		public void sendParam(Call call) {
 			if (shouldCloseConnection.get()) {
 				return;
 			}
 
-			DataOutputSerializer d = null;
 			try {
-				synchronized (this.out) {
-
-					// for serializing the
-					// data to be written
-					d = new DataOutputSerializer(64);
-					// First, write call id to buffer d
-					d.writeInt(call.id);
-					// Then write RPC data (the actual call) to buffer d
-					call.param.write(d);
-
-					ByteBuffer wrapper = d.wrapAsByteBuffer();
-					byte[] data = wrapper.array();
-					int dataLength = wrapper.limit();
-					out.writeInt(dataLength); // first put the data length
-					out.write(data, 0, dataLength);// write the data
-					out.flush();
-				}
+				// First, write call id to the buffer, then the RPC data (the actual call)
+				final DataOutputSerializer d = new DataOutputSerializer(64);
+				d.writeInt(call.id);
+				call.param.write(d);
+				this.pendingWrites.add(d);
 			} catch (IOException e) {
-				markClosed(e);
+				// The parameter could not be serialized, the connection itself is still intact
+				this.calls.remove(call.id);
+				call.setException(e);
+				return;
+			}
+
+			writePendingCalls();
+		}
+
+		/**
+		 * Writes the queued calls to the socket unless another thread is already doing so. The queue is checked again
+		 * after the write lock has been released, so no call is left behind.
+		 */
+		private void writePendingCalls() {
+
+			while (!this.pendingWrites.isEmpty() && this.writing.compareAndSet(false, true)) {
+				try {
+					synchronized (this.out) {
+						DataOutputSerializer d;
+						while ((d = this.pendingWrites.poll()) != null) {
+							final ByteBuffer wrapper = d.wrapAsByteBuffer();
+							final int dataLength = wrapper.limit();
+							this.out.writeInt(dataLength); // first put the data length
+							this.out.write(wrapper.array(), 0, dataLength); // write the data
+						}
+						this.out.flush();
+					}
+				} catch (IOException e) {
+					this.pendingWrites.clear();
+					markClosed(e);
+				} finally {
+					this.writing.set(false);
+				}
 			}
 		}
 
@@ -501,19 +608,7 @@ public class Client {
 					boolean isNotNull = in.readBoolean();
 					if (isNotNull) {
 						final String returnClassName = StringRecord.readString(in);
-						Class<? extends IOReadableWritable> c = null;
-						try {
-							c = ClassUtils.getRecordByName(returnClassName);
-						} catch (ClassNotFoundException e) {
-							LOG.error(e);
-						}
-						try {
-							value = c.newInstance();
-						} catch (InstantiationException e) {
-							LOG.error(e);
-						} catch (IllegalAccessException e) {
-							LOG.error(e);
-						}
+						value = ProtocolDispatchTable.newRecord(ProtocolDispatchTable.getRecordClass(returnClassName));
 						value.read(in); // read value
 					}
 					call.setValue(value);
@@ -625,7 +720,8 @@ public class Client {
 	public Client(final SocketFactory factory) {
 		this.maxIdleTime = 1000;
 		this.maxRetries = 10;
-		this.tcpNoDelay = false;
+		// Calls are already coalesced by the connection, Nagle's algorithm would only delay pipelined calls
+		this.tcpNoDelay = true;
 		this.pingInterval = DEFAULT_PING_INTERVAL;
 		this.socketFactory = factory;
 	}
@@ -684,9 +780,7 @@ public class Client {
 	 */
 	public IOReadableWritable call(IOReadableWritable param, InetSocketAddress addr, Class<?> protocol)
 			throws InterruptedException, IOException {
-		Call call = new Call(param);
-		Connection connection = getConnection(addr, protocol, call);
-		connection.sendParam(call); // send the parameter
+		Call call = startCall(param, addr, protocol);
 		synchronized (call) {
 			while (!call.done) {
 				try {
@@ -696,18 +790,45 @@ public class Client {
 			}
 
 			if (call.error != null) {
-				if (call.error instanceof RemoteException) {
-					call.error.fillInStackTrace();
-					throw call.error;
-				} else { // local exception
-					throw wrapException(addr, call.error);
-				}
+				throw call.getException();
 			} else {
 				return call.value;
 			}
 		}
 	}
 
+	/**
+	 * Make a call, passing <code>param</code>, to the IPC server running at <code>address</code> which is servicing the
+	 * <code>protocol</code> protocol, without waiting for the value. The call is pipelined with all other outstanding
+	 * calls on the same connection.
+	 * <p>
+	 * The returned future yields the value of the call. If the call fails, the future throws an
+	 * {@link ExecutionException} whose cause is a {@link RemoteException} for exceptions thrown by the remote code or
+	 * an {@link IOException} describing the local problem otherwise. Calls cannot be cancelled.
+	 * 
+	 * @param param
+	 *        the parameter of the call
+	 * @param addr
+	 *        the address of the server
+	 * @param protocol
+	 *        the protocol the call belongs to
+	 * @return the future value of the call
+	 * @throws IOException
+	 *         thrown if the client is stopped
+	 */
+	public Future<IOReadableWritable> callAsync(IOReadableWritable param, InetSocketAddress addr, Class<?> protocol)
+			throws IOException {
+		return startCall(param, addr, protocol);
+	}
+
+	private Call startCall(IOReadableWritable param, InetSocketAddress addr, Class<?> protocol) throws IOException {
+		Call call = new Call(param);
+		call.address = addr;
+		Connection connection = getConnection(addr, protocol, call);
+		connection.sendParam(call); // send the parameter
+		return call;
+	}
+
 	/**
 	 * Take an IOException and the address we were trying to connect to
 	 * and return an IOException with the input exception as the cause.
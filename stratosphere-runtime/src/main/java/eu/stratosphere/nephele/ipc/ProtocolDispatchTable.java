@@ -0,0 +1,215 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.ipc;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.util.ClassUtils;
+
+/**
+ * The dispatch table of a protocol assigns a compact ID to every method of the protocol interface, so that RPC calls
+ * can name the invoked method by its ID instead of its name and parameter types. The IDs are derived from the sorted
+ * method signatures, so client and server compute the same table from the same protocol interface.
+ * <p>
+ * The table is built once per protocol and also caches the reflective information needed to invoke the methods and
+ * to instantiate their parameters.
+ * <p>
+ * This class is thread-safe.
+ */
+final class ProtocolDispatchTable {
+
+	/**
+	 * The dispatch tables built so far, indexed by protocol.
+	 */
+	private static final ConcurrentMap<Class<?>, ProtocolDispatchTable> TABLES = new ConcurrentHashMap<Class<?>, ProtocolDispatchTable>();
+
+	/**
+	 * The record classes resolved so far, indexed by class name.
+	 */
+	private static final ConcurrentMap<String, Class<? extends IOReadableWritable>> RECORD_CLASSES = new ConcurrentHashMap<String, Class<? extends IOReadableWritable>>();
+
+	/**
+	 * The nullary constructors of the record classes instantiated so far.
+	 */
+	private static final ConcurrentMap<Class<?>, Constructor<?>> CONSTRUCTORS = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+
+	/**
+	 * Orders methods by name and parameter types.
+	 */
+	private static final Comparator<Method> SIGNATURE_ORDER = new Comparator<Method>() {
+
+		@Override
+		public int compare(final Method o1, final Method o2) {
+			return signature(o1).compareTo(signature(o2));
+		}
+	};
+
+	private final Class<?> protocol;
+
+	private final Method[] methods;
+
+	private final Map<Method, Integer> methodIDs;
+
+	private ProtocolDispatchTable(final Class<?> protocol) {
+
+		this.protocol = protocol;
+		this.methods = protocol.getMethods();
+		Arrays.sort(this.methods, SIGNATURE_ORDER);
+
+		if (this.methods.length > Short.MAX_VALUE) {
+			throw new IllegalArgumentException("Protocol " + protocol.getName() + " has too many methods");
+		}
+
+		this.methodIDs = new HashMap<Method, Integer>();
+		for (int i = 0; i < this.methods.length; ++i) {
+			this.methods[i].setAccessible(true);
+			this.methodIDs.put(this.methods[i], Integer.valueOf(i));
+		}
+	}
+
+	/**
+	 * Returns the dispatch table of the given protocol, building it on first use.
+	 *
+	 * @param protocol
+	 *        the protocol interface
+	 * @return the dispatch table of the protocol
+	 */
+	static ProtocolDispatchTable forProtocol(final Class<?> protocol) {
+
+		ProtocolDispatchTable table = TABLES.get(protocol);
+		if (table == null) {
+			table = new ProtocolDispatchTable(protocol);
+			final ProtocolDispatchTable previous = TABLES.putIfAbsent(protocol, table);
+			if (previous != null) {
+				table = previous;
+			}
+		}
+
+		return table;
+	}
+
+	/**
+	 * Returns the ID of the given method.
+	 *
+	 * @param method
+	 *        the method to return the ID for
+	 * @return the ID of the method
+	 * @throws IOException
+	 *         thrown if the method does not belong to the protocol
+	 */
+	int getMethodID(final Method method) throws IOException {
+
+		final Integer id = this.methodIDs.get(method);
+		if (id == null) {
+			throw new IOException("Method " + method.getName() + " is not part of protocol " + this.protocol.getName());
+		}
+
+		return id.intValue();
+	}
+
+	/**
+	 * Returns the method with the given ID.
+	 *
+	 * @param methodID
+	 *        the ID of the method
+	 * @return the method with the given ID
+	 * @throws IOException
+	 *         thrown if the protocol has no method with the given ID
+	 */
+	Method getMethod(final int methodID) throws IOException {
+
+		if (methodID < 0 || methodID >= this.methods.length) {
+			throw new IOException("Protocol " + this.protocol.getName() + " has no method with ID " + methodID);
+		}
+
+		return this.methods[methodID];
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * Resolves the record class with the given name. The result is cached.
+	 *
+	 * @param className
+	 *        the name of the class
+	 * @return the class with the given name
+	 * @throws IOException
+	 *         thrown if the class cannot be found
+	 */
+	static Class<? extends IOReadableWritable> getRecordClass(final String className) throws IOException {
+
+		Class<? extends IOReadableWritable> clazz = RECORD_CLASSES.get(className);
+		if (clazz == null) {
+			try {
+				clazz = ClassUtils.getRecordByName(className);
+			} catch (ClassNotFoundException cnfe) {
+				throw new IOException(cnfe.toString());
+			}
+			RECORD_CLASSES.put(className, clazz);
+		}
+
+		return clazz;
+	}
+
+	/**
+	 * Creates a new instance of the given record class with its nullary constructor, which is looked up only once.
+	 *
+	 * @param clazz
+	 *        the class to instantiate
+	 * @return the new instance
+	 * @throws IOException
+	 *         thrown if the class cannot be instantiated
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> T newRecord(final Class<T> clazz) throws IOException {
+
+		try {
+			Constructor<T> constructor = (Constructor<T>) CONSTRUCTORS.get(clazz);
+			if (constructor == null) {
+				constructor = clazz.getDeclaredConstructor();
+				constructor.setAccessible(true);
+				CONSTRUCTORS.put(clazz, constructor);
+			}
+
+			return constructor.newInstance();
+		} catch (Exception e) {
+			throw new IOException("Cannot instantiate " + clazz.getName() + ": " + e.toString());
+		}
+	}
+
+	private static String signature(final Method method) {
+
+		final StringBuilder sb = new StringBuilder(method.getName());
+		sb.append('(');
+		final Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; ++i) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append(parameterTypes[i].getName());
+		}
+		sb.append(')');
+
+		return sb.toString();
+	}
+}
@@ -31,6 +31,7 @@ import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import javax.net.SocketFactory;
 
@@ -41,7 +42,6 @@ import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.core.io.StringRecord;
 import eu.stratosphere.core.protocols.VersionedProtocol;
 import eu.stratosphere.nephele.net.NetUtils;
-import eu.stratosphere.util.ClassUtils;
 
 /**
  * A simple RPC mechanism.
@@ -64,106 +64,115 @@ public class RPC {
 	private RPC() {
 	} // no public ctor
 
-	/** A method invocation, including the method name and its parameters. */
+	/**
+	 * A method invocation, including the ID of the method and its parameters. The method ID refers to the
+	 * {@link ProtocolDispatchTable} of the protocol the method is declared in.
+	 */
 	private static class Invocation implements IOReadableWritable {
 
-		private String methodName;
+		/** Tag for a <code>null</code> parameter. */
+		private static final byte NULL_PARAMETER = 0;
 
-		private Class<? extends IOReadableWritable>[] parameterClasses;
+		/** Tag for a parameter whose class is the declared parameter type. */
+		private static final byte DECLARED_TYPE_PARAMETER = 1;
 
-		private IOReadableWritable[] parameters;
+		/** Tag for a parameter of a subtype of the declared parameter type, the class name follows. */
+		private static final byte SUBTYPE_PARAMETER = 2;
 
-		@SuppressWarnings("unused")
-		public Invocation() {
-		}
+		private final ProtocolDispatchTable dispatchTable;
 
-		// TODO: See if type safety can be improved here
-		@SuppressWarnings("unchecked")
-		public Invocation(Method method, IOReadableWritable[] parameters) {
-			this.methodName = method.getName();
-			this.parameterClasses = (Class<? extends IOReadableWritable>[]) method.getParameterTypes();
-			this.parameters = parameters;
+		private Method method;
+
+		private int methodID;
+
+		private IOReadableWritable[] parameters;
+
+		/**
+		 * Creates an invocation to be read from the wire.
+		 */
+		public Invocation(ProtocolDispatchTable dispatchTable) {
+			this.dispatchTable = dispatchTable;
 		}
 
-		/** The name of the method invoked. */
-		public String getMethodName() {
-			return methodName;
+		public Invocation(Method method, IOReadableWritable[] parameters) throws IOException {
+			this.dispatchTable = ProtocolDispatchTable.forProtocol(method.getDeclaringClass());
+			this.method = method;
+			this.methodID = this.dispatchTable.getMethodID(method);
+			this.parameters = parameters == null ? NO_PARAMETERS : parameters;
 		}
 
-		/** The parameter classes. */
-		public Class<? extends IOReadableWritable>[] getParameterClasses() {
-			return parameterClasses;
+		/** The method invoked. */
+		public Method getMethod() {
+			return this.method;
 		}
 
 		/** The parameter instances. */
 		public IOReadableWritable[] getParameters() {
-			return parameters;
+			return this.parameters;
 		}
 
-		// TODO: See if type safety can be improved here
-		@SuppressWarnings("unchecked")
+		@Override
 		public void read(DataInput in) throws IOException {
 
-			this.methodName = StringRecord.readString(in);
-			this.parameters = new IOReadableWritable[in.readInt()];
-			this.parameterClasses = new Class[parameters.length];
-
-			for (int i = 0; i < parameters.length; i++) {
-
-				// Read class name for parameter and try to get class to that name
-				final String className = StringRecord.readString(in);
-				try {
-					parameterClasses[i] = ClassUtils.getRecordByName(className);
-				} catch (ClassNotFoundException cnfe) {
-					throw new IOException(cnfe.toString());
+			this.methodID = in.readShort();
+			this.method = this.dispatchTable.getMethod(this.methodID);
+
+			final Class<?>[] parameterTypes = this.method.getParameterTypes();
+			this.parameters = new IOReadableWritable[parameterTypes.length];
+
+			for (int i = 0; i < parameterTypes.length; i++) {
+
+				final Class<?> parameterClass;
+				switch (in.readByte()) {
+				case NULL_PARAMETER:
+					continue;
+				case DECLARED_TYPE_PARAMETER:
+					parameterClass = parameterTypes[i];
+					break;
+				case SUBTYPE_PARAMETER:
+					parameterClass = ProtocolDispatchTable.getRecordClass(StringRecord.readString(in));
+					break;
+				default:
+					throw new IOException("Corrupt parameter " + i + " of method " + this.method.getName());
 				}
 
-				// See if parameter is null
-				if (in.readBoolean()) {
-					try {
-						final String parameterClassName = StringRecord.readString(in);
-						final Class<? extends IOReadableWritable> parameterClass = ClassUtils
-							.getRecordByName(parameterClassName);
-						parameters[i] = parameterClass.newInstance();
-					} catch (IllegalAccessException iae) {
-						throw new IOException(iae.toString());
-					} catch (InstantiationException ie) {
-						throw new IOException(ie.toString());
-					} catch (ClassNotFoundException cnfe) {
-						throw new IOException(cnfe.toString());
-					}
-					// Object will do everything else on its own
-					parameters[i].read(in);
-				} else {
-					parameters[i] = null;
-				}
+				// Object will do everything else on its own
+				this.parameters[i] = (IOReadableWritable) ProtocolDispatchTable.newRecord(parameterClass);
+				this.parameters[i].read(in);
 			}
 		}
 
+		@Override
 		public void write(DataOutput out) throws IOException {
-			StringRecord.writeString(out, methodName);
-			out.writeInt(parameterClasses.length);
-			for (int i = 0; i < parameterClasses.length; i++) {
-				StringRecord.writeString(out, parameterClasses[i].getName());
-				if (parameters[i] == null) {
-					out.writeBoolean(false);
+
+			out.writeShort(this.methodID);
+
+			final Class<?>[] parameterTypes = this.method.getParameterTypes();
+			for (int i = 0; i < parameterTypes.length; i++) {
+
+				final IOReadableWritable parameter = this.parameters[i];
+				if (parameter == null) {
+					out.writeByte(NULL_PARAMETER);
+				} else if (parameter.getClass() == parameterTypes[i]) {
+					out.writeByte(DECLARED_TYPE_PARAMETER);
+					parameter.write(out);
 				} else {
-					out.writeBoolean(true);
-					StringRecord.writeString(out, parameters[i].getClass().getName());
-					parameters[i].write(out);
+					out.writeByte(SUBTYPE_PARAMETER);
+					StringRecord.writeString(out, parameter.getClass().getName());
+					parameter.write(out);
 				}
 			}
 		}
 
 		public String toString() {
 			StringBuffer buffer = new StringBuffer();
-			buffer.append(methodName);
+			buffer.append(this.method == null ? "#" + this.methodID : this.method.getName());
 			buffer.append("(");
-			for (int i = 0; i < parameters.length; i++) {
+			for (int i = 0; this.parameters != null && i < this.parameters.length; i++) {
 				if (i != 0) {
 					buffer.append(", ");
 				}
-				buffer.append(parameters[i]);
+				buffer.append(this.parameters[i]);
 			}
 			buffer.append(")");
 			return buffer.toString();
@@ -171,6 +180,8 @@ public class RPC {
 
 	}
 
+	private static final IOReadableWritable[] NO_PARAMETERS = new IOReadableWritable[0];
+
 	/* Cache a client using its socket factory as the hash key */
 	static private class ClientCache {
 		private Map<SocketFactory, Client> clients = new HashMap<SocketFactory, Client>();
@@ -232,25 +243,38 @@ public class RPC {
 
 		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
 
-			// TODO clean up
-			IOReadableWritable[] castArgs = null;
-			if (args != null) {
-				castArgs = new IOReadableWritable[args.length];
-
-				// Check if args are instances of ReadableWritable
-				for (int i = 0; i < args.length; i++) {
-					if ((args[i] != null) && !(args[i] instanceof IOReadableWritable)) {
-						throw new IOException("Argument " + i + " of method " + method.getName()
-							+ " is not of type IOReadableWriteable");
-					} else {
-						castArgs[i] = (IOReadableWritable) args[i];
-					}
+			final IOReadableWritable value = this.client.call(new Invocation(method, castArguments(method, args)),
+				this.address, method.getDeclaringClass());
+
+			return value;
+		}
+
+		private Future<IOReadableWritable> invokeAsync(final Method method, final Object[] args) throws IOException {
+
+			return this.client.callAsync(new Invocation(method, castArguments(method, args)), this.address,
+				method.getDeclaringClass());
+		}
+
+		private static IOReadableWritable[] castArguments(final Method method, final Object[] args)
+				throws IOException {
+
+			if (args == null) {
+				return null;
+			}
+
+			final IOReadableWritable[] castArgs = new IOReadableWritable[args.length];
+
+			// Check if args are instances of ReadableWritable
+			for (int i = 0; i < args.length; i++) {
+				if ((args[i] != null) && !(args[i] instanceof IOReadableWritable)) {
+					throw new IOException("Argument " + i + " of method " + method.getName()
+						+ " is not of type IOReadableWriteable");
+				} else {
+					castArgs[i] = (IOReadableWritable) args[i];
 				}
 			}
-			final IOReadableWritable value = this.client.call(new Invocation(method, castArgs), this.address, method
-				.getDeclaringClass());
 
-			return value;
+			return castArgs;
 		}
 
 		/* close the IPC client that's responsible for this invoker's RPCs */
@@ -335,6 +359,31 @@ public class RPC {
 		return getProxy(protocol, addr, NetUtils.getDefaultSocketFactory());
 	}
 
+	/**
+	 * Invokes the given protocol method through the given proxy without waiting for its result. The call shares the
+	 * connection of the proxy and is pipelined with all other outstanding calls to the same server. This is meant for
+	 * callers which issue many small calls, such as state updates, and do not want to block on each of them.
+	 * 
+	 * @param proxy
+	 *        the proxy to invoke the method on
+	 * @param method
+	 *        the protocol method to invoke
+	 * @param args
+	 *        the arguments of the method
+	 * @return the future return value of the method, which yields <code>null</code> for <code>void</code> methods
+	 * @throws IOException
+	 *         thrown if the arguments are not records or the call cannot be issued
+	 */
+	public static Future<IOReadableWritable> callAsync(final VersionedProtocol proxy, final Method method,
+			final Object... args) throws IOException {
+
+		if (!method.getDeclaringClass().isInstance(proxy)) {
+			throw new IOException("Method " + method.getName() + " is not implemented by the given proxy");
+		}
+
+		return ((Invoker) Proxy.getInvocationHandler(proxy)).invokeAsync(method, args);
+	}
+
 	/**
 	 * Stop this proxy and release its invoker's resource
 	 * 
@@ -404,17 +453,26 @@ public class RPC {
 			this.instance = instance;
 		}
 
+		@Override
+		protected IOReadableWritable readParameter(Class<?> protocol, DataInput in) throws IOException {
+
+			if (protocol == null) {
+				throw new IOException("Received call before the protocol of the connection was known");
+			}
+
+			final Invocation invocation = new Invocation(ProtocolDispatchTable.forProtocol(protocol));
+			invocation.read(in);
+			return invocation;
+		}
+
 		public IOReadableWritable call(Class<?> protocol, IOReadableWritable param, long receivedTime)
 				throws IOException {
 			
 			try {
 				
 				final Invocation call = (Invocation) param;
-				
-				final Method method = protocol.getMethod(call.getMethodName(), call.getParameterClasses());
-				method.setAccessible(true);
 
-				final Object value = method.invoke((Object) instance, (Object[]) call.getParameters());
+				final Object value = call.getMethod().invoke((Object) instance, (Object[]) call.getParameters());
 
 				return (IOReadableWritable) value;
 
@@ -21,6 +21,7 @@ package eu.stratosphere.nephele.ipc;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -59,6 +60,7 @@ import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.core.io.StringRecord;
 import eu.stratosphere.core.protocols.VersionedProtocol;
 import eu.stratosphere.util.ClassUtils;
+import eu.stratosphere.util.StringUtils;
 
 /**
  * An abstract IPC service. IPC calls take a single {@link Writable} as a
@@ -814,8 +816,8 @@ public abstract class Server {
 		public int readAndProcess() throws IOException, InterruptedException {
 			while (true) {
 				/*
-				 * Read at most one RPC. If the header is not read completely yet
-				 * then iterate until we read first RPC or until there is no data left.
+				 * Read all RPCs which are available. Clients write pipelined calls in batches, so a single
+				 * read event usually carries several RPCs. Iterate until there is no complete RPC left.
 				 */
 				int count = -1;
 				if (dataLengthBuffer.remaining() > 0) {
@@ -857,7 +859,7 @@ public abstract class Server {
 					if (protocolRead) {
 						processData();
 						data = null;
-						return count;
+						continue;
 					} else {
 						processProtocol();
 						protocolRead = true;
@@ -893,8 +895,7 @@ public abstract class Server {
 			int id = dis.readInt(); // try to read an id
 
 
-			IOReadableWritable invocation = newInstance(invocationClass); // read param
-			invocation.read(dis);
+			IOReadableWritable invocation = readParameter(protocol, dis); // read param
 
 			Call call = new Call(id, invocation, this);
 			callQueue.put(call); // queue the call; maybe blocked here
@@ -948,7 +949,13 @@ public abstract class Server {
 
 					CurCall.set(call);
 
-					value = call(call.connection.protocol, call.param, call.timestamp);
+					try {
+						value = call(call.connection.protocol, call.param, call.timestamp);
+					} catch (Throwable t) {
+						// Report the failure to the caller instead of leaving it waiting for a response
+						errorClass = t.getClass().getName();
+						error = StringUtils.stringifyException(t);
+					}
 
 					CurCall.set(null);
 
@@ -1000,7 +1007,8 @@ public abstract class Server {
 		// Start the listener here and let it bind to the port
 		listener = new Listener();
 		this.port = listener.getAddress().getPort();
-		this.tcpNoDelay = false;
+		// Pipelined responses must not wait for the acknowledgement of the previous ones
+		this.tcpNoDelay = true;
 
 		// Create the responder here
 		responder = new Responder();
@@ -1157,6 +1165,24 @@ public abstract class Server {
 		return listener.getAddress();
 	}
 
+	/**
+	 * Reads the parameter of a call on the given protocol.
+	 * 
+	 * @param protocol
+	 *        the protocol of the connection the call has been received on
+	 * @param in
+	 *        the input to read the parameter from
+	 * @return the parameter of the call
+	 * @throws IOException
+	 *         thrown if the parameter cannot be read
+	 */
+	protected IOReadableWritable readParameter(Class<?> protocol, DataInput in) throws IOException {
+
+		final IOReadableWritable param = newInstance(this.invocationClass);
+		param.read(in);
+		return param;
+	}
+
 	/** Called for each call. */
 	public abstract IOReadableWritable call(Class<?> protocol, IOReadableWritable param, long receiveTime)
 			throws IOException;
@@ -13,7 +13,9 @@
 
 package eu.stratosphere.nephele.jobmanager;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -30,6 +32,7 @@ import eu.stratosphere.nephele.event.job.VertexAssignmentEvent;
 import eu.stratosphere.nephele.event.job.VertexEvent;
 import eu.stratosphere.nephele.execution.ExecutionListener;
 import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.execution.TaskActivitySample;
 import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
 import eu.stratosphere.nephele.executiongraph.ExecutionGraphIterator;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
@@ -292,9 +295,10 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 
 	/**
 	 * The map which stores all collected events until they are either
-	 * fetched by the client or discarded.
+	 * fetched by the client or discarded. The events of each job are kept
+	 * in the order they have been collected in.
 	 */
-	private final Map<JobID, List<AbstractEvent>> collectedEvents = new HashMap<JobID, List<AbstractEvent>>();
+	private final Map<JobID, Deque<AbstractEvent>> collectedEvents = new HashMap<JobID, Deque<AbstractEvent>>();
 
 	/**
 	 * Map of recently started jobs with the time stamp of the last received job event.
@@ -350,7 +354,7 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 
 		synchronized (this.collectedEvents) {
 
-			List<AbstractEvent> eventsForJob = this.collectedEvents.get(jobID);
+			Deque<AbstractEvent> eventsForJob = this.collectedEvents.get(jobID);
 			if (eventsForJob != null) {
 
 				final Iterator<AbstractEvent> it = eventsForJob.iterator();
@@ -408,9 +412,9 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 
 		synchronized (this.collectedEvents) {
 
-			List<AbstractEvent> eventList = this.collectedEvents.get(jobID);
+			Deque<AbstractEvent> eventList = this.collectedEvents.get(jobID);
 			if (eventList == null) {
-				eventList = new ArrayList<AbstractEvent>();
+				eventList = new ArrayDeque<AbstractEvent>();
 				this.collectedEvents.put(jobID, eventList);
 			}
 
@@ -496,20 +500,16 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 			while (it.hasNext()) {
 
 				final JobID jobID = it.next();
-				final List<AbstractEvent> eventList = this.collectedEvents.get(jobID);
+				final Deque<AbstractEvent> eventList = this.collectedEvents.get(jobID);
 				if (eventList == null) {
 					continue;
 				}
 
-				final Iterator<AbstractEvent> it2 = eventList.iterator();
-				while (it2.hasNext()) {
-
-					final AbstractEvent event = it2.next();
-					// If the event is older than TIMERTASKINTERVAL, remove it
-					if ((event.getTimestamp() + this.timerTaskInterval) < currentTime) {
-						archiveEvent(jobID, event);
-						it2.remove();
-					}
+				// Events are appended as they are collected, so the expired events are at the head of the queue.
+				// If the event is older than TIMERTASKINTERVAL, remove it
+				while (!eventList.isEmpty()
+					&& (eventList.peekFirst().getTimestamp() + this.timerTaskInterval) < currentTime) {
+					archiveEvent(jobID, eventList.pollFirst());
 				}
 
 				if (eventList.isEmpty()) {
@@ -538,11 +538,11 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 					it.remove();
 					synchronized (this.recentManagementGraphs) {
 						archiveManagementGraph(entry.getKey(), this.recentManagementGraphs.get(entry.getKey()));
-						this.recentManagementGraphs.remove(entry.getValue());
+						this.recentManagementGraphs.remove(entry.getKey());
 					}
 					synchronized (this.recentNetworkTopologies) {
 						archiveNetworkTopology(entry.getKey(), this.recentNetworkTopologies.get(entry.getKey()));
-						this.recentNetworkTopologies.remove(entry.getValue());
+						this.recentNetworkTopologies.remove(entry.getKey());
 					}
 				}
 			}
@@ -640,6 +640,29 @@ public final class EventCollector extends TimerTask implements ProfilingListener
 			}
 		}
 	}
+
+	/**
+	 * Applies an activity sample of an execution vertex to the stored management graph.
+	 * 
+	 * @param sample
+	 *        the activity sample of the execution vertex
+	 */
+	public void updateTaskActivity(final TaskActivitySample sample) {
+
+		synchronized (this.recentManagementGraphs) {
+
+			final ManagementGraph managementGraph = this.recentManagementGraphs.get(sample.getJobID());
+			if (managementGraph == null) {
+				return;
+			}
+			final ManagementVertex vertex = managementGraph.getVertexByID(sample.getVertexID().toManagementVertexID());
+			if (vertex == null) {
+				return;
+			}
+
+			vertex.setActivity(sample.getBusyRatio(), sample.getBackPressureRatio(), sample.getIdleRatio());
+		}
+	}
 	
 	/**
 	 * Register Archivist to archive 
@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -50,6 +51,7 @@ import org.apache.log4j.PatternLayout;
 import eu.stratosphere.configuration.ConfigConstants;
 import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.configuration.GlobalConfiguration;
+import eu.stratosphere.core.io.InputSplit;
 import eu.stratosphere.core.io.StringRecord;
 import eu.stratosphere.nephele.client.AbstractJobResult;
 import eu.stratosphere.nephele.client.AbstractJobResult.ReturnCode;
@@ -60,6 +62,7 @@ import eu.stratosphere.nephele.deployment.TaskDeploymentDescriptor;
 import eu.stratosphere.nephele.event.job.AbstractEvent;
 import eu.stratosphere.nephele.event.job.RecentJobEvent;
 import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.execution.TaskActivitySample;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
 import eu.stratosphere.nephele.executiongraph.ExecutionEdge;
 import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
@@ -83,6 +86,7 @@ import eu.stratosphere.nephele.ipc.Server;
 import eu.stratosphere.nephele.jobgraph.AbstractJobVertex;
 import eu.stratosphere.nephele.jobgraph.JobGraph;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.metrics.MetricRegistry;
 import eu.stratosphere.nephele.jobmanager.accumulators.AccumulatorManager;
 import eu.stratosphere.nephele.jobmanager.archive.ArchiveListener;
 import eu.stratosphere.nephele.jobmanager.archive.MemoryArchivist;
@@ -100,9 +104,11 @@ import eu.stratosphere.nephele.protocols.ExtendedManagementProtocol;
 import eu.stratosphere.nephele.protocols.InputSplitProviderProtocol;
 import eu.stratosphere.nephele.protocols.JobManagerProtocol;
 import eu.stratosphere.nephele.services.accumulators.AccumulatorEvent;
+import eu.stratosphere.nephele.services.blob.BlobKey;
 import eu.stratosphere.nephele.services.blob.BlobService;
 import eu.stratosphere.nephele.taskmanager.AbstractTaskResult;
 import eu.stratosphere.nephele.taskmanager.TaskCancelResult;
+import eu.stratosphere.nephele.taskmanager.TaskActivityReport;
 import eu.stratosphere.nephele.taskmanager.TaskExecutionState;
 import eu.stratosphere.nephele.taskmanager.TaskSubmissionResult;
 import eu.stratosphere.runtime.io.network.ConnectionInfoLookupResponse;
@@ -111,6 +117,7 @@ import eu.stratosphere.nephele.taskmanager.ExecutorThreadFactory;
 import eu.stratosphere.nephele.topology.NetworkTopology;
 import eu.stratosphere.nephele.types.IntegerRecord;
 import eu.stratosphere.nephele.util.SerializableArrayList;
+import eu.stratosphere.pact.runtime.cache.FileCache;
 import eu.stratosphere.util.StringUtils;
 
 /**
@@ -176,6 +183,9 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 		this.recommendedClientPollingInterval = GlobalConfiguration.getInteger(
 			ConfigConstants.JOBCLIENT_POLLING_INTERVAL_KEY, ConfigConstants.DEFAULT_JOBCLIENT_POLLING_INTERVAL);
 
+		// Export the metrics of the job manager, such as the input split creation times
+		MetricRegistry.getInstance().exportToJMX();
+
 		// Load the job progress collector
 		this.eventCollector = new EventCollector(this.recommendedClientPollingInterval);
 		
@@ -188,7 +198,11 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 		int archived_items = GlobalConfiguration.getInteger(
 				ConfigConstants.JOB_MANAGER_WEB_ARCHIVE_COUNT, ConfigConstants.DEFAULT_JOB_MANAGER_WEB_ARCHIVE_COUNT);
 		if (archived_items > 0) {
-			this.archive = new MemoryArchivist(archived_items);
+			final int detailedItems = GlobalConfiguration.getInteger(
+				ConfigConstants.JOB_MANAGER_WEB_ARCHIVE_DETAILED_COUNT,
+				ConfigConstants.DEFAULT_JOB_MANAGER_WEB_ARCHIVE_DETAILED_COUNT);
+			final String spillDir = GlobalConfiguration.getString(ConfigConstants.JOB_MANAGER_WEB_ARCHIVE_SPILL_DIR, null);
+			this.archive = new MemoryArchivist(archived_items, detailedItems, spillDir == null ? null : new File(spillDir));
 			this.eventCollector.registerArchivist(archive);
 		}
 		else {
@@ -588,6 +602,11 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 				LOG.warn(ioe);
 			}
 		}
+
+		// Forget which task managers hold the job's BLOBs, so they are no longer offered as peers
+		final List<BlobKey> blobKeys = new ArrayList<BlobKey>(executionGraph.getRequiredJarFiles());
+		blobKeys.addAll(FileCache.getPublishedFiles(executionGraph.getJobConfiguration()));
+		BlobService.removePeers(blobKeys);
 	}
 
 
@@ -643,6 +662,19 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 	}
 
 
+	@Override
+	public void reportTaskActivity(final TaskActivityReport taskActivityReport) throws IOException {
+
+		if (taskActivityReport == null || this.eventCollector == null) {
+			return;
+		}
+
+		for (final TaskActivitySample sample : taskActivityReport.getSamples()) {
+			this.eventCollector.updateTaskActivity(sample);
+		}
+	}
+
+
 	@Override
 	public JobCancelResult cancelJob(final JobID jobID) throws IOException {
 
@@ -1145,6 +1177,29 @@ public class JobManager implements DeploymentManager, ExtendedManagementProtocol
 
 		return new InputSplitWrapper(jobID, this.inputSplitManager.getNextInputSplit(vertex, sequenceNumber.getValue()));
 	}
+
+
+	@Override
+	public InputSplitWrapper requestNextInputSplits(final JobID jobID, final ExecutionVertexID vertexID,
+			final IntegerRecord sequenceNumber, final IntegerRecord maxNumberOfSplits) throws IOException {
+
+		final ExecutionGraph graph = this.scheduler.getExecutionGraphByID(jobID);
+		if (graph == null) {
+			LOG.error("Cannot find execution graph to job ID " + jobID);
+			return null;
+		}
+
+		final ExecutionVertex vertex = graph.getVertexByID(vertexID);
+		if (vertex == null) {
+			LOG.error("Cannot find execution vertex for vertex ID " + vertexID);
+			return null;
+		}
+
+		final List<InputSplit> inputSplits = this.inputSplitManager.getNextInputSplits(vertex,
+			sequenceNumber.getValue(), maxNumberOfSplits.getValue());
+
+		return new InputSplitWrapper(jobID, inputSplits.toArray(new InputSplit[inputSplits.size()]));
+	}
 	
 	/**
 	 * Starts the Jetty Infoserver for the Jobmanager
@@ -24,6 +24,8 @@ import eu.stratosphere.nephele.ExecutionMode;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.instance.InstanceManager;
 import eu.stratosphere.nephele.jobmanager.scheduler.AbstractScheduler;
 import eu.stratosphere.util.StringUtils;
@@ -151,7 +153,8 @@ public class JobManagerUtils {
 		case LOCAL:
 			return "eu.stratosphere.nephele.jobmanager.scheduler.local.LocalScheduler";
 		case CLUSTER:
-			return "eu.stratosphere.nephele.jobmanager.scheduler.queue.QueueScheduler";
+			return GlobalConfiguration.getString(ConfigConstants.JOB_MANAGER_SCHEDULER_CLASS_KEY,
+				ConfigConstants.DEFAULT_JOB_MANAGER_SCHEDULER_CLASS);
 		default:
 			throw new RuntimeException("Unrecognized Execution Mode.");
 		}
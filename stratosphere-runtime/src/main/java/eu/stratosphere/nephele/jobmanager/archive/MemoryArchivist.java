@@ -13,12 +13,25 @@
 
 package eu.stratosphere.nephele.jobmanager.archive;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import eu.stratosphere.nephele.event.job.AbstractEvent;
 import eu.stratosphere.nephele.event.job.ExecutionStateChangeEvent;
 import eu.stratosphere.nephele.event.job.JobEvent;
@@ -29,132 +42,468 @@ import eu.stratosphere.nephele.jobgraph.JobStatus;
 import eu.stratosphere.nephele.managementgraph.ManagementGraph;
 import eu.stratosphere.nephele.managementgraph.ManagementVertexID;
 import eu.stratosphere.nephele.topology.NetworkTopology;
+import eu.stratosphere.nephele.util.SerializableArrayList;
 
 /**
- * Implementation of the ArchiveListener, that archives old data of the jobmanager in memory
- *
+ * Implementation of the ArchiveListener, that archives old data of the jobmanager in memory.
+ * <p>
+ * The archive is bounded in two ways. At most <code>maxEntries</code> jobs are archived; when the limit is exceeded,
+ * the job which has been archived first is dropped. Of the archived jobs, only the <code>maxDetailedEntries</code>
+ * most recently used finished jobs keep their management graph, network topology and events in memory. The other
+ * finished jobs are reduced to a summary of their job event and the time stamps of their job status changes. If a
+ * spill directory is configured, the details are written to a file before they are dropped and read back when they
+ * are requested again.
+ * <p>
+ * The time stamps of job and vertex status changes are indexed as the events are archived, so looking them up does
+ * not scan the events.
+ * <p>
+ * This class is thread-safe.
  */
 public class MemoryArchivist implements ArchiveListener {
-	
-	
-	private int max_entries;
+
+	/**
+	 * The log object used for debugging.
+	 */
+	private static final Log LOG = LogFactory.getLog(MemoryArchivist.class);
+
 	/**
-	 * The map which stores all collected events until they are either
-	 * fetched by the client or discarded.
+	 * The suffix of the files the details of summarized jobs are spilled to.
 	 */
-	private final Map<JobID, List<AbstractEvent>> collectedEvents = new HashMap<JobID, List<AbstractEvent>>();
-	
+	private static final String SPILL_FILE_SUFFIX = ".archive";
+
 	/**
-	 * Map of recently started jobs with the time stamp of the last received job event.
+	 * The maximum number of archived jobs.
 	 */
-	private final Map<JobID, RecentJobEvent> oldJobs = new HashMap<JobID, RecentJobEvent>();
-	
+	private final int maxEntries;
+
 	/**
-	 * Map of management graphs belonging to recently started jobs with the time stamp of the last received job event.
+	 * The maximum number of finished jobs whose details are kept in memory.
 	 */
-	private final Map<JobID, ManagementGraph> managementGraphs = new HashMap<JobID, ManagementGraph>();
+	private final int maxDetailedEntries;
 
 	/**
-	 * Map of network topologies belonging to recently started jobs with the time stamp of the last received job event.
+	 * The directory the details of summarized jobs are spilled to or <code>null</code> to discard them.
 	 */
-	private final Map<JobID, NetworkTopology> networkTopologies = new HashMap<JobID, NetworkTopology>();
-	
-	private final LinkedList<JobID> lru = new LinkedList<JobID>();
-	
-	public MemoryArchivist(int max_entries) {
-		this.max_entries = max_entries;
-	}
-	
-	
-	public void archiveEvent(JobID jobId, AbstractEvent event) {
-		
-		if(!collectedEvents.containsKey(jobId)) {
-			collectedEvents.put(jobId, new ArrayList<AbstractEvent>());
-		}
-		
-		collectedEvents.get(jobId).add(event);
-		
-		cleanup(jobId);
-	}
-	
-	public void archiveJobevent(JobID jobId, RecentJobEvent event) {
-		
-		oldJobs.put(jobId, event);
-		
-		cleanup(jobId);
-	}
-	
-	public void archiveManagementGraph(JobID jobId, ManagementGraph graph) {
-		
-		managementGraphs.put(jobId, graph);
-		
-		cleanup(jobId);
-	}
-	
-	public void archiveNetworkTopology(JobID jobId, NetworkTopology topology) {
-		
-		networkTopologies.put(jobId, topology);
-		
-		cleanup(jobId);
-	}
-
-	public List<RecentJobEvent> getJobs() {
-
-		return new ArrayList<RecentJobEvent>(oldJobs.values());
-	}
-	
-	private void cleanup(JobID jobId) {
-		if(!lru.contains(jobId)) {
-			lru.addFirst(jobId);
-		}
-		if(lru.size() > this.max_entries) {
-			JobID toRemove = lru.removeLast();
-			collectedEvents.remove(toRemove);
-			oldJobs.remove(toRemove);
-			managementGraphs.remove(toRemove);
-			networkTopologies.remove(toRemove);
-		}
-	}
-	
-	public RecentJobEvent getJob(JobID jobId) {
-
-		return oldJobs.get(jobId);
-	}
-	
-	public ManagementGraph getManagementGraph(final JobID jobID) {
-
-		synchronized (this.managementGraphs) {
-			return this.managementGraphs.get(jobID);
-		}
-	}
-	
-	public List<AbstractEvent> getEvents(JobID jobID) {
-		return collectedEvents.get(jobID);
-	}
-	
-	public long getJobTime(JobID jobID, JobStatus jobStatus) {
-		for(AbstractEvent event : this.getEvents(jobID)) {
-			if(event instanceof JobEvent)
-			{
-				if(((JobEvent) event).getCurrentJobStatus() == jobStatus) {
-					return event.getTimestamp();
-				}
+	private final File spillDirectory;
+
+	/**
+	 * The archived jobs in the order they have been archived in.
+	 */
+	private final Map<JobID, ArchivedJob> archivedJobs = new LinkedHashMap<JobID, ArchivedJob>();
+
+	/**
+	 * The finished jobs whose details are kept in memory, least recently used first.
+	 */
+	private final Map<JobID, ArchivedJob> detailedJobs = new LinkedHashMap<JobID, ArchivedJob>(16, 0.75f, true);
+
+	/**
+	 * Constructs a new archivist which keeps the details of all archived jobs in memory.
+	 *
+	 * @param maxEntries
+	 *        the maximum number of archived jobs
+	 */
+	public MemoryArchivist(final int maxEntries) {
+		this(maxEntries, maxEntries, null);
+	}
+
+	/**
+	 * Constructs a new archivist.
+	 *
+	 * @param maxEntries
+	 *        the maximum number of archived jobs
+	 * @param maxDetailedEntries
+	 *        the maximum number of finished jobs whose details are kept in memory
+	 * @param spillDirectory
+	 *        the directory the details of summarized jobs are spilled to or <code>null</code> to discard them
+	 */
+	public MemoryArchivist(final int maxEntries, final int maxDetailedEntries, final File spillDirectory) {
+		this.maxEntries = maxEntries;
+		this.maxDetailedEntries = Math.max(0, maxDetailedEntries);
+		this.spillDirectory = spillDirectory;
+
+		if (spillDirectory != null && !spillDirectory.isDirectory() && !spillDirectory.mkdirs()) {
+			LOG.warn("Cannot create archive spill directory " + spillDirectory + ", details of old jobs are discarded");
+		}
+	}
+
+	@Override
+	public synchronized void archiveEvent(final JobID jobId, final AbstractEvent event) {
+
+		final ArchivedJob job = getOrCreate(jobId);
+		ensureDetails(job);
+		deleteSpillFile(job);
+		job.addEvent(event);
+		cleanup(null);
+	}
+
+	@Override
+	public synchronized void archiveJobevent(final JobID jobId, final RecentJobEvent event) {
+
+		final ArchivedJob job = getOrCreate(jobId);
+		job.jobEvent = event;
+		if (job.hasDetails()) {
+			// The job has finished, so its details may be summarized from now on
+			this.detailedJobs.put(jobId, job);
+		}
+		cleanup(null);
+	}
+
+	@Override
+	public synchronized void archiveManagementGraph(final JobID jobId, final ManagementGraph graph) {
+
+		final ArchivedJob job = getOrCreate(jobId);
+		ensureDetails(job);
+		deleteSpillFile(job);
+		job.managementGraph = graph;
+		cleanup(null);
+	}
+
+	@Override
+	public synchronized void archiveNetworkTopology(final JobID jobId, final NetworkTopology topology) {
+
+		final ArchivedJob job = getOrCreate(jobId);
+		ensureDetails(job);
+		deleteSpillFile(job);
+		job.networkTopology = topology;
+		cleanup(null);
+	}
+
+	@Override
+	public synchronized List<RecentJobEvent> getJobs() {
+
+		final List<RecentJobEvent> jobs = new ArrayList<RecentJobEvent>(this.archivedJobs.size());
+		for (final ArchivedJob job : this.archivedJobs.values()) {
+			if (job.jobEvent != null) {
+				jobs.add(job.jobEvent);
 			}
 		}
-		return 0;
+
+		return jobs;
 	}
-	
-	public long getVertexTime(JobID jobID, ManagementVertexID jobVertexID, ExecutionState executionState) {
-		for(AbstractEvent event : this.getEvents(jobID)) {
-			if(event instanceof ExecutionStateChangeEvent)
-			{
-				if(((ExecutionStateChangeEvent) event).getVertexID().equals(jobVertexID) && ((ExecutionStateChangeEvent) event).getNewExecutionState().equals(executionState)) {
-					return event.getTimestamp();
-				}
+
+	@Override
+	public synchronized RecentJobEvent getJob(final JobID jobId) {
+
+		final ArchivedJob job = this.archivedJobs.get(jobId);
+		return job == null ? null : job.jobEvent;
+	}
+
+	@Override
+	public synchronized ManagementGraph getManagementGraph(final JobID jobID) {
+
+		final ArchivedJob job = getDetailed(jobID);
+		return job == null ? null : job.managementGraph;
+	}
+
+	@Override
+	public synchronized List<AbstractEvent> getEvents(final JobID jobID) {
+
+		final ArchivedJob job = getDetailed(jobID);
+		if (job == null) {
+			return null;
+		}
+
+		return new ArrayList<AbstractEvent>(job.events);
+	}
+
+	@Override
+	public synchronized long getJobTime(final JobID jobID, final JobStatus jobStatus) {
+
+		final ArchivedJob job = this.archivedJobs.get(jobID);
+		if (job == null) {
+			return 0;
+		}
+
+		final Long time = job.jobTimes.get(jobStatus);
+		return time == null ? 0 : time.longValue();
+	}
+
+	@Override
+	public synchronized long getVertexTime(final JobID jobID, final ManagementVertexID jobVertexID,
+			final ExecutionState executionState) {
+
+		final ArchivedJob job = getDetailed(jobID);
+		if (job == null) {
+			return 0;
+		}
+
+		final long[] times = job.vertexTimes.get(jobVertexID);
+		return times == null ? 0 : times[executionState.ordinal()];
+	}
+
+	/**
+	 * Returns the archived job with the given ID, creating it if necessary.
+	 *
+	 * @param jobID
+	 *        the ID of the job
+	 * @return the archived job with the given ID
+	 */
+	private ArchivedJob getOrCreate(final JobID jobID) {
+
+		ArchivedJob job = this.archivedJobs.get(jobID);
+		if (job == null) {
+			job = new ArchivedJob(jobID);
+			job.createDetails();
+			this.archivedJobs.put(jobID, job);
+		}
+
+		return job;
+	}
+
+	/**
+	 * Returns the archived job with the given ID with its details, reading them back from the spill directory if
+	 * necessary.
+	 *
+	 * @param jobID
+	 *        the ID of the job
+	 * @return the archived job or <code>null</code> if the job is not archived or its details have been discarded
+	 */
+	private ArchivedJob getDetailed(final JobID jobID) {
+
+		final ArchivedJob job = this.archivedJobs.get(jobID);
+		if (job == null) {
+			return null;
+		}
+
+		if (!job.hasDetails()) {
+			if (!job.spilled) {
+				return null;
 			}
+			ensureDetails(job);
+			cleanup(job);
+		} else if (job.jobEvent != null) {
+			// Mark the job as recently used
+			this.detailedJobs.get(jobID);
 		}
-		return 0;
+
+		return job.hasDetails() ? job : null;
 	}
 
+	/**
+	 * Makes sure the details of the given job are in memory, so new details can be added to them.
+	 *
+	 * @param job
+	 *        the archived job
+	 */
+	private void ensureDetails(final ArchivedJob job) {
 
+		if (job.hasDetails()) {
+			return;
+		}
+
+		job.createDetails();
+		if (job.spilled) {
+			try {
+				readDetails(job);
+			} catch (IOException ioe) {
+				LOG.warn("Cannot read archived details of job " + job.jobID + ": " + ioe.getMessage());
+				deleteSpillFile(job);
+				job.createDetails();
+			}
+		}
+
+		if (job.jobEvent != null) {
+			this.detailedJobs.put(job.jobID, job);
+		}
+	}
+
+	/**
+	 * Enforces the limits on the number of archived jobs and the number of jobs whose details are kept in memory.
+	 *
+	 * @param keep
+	 *        a job whose details must not be summarized because they have just been read back or <code>null</code>
+	 */
+	private void cleanup(final ArchivedJob keep) {
+
+		final Iterator<ArchivedJob> it = this.archivedJobs.values().iterator();
+		while (this.archivedJobs.size() > this.maxEntries && it.hasNext()) {
+			final ArchivedJob job = it.next();
+			it.remove();
+			this.detailedJobs.remove(job.jobID);
+			deleteSpillFile(job);
+		}
+
+		final Iterator<ArchivedJob> it2 = this.detailedJobs.values().iterator();
+		while (this.detailedJobs.size() > this.maxDetailedEntries && it2.hasNext()) {
+			final ArchivedJob job = it2.next();
+			if (job != keep) {
+				it2.remove();
+				summarize(job);
+			}
+		}
+	}
+
+	/**
+	 * Drops the details of the given job from memory, spilling them to disk first if a spill directory is configured.
+	 *
+	 * @param job
+	 *        the job to summarize
+	 */
+	private void summarize(final ArchivedJob job) {
+
+		if (this.spillDirectory != null) {
+			try {
+				writeDetails(job);
+				job.spilled = true;
+			} catch (IOException ioe) {
+				LOG.warn("Cannot spill archived details of job " + job.jobID + ": " + ioe.getMessage());
+				deleteSpillFile(job);
+			}
+		}
+
+		job.dropDetails();
+	}
+
+	private File getSpillFile(final ArchivedJob job) {
+		return new File(this.spillDirectory, job.jobID.toString() + SPILL_FILE_SUFFIX);
+	}
+
+	private void deleteSpillFile(final ArchivedJob job) {
+
+		if (job.spilled) {
+			job.spilled = false;
+			if (!getSpillFile(job).delete() && LOG.isDebugEnabled()) {
+				LOG.debug("Cannot delete archived details of job " + job.jobID);
+			}
+		}
+	}
+
+	private void writeDetails(final ArchivedJob job) throws IOException {
+
+		if (job.spilled) {
+			// The details have not changed since they have been read back
+			return;
+		}
+
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+			getSpillFile(job))));
+		try {
+			out.writeBoolean(job.managementGraph != null);
+			if (job.managementGraph != null) {
+				job.managementGraph.write(out);
+			}
+
+			out.writeBoolean(job.networkTopology != null);
+			if (job.networkTopology != null) {
+				job.networkTopology.write(out);
+			}
+
+			final SerializableArrayList<AbstractEvent> events = new SerializableArrayList<AbstractEvent>(
+				job.events.size());
+			events.addAll(job.events);
+			events.write(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	private void readDetails(final ArchivedJob job) throws IOException {
+
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(
+			getSpillFile(job))));
+		try {
+			if (in.readBoolean()) {
+				job.managementGraph = new ManagementGraph();
+				job.managementGraph.read(in);
+			}
+
+			if (in.readBoolean()) {
+				job.networkTopology = new NetworkTopology();
+				job.networkTopology.read(in);
+			}
+
+			final SerializableArrayList<AbstractEvent> events = new SerializableArrayList<AbstractEvent>();
+			events.read(in);
+			for (final AbstractEvent event : events) {
+				job.addEvent(event);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * An archived job consists of its summary, which is always kept in memory, and its details, which may be dropped.
+	 */
+	private static final class ArchivedJob {
+
+		private final JobID jobID;
+
+		/**
+		 * The last job event, which is archived once the job has finished.
+		 */
+		private RecentJobEvent jobEvent;
+
+		/**
+		 * The time stamps of the job's status changes.
+		 */
+		private final Map<JobStatus, Long> jobTimes = new EnumMap<JobStatus, Long>(JobStatus.class);
+
+		/**
+		 * Whether the details of the job have been written to the spill directory.
+		 */
+		private boolean spilled;
+
+		private List<AbstractEvent> events;
+
+		/**
+		 * The time stamps of the vertices' state changes, indexed by the ordinal of the execution state.
+		 */
+		private Map<ManagementVertexID, long[]> vertexTimes;
+
+		private ManagementGraph managementGraph;
+
+		private NetworkTopology networkTopology;
+
+		private ArchivedJob(final JobID jobID) {
+			this.jobID = jobID;
+		}
+
+		private boolean hasDetails() {
+			return this.events != null;
+		}
+
+		private void createDetails() {
+			this.events = new ArrayList<AbstractEvent>();
+			this.vertexTimes = new HashMap<ManagementVertexID, long[]>();
+			this.managementGraph = null;
+			this.networkTopology = null;
+		}
+
+		private void dropDetails() {
+			this.events = null;
+			this.vertexTimes = null;
+			this.managementGraph = null;
+			this.networkTopology = null;
+		}
+
+		/**
+		 * Adds an event to the details and indexes its time stamp. Only the first change to each status is indexed.
+		 *
+		 * @param event
+		 *        the event to add
+		 */
+		private void addEvent(final AbstractEvent event) {
+
+			this.events.add(event);
+
+			if (event instanceof JobEvent) {
+				final JobStatus status = ((JobEvent) event).getCurrentJobStatus();
+				if (!this.jobTimes.containsKey(status)) {
+					this.jobTimes.put(status, Long.valueOf(event.getTimestamp()));
+				}
+			} else if (event instanceof ExecutionStateChangeEvent) {
+				final ExecutionStateChangeEvent esce = (ExecutionStateChangeEvent) event;
+				long[] times = this.vertexTimes.get(esce.getVertexID());
+				if (times == null) {
+					times = new long[ExecutionState.values().length];
+					this.vertexTimes.put(esce.getVertexID(), times);
+				}
+				final int index = esce.getNewExecutionState().ordinal();
+				if (times[index] == 0L) {
+					times[index] = event.getTimestamp();
+				}
+			}
+		}
+	}
 }
@@ -144,6 +144,25 @@ public abstract class AbstractScheduler implements InstanceListener {
 	 */
 	protected void requestInstances(final ExecutionStage executionStage) throws InstanceException {
 
+		requestInstances(executionStage, null);
+	}
+
+	/**
+	 * Collects the instances required to run the job from the given {@link ExecutionStage} and requests them at the
+	 * loaded instance manager, preferably on the given hosts.
+	 * 
+	 * @param executionStage
+	 *        the execution stage to collect the required instances from
+	 * @param splitAffinityList
+	 *        the names of the hosts the instances should preferably be allocated on, most preferred first, or
+	 *        <code>null</code> if there is no preference
+	 * @throws InstanceException
+	 *         thrown if the given execution graph is already processing its final stage or the instance manager
+	 *         cannot satisfy the request
+	 */
+	protected void requestInstances(final ExecutionStage executionStage, final List<String> splitAffinityList)
+			throws InstanceException {
+
 		final ExecutionGraph executionGraph = executionStage.getExecutionGraph();
 		final InstanceRequestMap instanceRequestMap = new InstanceRequestMap();
 
@@ -164,7 +183,7 @@ public abstract class AbstractScheduler implements InstanceListener {
 			}
 
 			this.instanceManager.requestInstance(executionGraph.getJobID(), executionGraph.getJobConfiguration(),
-				instanceRequestMap, null);
+				instanceRequestMap, splitAffinityList);
 
 			// Switch vertex state to assigning
 			final ExecutionGraphIterator it2 = new ExecutionGraphIterator(executionGraph, executionGraph
@@ -0,0 +1,405 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager.scheduler.slot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
+import eu.stratosphere.core.fs.FileInputSplit;
+import eu.stratosphere.core.io.InputSplit;
+import eu.stratosphere.core.io.LocatableInputSplit;
+import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
+import eu.stratosphere.nephele.executiongraph.ExecutionGraphIterator;
+import eu.stratosphere.nephele.executiongraph.ExecutionGroupVertex;
+import eu.stratosphere.nephele.executiongraph.ExecutionStage;
+import eu.stratosphere.nephele.executiongraph.ExecutionStageListener;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
+import eu.stratosphere.nephele.executiongraph.InternalJobStatus;
+import eu.stratosphere.nephele.executiongraph.JobStatusListener;
+import eu.stratosphere.nephele.instance.AllocatedResource;
+import eu.stratosphere.nephele.instance.InstanceException;
+import eu.stratosphere.nephele.instance.InstanceManager;
+import eu.stratosphere.nephele.instance.InstanceRequestMap;
+import eu.stratosphere.nephele.instance.InstanceType;
+import eu.stratosphere.nephele.instance.InstanceTypeDescription;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.jobmanager.DeploymentManager;
+import eu.stratosphere.nephele.jobmanager.scheduler.AbstractScheduler;
+import eu.stratosphere.nephele.jobmanager.scheduler.SchedulingException;
+
+/**
+ * A scheduler that runs multiple jobs concurrently on the slots of the cluster. A slot is a share of the CPU cores
+ * and memory of a task manager, as described by an {@link InstanceType}; the instance manager carves the slots out
+ * of the registered hosts on request.
+ * <p>
+ * In contrast to the {@link eu.stratosphere.nephele.jobmanager.scheduler.queue.QueueScheduler}, a job whose current
+ * stage does not fit into the free slots is not rejected, but waits until other jobs release their slots. Waiting
+ * stages are served in the order of the priority of their job (see {@link ConfigConstants#JOB_SCHEDULING_PRIORITY_KEY})
+ * and, among jobs of the same priority, in the order of submission. A stage that does not fit does not block smaller
+ * stages behind it, unless it has been bypassed too often (see
+ * {@link ConfigConstants#JOB_MANAGER_SCHEDULER_MAX_BYPASSES_KEY}). Then no further stages are started until it fits.
+ * <p>
+ * The slots of a stage are requested preferably on the hosts that store the stage's input splits.
+ * <p>
+ * This class is thread-safe.
+ */
+public class SlotScheduler extends AbstractScheduler implements JobStatusListener, ExecutionStageListener {
+
+	/**
+	 * All jobs that are currently known to the scheduler.
+	 */
+	private final List<ExecutionGraph> jobs = new ArrayList<ExecutionGraph>();
+
+	/**
+	 * The stages that wait for free slots.
+	 */
+	private final List<WaitingStage> waitingStages = new ArrayList<WaitingStage>();
+
+	/**
+	 * The number of times the longest waiting stage may be bypassed by later stages.
+	 */
+	private final int maxBypasses;
+
+	/**
+	 * Counter to establish the order of the waiting stages.
+	 */
+	private long stageCounter;
+
+	/**
+	 * Constructs a new slot scheduler.
+	 *
+	 * @param deploymentManager
+	 *        the deployment manager assigned to this scheduler
+	 * @param instanceManager
+	 *        the instance manager to be used with this scheduler
+	 */
+	public SlotScheduler(final DeploymentManager deploymentManager, final InstanceManager instanceManager) {
+		super(deploymentManager, instanceManager);
+
+		this.maxBypasses = GlobalConfiguration.getInteger(ConfigConstants.JOB_MANAGER_SCHEDULER_MAX_BYPASSES_KEY,
+			ConfigConstants.DEFAULT_JOB_MANAGER_SCHEDULER_MAX_BYPASSES);
+	}
+
+
+	@Override
+	public void schedulJob(final ExecutionGraph executionGraph) throws SchedulingException {
+
+		// Reject jobs which could not run even on the empty cluster
+		final Map<InstanceType, InstanceTypeDescription> availableInstances = getInstanceManager()
+				.getMapOfAvailableInstanceTypes();
+
+		final Iterator<ExecutionStage> stageIt = executionGraph.iterator();
+		while (stageIt.hasNext()) {
+
+			final InstanceRequestMap instanceRequestMap = new InstanceRequestMap();
+			stageIt.next().collectRequiredInstanceTypes(instanceRequestMap, ExecutionState.CREATED);
+
+			final Iterator<Map.Entry<InstanceType, Integer>> it = instanceRequestMap.getMinimumIterator();
+			while (it.hasNext()) {
+
+				final Map.Entry<InstanceType, Integer> entry = it.next();
+				final InstanceTypeDescription descr = availableInstances.get(entry.getKey());
+				if (descr == null) {
+					throw new SchedulingException("Unable to schedule job: No instance of type " + entry.getKey()
+							+ " available");
+				}
+
+				if (descr.getMaximumNumberOfAvailableInstances() != -1
+						&& descr.getMaximumNumberOfAvailableInstances() < entry.getValue().intValue()) {
+					throw new SchedulingException("Unable to schedule job: " + entry.getValue().intValue()
+							+ " instances of type " + entry.getKey() + " required, but only "
+							+ descr.getMaximumNumberOfAvailableInstances() + " are available");
+				}
+			}
+		}
+
+		// Subscribe to job status notifications
+		executionGraph.registerJobStatusListener(this);
+
+		// Register execution listener for each vertex
+		final ExecutionGraphIterator it2 = new ExecutionGraphIterator(executionGraph, true);
+		while (it2.hasNext()) {
+
+			final ExecutionVertex vertex = it2.next();
+			vertex.registerExecutionListener(new SlotExecutionListener(this, vertex));
+		}
+
+		// Register the scheduler as an execution stage listener
+		executionGraph.registerExecutionStageListener(this);
+
+		// Add the job before requesting slots, so the instance notifications find it
+		synchronized (this.jobs) {
+			this.jobs.add(executionGraph);
+		}
+
+		final int priority = executionGraph.getJobConfiguration().getInteger(
+			ConfigConstants.JOB_SCHEDULING_PRIORITY_KEY, ConfigConstants.DEFAULT_JOB_SCHEDULING_PRIORITY);
+		if (LOG.isInfoEnabled()) {
+			LOG.info("Scheduling job " + executionGraph.getJobName() + " (" + executionGraph.getJobID()
+				+ ") with priority " + priority);
+		}
+
+		enqueueStage(executionGraph.getCurrentExecutionStage(), priority);
+		scheduleWaitingStages();
+	}
+
+
+	@Override
+	public ExecutionGraph getExecutionGraphByID(final JobID jobID) {
+
+		synchronized (this.jobs) {
+			for (final ExecutionGraph executionGraph : this.jobs) {
+				if (executionGraph.getJobID().equals(jobID)) {
+					return executionGraph;
+				}
+			}
+		}
+
+		return null;
+	}
+
+
+	@Override
+	public void shutdown() {
+
+		synchronized (this.waitingStages) {
+			this.waitingStages.clear();
+		}
+
+		synchronized (this.jobs) {
+			this.jobs.clear();
+		}
+	}
+
+
+	@Override
+	public void jobStatusHasChanged(final ExecutionGraph executionGraph, final InternalJobStatus newJobStatus,
+			final String optionalMessage) {
+
+		if (newJobStatus == InternalJobStatus.FAILED || newJobStatus == InternalJobStatus.FINISHED
+			|| newJobStatus == InternalJobStatus.CANCELED) {
+
+			synchronized (this.waitingStages) {
+				final Iterator<WaitingStage> it = this.waitingStages.iterator();
+				while (it.hasNext()) {
+					if (it.next().stage.getExecutionGraph() == executionGraph) {
+						it.remove();
+					}
+				}
+			}
+
+			synchronized (this.jobs) {
+				if (!this.jobs.remove(executionGraph)) {
+					LOG.error("Cannot find job " + executionGraph.getJobName() + " ("
+						+ executionGraph.getJobID() + ") to remove");
+				}
+			}
+
+			// The job may have left slots behind that other jobs are waiting for
+			scheduleWaitingStages();
+		}
+	}
+
+
+	@Override
+	public void nextExecutionStageEntered(final JobID jobID, final ExecutionStage executionStage) {
+
+		final int priority = executionStage.getExecutionGraph().getJobConfiguration().getInteger(
+			ConfigConstants.JOB_SCHEDULING_PRIORITY_KEY, ConfigConstants.DEFAULT_JOB_SCHEDULING_PRIORITY);
+
+		enqueueStage(executionStage, priority);
+		scheduleWaitingStages();
+
+		// Deploy the vertices which could keep the resources of the previous stage
+		deployAssignedInputVertices(executionStage.getExecutionGraph());
+	}
+
+
+	@Override
+	public void checkAndReleaseAllocatedResource(final ExecutionGraph executionGraph,
+			final AllocatedResource allocatedResource) {
+
+		super.checkAndReleaseAllocatedResource(executionGraph, allocatedResource);
+
+		// The released slot may be what a waiting stage needs
+		scheduleWaitingStages();
+	}
+
+	/**
+	 * Returns the number of stages that currently wait for free slots.
+	 *
+	 * @return the number of waiting stages
+	 */
+	int getNumberOfWaitingStages() {
+
+		synchronized (this.waitingStages) {
+			return this.waitingStages.size();
+		}
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	private void enqueueStage(final ExecutionStage stage, final int priority) {
+
+		synchronized (this.waitingStages) {
+			this.waitingStages.add(new WaitingStage(stage, priority, this.stageCounter++));
+		}
+	}
+
+	/**
+	 * Requests the slots for the waiting stages, in the order of their priority, as long as the instance manager
+	 * can accommodate them. The vertices are deployed once the instance manager has allocated the slots.
+	 */
+	private void scheduleWaitingStages() {
+
+		synchronized (this.waitingStages) {
+
+			Collections.sort(this.waitingStages, WAITING_ORDER);
+
+			WaitingStage blocked = null;
+			final Iterator<WaitingStage> it = this.waitingStages.iterator();
+			while (it.hasNext()) {
+
+				final WaitingStage waiting = it.next();
+				if (blocked != null && blocked.bypasses >= this.maxBypasses) {
+					// Hold back the remaining stages until the blocked one fits
+					break;
+				}
+
+				try {
+					requestInstances(waiting.stage, getSplitAffinityList(waiting.stage));
+				} catch (InstanceException e) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Stage " + waiting.stage.getStageNumber() + " of job "
+							+ waiting.stage.getExecutionGraph().getJobID() + " waits for free slots: " + e.getMessage());
+					}
+					if (blocked == null) {
+						blocked = waiting;
+					}
+					continue;
+				}
+
+				it.remove();
+				if (blocked != null) {
+					blocked.bypasses++;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collects the hosts that store the input splits of the given stage, ordered by the number of splits they store.
+	 *
+	 * @param stage
+	 *        the stage to collect the hosts for
+	 * @return the names of the hosts storing the input splits, or <code>null</code> if the splits have no location
+	 */
+	static List<String> getSplitAffinityList(final ExecutionStage stage) {
+
+		final Map<String, Integer> splitsPerHost = new HashMap<String, Integer>();
+
+		for (int i = 0; i < stage.getNumberOfStageMembers(); ++i) {
+
+			final ExecutionGroupVertex groupVertex = stage.getStageMember(i);
+			if (!groupVertex.isInputVertex() || groupVertex.getInputSplits() == null) {
+				continue;
+			}
+
+			for (final InputSplit split : groupVertex.getInputSplits()) {
+
+				final String[] hosts;
+				if (split instanceof LocatableInputSplit) {
+					hosts = ((LocatableInputSplit) split).getHostnames();
+				} else if (split instanceof FileInputSplit) {
+					hosts = ((FileInputSplit) split).getHostNames();
+				} else {
+					hosts = null;
+				}
+
+				if (hosts == null) {
+					continue;
+				}
+
+				for (final String host : hosts) {
+					final Integer count = splitsPerHost.get(host);
+					splitsPerHost.put(host, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+				}
+			}
+		}
+
+		if (splitsPerHost.isEmpty()) {
+			return null;
+		}
+
+		final List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(
+			splitsPerHost.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+
+			@Override
+			public int compare(final Map.Entry<String, Integer> o1, final Map.Entry<String, Integer> o2) {
+				return o2.getValue().compareTo(o1.getValue());
+			}
+		});
+
+		final List<String> hosts = new ArrayList<String>(entries.size());
+		for (final Map.Entry<String, Integer> entry : entries) {
+			hosts.add(entry.getKey());
+		}
+		return hosts;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * A stage that waits for free slots.
+	 */
+	private static final class WaitingStage {
+
+		private final ExecutionStage stage;
+
+		private final int priority;
+
+		private final long sequenceNumber;
+
+		private int bypasses;
+
+		private WaitingStage(final ExecutionStage stage, final int priority, final long sequenceNumber) {
+			this.stage = stage;
+			this.priority = priority;
+			this.sequenceNumber = sequenceNumber;
+		}
+	}
+
+	/**
+	 * Orders the waiting stages by descending priority, then by the order in which they started waiting.
+	 */
+	private static final Comparator<WaitingStage> WAITING_ORDER = new Comparator<WaitingStage>() {
+
+		@Override
+		public int compare(final WaitingStage o1, final WaitingStage o2) {
+			if (o1.priority != o2.priority) {
+				return o1.priority > o2.priority ? -1 : 1;
+			}
+			return o1.sequenceNumber < o2.sequenceNumber ? -1 : (o1.sequenceNumber == o2.sequenceNumber ? 0 : 1);
+		}
+	};
+}
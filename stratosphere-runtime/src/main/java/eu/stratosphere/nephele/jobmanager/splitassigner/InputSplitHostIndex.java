@@ -0,0 +1,329 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager.splitassigner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.core.io.InputSplit;
+import eu.stratosphere.nephele.instance.AbstractInstance;
+import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
+
+/**
+ * The input split host index stores the input splits of an input vertex that are still expected to be consumed,
+ * indexed by the hosts that store them. An instance requesting a split is served from the queue of its own host
+ * first. Only if no local split is left, it receives a split without location or steals a split from the host with
+ * the most remaining splits, so that the splits of the other hosts stay available for local consumption.
+ * <p>
+ * The index does not use locks. A split stored on several hosts is contained in the queue of each of these hosts and
+ * is claimed atomically by the first instance that polls it.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <T>
+ *        the type of the indexed input splits
+ */
+public final class InputSplitHostIndex<T extends InputSplit> {
+
+	/**
+	 * The logging object which is used to report information and errors.
+	 */
+	private static final Log LOG = LogFactory.getLog(InputSplitHostIndex.class);
+
+	/**
+	 * The queues of the splits which are stored on the individual hosts, indexed by the lower-case host name.
+	 */
+	private final ConcurrentMap<String, HostQueue<T>> hostQueues = new ConcurrentHashMap<String, HostQueue<T>>();
+
+	/**
+	 * The splits without storage location.
+	 */
+	private final Queue<IndexedSplit<T>> unlocatedSplits = new ConcurrentLinkedQueue<IndexedSplit<T>>();
+
+	/**
+	 * Caches the host queues which are local to the instances that requested splits.
+	 */
+	private final ConcurrentMap<AbstractInstance, List<HostQueue<T>>> instanceQueues = new ConcurrentHashMap<AbstractInstance, List<HostQueue<T>>>();
+
+	/**
+	 * The number of splits which have not been assigned yet.
+	 */
+	private final AtomicInteger remainingSplits = new AtomicInteger(0);
+
+	/**
+	 * Adds the given input split to the index.
+	 *
+	 * @param inputSplit
+	 *        the input split to be added
+	 * @param hostNames
+	 *        the names of the hosts which store the input split, possibly <code>null</code>
+	 */
+	public void addSplit(final T inputSplit, final String[] hostNames) {
+
+		final IndexedSplit<T> split = new IndexedSplit<T>(inputSplit, hostNames);
+		this.remainingSplits.incrementAndGet();
+
+		if (hostNames == null || hostNames.length == 0) {
+			this.unlocatedSplits.add(split);
+			return;
+		}
+
+		for (int i = 0; i < hostNames.length; ++i) {
+			final HostQueue<T> queue = getOrCreateHostQueue(hostNames[i]);
+			queue.remaining.incrementAndGet();
+			queue.splits.add(split);
+		}
+	}
+
+	/**
+	 * Returns the next input split to be consumed by the given instance. Splits stored on the instance's host are
+	 * preferred over splits without location, which are in turn preferred over splits stored on other hosts.
+	 *
+	 * @param instance
+	 *        the instance requesting the next input split
+	 * @return the next input split to be consumed by the given instance or <code>null</code> if all input splits have
+	 *         already been assigned
+	 */
+	public T getNextInputSplit(final AbstractInstance instance) {
+
+		T split = getNextLocalInputSplit(instance);
+		if (split != null) {
+			return split;
+		}
+
+		split = claim(this.unlocatedSplits);
+		if (split != null) {
+			return split;
+		}
+
+		// Steal from the host with the most remaining splits, it is the least likely to run out of local work
+		while (this.remainingSplits.get() > 0) {
+
+			HostQueue<T> victim = null;
+			int maxRemaining = 0;
+			for (final HostQueue<T> queue : this.hostQueues.values()) {
+				final int remaining = queue.remaining.get();
+				if (remaining > maxRemaining) {
+					maxRemaining = remaining;
+					victim = queue;
+				}
+			}
+
+			if (victim != null) {
+				split = claim(victim.splits);
+				if (split != null) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug(instance + " receives remote input split " + split.getSplitNumber() + " from "
+							+ victim.hostName);
+					}
+					return split;
+				}
+			}
+
+			// The counters may lag behind concurrent claims, so look at every queue before giving up
+			split = claim(this.unlocatedSplits);
+			if (split != null) {
+				return split;
+			}
+
+			for (final HostQueue<T> queue : this.hostQueues.values()) {
+				split = claim(queue.splits);
+				if (split != null) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug(instance + " receives remote input split " + split.getSplitNumber() + " from "
+							+ queue.hostName);
+					}
+					return split;
+				}
+			}
+
+			// All queues are empty, so the remaining splits have been polled by other instances which are about to
+			// claim them. Only return once they are accounted for, a split must never be left unassigned.
+			Thread.yield();
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the next input split which is stored on the host of the given instance.
+	 *
+	 * @param instance
+	 *        the instance requesting the next input split
+	 * @return the next local input split or <code>null</code> if no unconsumed split is stored on the instance's host
+	 */
+	public T getNextLocalInputSplit(final AbstractInstance instance) {
+
+		final List<HostQueue<T>> queues = getInstanceQueues(instance);
+		for (int i = 0; i < queues.size(); ++i) {
+			final T split = claim(queues.get(i).splits);
+			if (split != null) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug(instance + " receives local input split " + split.getSplitNumber());
+				}
+				return split;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the number of input splits which have not been assigned yet.
+	 *
+	 * @return the number of input splits which have not been assigned yet
+	 */
+	public int getNumberOfRemainingSplits() {
+
+		return this.remainingSplits.get();
+	}
+
+	/**
+	 * Polls the given queue until it finds a split which has not been claimed yet and claims it.
+	 *
+	 * @param queue
+	 *        the queue to poll
+	 * @return the claimed split or <code>null</code> if the queue contains no unclaimed split
+	 */
+	private T claim(final Queue<IndexedSplit<T>> queue) {
+
+		IndexedSplit<T> candidate;
+		while ((candidate = queue.poll()) != null) {
+
+			if (candidate.assigned.compareAndSet(false, true)) {
+
+				this.remainingSplits.decrementAndGet();
+				if (candidate.hostNames != null) {
+					for (int i = 0; i < candidate.hostNames.length; ++i) {
+						final HostQueue<T> hostQueue = this.hostQueues.get(normalize(candidate.hostNames[i]));
+						if (hostQueue != null) {
+							hostQueue.remaining.decrementAndGet();
+						}
+					}
+				}
+
+				return candidate.split;
+			}
+		}
+
+		return null;
+	}
+
+	private HostQueue<T> getOrCreateHostQueue(final String hostName) {
+
+		final String key = normalize(hostName);
+		HostQueue<T> queue = this.hostQueues.get(key);
+		if (queue == null) {
+			queue = new HostQueue<T>(key);
+			final HostQueue<T> previous = this.hostQueues.putIfAbsent(key, queue);
+			if (previous != null) {
+				queue = previous;
+			} else {
+				// The new host may be local to an instance which has already requested splits
+				this.instanceQueues.clear();
+			}
+		}
+
+		return queue;
+	}
+
+	/**
+	 * Returns the host queues which are local to the given instance. An instance may be known under its host name,
+	 * its fully qualified domain name and its IP address.
+	 */
+	private List<HostQueue<T>> getInstanceQueues(final AbstractInstance instance) {
+
+		List<HostQueue<T>> queues = this.instanceQueues.get(instance);
+		if (queues == null) {
+
+			queues = new ArrayList<HostQueue<T>>(2);
+			final InstanceConnectionInfo ici = instance.getInstanceConnectionInfo();
+			addHostQueue(queues, ici.hostname());
+			if (ici.domainName() != null) {
+				addHostQueue(queues, ici.hostname() + '.' + ici.domainName());
+			}
+			if (ici.address() != null) {
+				addHostQueue(queues, ici.address().getHostAddress());
+			}
+
+			this.instanceQueues.put(instance, queues);
+		}
+
+		return queues;
+	}
+
+	private void addHostQueue(final List<HostQueue<T>> queues, final String hostName) {
+
+		if (hostName == null) {
+			return;
+		}
+
+		final HostQueue<T> queue = this.hostQueues.get(normalize(hostName));
+		if (queue != null && !queues.contains(queue)) {
+			queues.add(queue);
+		}
+	}
+
+	private static String normalize(final String hostName) {
+		return hostName.toLowerCase(Locale.ENGLISH);
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * An input split together with its storage locations and its assignment flag.
+	 */
+	private static final class IndexedSplit<T> {
+
+		private final T split;
+
+		private final String[] hostNames;
+
+		private final AtomicBoolean assigned = new AtomicBoolean(false);
+
+		private IndexedSplit(final T split, final String[] hostNames) {
+			this.split = split;
+			this.hostNames = hostNames;
+		}
+	}
+
+	/**
+	 * The splits stored on a single host.
+	 */
+	private static final class HostQueue<T> {
+
+		private final String hostName;
+
+		private final Queue<IndexedSplit<T>> splits = new ConcurrentLinkedQueue<IndexedSplit<T>>();
+
+		/**
+		 * The number of splits in the queue which have not been claimed yet.
+		 */
+		private final AtomicInteger remaining = new AtomicInteger(0);
+
+		private HostQueue(final String hostName) {
+			this.hostName = hostName;
+		}
+	}
+}
@@ -13,8 +13,10 @@
 
 package eu.stratosphere.nephele.jobmanager.splitassigner;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -25,6 +27,7 @@ import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.fs.FileInputSplit;
 import eu.stratosphere.core.io.GenericInputSplit;
 import eu.stratosphere.core.io.InputSplit;
+import eu.stratosphere.core.io.LocatableInputSplit;
 import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
 import eu.stratosphere.nephele.executiongraph.ExecutionGroupVertex;
 import eu.stratosphere.nephele.executiongraph.ExecutionGroupVertexIterator;
@@ -178,23 +181,103 @@ public final class InputSplitManager {
 			return nextInputSplit;
 		}
 
-		final ExecutionGroupVertex groupVertex = vertex.getGroupVertex();
-		final InputSplitAssigner inputSplitAssigner = this.assignerCache.get(groupVertex);
+		final InputSplitAssigner inputSplitAssigner = getAssigner(vertex);
 		if (inputSplitAssigner == null) {
-			final JobID jobID = groupVertex.getExecutionStage().getExecutionGraph().getJobID();
-			LOG.error("Cannot find input assigner for group vertex " + groupVertex.getName() + " (job " + jobID + ")");
 			return null;
 		}
 
 		nextInputSplit = inputSplitAssigner.getNextInputSplit(vertex);
 		if (nextInputSplit != null) {
 			this.inputSplitTracker.addInputSplitToLog(vertex, sequenceNumber, nextInputSplit);
-			LOG.info(vertex + " receives input split " + nextInputSplit.getSplitNumber());
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(vertex + " receives input split " + nextInputSplit.getSplitNumber());
+			}
 		}
 
 		return nextInputSplit;
 	}
 
+	/**
+	 * Returns a batch of input splits for the given vertex to consume. The first split of the batch is chosen like
+	 * the split returned by {@link #getNextInputSplit(ExecutionVertex, int)}. The batch is only filled up with further
+	 * splits if the responsible {@link InputSplitAssigner} is a {@link LocalityAwareInputSplitAssigner} and has splits
+	 * left which are local to the vertex. The splits of the batch are logged under consecutive sequence numbers.
+	 * 
+	 * @param vertex
+	 *        the vertex for which the next input splits are to be determined
+	 * @param sequenceNumber
+	 *        the sequence number of the first split of the batch
+	 * @param maxNumberOfSplits
+	 *        the maximum number of splits in the batch
+	 * @return the next input splits to consume, an empty list if the vertex shall consume no more input splits
+	 */
+	public List<InputSplit> getNextInputSplits(final ExecutionVertex vertex, final int sequenceNumber,
+			final int maxNumberOfSplits) {
+
+		final List<InputSplit> inputSplits = new ArrayList<InputSplit>();
+
+		// Replay the splits the vertex has already received before it was restarted
+		while (inputSplits.size() < maxNumberOfSplits) {
+			final InputSplit inputSplit = this.inputSplitTracker.getInputSplitFromLog(vertex, sequenceNumber
+				+ inputSplits.size());
+			if (inputSplit == null) {
+				break;
+			}
+			inputSplits.add(inputSplit);
+		}
+
+		if (!inputSplits.isEmpty()) {
+			LOG.info(inputSplits.size() + " input splits for vertex " + vertex + " replayed from log");
+			return inputSplits;
+		}
+
+		final InputSplit first = getNextInputSplit(vertex, sequenceNumber);
+		if (first == null) {
+			return inputSplits;
+		}
+		inputSplits.add(first);
+
+		final InputSplitAssigner inputSplitAssigner = getAssigner(vertex);
+		if (!(inputSplitAssigner instanceof LocalityAwareInputSplitAssigner)) {
+			return inputSplits;
+		}
+
+		final LocalityAwareInputSplitAssigner localAssigner = (LocalityAwareInputSplitAssigner) inputSplitAssigner;
+		while (inputSplits.size() < maxNumberOfSplits) {
+			final InputSplit inputSplit = localAssigner.getNextLocalInputSplit(vertex);
+			if (inputSplit == null) {
+				break;
+			}
+			this.inputSplitTracker.addInputSplitToLog(vertex, sequenceNumber + inputSplits.size(), inputSplit);
+			inputSplits.add(inputSplit);
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(vertex + " receives " + inputSplits.size() + " input splits");
+		}
+
+		return inputSplits;
+	}
+
+	/**
+	 * Returns the {@link InputSplitAssigner} the group vertex of the given vertex has been registered with.
+	 * 
+	 * @param vertex
+	 *        the vertex to return the input split assigner for
+	 * @return the input split assigner or <code>null</code> if the vertex's group vertex is not registered
+	 */
+	private InputSplitAssigner getAssigner(final ExecutionVertex vertex) {
+
+		final ExecutionGroupVertex groupVertex = vertex.getGroupVertex();
+		final InputSplitAssigner inputSplitAssigner = this.assignerCache.get(groupVertex);
+		if (inputSplitAssigner == null) {
+			final JobID jobID = groupVertex.getExecutionStage().getExecutionGraph().getJobID();
+			LOG.error("Cannot find input assigner for group vertex " + groupVertex.getName() + " (job " + jobID + ")");
+		}
+
+		return inputSplitAssigner;
+	}
+
 	/**
 	 * Returns the {@link InputSplitAssigner} which is defined for the given type of input split.
 	 * 
@@ -247,12 +330,16 @@ public final class InputSplitManager {
 
 		String assignerClassName = GlobalConfiguration.getString(assignerKey, null);
 
-		// Provide hard-wired default configuration for FileInputSplit objects to make configuration more robust
+		// Provide hard-wired default configuration for FileInputSplit objects to make configuration more robust.
+		// Splits that carry host names are assigned with respect to their locations.
 		if (assignerClassName == null) {
 			if (FileInputSplit.class == inputSplitType) {
 				return new FileInputSplitAssigner();
 			}
-			else if (GenericInputSplit.class == inputSplitType) {
+			else if (LocatableInputSplit.class.isAssignableFrom(inputSplitType)) {
+				return new LocatableInputSplitAssigner();
+			}
+			else if (GenericInputSplit.class.isAssignableFrom(inputSplitType)) {
 				return new DefaultInputSplitAssigner();
 			}
 			else {
@@ -25,21 +25,26 @@ import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.util.StringUtils;
 
 /**
- * An input split wrapper object wraps an input split for RPC calls. In particular, the input split wrapper ensures that
- * the right class loader is used to instantiate the wrapped input split object.
+ * An input split wrapper object wraps one or more input splits for RPC calls. In particular, the input split wrapper
+ * ensures that the right class loader is used to instantiate the wrapped input split objects.
  * 
  */
 public final class InputSplitWrapper implements IOReadableWritable {
 
+	/**
+	 * Empty array to wrap if there is no input split.
+	 */
+	private static final InputSplit[] NO_SPLITS = new InputSplit[0];
+
 	/**
 	 * The ID of the job this input split belongs to.
 	 */
 	private JobID jobID;
 
 	/**
-	 * The wrapped input split.
+	 * The wrapped input splits.
 	 */
-	private InputSplit inputSplit = null;
+	private InputSplit[] inputSplits = NO_SPLITS;
 
 	/**
 	 * Constructs a new input split wrapper.
@@ -47,16 +52,31 @@ public final class InputSplitWrapper implements IOReadableWritable {
 	 * @param jobID
 	 *        the ID of the job the input split belongs to
 	 * @param inputSplit
-	 *        the input split to be wrapped
+	 *        the input split to be wrapped, possibly <code>null</code>
 	 */
 	public InputSplitWrapper(final JobID jobID, final InputSplit inputSplit) {
+		this(jobID, inputSplit == null ? NO_SPLITS : new InputSplit[] { inputSplit });
+	}
+
+	/**
+	 * Constructs a new input split wrapper for a batch of input splits.
+	 * 
+	 * @param jobID
+	 *        the ID of the job the input splits belong to
+	 * @param inputSplits
+	 *        the input splits to be wrapped
+	 */
+	public InputSplitWrapper(final JobID jobID, final InputSplit[] inputSplits) {
 
 		if (jobID == null) {
 			throw new IllegalArgumentException("Argument jobID must not be null");
 		}
+		if (inputSplits == null) {
+			throw new IllegalArgumentException("Argument inputSplits must not be null");
+		}
 
 		this.jobID = jobID;
-		this.inputSplit = inputSplit;
+		this.inputSplits = inputSplits;
 	}
 
 	/**
@@ -73,17 +93,16 @@ public final class InputSplitWrapper implements IOReadableWritable {
 		// Write the job ID
 		this.jobID.write(out);
 
-		if (this.inputSplit == null) {
-			out.writeBoolean(false);
-		} else {
+		out.writeInt(this.inputSplits.length);
+		for (int i = 0; i < this.inputSplits.length; ++i) {
 
-			out.writeBoolean(true);
+			final InputSplit inputSplit = this.inputSplits[i];
 
 			// Write the name of the class
-			StringRecord.writeString(out, this.inputSplit.getClass().getName());
+			StringRecord.writeString(out, inputSplit.getClass().getName());
 
 			// Write out the input split itself
-			this.inputSplit.write(out);
+			inputSplit.write(out);
 		}
 	}
 
@@ -95,13 +114,20 @@ public final class InputSplitWrapper implements IOReadableWritable {
 		// Read the job ID
 		this.jobID.read(in);
 
-		if (in.readBoolean()) {
+		final int numberOfSplits = in.readInt();
+		if (numberOfSplits == 0) {
+			this.inputSplits = NO_SPLITS;
+			return;
+		}
 
-			// Find class loader for this job
-			final ClassLoader cl = LibraryCacheManager.getClassLoader(this.jobID);
-			if (cl == null) {
-				throw new IOException("Cannot find class loader for job " + this.jobID);
-			}
+		// Find class loader for this job
+		final ClassLoader cl = LibraryCacheManager.getClassLoader(this.jobID);
+		if (cl == null) {
+			throw new IOException("Cannot find class loader for job " + this.jobID);
+		}
+
+		this.inputSplits = new InputSplit[numberOfSplits];
+		for (int i = 0; i < numberOfSplits; ++i) {
 
 			// Read the name of the class
 			final String className = StringRecord.readString(in);
@@ -115,7 +141,7 @@ public final class InputSplitWrapper implements IOReadableWritable {
 			}
 
 			try {
-				this.inputSplit = splitClass.newInstance();
+				this.inputSplits[i] = splitClass.newInstance();
 			} catch (InstantiationException e) {
 				throw new IOException(StringUtils.stringifyException(e));
 			} catch (IllegalAccessException e) {
@@ -123,20 +149,27 @@ public final class InputSplitWrapper implements IOReadableWritable {
 			}
 
 			// Read the input split itself
-			this.inputSplit.read(in);
-		} else {
-			this.inputSplit = null;
+			this.inputSplits[i].read(in);
 		}
 	}
 
 	/**
-	 * Returns the wrapped input split. The wrapped input split may also be <code>null</code> in case no more input
-	 * splits shall be consumed by the requesting task.
+	 * Returns the first wrapped input split.
 	 * 
-	 * @return the wrapped input split, possibly <code>null</code>
+	 * @return the first wrapped input split or <code>null</code> if the wrapper contains no input split
 	 */
 	public InputSplit getInputSplit() {
 
-		return this.inputSplit;
+		return this.inputSplits.length == 0 ? null : this.inputSplits[0];
+	}
+
+	/**
+	 * Returns all wrapped input splits.
+	 * 
+	 * @return the wrapped input splits, an empty array if the wrapper contains no input split
+	 */
+	public InputSplit[] getInputSplits() {
+
+		return this.inputSplits;
 	}
 }
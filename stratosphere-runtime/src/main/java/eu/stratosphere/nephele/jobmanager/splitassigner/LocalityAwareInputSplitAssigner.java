@@ -0,0 +1,38 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager.splitassigner;
+
+import eu.stratosphere.core.io.InputSplit;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
+
+/**
+ * An input split assigner which knows the storage locations of its input splits. The {@link InputSplitManager} uses
+ * it to hand out batches of input splits: besides the split returned by {@link #getNextInputSplit(ExecutionVertex)},
+ * a batch only contains splits which are local to the requesting vertex, so that prefetching does not withdraw splits
+ * from the vertices on the other hosts.
+ * 
+ */
+public interface LocalityAwareInputSplitAssigner extends InputSplitAssigner {
+
+	/**
+	 * Returns the next input split that shall be consumed by the given input vertex, provided that the split is
+	 * stored on the host the vertex runs on.
+	 * 
+	 * @param vertex
+	 *        the vertex for which the next local input split to be consumed shall be determined
+	 * @return the next local input split to be consumed or <code>null</code> if no unconsumed split is stored on the
+	 *         vertex's host
+	 */
+	InputSplit getNextLocalInputSplit(ExecutionVertex vertex);
+}
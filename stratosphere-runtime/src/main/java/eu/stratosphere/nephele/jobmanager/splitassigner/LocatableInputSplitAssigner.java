@@ -36,7 +36,7 @@ import eu.stratosphere.nephele.template.AbstractInvokable;
  * This class is thread-safe.
  * 
  */
-public final class LocatableInputSplitAssigner implements InputSplitAssigner {
+public final class LocatableInputSplitAssigner implements LocalityAwareInputSplitAssigner {
 
 	/**
 	 * The logging object which is used to report information and errors.
@@ -82,19 +82,15 @@ public final class LocatableInputSplitAssigner implements InputSplitAssigner {
 			return;
 		}
 
-		synchronized (splitStore) {
-
-			for (int i = 0; i < inputSplits.length; ++i) {
-				// TODO: Improve this
-				final InputSplit inputSplit = inputSplits[i];
-				if (!(inputSplit instanceof LocatableInputSplit)) {
-					LOG.error("Input split " + i + " of vertex " + groupVertex.getName() + " is of type "
-						+ inputSplit.getClass() + ", ignoring split...");
-					continue;
-				}
-				splitStore.addSplit((LocatableInputSplit) inputSplit);
+		for (int i = 0; i < inputSplits.length; ++i) {
+			// TODO: Improve this
+			final InputSplit inputSplit = inputSplits[i];
+			if (!(inputSplit instanceof LocatableInputSplit)) {
+				LOG.error("Input split " + i + " of vertex " + groupVertex.getName() + " is of type "
+					+ inputSplit.getClass() + ", ignoring split...");
+				continue;
 			}
-
+			splitStore.addSplit((LocatableInputSplit) inputSplit);
 		}
 	}
 
@@ -124,4 +120,21 @@ public final class LocatableInputSplitAssigner implements InputSplitAssigner {
 		return splitStore.getNextInputSplit(instance);
 	}
 
+
+	@Override
+	public InputSplit getNextLocalInputSplit(final ExecutionVertex vertex) {
+
+		final LocatableInputSplitList splitStore = this.vertexMap.get(vertex.getGroupVertex());
+		if (splitStore == null) {
+			return null;
+		}
+
+		final AbstractInstance instance = vertex.getAllocatedResource().getInstance();
+		if (instance == null) {
+			return null;
+		}
+
+		return splitStore.getNextLocalInputSplit(instance);
+	}
+
 }
@@ -13,194 +13,59 @@
 
 package eu.stratosphere.nephele.jobmanager.splitassigner;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
-
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
 import eu.stratosphere.core.io.LocatableInputSplit;
 import eu.stratosphere.nephele.instance.AbstractInstance;
 
 /**
  * The locatable input split list stores the locatable input splits for an input vertex that are still expected to be
- * consumed. Besides simply storing the splits, the locatable input split list also computes the distance all
- * {@link AbstractInstance} objects which request an input split and its nearest storage location with respect to the
- * underlying network topology. That way input splits are always given to consuming vertices in a way that data locality
- * is preserved as well as possible.
+ * consumed. The splits are indexed by the hosts that store them, so that an {@link AbstractInstance} requesting a
+ * split is served with a split from its own host whenever possible. Remote splits are only handed out once no local
+ * split is left (see {@link InputSplitHostIndex}).
  * <p>
- * This class is not thread-safe.
+ * This class is thread-safe.
  * 
  */
 public final class LocatableInputSplitList {
 
 	/**
-	 * The logging object which is used to report information and errors.
-	 */
-	private static final Log LOG = LogFactory.getLog(LocatableInputSplitList.class);
-
-	/**
-	 * The set containing all the locatable input splits that still must be consumed.
-	 */
-	private Set<LocatableInputSplit> masterSet = new HashSet<LocatableInputSplit>();
-
-	/**
-	 * The map caching the specific file input split lists for each {@link AbstractInstance}.
+	 * The index of the locatable input splits that still must be consumed.
 	 */
-	private Map<AbstractInstance, Queue<QueueElem>> instanceMap = new HashMap<AbstractInstance, Queue<QueueElem>>();
+	private final InputSplitHostIndex<LocatableInputSplit> index = new InputSplitHostIndex<LocatableInputSplit>();
 
 	/**
-	 * This is an auxiliary class to store the minimum distance between a file input split's storage locations and an
-	 * {@link AbstractInstance}.
+	 * Adds the given locatable input split to the set of locatable input splits to be consumed.
 	 * 
-	 */
-	private final class QueueElem implements Comparable<QueueElem> {
-
-		/**
-		 * The locatable input split the distance applies to.
-		 */
-		final LocatableInputSplit inputSplit;
-
-		/**
-		 * The minimum distance between the file input split's storage locations and the instance this object has been
-		 * created for.
-		 */
-		final int distance;
-
-		/**
-		 * Creates a new queue element.
-		 * 
-		 * @param inputSplit
-		 *        the locatable input split to be stored
-		 * @param distance
-		 *        the minimum distance between the stored input split's storage locations and the instance this object
-		 *        has been created for
-		 */
-		private QueueElem(final LocatableInputSplit inputSplit, final int distance) {
-			this.inputSplit = inputSplit;
-			this.distance = distance;
-		}
-
-		/**
-		 * Returns the locatable input split stored within this object.
-		 * 
-		 * @return the locatable input split
-		 */
-		private LocatableInputSplit getInputSplit() {
-			return this.inputSplit;
-		}
-
-		/**
-		 * {@inheritDoc}
-		 */
-		@Override
-		public int compareTo(final QueueElem o) {
-
-			return (this.distance - o.distance);
-		}
-
-	}
-
-	/**
-	 * Adds the given locate input split to the set of locatable input splits to be consumed.
-	 * 
-	 * @param locatableInputSplit
+	 * @param inputSplit
 	 *        the locatable input split to be added
 	 */
-	synchronized void addSplit(final LocatableInputSplit locatableInputSplit) {
+	void addSplit(final LocatableInputSplit inputSplit) {
 
-		this.masterSet.add(locatableInputSplit);
+		this.index.addSplit(inputSplit, inputSplit.getHostnames());
 	}
 
 	/**
-	 * Returns the next locatable input split to be consumed by the given instance. The returned input split is selected
-	 * in a
-	 * way that the distance between the split's storage location and the requesting {@link AbstractInstance} is as
-	 * short as possible.
+	 * Returns the next locatable input split to be consumed by the given instance. Splits stored on the instance's host
+	 * are preferred over splits stored on other hosts.
 	 * 
 	 * @param instance
-	 *        the instance requesting the next file input split
+	 *        the instance requesting the next locatable input split
 	 * @return the next input split to be consumed by the given instance or <code>null</code> if all input splits have
 	 *         already been consumed.
 	 */
-	synchronized LocatableInputSplit getNextInputSplit(final AbstractInstance instance) {
-
-		final Queue<QueueElem> instanceSplitList = getInstanceSplitList(instance);
-
-		while (true) {
-
-			final QueueElem candidate = instanceSplitList.poll();
-			if (candidate == null) {
-				return null;
-			}
-
-			if (this.masterSet.remove(candidate.getInputSplit())) {
-				if (LOG.isInfoEnabled()) {
-					if (candidate.distance == 0) {
-						LOG.info(instance + " receives local file input split");
-					} else {
-						LOG.info(instance + " receives remote file input split (distance " + candidate.distance + ")");
-					}
-				}
-				return candidate.getInputSplit();
-			}
+	LocatableInputSplit getNextInputSplit(final AbstractInstance instance) {
 
-			if (this.masterSet.isEmpty()) {
-				return null;
-			}
-		}
+		return this.index.getNextInputSplit(instance);
 	}
 
 	/**
-	 * Returns a list of locatable input splits specifically ordered for the given {@link AbstractInstance}. When the
-	 * list is initially created, it contains all the unconsumed located input splits at that point in time, ascendingly
-	 * ordered
-	 * by the minimum distance between the input splits' storage locations and the given {@link AbstractInstance}.
+	 * Returns the next locatable input split which is stored on the host of the given instance.
 	 * 
 	 * @param instance
-	 *        the instance for which the locatable input split list has been computed
-	 * @return the list of file input splits ordered specifically for the given instance
+	 *        the instance requesting the next locatable input split
+	 * @return the next local input split or <code>null</code> if no unconsumed split is stored on the instance's host
 	 */
-	private Queue<QueueElem> getInstanceSplitList(final AbstractInstance instance) {
-
-		Queue<QueueElem> instanceSplitList = this.instanceMap.get(instance);
-		if (instanceSplitList == null) {
-
-			// Create and populate instance specific split list
-			instanceSplitList = new PriorityQueue<LocatableInputSplitList.QueueElem>();
-			final Iterator<LocatableInputSplit> it = this.masterSet.iterator();
-			while (it.hasNext()) {
-
-				final LocatableInputSplit split = it.next();
-				final String[] hostnames = split.getHostnames();
-				if (hostnames == null) {
-					instanceSplitList.add(new QueueElem(split, Integer.MAX_VALUE));
-
-				} else {
-
-					int minDistance = Integer.MAX_VALUE;
-					for (int i = 0; i < hostnames.length; ++i) {
-						final int distance = instance.getDistance(hostnames[i]);
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("Distance between " + instance + " and " + hostnames[i] + " is " + distance);
-						}
-						if (distance < minDistance) {
-							minDistance = distance;
-						}
-					}
-
-					instanceSplitList.add(new QueueElem(split, minDistance));
-				}
-			}
-
-			this.instanceMap.put(instance, instanceSplitList);
-		}
+	LocatableInputSplit getNextLocalInputSplit(final AbstractInstance instance) {
 
-		return instanceSplitList;
+		return this.index.getNextLocalInputSplit(instance);
 	}
 }
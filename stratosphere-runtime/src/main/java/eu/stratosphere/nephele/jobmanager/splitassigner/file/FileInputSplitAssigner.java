@@ -24,7 +24,7 @@ import eu.stratosphere.core.io.InputSplit;
 import eu.stratosphere.nephele.executiongraph.ExecutionGroupVertex;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
 import eu.stratosphere.nephele.instance.AbstractInstance;
-import eu.stratosphere.nephele.jobmanager.splitassigner.InputSplitAssigner;
+import eu.stratosphere.nephele.jobmanager.splitassigner.LocalityAwareInputSplitAssigner;
 import eu.stratosphere.nephele.template.AbstractInputTask;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 
@@ -37,7 +37,7 @@ import eu.stratosphere.nephele.template.AbstractInvokable;
  * This class is thread-safe.
  * 
  */
-public final class FileInputSplitAssigner implements InputSplitAssigner {
+public final class FileInputSplitAssigner implements LocalityAwareInputSplitAssigner {
 
 	/**
 	 * The logging object which is used to report information and errors.
@@ -83,19 +83,15 @@ public final class FileInputSplitAssigner implements InputSplitAssigner {
 			return;
 		}
 
-		synchronized (splitStore) {
-
-			for (int i = 0; i < inputSplits.length; ++i) {
-				// TODO: Improve this
-				final InputSplit inputSplit = inputSplits[i];
-				if (!(inputSplit instanceof FileInputSplit)) {
-					LOG.error("Input split " + i + " of vertex " + groupVertex.getName() + " is of type "
-						+ inputSplit.getClass() + ", ignoring split...");
-					continue;
-				}
-				splitStore.addSplit((FileInputSplit) inputSplit);
+		for (int i = 0; i < inputSplits.length; ++i) {
+			// TODO: Improve this
+			final InputSplit inputSplit = inputSplits[i];
+			if (!(inputSplit instanceof FileInputSplit)) {
+				LOG.error("Input split " + i + " of vertex " + groupVertex.getName() + " is of type "
+					+ inputSplit.getClass() + ", ignoring split...");
+				continue;
 			}
-
+			splitStore.addSplit((FileInputSplit) inputSplit);
 		}
 	}
 
@@ -126,4 +122,21 @@ public final class FileInputSplitAssigner implements InputSplitAssigner {
 		return splitStore.getNextInputSplit(instance);
 	}
 
+
+	@Override
+	public InputSplit getNextLocalInputSplit(final ExecutionVertex vertex) {
+
+		final FileInputSplitList splitStore = this.vertexMap.get(vertex.getGroupVertex());
+		if (splitStore == null) {
+			return null;
+		}
+
+		final AbstractInstance instance = vertex.getAllocatedResource().getInstance();
+		if (instance == null) {
+			return null;
+		}
+
+		return splitStore.getNextLocalInputSplit(instance);
+	}
+
 }
@@ -13,192 +13,60 @@
 
 package eu.stratosphere.nephele.jobmanager.splitassigner.file;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.Set;
-
-import org.apache.commons.logging.Log;
-import org.apache.commons.logging.LogFactory;
-
 import eu.stratosphere.core.fs.FileInputSplit;
 import eu.stratosphere.nephele.instance.AbstractInstance;
+import eu.stratosphere.nephele.jobmanager.splitassigner.InputSplitHostIndex;
 
 /**
- * The file input split list stores the file input splits for an input vertex that are still expected to be consumed.
- * Besides simply storing the splits, the file input split list also computes the distance all {@link AbstractInstance}
- * objects which request a input split and its nearest storage location with respect to the underlying network topology.
- * That way input splits are always given to consuming vertices in a way that data locality is preserved as well as
- * possible.
+ * The file input split list stores the file input splits for an input vertex that are still expected to be
+ * consumed. The splits are indexed by the hosts that store them, so that an {@link AbstractInstance} requesting a
+ * split is served with a split from its own host whenever possible. Remote splits are only handed out once no local
+ * split is left (see {@link InputSplitHostIndex}).
  * <p>
- * This class is not thread-safe.
+ * This class is thread-safe.
  * 
  */
 public final class FileInputSplitList {
 
 	/**
-	 * The logging object which is used to report information and errors.
-	 */
-	private static final Log LOG = LogFactory.getLog(FileInputSplitList.class);
-
-	/**
-	 * The set containing all the file input splits that still must be consumed.
-	 */
-	private Set<FileInputSplit> masterSet = new HashSet<FileInputSplit>();
-
-	/**
-	 * The map caching the specific file input split lists for each {@link AbstractInstance}.
+	 * The index of the file input splits that still must be consumed.
 	 */
-	private Map<AbstractInstance, Queue<QueueElem>> instanceMap = new HashMap<AbstractInstance, Queue<QueueElem>>();
-
-	/**
-	 * This is an auxiliary class to store the minimum distance between a file input split's storage locations and an
-	 * {@link AbstractInstance}.
-	 * 
-	 */
-	private final class QueueElem implements Comparable<QueueElem> {
-
-		/**
-		 * The file input split the distance applies to.
-		 */
-		final FileInputSplit inputSplit;
-
-		/**
-		 * The minimum distance between the file input split's storage locations and the instance this object has been
-		 * created for.
-		 */
-		final int distance;
-
-		/**
-		 * Creates a new queue element.
-		 * 
-		 * @param inputSplit
-		 *        the file input split to be stored
-		 * @param distance
-		 *        the minimum distance between the stored input split's storage locations and the instance this object
-		 *        has been created for
-		 */
-		private QueueElem(final FileInputSplit inputSplit, final int distance) {
-			this.inputSplit = inputSplit;
-			this.distance = distance;
-		}
-
-		/**
-		 * Returns the file input split stored within this object.
-		 * 
-		 * @return the file input split
-		 */
-		private FileInputSplit getInputSplit() {
-			return this.inputSplit;
-		}
-
-		/**
-		 * {@inheritDoc}
-		 */
-		@Override
-		public int compareTo(final QueueElem o) {
-
-			return (this.distance - o.distance);
-		}
-
-	}
+	private final InputSplitHostIndex<FileInputSplit> index = new InputSplitHostIndex<FileInputSplit>();
 
 	/**
 	 * Adds the given file input split to the set of file input splits to be consumed.
 	 * 
-	 * @param fileInputSplit
+	 * @param inputSplit
 	 *        the file input split to be added
 	 */
-	synchronized void addSplit(final FileInputSplit fileInputSplit) {
+	void addSplit(final FileInputSplit inputSplit) {
 
-		this.masterSet.add(fileInputSplit);
+		this.index.addSplit(inputSplit, inputSplit.getHostNames());
 	}
 
 	/**
-	 * Returns the next file input split to be consumed by the given instance. The returned input split is selected in a
-	 * way that the distance between the split's storage location and the requesting {@link AbstractInstance} is as
-	 * short as possible.
+	 * Returns the next file input split to be consumed by the given instance. Splits stored on the instance's host
+	 * are preferred over splits stored on other hosts.
 	 * 
 	 * @param instance
 	 *        the instance requesting the next file input split
 	 * @return the next input split to be consumed by the given instance or <code>null</code> if all input splits have
 	 *         already been consumed.
 	 */
-	synchronized FileInputSplit getNextInputSplit(final AbstractInstance instance) {
-
-		final Queue<QueueElem> instanceSplitList = getInstanceSplitList(instance);
-
-		while (true) {
-
-			final QueueElem candidate = instanceSplitList.poll();
-			if (candidate == null) {
-				return null;
-			}
-
-			if (this.masterSet.remove(candidate.getInputSplit())) {
-				if (LOG.isInfoEnabled()) {
-					if (candidate.distance == 0) {
-						LOG.info(instance + " receives local file input split");
-					} else {
-						LOG.info(instance + " receives remote file input split (distance " + candidate.distance + ")");
-					}
-				}
-				return candidate.getInputSplit();
-			}
+	FileInputSplit getNextInputSplit(final AbstractInstance instance) {
 
-			if (this.masterSet.isEmpty()) {
-				return null;
-			}
-		}
+		return this.index.getNextInputSplit(instance);
 	}
 
 	/**
-	 * Returns a list of file input splits specifically ordered for the given {@link AbstractInstance}. When the list is
-	 * initially created, it contains all the unconsumed file input splits at that point in time, ascendingly ordered by
-	 * the minimum distance between the input splits' storage locations and the given {@link AbstractInstance}.
+	 * Returns the next file input split which is stored on the host of the given instance.
 	 * 
 	 * @param instance
-	 *        the instance for which the file input split list has been computed
-	 * @return the list of file input splits ordered specifically for the given instance
+	 *        the instance requesting the next file input split
+	 * @return the next local input split or <code>null</code> if no unconsumed split is stored on the instance's host
 	 */
-	private Queue<QueueElem> getInstanceSplitList(final AbstractInstance instance) {
-
-		Queue<QueueElem> instanceSplitList = this.instanceMap.get(instance);
-		if (instanceSplitList == null) {
-
-			// Create and populate instance specific split list
-			instanceSplitList = new PriorityQueue<FileInputSplitList.QueueElem>();
-			final Iterator<FileInputSplit> it = this.masterSet.iterator();
-			while (it.hasNext()) {
-
-				final FileInputSplit split = it.next();
-				final String[] hostNames = split.getHostNames();
-				if (hostNames == null) {
-					instanceSplitList.add(new QueueElem(split, Integer.MAX_VALUE));
-
-				} else {
-
-					int minDistance = Integer.MAX_VALUE;
-					for (int i = 0; i < hostNames.length; ++i) {
-						final int distance = instance.getDistance(hostNames[i]);
-						if (LOG.isDebugEnabled()) {
-							LOG.debug("Distance between " + instance + " and " + hostNames[i] + " is " + distance);
-						}
-						if (distance < minDistance) {
-							minDistance = distance;
-						}
-					}
-
-					instanceSplitList.add(new QueueElem(split, minDistance));
-				}
-			}
-
-			this.instanceMap.put(instance, instanceSplitList);
-		}
+	FileInputSplit getNextLocalInputSplit(final AbstractInstance instance) {
 
-		return instanceSplitList;
+		return this.index.getNextLocalInputSplit(instance);
 	}
 }
@@ -439,6 +439,32 @@ public class JobmanagerInfoServlet extends HttpServlet {
 			
 			wrt.write("]");
 			
+			wrt.write(",\"vertexactivity\": [");
+			
+			// the most recent activity of the job's vertices
+			ManagementGraph jobManagementGraph = jobmanager.getManagementGraph(jobId);
+			first = true;
+			if(jobManagementGraph != null) {
+				ManagementGraphIterator it = new ManagementGraphIterator(jobManagementGraph, true);
+				while(it.hasNext()) {
+					ManagementVertex vertex = it.next();
+					
+					if(first) {
+						first = false;
+					} else {
+						wrt.write(","); }
+					
+					wrt.write("{");
+					wrt.write("\"vertexid\": \"" + vertex.getID() + "\",");
+					wrt.write("\"busy\": " + vertex.getBusyRatio() + ",");
+					wrt.write("\"backpressure\": " + vertex.getBackPressureRatio() + ",");
+					wrt.write("\"idle\": " + vertex.getIdleRatio());
+					wrt.write("}");
+				}
+			}
+			
+			wrt.write("]");
+			
 			wrt.write("}");
 			
 		
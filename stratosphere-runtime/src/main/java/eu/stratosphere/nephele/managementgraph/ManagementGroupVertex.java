@@ -434,11 +434,20 @@ public final class ManagementGroupVertex extends ManagementAttachment implements
 			stateCounts.put(state, new Integer(0));
 		}
 		
+		// Sum up the activity of the group members
+		float busy = 0.0f;
+		float backPressure = 0.0f;
+		float idle = 0.0f;
+		
 		for(int j = 0; j < this.getNumberOfGroupMembers(); j++) {
 			ManagementVertex vertex = this.getGroupMember(j);
 			
 			json.append(vertex.toJson());
 			
+			busy += vertex.getBusyRatio();
+			backPressure += vertex.getBackPressureRatio();
+			idle += vertex.getIdleRatio();
+			
 			// print delimiter
 			if(j != this.getNumberOfGroupMembers() - 1) {
 				json.append(",");
@@ -472,6 +481,12 @@ public final class ManagementGroupVertex extends ManagementAttachment implements
 			json.append(",\""+stateCount.getKey()+"\": " + stateCount.getValue());
 		}
 		
+		// average activity of the group members
+		final int members = Math.max(1, this.getNumberOfGroupMembers());
+		json.append(",\"busy\": " + (busy / members));
+		json.append(",\"backpressure\": " + (backPressure / members));
+		json.append(",\"idle\": " + (idle / members));
+		
 		json.append("}");
 		
 		return json.toString();
@@ -79,6 +79,21 @@ public final class ManagementVertex extends ManagementAttachment implements IORe
 	 */
 	private String optMessage;
 
+	/**
+	 * The fraction of the most recent sampling interval the vertex has been busy.
+	 */
+	private float busyRatio;
+
+	/**
+	 * The fraction of the most recent sampling interval the vertex has waited for empty output buffers.
+	 */
+	private float backPressureRatio;
+
+	/**
+	 * The fraction of the most recent sampling interval the vertex has waited for input.
+	 */
+	private float idleRatio;
+
 	/**
 	 * Constructs a new management vertex.
 	 * 
@@ -294,6 +309,51 @@ public final class ManagementVertex extends ManagementAttachment implements IORe
 		return this.optMessage;
 	}
 
+	/**
+	 * Sets the activity of the vertex during the most recent sampling interval.
+	 * 
+	 * @param busyRatio
+	 *        the fraction of the interval the vertex has been busy
+	 * @param backPressureRatio
+	 *        the fraction of the interval the vertex has waited for empty output buffers
+	 * @param idleRatio
+	 *        the fraction of the interval the vertex has waited for input
+	 */
+	public void setActivity(final float busyRatio, final float backPressureRatio, final float idleRatio) {
+		this.busyRatio = busyRatio;
+		this.backPressureRatio = backPressureRatio;
+		this.idleRatio = idleRatio;
+	}
+
+	/**
+	 * Returns the fraction of the most recent sampling interval the vertex has been busy.
+	 * 
+	 * @return the fraction of the most recent sampling interval the vertex has been busy
+	 */
+	public float getBusyRatio() {
+		return this.busyRatio;
+	}
+
+	/**
+	 * Returns the fraction of the most recent sampling interval the vertex has waited for empty output buffers. A
+	 * high ratio indicates that the consumers of the vertex are the bottleneck.
+	 * 
+	 * @return the fraction of the most recent sampling interval the vertex has waited for empty output buffers
+	 */
+	public float getBackPressureRatio() {
+		return this.backPressureRatio;
+	}
+
+	/**
+	 * Returns the fraction of the most recent sampling interval the vertex has waited for input. A high ratio
+	 * indicates that the producers of the vertex are the bottleneck.
+	 * 
+	 * @return the fraction of the most recent sampling interval the vertex has waited for input
+	 */
+	public float getIdleRatio() {
+		return this.idleRatio;
+	}
+
 
 	@Override
 	public void read(final DataInput in) throws IOException {
@@ -315,6 +375,10 @@ public final class ManagementVertex extends ManagementAttachment implements IORe
 
 		this.instanceName = StringRecord.readString(in);
 		this.instanceType = StringRecord.readString(in);
+
+		this.busyRatio = in.readFloat();
+		this.backPressureRatio = in.readFloat();
+		this.idleRatio = in.readFloat();
 	}
 
 
@@ -332,6 +396,10 @@ public final class ManagementVertex extends ManagementAttachment implements IORe
 
 		StringRecord.writeString(out, this.instanceName);
 		StringRecord.writeString(out, this.instanceType);
+
+		out.writeFloat(this.busyRatio);
+		out.writeFloat(this.backPressureRatio);
+		out.writeFloat(this.idleRatio);
 	}
 	
 	@Override
@@ -351,7 +419,10 @@ public final class ManagementVertex extends ManagementAttachment implements IORe
 		json.append("\"vertexname\": \"" + StringUtils.escapeHtml(this.toString()) + "\",");
 		json.append("\"vertexstatus\": \"" + this.getExecutionState() + "\",");
 		json.append("\"vertexinstancename\": \"" + this.getInstanceName() + "\",");
-		json.append("\"vertexinstancetype\": \"" + this.getInstanceType() + "\"");
+		json.append("\"vertexinstancetype\": \"" + this.getInstanceType() + "\",");
+		json.append("\"busy\": " + this.busyRatio + ",");
+		json.append("\"backpressure\": " + this.backPressureRatio + ",");
+		json.append("\"idle\": " + this.idleRatio);
 		json.append("}");
 		return json.toString();
 	}
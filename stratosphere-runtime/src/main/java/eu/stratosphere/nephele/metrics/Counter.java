@@ -0,0 +1,103 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter is a monotonic sum which can be updated concurrently by many threads at low cost. Instead of a single
+ * atomic value, the counter maintains several cells, each on a cache line of its own, and a thread only updates the
+ * cell its ID maps to. Threads updating the counter concurrently therefore rarely contend for the same cache line.
+ * Reading the counter sums up the cells, so reads are more expensive than updates.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class Counter {
+
+	/**
+	 * The number of longs between two cells, so that each cell occupies a cache line of its own.
+	 */
+	private static final int PADDING = 8;
+
+	/**
+	 * The number of cells, a power of two.
+	 */
+	static final int NUMBER_OF_CELLS = numberOfCells();
+
+	/**
+	 * The padded cells.
+	 */
+	private final AtomicLongArray cells = new AtomicLongArray(NUMBER_OF_CELLS * PADDING);
+
+	/**
+	 * Increments the counter by one.
+	 */
+	public void inc() {
+
+		this.cells.getAndIncrement(cell() * PADDING);
+	}
+
+	/**
+	 * Increments the counter by the given amount.
+	 *
+	 * @param delta
+	 *        the amount to add to the counter
+	 */
+	public void add(final long delta) {
+
+		this.cells.getAndAdd(cell() * PADDING, delta);
+	}
+
+	/**
+	 * Returns the current value of the counter. Updates which happen concurrently may or may not be reflected in the
+	 * returned value.
+	 *
+	 * @return the current value of the counter
+	 */
+	public long get() {
+
+		long sum = 0L;
+		for (int i = 0; i < NUMBER_OF_CELLS; ++i) {
+			sum += this.cells.get(i * PADDING);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Returns the cell the current thread updates.
+	 *
+	 * @return the cell the current thread updates, between 0 and {@link #NUMBER_OF_CELLS} (exclusive)
+	 */
+	static int cell() {
+
+		// Spread the sequential thread IDs over the cells
+		final long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+
+		return (int) (id >>> 32) & (NUMBER_OF_CELLS - 1);
+	}
+
+	private static int numberOfCells() {
+
+		final int processors = Runtime.getRuntime().availableProcessors();
+
+		return Math.min(64, Integer.highestOneBit(Math.max(1, 2 * processors - 1)) << 1);
+	}
+
+	@Override
+	public String toString() {
+
+		return Long.toString(get());
+	}
+}
@@ -0,0 +1,30 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.metrics;
+
+/**
+ * A gauge reports the current value of a quantity which is maintained elsewhere, for example the number of free
+ * memory pages. Gauges are only evaluated when the metrics are read, so they add no cost to the hot paths.
+ * <p>
+ * Implementations must be thread-safe.
+ */
+public interface Gauge {
+
+	/**
+	 * Returns the current value of the gauge.
+	 *
+	 * @return the current value of the gauge
+	 */
+	long getValue();
+}
@@ -0,0 +1,192 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram records the distribution of non-negative values, for example durations in nanoseconds or sizes in
+ * bytes. Values are counted in buckets of exponentially growing width: bucket <code>i</code> holds the values between
+ * <code>2^(i-1)</code> and <code>2^i - 1</code>, and bucket 0 holds zero and negative values. Quantiles are therefore
+ * only accurate up to a factor of two, which is sufficient to spot skew and outliers.
+ * <p>
+ * Like a {@link Counter}, the histogram is striped over several cells, so concurrent updates are lock-free and rarely
+ * contend.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class Histogram {
+
+	/**
+	 * The number of buckets per cell.
+	 */
+	private static final int NUMBER_OF_BUCKETS = 65;
+
+	/**
+	 * The number of longs per cell: the buckets followed by the sum of the values, padded to whole cache lines.
+	 */
+	private static final int CELL_SIZE = 72;
+
+	/**
+	 * The offset of the sum of the values within a cell.
+	 */
+	private static final int SUM_OFFSET = NUMBER_OF_BUCKETS;
+
+	/**
+	 * The striped buckets and sums.
+	 */
+	private final AtomicLongArray cells = new AtomicLongArray(Counter.NUMBER_OF_CELLS * CELL_SIZE);
+
+	/**
+	 * The largest value recorded so far.
+	 */
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Records the given value.
+	 *
+	 * @param value
+	 *        the value to record
+	 */
+	public void update(final long value) {
+
+		final int base = Counter.cell() * CELL_SIZE;
+		this.cells.getAndIncrement(base + bucket(value));
+		this.cells.getAndAdd(base + SUM_OFFSET, value);
+
+		// The maximum only changes rarely, so reading it first avoids most of the write traffic
+		long current = this.max.get();
+		while (value > current) {
+			if (this.max.compareAndSet(current, value)) {
+				break;
+			}
+			current = this.max.get();
+		}
+	}
+
+	/**
+	 * Returns the number of values recorded so far.
+	 *
+	 * @return the number of values recorded so far
+	 */
+	public long getCount() {
+
+		long count = 0L;
+		for (int i = 0; i < NUMBER_OF_BUCKETS; ++i) {
+			count += getBucketCount(i);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Returns the sum of the values recorded so far.
+	 *
+	 * @return the sum of the values recorded so far
+	 */
+	public long getSum() {
+
+		long sum = 0L;
+		for (int i = 0; i < Counter.NUMBER_OF_CELLS; ++i) {
+			sum += this.cells.get(i * CELL_SIZE + SUM_OFFSET);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Returns the largest value recorded so far.
+	 *
+	 * @return the largest value recorded so far or 0 if no value has been recorded
+	 */
+	public long getMax() {
+
+		final long m = this.max.get();
+
+		return (m == Long.MIN_VALUE) ? 0L : m;
+	}
+
+	/**
+	 * Returns the mean of the values recorded so far.
+	 *
+	 * @return the mean of the values recorded so far or 0 if no value has been recorded
+	 */
+	public double getMean() {
+
+		final long count = getCount();
+
+		return (count == 0L) ? 0.0 : (double) getSum() / count;
+	}
+
+	/**
+	 * Returns an upper bound of the given quantile of the values recorded so far. The bound is at most twice the
+	 * exact quantile and never exceeds the largest recorded value.
+	 *
+	 * @param quantile
+	 *        the quantile between 0 and 1
+	 * @return an upper bound of the quantile or 0 if no value has been recorded
+	 */
+	public long getQuantile(final double quantile) {
+
+		if (quantile < 0.0 || quantile > 1.0) {
+			throw new IllegalArgumentException("Argument quantile must be between 0 and 1");
+		}
+
+		final long[] buckets = new long[NUMBER_OF_BUCKETS];
+		long count = 0L;
+		for (int i = 0; i < NUMBER_OF_BUCKETS; ++i) {
+			buckets[i] = getBucketCount(i);
+			count += buckets[i];
+		}
+
+		if (count == 0L) {
+			return 0L;
+		}
+
+		final long rank = Math.max(1L, (long) Math.ceil(quantile * count));
+		long seen = 0L;
+		for (int i = 0; i < NUMBER_OF_BUCKETS; ++i) {
+			seen += buckets[i];
+			if (seen >= rank) {
+				final long upperBound = (i == 0) ? 0L : (i == 64 ? Long.MAX_VALUE : (1L << i) - 1L);
+				return Math.min(upperBound, getMax());
+			}
+		}
+
+		return getMax();
+	}
+
+	private long getBucketCount(final int bucket) {
+
+		long count = 0L;
+		for (int i = 0; i < Counter.NUMBER_OF_CELLS; ++i) {
+			count += this.cells.get(i * CELL_SIZE + bucket);
+		}
+
+		return count;
+	}
+
+	private static int bucket(final long value) {
+
+		return (value <= 0L) ? 0 : 64 - Long.numberOfLeadingZeros(value);
+	}
+
+	@Override
+	public String toString() {
+
+		return "count=" + getCount() + ",mean=" + (long) getMean() + ",p99=" + getQuantile(0.99) + ",max="
+			+ getMax();
+	}
+}
@@ -0,0 +1,196 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The metric registry holds the {@link Counter}, {@link Gauge} and {@link Histogram} objects of a process. Since all
+ * tasks of a task manager run in the same process, the metrics are aggregated per task manager.
+ * <p>
+ * Components look up their metrics once, typically in a static field, and then update them directly. Updating a
+ * metric neither locks nor allocates, so metrics can be maintained on hot paths and remain enabled at all times. The
+ * registry is read by taking a {@link MetricsSnapshot}, either through JMX or periodically by the task manager.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class MetricRegistry {
+
+	/**
+	 * The log object used for debugging.
+	 */
+	private static final Log LOG = LogFactory.getLog(MetricRegistry.class);
+
+	/**
+	 * The name the registry is exported to JMX with.
+	 */
+	public static final String OBJECT_NAME = "eu.stratosphere:type=Metrics";
+
+	/**
+	 * The registry of this process.
+	 */
+	private static final MetricRegistry INSTANCE = new MetricRegistry();
+
+	/**
+	 * The counters by name.
+	 */
+	private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+	/**
+	 * The histograms by name.
+	 */
+	private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+
+	/**
+	 * The gauges by name.
+	 */
+	private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+
+	/**
+	 * Returns the metric registry of this process.
+	 *
+	 * @return the metric registry of this process
+	 */
+	public static MetricRegistry getInstance() {
+
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the counter with the given name, creating it if necessary.
+	 *
+	 * @param name
+	 *        the name of the counter
+	 * @return the counter with the given name
+	 */
+	public Counter counter(final String name) {
+
+		Counter counter = this.counters.get(name);
+		if (counter == null) {
+			counter = new Counter();
+			final Counter previous = this.counters.putIfAbsent(name, counter);
+			if (previous != null) {
+				counter = previous;
+			}
+		}
+
+		return counter;
+	}
+
+	/**
+	 * Returns the histogram with the given name, creating it if necessary.
+	 *
+	 * @param name
+	 *        the name of the histogram
+	 * @return the histogram with the given name
+	 */
+	public Histogram histogram(final String name) {
+
+		Histogram histogram = this.histograms.get(name);
+		if (histogram == null) {
+			histogram = new Histogram();
+			final Histogram previous = this.histograms.putIfAbsent(name, histogram);
+			if (previous != null) {
+				histogram = previous;
+			}
+		}
+
+		return histogram;
+	}
+
+	/**
+	 * Registers a gauge with the given name, replacing a gauge previously registered with the same name.
+	 *
+	 * @param name
+	 *        the name of the gauge
+	 * @param gauge
+	 *        the gauge to register
+	 */
+	public void register(final String name, final Gauge gauge) {
+
+		if (gauge == null) {
+			throw new IllegalArgumentException("Argument gauge must not be null");
+		}
+
+		this.gauges.put(name, gauge);
+	}
+
+	/**
+	 * Removes the gauge with the given name.
+	 *
+	 * @param name
+	 *        the name of the gauge to remove
+	 */
+	public void unregister(final String name) {
+
+		this.gauges.remove(name);
+	}
+
+	/**
+	 * Takes a snapshot of the current values of all metrics.
+	 *
+	 * @return a snapshot of the current values of all metrics
+	 */
+	public MetricsSnapshot snapshot() {
+
+		final MetricsSnapshot snapshot = new MetricsSnapshot(System.currentTimeMillis());
+
+		for (final Map.Entry<String, Counter> entry : this.counters.entrySet()) {
+			snapshot.put(entry.getKey(), entry.getValue().get());
+		}
+
+		for (final Map.Entry<String, Gauge> entry : this.gauges.entrySet()) {
+			snapshot.put(entry.getKey(), entry.getValue().getValue());
+		}
+
+		for (final Map.Entry<String, Histogram> entry : this.histograms.entrySet()) {
+			final Histogram histogram = entry.getValue();
+			snapshot.put(entry.getKey() + ".count", histogram.getCount());
+			snapshot.put(entry.getKey() + ".mean", (long) histogram.getMean());
+			snapshot.put(entry.getKey() + ".p99", histogram.getQuantile(0.99));
+			snapshot.put(entry.getKey() + ".max", histogram.getMax());
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * Exports the registry to the platform MBean server. Exporting the registry more than once has no effect.
+	 */
+	public void exportToJMX() {
+
+		try {
+			final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			final ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new MetricsMBean(this), name);
+			}
+		} catch (JMException e) {
+			// Another component may have exported the registry concurrently
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Cannot export metrics to JMX: " + e.getMessage());
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanConstructorInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/**
+ * This MBean exposes every metric of a {@link MetricRegistry} as a read-only attribute of type <code>long</code>.
+ * Since metrics are created lazily, the set of attributes grows while the task manager runs.
+ * <p>
+ * This class is thread-safe.
+ */
+final class MetricsMBean implements DynamicMBean {
+
+	/**
+	 * The registry whose metrics are exposed.
+	 */
+	private final MetricRegistry registry;
+
+	/**
+	 * Constructs a new MBean for the given registry.
+	 *
+	 * @param registry
+	 *        the registry whose metrics are exposed
+	 */
+	MetricsMBean(final MetricRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object getAttribute(final String attribute) throws AttributeNotFoundException {
+
+		final Long value = this.registry.snapshot().get(attribute);
+		if (value == null) {
+			throw new AttributeNotFoundException(attribute);
+		}
+
+		return value;
+	}
+
+	@Override
+	public AttributeList getAttributes(final String[] attributes) {
+
+		final MetricsSnapshot snapshot = this.registry.snapshot();
+		final AttributeList list = new AttributeList();
+		for (final String attribute : attributes) {
+			final Long value = snapshot.get(attribute);
+			if (value != null) {
+				list.add(new Attribute(attribute, value));
+			}
+		}
+
+		return list;
+	}
+
+	@Override
+	public void setAttribute(final Attribute attribute) throws AttributeNotFoundException {
+
+		throw new AttributeNotFoundException("Metric " + attribute.getName() + " is read-only");
+	}
+
+	@Override
+	public AttributeList setAttributes(final AttributeList attributes) {
+
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(final String actionName, final Object[] params, final String[] signature)
+			throws ReflectionException {
+
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+
+		final List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for (final Map.Entry<String, Long> entry : this.registry.snapshot().getValues().entrySet()) {
+			attributes.add(new MBeanAttributeInfo(entry.getKey(), "long", entry.getKey(), true, false, false));
+		}
+
+		return new MBeanInfo(getClass().getName(), "Runtime metrics of the task manager",
+			attributes.toArray(new MBeanAttributeInfo[attributes.size()]), new MBeanConstructorInfo[0],
+			new MBeanOperationInfo[0], new MBeanNotificationInfo[0]);
+	}
+}
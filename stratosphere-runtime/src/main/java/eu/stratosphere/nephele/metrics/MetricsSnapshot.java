@@ -0,0 +1,149 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.metrics;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.core.io.StringRecord;
+
+/**
+ * A metrics snapshot holds the values of all metrics of a {@link MetricRegistry} at one point in time as a flat,
+ * sorted map from names to longs. Histograms contribute several entries, suffixed with <code>.count</code>,
+ * <code>.mean</code>, <code>.p99</code> and <code>.max</code>.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class MetricsSnapshot implements IOReadableWritable {
+
+	/**
+	 * The values of the metrics by name.
+	 */
+	private final SortedMap<String, Long> values = new TreeMap<String, Long>();
+
+	/**
+	 * The time the snapshot has been taken at in milliseconds since the epoch.
+	 */
+	private long timestamp;
+
+	/**
+	 * Constructs a new snapshot taken at the given time.
+	 *
+	 * @param timestamp
+	 *        the time the snapshot has been taken at in milliseconds since the epoch
+	 */
+	MetricsSnapshot(final long timestamp) {
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Default constructor required by the serialization process.
+	 */
+	public MetricsSnapshot() {
+		this(0L);
+	}
+
+	/**
+	 * Sets the value of the metric with the given name.
+	 *
+	 * @param name
+	 *        the name of the metric
+	 * @param value
+	 *        the value of the metric
+	 */
+	void put(final String name, final long value) {
+
+		this.values.put(name, Long.valueOf(value));
+	}
+
+	/**
+	 * Returns the value of the metric with the given name.
+	 *
+	 * @param name
+	 *        the name of the metric
+	 * @return the value of the metric or <code>null</code> if the snapshot contains no metric with the given name
+	 */
+	public Long get(final String name) {
+
+		return this.values.get(name);
+	}
+
+	/**
+	 * Returns the values of all metrics in the snapshot, sorted by name.
+	 *
+	 * @return the values of all metrics in the snapshot
+	 */
+	public SortedMap<String, Long> getValues() {
+
+		return Collections.unmodifiableSortedMap(this.values);
+	}
+
+	/**
+	 * Returns the time the snapshot has been taken at.
+	 *
+	 * @return the time the snapshot has been taken at in milliseconds since the epoch
+	 */
+	public long getTimestamp() {
+
+		return this.timestamp;
+	}
+
+	@Override
+	public void write(final DataOutput out) throws IOException {
+
+		out.writeLong(this.timestamp);
+		out.writeInt(this.values.size());
+		for (final Map.Entry<String, Long> entry : this.values.entrySet()) {
+			StringRecord.writeString(out, entry.getKey());
+			out.writeLong(entry.getValue().longValue());
+		}
+	}
+
+	@Override
+	public void read(final DataInput in) throws IOException {
+
+		this.values.clear();
+		this.timestamp = in.readLong();
+		final int size = in.readInt();
+		for (int i = 0; i < size; ++i) {
+			final String name = StringRecord.readString(in);
+			this.values.put(name, Long.valueOf(in.readLong()));
+		}
+	}
+
+	@Override
+	public String toString() {
+
+		final StringBuilder sb = new StringBuilder();
+		final Iterator<Map.Entry<String, Long>> it = this.values.entrySet().iterator();
+		while (it.hasNext()) {
+			final Map.Entry<String, Long> entry = it.next();
+			sb.append(entry.getKey());
+			sb.append('=');
+			sb.append(entry.getValue());
+			if (it.hasNext()) {
+				sb.append(", ");
+			}
+		}
+
+		return sb.toString();
+	}
+}
@@ -44,4 +44,25 @@ public interface InputSplitProviderProtocol extends VersionedProtocol {
 	 */
 	InputSplitWrapper requestNextInputSplit(JobID jobID, ExecutionVertexID vertexID, IntegerRecord sequenceNumber)
 			throws IOException;
+
+	/**
+	 * Requests a batch of splits to be consumed by the task with the given execution vertex ID. Apart from the first
+	 * split, the batch only contains splits which are stored on the task's host.
+	 * 
+	 * @param jobID
+	 *        the ID of the job the task to retrieve the next input splits for belongs to
+	 * @param vertexID
+	 *        the ID of the task to retrieve the next input splits for
+	 * @param sequenceNumber
+	 *        the sequence number of the first requested split; the sequence numbers of the task's requests advance by
+	 *        the number of splits received
+	 * @param maxNumberOfSplits
+	 *        the maximum number of splits to return
+	 * @return a wrapper containing the next input splits. The wrapper contains no input split in case no more input
+	 *         splits shall be consumed by the task with the given execution vertex ID
+	 * @throws IOException
+	 *         thrown if an I/O error occurs while retrieving the new input splits
+	 */
+	InputSplitWrapper requestNextInputSplits(JobID jobID, ExecutionVertexID vertexID, IntegerRecord sequenceNumber,
+			IntegerRecord maxNumberOfSplits) throws IOException;
 }
@@ -18,6 +18,7 @@ import java.io.IOException;
 import eu.stratosphere.core.protocols.VersionedProtocol;
 import eu.stratosphere.nephele.instance.HardwareDescription;
 import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
+import eu.stratosphere.nephele.taskmanager.TaskActivityReport;
 import eu.stratosphere.nephele.taskmanager.TaskExecutionState;
 
 /**
@@ -50,4 +51,14 @@ public interface JobManagerProtocol extends VersionedProtocol {
 	 *         thrown if an error occurs during this remote procedure call
 	 */
 	void updateTaskExecutionState(TaskExecutionState taskExecutionState) throws IOException;
+
+	/**
+	 * Reports the recent activity of the tasks running on a task manager to the job manager.
+	 * 
+	 * @param taskActivityReport
+	 *        the activity samples of the tasks
+	 * @throws IOException
+	 *         thrown if an error occurs during this remote procedure call
+	 */
+	void reportTaskActivity(TaskActivityReport taskActivityReport) throws IOException;
 }
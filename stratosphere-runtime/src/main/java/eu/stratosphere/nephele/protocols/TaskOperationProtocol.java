@@ -18,7 +18,7 @@ import java.util.List;
 import java.util.Set;
 
 import eu.stratosphere.core.protocols.VersionedProtocol;
-import eu.stratosphere.nephele.deployment.TaskDeploymentDescriptor;
+import eu.stratosphere.nephele.deployment.TaskDeploymentBatch;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
 import eu.stratosphere.nephele.taskmanager.TaskKillResult;
 import eu.stratosphere.runtime.io.channels.ChannelID;
@@ -34,15 +34,16 @@ import eu.stratosphere.nephele.taskmanager.TaskSubmissionResult;
 public interface TaskOperationProtocol extends VersionedProtocol {
 
 	/**
-	 * Submits a list of tasks to the task manager.
+	 * Submits a batch of tasks to the task manager. The task manager sets up the tasks in parallel and starts them
+	 * once all of them have been registered.
 	 * 
 	 * @param tasks
 	 *        the tasks to be submitted
-	 * @return the result of the task submission
+	 * @return the results of the task submission, in the order of the submitted tasks
 	 * @throws IOException
 	 *         thrown if an error occurs during this remote procedure call
 	 */
-	List<TaskSubmissionResult> submitTasks(List<TaskDeploymentDescriptor> tasks) throws IOException;
+	List<TaskSubmissionResult> submitTasks(TaskDeploymentBatch tasks) throws IOException;
 
 	/**
 	 * Advises the task manager to cancel the task with the given ID.
@@ -14,11 +14,14 @@
 package eu.stratosphere.nephele.services.blob;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
 import java.net.URL;
-import java.util.Random;
+import java.util.Collection;
 
 import eu.stratosphere.configuration.ConfigConstants;
 import eu.stratosphere.configuration.GlobalConfiguration;
@@ -38,14 +41,14 @@ abstract class AbstractBaseImpl {
 	protected static final String BLOB_FILE_PREFIX = "blob_";
 
 	/**
-	 * The directory to store all the BLOBs in.
+	 * The file prefix for the temporary files of BLOBs which are being stored.
 	 */
-	protected final File storageDirectory;
+	protected static final String TEMP_FILE_PREFIX = "tmp-";
 
 	/**
-	 * A random number generated used to create unique temporary filenames.
+	 * The directory to store all the BLOBs in.
 	 */
-	private final Random rnd = new Random();
+	protected final File storageDirectory;
 
 	/**
 	 * Constructs a new object and initializes the BLOB storage directory.
@@ -55,6 +58,18 @@ abstract class AbstractBaseImpl {
 		this.storageDirectory = createStorageDirectory();
 	}
 
+	/**
+	 * Constructs a new object which stores its BLOBs in the given directory.
+	 * 
+	 * @param storageDirectory
+	 *        the directory to store the BLOBs in
+	 */
+	protected AbstractBaseImpl(final File storageDirectory) {
+
+		storageDirectory.mkdirs();
+		this.storageDirectory = storageDirectory;
+	}
+
 	/**
 	 * Stores the given byte buffer.
 	 * 
@@ -111,6 +126,75 @@ abstract class AbstractBaseImpl {
 	 */
 	abstract URL getURL(final BlobKey key) throws IOException;
 
+	/**
+	 * Opens the BLOB with the given key to serve the given byte range of it to a remote component.
+	 * 
+	 * @param key
+	 *        the key of the BLOB
+	 * @param offset
+	 *        the offset of the first byte of the range
+	 * @param length
+	 *        the length of the range in bytes
+	 * @return the opened BLOB, whose length is the total size of the BLOB, or <code>null</code> if the BLOB is not
+	 *         available
+	 * @throws IOException
+	 *         thrown if an I/O error occurs while opening the BLOB
+	 */
+	RandomAccessFile openRange(final BlobKey key, final long offset, final int length) throws IOException {
+
+		final File blob = getLocal(key);
+		if (blob == null) {
+			return null;
+		}
+
+		try {
+			return new RandomAccessFile(blob, "r");
+		} catch (FileNotFoundException fnfe) {
+			// The BLOB has been removed in the meantime
+			return null;
+		}
+	}
+
+	/**
+	 * Protects the BLOB with the given key from eviction. The default implementation never evicts BLOBs and
+	 * therefore ignores pins.
+	 * 
+	 * @param key
+	 *        the key of the BLOB to pin
+	 */
+	void pin(final BlobKey key) {
+	}
+
+	/**
+	 * Releases a pin of the BLOB with the given key. The default implementation never evicts BLOBs and therefore
+	 * ignores pins.
+	 * 
+	 * @param key
+	 *        the key of the BLOB to unpin
+	 */
+	void unpin(final BlobKey key) {
+	}
+
+	/**
+	 * Forgets the peers which hold the BLOBs with the given keys. Only the server component keeps track of peers, the
+	 * default implementation does nothing.
+	 * 
+	 * @param keys
+	 *        the keys of the BLOBs
+	 */
+	void removePeers(final Collection<BlobKey> keys) {
+	}
+
+	/**
+	 * Forgets all peers running on the given host. Only the server component keeps track of peers, the default
+	 * implementation does nothing.
+	 * 
+	 * @param host
+	 *        the address of the host
+	 */
+	void removePeerHost(final InetAddress host) {
+	}
+
 	/**
 	 * Shuts down the BLOB service.
 	 */
@@ -163,23 +247,16 @@ abstract class AbstractBaseImpl {
 	}
 
 	/**
-	 * Creates a temporary file in the storage directory. The name of the temporary file is guaranteed to be unique.
+	 * Creates a temporary file in the storage directory. The name of the temporary file is guaranteed to be unique,
+	 * also among several processes sharing the storage directory.
 	 * 
 	 * @return a temporary file in the storage directory
+	 * @throws IOException
+	 *         thrown if the temporary file cannot be created
 	 */
-	protected File createTempFile() {
-
-		synchronized (this.rnd) {
+	protected File createTempFile() throws IOException {
 
-			while (true) {
-
-				final int r = this.rnd.nextInt(10000);
-				final File tmpFile = new File(this.storageDirectory, String.format("tmp-%d", r));
-				if (!tmpFile.exists()) {
-					return tmpFile;
-				}
-			}
-		}
+		return File.createTempFile(TEMP_FILE_PREFIX, null, this.storageDirectory);
 	}
 
 	/**
@@ -0,0 +1,284 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.blob;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The BLOB cache index keeps track of the BLOBs stored in a persistent cache directory and evicts the least recently
+ * used ones once the cache exceeds its capacity. BLOBs which are pinned, for example because a class loader still
+ * refers to them, are never evicted.
+ * <p>
+ * The recency of the BLOBs is persisted through the modification time of their files, so the eviction order
+ * survives restarts of the process.
+ * <p>
+ * This class is thread-safe.
+ */
+final class BlobCacheIndex {
+
+	/**
+	 * The log object used for debugging.
+	 */
+	private static final Log LOG = LogFactory.getLog(BlobCacheIndex.class);
+
+	/**
+	 * The sizes of the cached BLOBs in bytes, in the order of their last access.
+	 */
+	private final LinkedHashMap<BlobKey, Long> entries = new LinkedHashMap<BlobKey, Long>(16, 0.75f, true);
+
+	/**
+	 * The number of pins of the BLOBs which must not be evicted.
+	 */
+	private final Map<BlobKey, Integer> pins = new HashMap<BlobKey, Integer>();
+
+	/**
+	 * The directory the BLOBs are stored in.
+	 */
+	private final File directory;
+
+	/**
+	 * The file name prefix of the BLOBs.
+	 */
+	private final String prefix;
+
+	/**
+	 * The maximum number of bytes to keep in the cache.
+	 */
+	private final long capacity;
+
+	/**
+	 * The listener to notify about evicted BLOBs, possibly <code>null</code>.
+	 */
+	private final EvictionListener listener;
+
+	/**
+	 * The number of bytes currently stored in the cache.
+	 */
+	private long size = 0L;
+
+	/**
+	 * Constructs a new index and registers the BLOBs already stored in the given directory.
+	 *
+	 * @param directory
+	 *        the directory the BLOBs are stored in
+	 * @param prefix
+	 *        the file name prefix of the BLOBs
+	 * @param capacity
+	 *        the maximum number of bytes to keep in the cache
+	 * @param listener
+	 *        the listener to notify about evicted BLOBs, possibly <code>null</code>
+	 */
+	BlobCacheIndex(final File directory, final String prefix, final long capacity, final EvictionListener listener) {
+
+		this.directory = directory;
+		this.prefix = prefix;
+		this.capacity = capacity;
+		this.listener = listener;
+
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		// Register the existing BLOBs from the least to the most recently used one
+		Arrays.sort(files, new Comparator<File>() {
+
+			@Override
+			public int compare(final File o1, final File o2) {
+				final long m1 = o1.lastModified();
+				final long m2 = o2.lastModified();
+				return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+			}
+		});
+
+		for (final File file : files) {
+			if (!file.getName().startsWith(prefix)) {
+				continue;
+			}
+			final BlobKey key = BlobKey.fromString(file.getName().substring(prefix.length()));
+			if (key != null) {
+				this.entries.put(key, Long.valueOf(file.length()));
+				this.size += file.length();
+			}
+		}
+
+		if (LOG.isInfoEnabled()) {
+			LOG.info("Found " + this.entries.size() + " cached BLOBs with " + this.size + " bytes in " + directory);
+		}
+
+		evict(null);
+	}
+
+	/**
+	 * Marks the BLOB with the given key as used. Returns whether the BLOB is contained in the cache.
+	 *
+	 * @param key
+	 *        the key of the BLOB
+	 * @return <code>true</code> if the BLOB is contained in the cache, <code>false</code> otherwise
+	 */
+	synchronized boolean touch(final BlobKey key) {
+
+		if (this.entries.get(key) == null) {
+			return false;
+		}
+
+		toFile(key).setLastModified(System.currentTimeMillis());
+
+		return true;
+	}
+
+	/**
+	 * Registers a BLOB which has just been stored in the cache directory and evicts other BLOBs if necessary.
+	 *
+	 * @param key
+	 *        the key of the BLOB
+	 * @param length
+	 *        the size of the BLOB in bytes
+	 */
+	synchronized void add(final BlobKey key, final long length) {
+
+		final Long previous = this.entries.put(key, Long.valueOf(length));
+		if (previous != null) {
+			this.size -= previous.longValue();
+		}
+		this.size += length;
+
+		evict(key);
+	}
+
+	/**
+	 * Protects the BLOB with the given key from eviction until it is unpinned again. Pins are counted.
+	 *
+	 * @param key
+	 *        the key of the BLOB to pin
+	 */
+	synchronized void pin(final BlobKey key) {
+
+		final Integer count = this.pins.get(key);
+		this.pins.put(key, Integer.valueOf(count == null ? 1 : count.intValue() + 1));
+	}
+
+	/**
+	 * Releases one pin of the BLOB with the given key.
+	 *
+	 * @param key
+	 *        the key of the BLOB to unpin
+	 */
+	synchronized void unpin(final BlobKey key) {
+
+		final Integer count = this.pins.get(key);
+		if (count == null) {
+			LOG.error("BLOB " + key + " is not pinned");
+			return;
+		}
+
+		if (count.intValue() == 1) {
+			this.pins.remove(key);
+			evict(null);
+		} else {
+			this.pins.put(key, Integer.valueOf(count.intValue() - 1));
+		}
+	}
+
+	/**
+	 * Returns the number of bytes currently stored in the cache.
+	 *
+	 * @return the number of bytes currently stored in the cache
+	 */
+	synchronized long getSize() {
+
+		return this.size;
+	}
+
+	/**
+	 * Checks whether the BLOB with the given key is contained in the cache.
+	 *
+	 * @param key
+	 *        the key of the BLOB
+	 * @return <code>true</code> if the BLOB is contained in the cache, <code>false</code> otherwise
+	 */
+	synchronized boolean contains(final BlobKey key) {
+
+		return this.entries.containsKey(key);
+	}
+
+	/**
+	 * Deletes the least recently used unpinned BLOBs until the cache fits its capacity.
+	 *
+	 * @param keep
+	 *        the key of a BLOB which must not be evicted because it is about to be returned to a caller, possibly
+	 *        <code>null</code>
+	 */
+	private void evict(final BlobKey keep) {
+
+		if (this.size <= this.capacity) {
+			return;
+		}
+
+		final List<BlobKey> evicted = new ArrayList<BlobKey>();
+		final Iterator<Map.Entry<BlobKey, Long>> it = this.entries.entrySet().iterator();
+		while (this.size > this.capacity && it.hasNext()) {
+
+			final Map.Entry<BlobKey, Long> entry = it.next();
+			if (this.pins.containsKey(entry.getKey()) || entry.getKey().equals(keep)) {
+				continue;
+			}
+
+			it.remove();
+			this.size -= entry.getValue().longValue();
+			toFile(entry.getKey()).delete();
+			evicted.add(entry.getKey());
+		}
+
+		if (!evicted.isEmpty() && LOG.isDebugEnabled()) {
+			LOG.debug("Evicted BLOBs " + evicted + " from the cache");
+		}
+
+		if (this.listener != null) {
+			for (final BlobKey key : evicted) {
+				this.listener.evicted(key);
+			}
+		}
+	}
+
+	private File toFile(final BlobKey key) {
+		return new File(this.directory, this.prefix + key.toString());
+	}
+
+	/**
+	 * Is notified when a BLOB has been evicted. The notification happens while the index is locked, so it must not
+	 * block.
+	 */
+	interface EvictionListener {
+
+		/**
+		 * Called after the BLOB with the given key has been deleted from the cache.
+		 *
+		 * @param key
+		 *        the key of the evicted BLOB
+		 */
+		void evicted(BlobKey key);
+	}
+}
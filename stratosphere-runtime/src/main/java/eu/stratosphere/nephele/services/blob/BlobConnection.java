@@ -13,10 +13,14 @@
 
 package eu.stratosphere.nephele.services.blob;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 
 import org.apache.commons.logging.Log;
@@ -25,7 +29,8 @@ import org.apache.commons.logging.LogFactory;
 import eu.stratosphere.util.StringUtils;
 
 /**
- * This class handles incoming network connections for the BLOB service's server component.
+ * This class handles incoming network connections for the BLOB service's server component. Proxy components use it to
+ * serve byte ranges of their BLOBs to their peers.
  * <p>
  * This class is thread-safe.
  */
@@ -37,9 +42,9 @@ final class BlobConnection extends Thread {
 	private static final Log LOG = LogFactory.getLog(BlobConnection.class);
 
 	/**
-	 * The BLOB service's server component.
+	 * The BLOB service's component this connection has been accepted by.
 	 */
-	private final ServerImpl blobServer;
+	private final AbstractBaseImpl blobService;
 
 	/**
 	 * The socket to use for communication.
@@ -49,15 +54,15 @@ final class BlobConnection extends Thread {
 	/**
 	 * Constructs a new connection object.
 	 * 
-	 * @param blobServer
-	 *        the BLOB service's server component
+	 * @param blobService
+	 *        the BLOB service's component this connection has been accepted by
 	 * @param socket
 	 *        the socket to use for communication
 	 */
-	BlobConnection(final ServerImpl blobServer, final Socket socket) {
+	BlobConnection(final AbstractBaseImpl blobService, final Socket socket) {
 		super("BLOB connection from " + socket.getRemoteSocketAddress());
 
-		this.blobServer = blobServer;
+		this.blobService = blobService;
 		this.socket = socket;
 	}
 
@@ -81,6 +86,15 @@ final class BlobConnection extends Thread {
 			case BlobService.GET_OPERATION:
 				get(is, this.socket.getOutputStream());
 				break;
+			case BlobService.GET_RANGE_OPERATION:
+				getRange(is, this.socket.getOutputStream());
+				break;
+			case BlobService.LOCATE_OPERATION:
+				locate(is, this.socket.getOutputStream());
+				break;
+			case BlobService.RELEASE_OPERATION:
+				release(is);
+				break;
 			default:
 				if (LOG.isErrorEnabled()) {
 					LOG.error("Received unknown operation code " + operation);
@@ -111,7 +125,7 @@ final class BlobConnection extends Thread {
 	 */
 	private void put(final InputStream inputStream, final OutputStream outputStream) throws IOException {
 
-		final BlobKey key = this.blobServer.putFromNetwork(inputStream);
+		final BlobKey key = getServer().putFromNetwork(inputStream);
 
 		// Send the key back to the client for verification
 		key.writeToOutputStream(outputStream);
@@ -134,7 +148,7 @@ final class BlobConnection extends Thread {
 
 		final InputStream fis;
 		try {
-			fis = this.blobServer.get(key);
+			fis = this.blobService.get(key);
 		} catch(FileNotFoundException fnfe) {
 			outputStream.write(0);
 			return;
@@ -159,4 +173,120 @@ final class BlobConnection extends Thread {
 			fis.close();
 		}
 	}
+
+	/**
+	 * Handles a client's request for a byte range of a BLOB. The response carries the total size of the BLOB, so the
+	 * client can request the remaining ranges in parallel.
+	 * 
+	 * @param inputStream
+	 *        the input stream of the socket
+	 * @param outputStream
+	 *        the output stream of the socket
+	 * @throws IOException
+	 *         thrown if an I/O error occurs during the data transfer
+	 */
+	private void getRange(final InputStream inputStream, final OutputStream outputStream) throws IOException {
+
+		// Receive the blob key and the range
+		final BlobKey key = BlobKey.readFromInputStream(inputStream);
+		final DataInputStream dis = new DataInputStream(inputStream);
+		final long offset = dis.readLong();
+		final int length = dis.readInt();
+
+		final RandomAccessFile raf = (offset < 0L || length < 0) ? null : this.blobService.openRange(key, offset,
+			length);
+		if (raf == null) {
+			outputStream.write(0);
+			return;
+		}
+
+		try {
+			final long totalLength = raf.length();
+			final DataOutputStream dos = new DataOutputStream(outputStream);
+			dos.write(1);
+			dos.writeLong(totalLength);
+
+			long bytesToSend = Math.max(0L, Math.min(length, totalLength - offset));
+			raf.seek(offset);
+			final byte[] buf = new byte[BlobService.TRANSFER_BUFFER_SIZE];
+			while (bytesToSend > 0L) {
+
+				final int read = raf.read(buf, 0, (int) Math.min(buf.length, bytesToSend));
+				if (read < 0) {
+					throw new IOException("BLOB " + key + " is shorter than expected");
+				}
+
+				dos.write(buf, 0, read);
+				bytesToSend -= read;
+			}
+			dos.flush();
+
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Handles a proxy's request for the peer to download a BLOB from.
+	 * 
+	 * @param inputStream
+	 *        the input stream of the socket
+	 * @param outputStream
+	 *        the output stream of the socket
+	 * @throws IOException
+	 *         thrown if an I/O error occurs during the data transfer
+	 */
+	private void locate(final InputStream inputStream, final OutputStream outputStream) throws IOException {
+
+		final BlobKey key = BlobKey.readFromInputStream(inputStream);
+		final int peerPort = new DataInputStream(inputStream).readInt();
+
+		final InetSocketAddress requester = (peerPort < 0) ? null : new InetSocketAddress(this.socket.getInetAddress(),
+			peerPort);
+		final InetSocketAddress parent = getServer().getPeerRegistry().assignParent(key, requester);
+
+		final DataOutputStream dos = new DataOutputStream(outputStream);
+		if (parent == null) {
+			dos.write(0);
+		} else {
+			final byte[] address = parent.getAddress().getAddress();
+			dos.write(1);
+			dos.write(address.length);
+			dos.write(address);
+			dos.writeInt(parent.getPort());
+		}
+		dos.flush();
+	}
+
+	/**
+	 * Handles a proxy's notification that it no longer holds a BLOB.
+	 * 
+	 * @param inputStream
+	 *        the input stream of the socket
+	 * @throws IOException
+	 *         thrown if an I/O error occurs during the data transfer
+	 */
+	private void release(final InputStream inputStream) throws IOException {
+
+		final BlobKey key = BlobKey.readFromInputStream(inputStream);
+		final int peerPort = new DataInputStream(inputStream).readInt();
+
+		getServer().getPeerRegistry().removeHolder(key, new InetSocketAddress(this.socket.getInetAddress(), peerPort));
+	}
+
+	/**
+	 * Returns the BLOB service's server component for operations only the server supports.
+	 * 
+	 * @return the BLOB service's server component
+	 * @throws IOException
+	 *         thrown if this connection has been accepted by a proxy component
+	 */
+	private ServerImpl getServer() throws IOException {
+
+		if (!(this.blobService instanceof ServerImpl)) {
+			throw new IOException("Operation is only supported by the BLOB server");
+		}
+
+		return (ServerImpl) this.blobService;
+	}
 }
@@ -146,6 +146,32 @@ public final class BlobKey implements IOReadableWritable, Comparable<BlobKey> {
 		return new BlobKey(key);
 	}
 
+	/**
+	 * Parses a BLOB key from its hexadecimal string representation as returned by {@link #toString()}.
+	 * 
+	 * @param str
+	 *        the string representation of the BLOB key
+	 * @return the parsed BLOB key or <code>null</code> if the string is not a valid BLOB key
+	 */
+	public static BlobKey fromString(final String str) {
+
+		if (str.length() != 2 * SIZE) {
+			return null;
+		}
+
+		final byte[] key = new byte[SIZE];
+		for (int i = 0; i < SIZE; ++i) {
+			final int hi = Character.digit(str.charAt(2 * i), 16);
+			final int lo = Character.digit(str.charAt(2 * i + 1), 16);
+			if (hi < 0 || lo < 0) {
+				return null;
+			}
+			key[i] = (byte) ((hi << 4) | lo);
+		}
+
+		return new BlobKey(key);
+	}
+
 	/**
 	 * Auxiliary method to write this BLOB key to an output stream.
 	 * 
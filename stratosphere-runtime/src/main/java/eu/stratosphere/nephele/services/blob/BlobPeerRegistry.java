@@ -0,0 +1,227 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.blob;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The BLOB peer registry is kept by the BLOB service's server component and arranges the proxies downloading the same
+ * BLOB in a tree. The server itself is the root of the tree. Every proxy which requests a BLOB is assigned a parent
+ * among the server and the proxies which have requested the BLOB before, such that no node serves more than a fixed
+ * number of children as long as possible. Since the proxies pass on the chunks of a BLOB while they are still
+ * downloading it, the tree forms a pipeline and the server only transmits the BLOB a few times, regardless of the
+ * number of proxies.
+ * <p>
+ * Holders are removed when they evict a BLOB or fail to download it, when the BLOBs of a finished job are released and
+ * when their task manager is lost. A proxy whose parent is nevertheless unavailable falls back to the server.
+ * <p>
+ * This class is thread-safe.
+ */
+final class BlobPeerRegistry {
+
+	/**
+	 * The maximum number of children of a node in the tree.
+	 */
+	private final int fanout;
+
+	/**
+	 * The proxies which hold or download a BLOB, along with their number of children.
+	 */
+	private final Map<BlobKey, List<Holder>> holders = new HashMap<BlobKey, List<Holder>>();
+
+	/**
+	 * The number of proxies which download a BLOB directly from the server.
+	 */
+	private final Map<BlobKey, Integer> serverChildren = new HashMap<BlobKey, Integer>();
+
+	/**
+	 * Constructs a new peer registry.
+	 *
+	 * @param fanout
+	 *        the maximum number of children of a node in the tree
+	 */
+	BlobPeerRegistry(final int fanout) {
+
+		if (fanout < 1) {
+			throw new IllegalArgumentException("Argument fanout must be positive");
+		}
+
+		this.fanout = fanout;
+	}
+
+	/**
+	 * Assigns a parent to a proxy which is about to download the BLOB with the given key and registers the proxy as a
+	 * holder of the BLOB.
+	 *
+	 * @param key
+	 *        the key of the BLOB to be downloaded
+	 * @param requester
+	 *        the address the proxy serves BLOBs to its peers on or <code>null</code> if the proxy does not serve BLOBs
+	 * @return the address of the proxy to download the BLOB from or <code>null</code> to download it from the server
+	 */
+	synchronized InetSocketAddress assignParent(final BlobKey key, final InetSocketAddress requester) {
+
+		List<Holder> list = this.holders.get(key);
+		if (list == null) {
+			list = new ArrayList<Holder>();
+			this.holders.put(key, list);
+		}
+
+		InetSocketAddress parent = null;
+		final Integer numberOfServerChildren = this.serverChildren.get(key);
+		final int served = (numberOfServerChildren == null) ? 0 : numberOfServerChildren.intValue();
+		if (served < this.fanout) {
+			this.serverChildren.put(key, Integer.valueOf(served + 1));
+		} else {
+			// Pick the holder with the fewest children, which results in a breadth-first growth of the tree
+			Holder best = null;
+			for (final Holder holder : list) {
+				if (holder.address.equals(requester)) {
+					continue;
+				}
+				if (best == null || holder.children < best.children) {
+					best = holder;
+				}
+			}
+
+			if (best == null) {
+				this.serverChildren.put(key, Integer.valueOf(served + 1));
+			} else {
+				++best.children;
+				parent = best.address;
+			}
+		}
+
+		if (requester != null && !contains(list, requester)) {
+			list.add(new Holder(requester));
+		}
+
+		return parent;
+	}
+
+	/**
+	 * Removes a proxy as a holder of the BLOB with the given key, for example because it has evicted the BLOB.
+	 *
+	 * @param key
+	 *        the key of the BLOB
+	 * @param holder
+	 *        the address the proxy serves BLOBs to its peers on
+	 */
+	synchronized void removeHolder(final BlobKey key, final InetSocketAddress holder) {
+
+		final List<Holder> list = this.holders.get(key);
+		if (list == null) {
+			return;
+		}
+
+		final Iterator<Holder> it = list.iterator();
+		while (it.hasNext()) {
+			if (it.next().address.equals(holder)) {
+				it.remove();
+			}
+		}
+
+		if (list.isEmpty()) {
+			remove(key);
+		}
+	}
+
+	/**
+	 * Forgets the holders of the BLOBs with the given keys, for example because the job using them has finished.
+	 *
+	 * @param keys
+	 *        the keys of the BLOBs
+	 */
+	synchronized void removeBlobs(final Collection<BlobKey> keys) {
+
+		for (final BlobKey key : keys) {
+			remove(key);
+		}
+	}
+
+	/**
+	 * Removes all proxies running on the given host as holders of any BLOB, for example because the host's task
+	 * manager has stopped sending heartbeats.
+	 *
+	 * @param host
+	 *        the address of the host
+	 */
+	synchronized void removeHost(final InetAddress host) {
+
+		final Iterator<Map.Entry<BlobKey, List<Holder>>> entries = this.holders.entrySet().iterator();
+		while (entries.hasNext()) {
+
+			final Map.Entry<BlobKey, List<Holder>> entry = entries.next();
+			final Iterator<Holder> it = entry.getValue().iterator();
+			while (it.hasNext()) {
+				if (host.equals(it.next().address.getAddress())) {
+					it.remove();
+				}
+			}
+
+			if (entry.getValue().isEmpty()) {
+				entries.remove();
+				this.serverChildren.remove(entry.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of BLOBs the registry keeps holders for.
+	 *
+	 * @return the number of BLOBs the registry keeps holders for
+	 */
+	synchronized int getNumberOfBlobs() {
+
+		return this.holders.size();
+	}
+
+	private void remove(final BlobKey key) {
+
+		this.holders.remove(key);
+		this.serverChildren.remove(key);
+	}
+
+	private static boolean contains(final List<Holder> list, final InetSocketAddress address) {
+
+		for (final Holder holder : list) {
+			if (holder.address.equals(address)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * A proxy holding or downloading a BLOB.
+	 */
+	private static final class Holder {
+
+		private final InetSocketAddress address;
+
+		private int children = 0;
+
+		private Holder(final InetSocketAddress address) {
+			this.address = address;
+		}
+	}
+}
@@ -13,17 +13,22 @@
 
 package eu.stratosphere.nephele.services.blob;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
 import java.util.concurrent.atomic.AtomicReference;
 
 import eu.stratosphere.nephele.jobgraph.JobID;
@@ -54,6 +59,21 @@ public final class BlobService {
 	 */
 	static final byte GET_OPERATION = 1;
 
+	/**
+	 * The status code of a get operation for a byte range of a BLOB.
+	 */
+	static final byte GET_RANGE_OPERATION = 2;
+
+	/**
+	 * The status code of an operation which asks the server for the peer to download a BLOB from.
+	 */
+	static final byte LOCATE_OPERATION = 3;
+
+	/**
+	 * The status code of an operation which tells the server that a peer no longer holds a BLOB.
+	 */
+	static final byte RELEASE_OPERATION = 4;
+
 	/**
 	 * Algorithm to be used for calculating the BLOB keys.
 	 */
@@ -514,6 +534,153 @@ public final class BlobService {
 		}
 	}
 
+	/**
+	 * Asks the server component for the peer to download the BLOB with the given key from. Unless the requester
+	 * passes a negative port, the server registers the requester as a peer which serves the BLOB to others.
+	 * 
+	 * @param key
+	 *        the key of the BLOB to be downloaded
+	 * @param peerPort
+	 *        the port the requester serves BLOBs to its peers on or a negative value if it does not serve BLOBs
+	 * @param serverAddr
+	 *        the address of the server component
+	 * @return the address of the peer to download the BLOB from or <code>null</code> to download it from the server
+	 * @throws IOException
+	 *         thrown if an error occurs during the communication with the server
+	 */
+	static InetSocketAddress locate(final BlobKey key, final int peerPort, final InetSocketAddress serverAddr)
+			throws IOException {
+
+		Socket socket = null;
+		try {
+			socket = new Socket(serverAddr.getAddress(), serverAddr.getPort());
+			final DataOutputStream os = new DataOutputStream(socket.getOutputStream());
+			os.write(BlobService.LOCATE_OPERATION);
+			key.writeToOutputStream(os);
+			os.writeInt(peerPort);
+			os.flush();
+
+			final DataInputStream is = new DataInputStream(socket.getInputStream());
+			final int status = is.read();
+			if (status < 0) {
+				throw new EOFException();
+			} else if (status == 0) {
+				return null;
+			}
+
+			final byte[] address = new byte[is.readUnsignedByte()];
+			is.readFully(address);
+			final int port = is.readInt();
+
+			return new InetSocketAddress(InetAddress.getByAddress(address), port);
+
+		} finally {
+			closeSilently(socket);
+		}
+	}
+
+	/**
+	 * Tells the server component that the requester no longer holds the BLOB with the given key, so it is not assigned
+	 * as a parent for the BLOB anymore.
+	 * 
+	 * @param key
+	 *        the key of the BLOB which is no longer held
+	 * @param peerPort
+	 *        the port the requester serves BLOBs to its peers on
+	 * @param serverAddr
+	 *        the address of the server component
+	 * @throws IOException
+	 *         thrown if an error occurs during the communication with the server
+	 */
+	static void release(final BlobKey key, final int peerPort, final InetSocketAddress serverAddr) throws IOException {
+
+		Socket socket = null;
+		try {
+			socket = new Socket(serverAddr.getAddress(), serverAddr.getPort());
+			final DataOutputStream os = new DataOutputStream(socket.getOutputStream());
+			os.write(BlobService.RELEASE_OPERATION);
+			key.writeToOutputStream(os);
+			os.writeInt(peerPort);
+			os.flush();
+		} finally {
+			closeSilently(socket);
+		}
+	}
+
+	/**
+	 * Downloads a byte range of the BLOB with the given key and writes it to the given file channel at the offset of
+	 * the range. Several ranges of the same BLOB can be downloaded concurrently into the same channel.
+	 * 
+	 * @param key
+	 *        the key of the BLOB to retrieve
+	 * @param offset
+	 *        the offset of the first byte to retrieve
+	 * @param length
+	 *        the maximum number of bytes to retrieve
+	 * @param channel
+	 *        the file channel to write the data to
+	 * @param serverAddr
+	 *        the address of the server component or peer to retrieve the data from
+	 * @param timeout
+	 *        the timeout in milliseconds for connecting and for every read, 0 to wait indefinitely. An
+	 *        {@link IOException} is thrown if the remote side does not respond in time.
+	 * @return the total size of the BLOB in bytes
+	 * @throws FileNotFoundException
+	 *         thrown if the BLOB with the given key could not be found
+	 * @throws IOException
+	 *         thrown if an error occurs during the BLOB transfer
+	 */
+	static long getRange(final BlobKey key, final long offset, final int length, final FileChannel channel,
+			final InetSocketAddress serverAddr, final int timeout) throws IOException {
+
+		Socket socket = null;
+		try {
+			socket = new Socket();
+			socket.setSoTimeout(timeout);
+			socket.connect(serverAddr, timeout);
+			final DataOutputStream os = new DataOutputStream(socket.getOutputStream());
+			os.write(BlobService.GET_RANGE_OPERATION);
+			key.writeToOutputStream(os);
+			os.writeLong(offset);
+			os.writeInt(length);
+			os.flush();
+
+			final DataInputStream is = new DataInputStream(socket.getInputStream());
+			final int status = is.read();
+			if (status < 0) {
+				throw new EOFException();
+			} else if (status == 0) {
+				throw new FileNotFoundException();
+			}
+
+			final long totalLength = is.readLong();
+			long bytesToReceive = Math.max(0L, Math.min(length, totalLength - offset));
+			long position = offset;
+
+			final byte[] buf = new byte[BlobService.TRANSFER_BUFFER_SIZE];
+			final ByteBuffer bb = ByteBuffer.wrap(buf);
+			while (bytesToReceive > 0L) {
+
+				final int read = is.read(buf, 0, (int) Math.min(buf.length, bytesToReceive));
+				if (read < 0) {
+					throw new EOFException();
+				}
+
+				bb.position(0);
+				bb.limit(read);
+				while (bb.hasRemaining()) {
+					position += channel.write(bb, position);
+				}
+				bytesToReceive -= read;
+			}
+
+			return totalLength;
+
+		} finally {
+			closeSilently(socket);
+		}
+	}
+
 	/**
 	 * Returns the URL of the BLOB with the given key. Calling this method requires previous initialization of the
 	 * BLOB service.
@@ -531,6 +698,61 @@ public final class BlobService {
 		return get().getURL(key);
 	}
 
+	/**
+	 * Protects the BLOB with the given key from being evicted from the local cache until {@link #unpin(BlobKey)} is
+	 * called. Pins are counted, so every call must be matched by a call to {@link #unpin(BlobKey)}. Calling this
+	 * method requires previous initialization of the BLOB service.
+	 * 
+	 * @param key
+	 *        the key of the BLOB to pin
+	 */
+	public static void pin(final BlobKey key) {
+
+		get().pin(key);
+	}
+
+	/**
+	 * Releases a pin acquired through {@link #pin(BlobKey)}. Calling this method requires previous initialization of
+	 * the BLOB service.
+	 * 
+	 * @param key
+	 *        the key of the BLOB to unpin
+	 */
+	public static void unpin(final BlobKey key) {
+
+		get().unpin(key);
+	}
+
+	/**
+	 * Forgets the peers which hold or download the BLOBs with the given keys, for example because the job using them
+	 * has finished. Only has an effect on the server component.
+	 * 
+	 * @param keys
+	 *        the keys of the BLOBs
+	 */
+	public static void removePeers(final Collection<BlobKey> keys) {
+
+		final AbstractBaseImpl impl = BLOB_SERVICE_IMPL.get();
+		if (impl != null) {
+			impl.removePeers(keys);
+		}
+	}
+
+	/**
+	 * Forgets all peers running on the given host, for example because its task manager has been lost. Only has an
+	 * effect on the server component.
+	 * 
+	 * @param host
+	 *        the address of the host
+	 */
+	public static void removePeerHost(final InetAddress host) {
+
+		final AbstractBaseImpl impl = BLOB_SERVICE_IMPL.get();
+		if (impl != null) {
+			impl.removePeerHost(host);
+		}
+	}
+
 	/**
 	 * Shuts down the BLOB service, closes all open network ports and deletes the BLOB storage or cache, respectively.
 	 * Calling this method requires previous initialization of the BLOB service.
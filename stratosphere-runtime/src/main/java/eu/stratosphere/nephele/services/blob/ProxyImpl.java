@@ -16,29 +16,138 @@ package eu.stratosphere.nephele.services.blob;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.util.StringUtils;
 
 /**
  * This class implements the proxy component of the BLOB service. The proxy component first tries to server get requests
  * from the local cache and then tries to download the requested BLOBs from the server. Put requests are directly
  * forwarded to the server.
  * <p>
+ * The local cache is persistent. Since BLOBs are addressed by the hash of their content, a BLOB which has been
+ * downloaded once, for example the JAR file of a job which is submitted repeatedly, is served from the cache also
+ * after a restart of the process. The least recently used BLOBs are evicted once the cache exceeds its configured
+ * size, unless they are pinned. A cache directory is locked by the process using it, so the eviction of one process
+ * never deletes a BLOB another process relies on; further processes on the same host use further directories.
+ * Large BLOBs are downloaded in chunks over several parallel connections, and concurrent requests for the same BLOB
+ * share a single download.
+ * <p>
+ * Proxies also serve the BLOBs they hold or are downloading to their peers. Before downloading a BLOB, a proxy asks the
+ * server which peer to download it from, so the proxies downloading the same BLOB form a tree rooted at the server.
+ * Chunks are passed on as soon as they have arrived, and every proxy verifies the hash of the BLOB before it enters
+ * the cache. If a peer fails, stalls for longer than the peer timeout or delivers corrupted data, the proxy downloads
+ * the BLOB from the server instead. Peer serving is disabled unless a peer port is configured.
+ * <p>
  * This class is thread-safe.
  */
 final class ProxyImpl extends AbstractBaseImpl {
 
+	/**
+	 * The log object used for debugging.
+	 */
+	private static final Log LOG = LogFactory.getLog(ProxyImpl.class);
+
+	/**
+	 * The default size of the chunks a BLOB is downloaded in.
+	 */
+	static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+	/**
+	 * The name of the file which is locked by the process using a cache directory.
+	 */
+	private static final String LOCK_FILE_NAME = ".lock";
+
+	/**
+	 * The maximum number of cache directories tried before a process gives up on locking one.
+	 */
+	private static final int MAX_CACHE_DIRECTORIES = 64;
+
+	/**
+	 * The age in milliseconds after which temporary files of interrupted downloads are removed.
+	 */
+	private static final long STALE_TEMP_FILE_AGE = 24L * 60L * 60L * 1000L;
+
 	/**
 	 * The socket address of the server component.
 	 */
 	private final InetSocketAddress serverAddress;
 
+	/**
+	 * The lock which reserves the cache directory for this proxy.
+	 */
+	private final CacheDirectoryLock cacheLock;
+
+	/**
+	 * The index of the cached BLOBs.
+	 */
+	private final BlobCacheIndex index;
+
+	/**
+	 * The size of the chunks a BLOB is downloaded in.
+	 */
+	private final int chunkSize;
+
+	/**
+	 * The time in milliseconds after which a stalled transfer from a peer is abandoned.
+	 */
+	private final int peerTimeout;
+
+	/**
+	 * The threads downloading the chunks of BLOBs.
+	 */
+	private final ExecutorService fetchExecutor;
+
+	/**
+	 * The downloads currently in progress.
+	 */
+	private final ConcurrentMap<BlobKey, FutureTask<File>> fetchesInProgress =
+		new ConcurrentHashMap<BlobKey, FutureTask<File>>();
+
+	/**
+	 * The BLOBs currently being downloaded, whose completed chunks can already be served to peers.
+	 */
+	private final ConcurrentMap<BlobKey, PartialBlob> partialBlobs = new ConcurrentHashMap<BlobKey, PartialBlob>();
+
+	/**
+	 * The server socket the proxy serves BLOBs to its peers on, <code>null</code> if the proxy does not serve BLOBs.
+	 */
+	private final ServerSocket peerSocket;
+
+	/**
+	 * Indicates whether a shutdown of the proxy has been requested.
+	 */
+	private volatile boolean shutdownRequested = false;
+
 	/**
 	 * Constructs a new proxy component of the BLOB service.
 	 * 
@@ -46,9 +155,100 @@ final class ProxyImpl extends AbstractBaseImpl {
 	 *        the socket address of the server component
 	 */
 	ProxyImpl(final InetSocketAddress serverAddress) {
-		super();
+		this(serverAddress, getCacheDirectory(), 1024L * 1024L * GlobalConfiguration.getInteger(
+			ConfigConstants.BLOB_CACHE_SIZE, ConfigConstants.DEFAULT_BLOB_CACHE_SIZE), GlobalConfiguration.getInteger(
+			ConfigConstants.BLOB_FETCH_PARALLELISM, ConfigConstants.DEFAULT_BLOB_FETCH_PARALLELISM),
+			DEFAULT_CHUNK_SIZE, GlobalConfiguration.getInteger(ConfigConstants.BLOB_PEER_PORT,
+				ConfigConstants.DEFAULT_BLOB_PEER_PORT));
+	}
+
+	/**
+	 * Constructs a new proxy component of the BLOB service.
+	 * 
+	 * @param serverAddress
+	 *        the socket address of the server component
+	 * @param cacheDirectory
+	 *        the directory of the persistent BLOB cache, a sibling directory is used if another process holds it
+	 * @param cacheSize
+	 *        the maximum size of the BLOB cache in bytes
+	 * @param fetchParallelism
+	 *        the number of chunks of a BLOB to download in parallel
+	 * @param chunkSize
+	 *        the size of the chunks a BLOB is downloaded in
+	 * @param peerPort
+	 *        the port to serve BLOBs to peers on, 0 for an ephemeral port or a negative value to not serve BLOBs
+	 */
+	ProxyImpl(final InetSocketAddress serverAddress, final File cacheDirectory, final long cacheSize,
+			final int fetchParallelism, final int chunkSize, final int peerPort) {
+		this(serverAddress, cacheDirectory, cacheSize, fetchParallelism, chunkSize, peerPort,
+			GlobalConfiguration.getInteger(ConfigConstants.BLOB_PEER_TIMEOUT, ConfigConstants.DEFAULT_BLOB_PEER_TIMEOUT));
+	}
+
+	/**
+	 * Constructs a new proxy component of the BLOB service.
+	 * 
+	 * @param serverAddress
+	 *        the socket address of the server component
+	 * @param cacheDirectory
+	 *        the directory of the persistent BLOB cache, a sibling directory is used if another process holds it
+	 * @param cacheSize
+	 *        the maximum size of the BLOB cache in bytes
+	 * @param fetchParallelism
+	 *        the number of chunks of a BLOB to download in parallel
+	 * @param chunkSize
+	 *        the size of the chunks a BLOB is downloaded in
+	 * @param peerPort
+	 *        the port to serve BLOBs to peers on, 0 for an ephemeral port or a negative value to not serve BLOBs
+	 * @param peerTimeout
+	 *        the time in milliseconds after which a stalled transfer from a peer is abandoned
+	 */
+	ProxyImpl(final InetSocketAddress serverAddress, final File cacheDirectory, final long cacheSize,
+			final int fetchParallelism, final int chunkSize, final int peerPort, final int peerTimeout) {
+		this(serverAddress, CacheDirectoryLock.acquire(cacheDirectory), cacheSize, fetchParallelism, chunkSize,
+			peerPort, peerTimeout);
+	}
+
+	private ProxyImpl(final InetSocketAddress serverAddress, final CacheDirectoryLock cacheLock, final long cacheSize,
+			final int fetchParallelism, final int chunkSize, final int peerPort, final int peerTimeout) {
+		super(cacheLock.directory);
 
 		this.serverAddress = serverAddress;
+		this.cacheLock = cacheLock;
+		this.chunkSize = chunkSize;
+		this.peerTimeout = Math.max(1, peerTimeout);
+
+		removeStaleTempFiles();
+		this.index = new BlobCacheIndex(this.storageDirectory, BLOB_FILE_PREFIX, cacheSize,
+			new BlobCacheIndex.EvictionListener() {
+
+				@Override
+				public void evicted(final BlobKey key) {
+					releaseHolder(key);
+				}
+			});
+
+		this.fetchExecutor = Executors.newFixedThreadPool(Math.max(1, fetchParallelism), new ThreadFactory() {
+
+			@Override
+			public Thread newThread(final Runnable r) {
+				final Thread t = new Thread(r, "BLOB fetcher");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+		this.peerSocket = openPeerSocket(peerPort);
+		if (this.peerSocket != null) {
+			final Thread peerThread = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					acceptPeers();
+				}
+			}, "BLOB peer server");
+			peerThread.setDaemon(true);
+			peerThread.start();
+		}
 	}
 
 	/**
@@ -75,99 +275,759 @@ final class ProxyImpl extends AbstractBaseImpl {
 	@Override
 	InputStream get(final BlobKey key) throws IOException {
 
-		// Check if the BLOB is cached
-		File blob = getLocal(key);
-		if (blob != null) {
-			return new FileInputStream(blob);
+		final File blob = getOrFetch(key);
+		try {
+			return new PinnedInputStream(blob, key);
+		} catch (IOException ioe) {
+			this.index.unpin(key);
+			throw ioe;
 		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	URL getURL(final BlobKey key) throws IOException {
 
-		// Try to download the BLOB from the server
-		fetchFromServer(key);
+		// The URL outlives this call, so callers which keep using it pin the BLOB themselves
+		final File blob = getOrFetch(key);
+		try {
+			return blob.toURI().toURL();
+		} finally {
+			this.index.unpin(key);
+		}
+	}
 
-		// Try, again after the download
-		blob = getLocal(key);
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void pin(final BlobKey key) {
+
+		this.index.pin(key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void unpin(final BlobKey key) {
+
+		this.index.unpin(key);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	RandomAccessFile openRange(final BlobKey key, final long offset, final int length) throws IOException {
+
+		final PartialBlob partial = this.partialBlobs.get(key);
+		if (partial != null) {
+			try {
+				// Give up well before the requesting peer times out, so it receives an answer and asks the server
+				if (partial.await(offset, length, this.peerTimeout / 2)) {
+					return new RandomAccessFile(partial.file, "r");
+				}
+			} catch (InterruptedException ie) {
+				return null;
+			} catch (FileNotFoundException fnfe) {
+				// The download has completed in the meantime
+			}
+		}
+
+		return super.openRange(key, offset, length);
+	}
+
+	/**
+	 * Shuts down the proxy. Unlike the server's storage, the cache directory is kept for later use.
+	 */
+	@Override
+	void shutdown() {
+
+		this.shutdownRequested = true;
+		if (this.peerSocket != null) {
+			try {
+				this.peerSocket.close();
+			} catch (IOException ioe) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug(StringUtils.stringifyException(ioe));
+				}
+			}
+		}
+
+		this.fetchExecutor.shutdownNow();
+		this.cacheLock.release();
+	}
+
+	/**
+	 * Returns the cached file of the BLOB with the given key, downloading it from the server first if necessary. The
+	 * BLOB is pinned, so it cannot be evicted before the caller has opened it. The caller must unpin it again.
+	 * 
+	 * @param key
+	 *        the key of the BLOB
+	 * @return the cached file of the BLOB
+	 * @throws IOException
+	 *         thrown if an I/O error or data corruption occurs during the data transfer
+	 */
+	private File getOrFetch(final BlobKey key) throws IOException {
+
+		this.index.pin(key);
+		boolean success = false;
+		try {
+			final File blob = getOrFetchPinned(key);
+			success = true;
+			return blob;
+		} finally {
+			if (!success) {
+				this.index.unpin(key);
+			}
+		}
+	}
+
+	private File getOrFetchPinned(final BlobKey key) throws IOException {
+
+		// Check if the BLOB is cached, possibly from before a restart of the process
+		final File blob = getLocal(key);
 		if (blob != null) {
-			return new FileInputStream(blob);
+			if (!this.index.touch(key)) {
+				this.index.add(key, blob.length());
+			}
+			return blob;
+		}
+
+		FutureTask<File> fetch = new FutureTask<File>(new Callable<File>() {
+
+			@Override
+			public File call() throws IOException {
+				return fetch(key);
+			}
+		});
+
+		final FutureTask<File> previous = this.fetchesInProgress.putIfAbsent(key, fetch);
+		if (previous == null) {
+			try {
+				fetch.run();
+			} finally {
+				this.fetchesInProgress.remove(key, fetch);
+			}
+		} else {
+			// Another thread is already downloading the BLOB
+			fetch = previous;
 		}
 
-		throw new FileNotFoundException();
+		try {
+			return fetch.get();
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted while waiting for BLOB " + key, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
 	}
 
 	/**
-	 * Downloads the BLOB with the given key from the server component to the local BLOB cache.
+	 * Downloads the BLOB with the given key to the local BLOB cache. The BLOB is downloaded from the peer the server
+	 * component assigns to this proxy, or from the server component itself if the peer fails.
 	 * 
 	 * @param key
 	 *        the key of the BLOB to download
+	 * @return the cached file of the BLOB
 	 * @throws IOException
 	 *         thrown if an I/O error or data corruption occurs during the data transfer
 	 */
-	private void fetchFromServer(final BlobKey key) throws IOException {
-
-		final InputStream inputStream = BlobService.get(key, this.serverAddress);
+	private File fetch(final BlobKey key) throws IOException {
 
-		final MessageDigest md = BlobService.getMessageDigest();
-		final byte[] buf = new byte[BlobService.TRANSFER_BUFFER_SIZE];
 		File tempFile = null;
-		FileOutputStream fos = null;
+		RandomAccessFile raf = null;
+		PartialBlob partial = null;
+		boolean located = false;
+		boolean success = false;
 
 		try {
 
 			tempFile = createTempFile();
-			fos = new FileOutputStream(tempFile);
+			raf = new RandomAccessFile(tempFile, "rw");
 
-			while (true) {
+			// Register the download before asking for a parent, so peers assigned to this proxy find it
+			partial = new PartialBlob(tempFile, this.chunkSize);
+			this.partialBlobs.put(key, partial);
 
-				final int read = inputStream.read(buf);
-				if (read < 0) {
-					break;
+			final InetSocketAddress parent = locateParent(key);
+			located = true;
+			long totalLength;
+			try {
+				totalLength = transfer(key, raf, partial, parent);
+			} catch (IOException ioe) {
+				if (parent == null) {
+					throw ioe;
+				}
+				if (LOG.isWarnEnabled()) {
+					LOG.warn("Cannot download BLOB " + key + " from peer " + parent + ", retrying from server: "
+						+ ioe.getMessage());
 				}
+				totalLength = transfer(key, raf, partial, null);
+			}
+
+			raf.close();
+			raf = null;
 
-				md.update(buf);
-				fos.write(buf);
+			final File blob = keyToFilename(key);
+			if (!tempFile.renameTo(blob) && !blob.exists()) {
+				throw new IOException("Cannot move downloaded BLOB " + key + " to " + blob);
 			}
+			tempFile = null;
 
-			// Close file stream and compute key
-			fos.close();
-			fos = null;
-			if (!key.equals(new BlobKey(md.digest()))) {
-				throw new IOException("Detected data corruption during transfer");
+			this.index.add(key, totalLength);
+
+			if (LOG.isInfoEnabled()) {
+				LOG.info("Downloaded BLOB " + key + " (" + totalLength + " bytes) from "
+					+ (parent == null ? "server" : "peer " + parent));
 			}
 
-			tempFile.renameTo(keyToFilename(key));
-			tempFile = null;
+			success = true;
+			return blob;
 
 		} finally {
-			if (fos != null) {
-				fos.close();
+			if (located && !success) {
+				// The server has registered this proxy as a holder of the BLOB
+				releaseHolder(key);
+			}
+			if (partial != null) {
+				this.partialBlobs.remove(key, partial);
+				partial.close();
+			}
+			if (raf != null) {
+				raf.close();
 			}
 			if (tempFile != null) {
 				tempFile.delete();
 			}
 		}
+	}
+
+	/**
+	 * Downloads the BLOB with the given key into the given file and verifies its content. The first chunk tells the
+	 * size of the BLOB, the remaining chunks are then downloaded in parallel.
+	 * 
+	 * @param key
+	 *        the key of the BLOB to download
+	 * @param raf
+	 *        the file to write the BLOB to
+	 * @param partial
+	 *        the progress of the download to be reported to peers
+	 * @param source
+	 *        the peer to download the BLOB from or <code>null</code> to download it from the server
+	 * @return the size of the BLOB in bytes
+	 * @throws IOException
+	 *         thrown if an I/O error or data corruption occurs during the data transfer
+	 */
+	private long transfer(final BlobKey key, final RandomAccessFile raf, final PartialBlob partial,
+			final InetSocketAddress source) throws IOException {
+
+		final FileChannel channel = raf.getChannel();
+
+		final long totalLength = fetchChunk(key, 0L, channel, source);
+		raf.setLength(totalLength);
+		partial.start(totalLength);
+		partial.complete(0L);
+
+		// Chunks are not cancelled through interrupts: an interrupted write closes the shared channel
+		final AtomicBoolean aborted = new AtomicBoolean();
+		final List<Future<Long>> chunks = new ArrayList<Future<Long>>();
+		for (long offset = this.chunkSize; offset < totalLength; offset += this.chunkSize) {
+			final long chunkOffset = offset;
+			chunks.add(this.fetchExecutor.submit(new Callable<Long>() {
+
+				@Override
+				public Long call() throws IOException {
+					if (aborted.get()) {
+						return Long.valueOf(-1L);
+					}
+					final long length = fetchChunk(key, chunkOffset, channel, source);
+					partial.complete(chunkOffset);
+					return Long.valueOf(length);
+				}
+			}));
+		}
+
+		try {
+			for (final Future<Long> chunk : chunks) {
+				if (chunk.get().longValue() != totalLength) {
+					throw new IOException("BLOB " + key + " changed its size during the transfer");
+				}
+			}
+		} catch (InterruptedException e) {
+			throw new IOException("Interrupted while downloading BLOB " + key, e);
+		} catch (ExecutionException e) {
+			throw new IOException("Cannot download BLOB " + key, e.getCause());
+		} finally {
+			// Skip the chunks that have not started and wait for the running ones, so that no chunk of this attempt
+			// writes to the file while it is downloaded again
+			aborted.set(true);
+			awaitChunks(chunks);
+		}
+
+		if (raf.length() != totalLength || !key.equals(computeKey(partial.file))) {
+			throw new IOException("Detected data corruption during transfer");
+		}
 
+		return totalLength;
 	}
 
 	/**
-	 * {@inheritDoc}
+	 * Waits until the given chunk downloads are done, regardless of their outcome.
+	 * 
+	 * @param chunks
+	 *        the chunk downloads to wait for
 	 */
-	@Override
-	URL getURL(final BlobKey key) throws IOException {
+	private static void awaitChunks(final List<Future<Long>> chunks) {
 
-		// Check if the BLOB is cached
-		File blob = getLocal(key);
-		if (blob != null) {
-			return blob.toURI().toURL();
+		boolean interrupted = false;
+		for (final Future<Long> chunk : chunks) {
+			while (true) {
+				try {
+					chunk.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					break;
+				}
+			}
 		}
 
-		// Try to download the BLOB from the server
-		fetchFromServer(key);
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
 
-		// Try, again after the download
-		blob = getLocal(key);
-		if (blob != null) {
-			return blob.toURI().toURL();
+	/**
+	 * Downloads the chunk of the BLOB with the given key which starts at the given offset. If the chunk cannot be
+	 * downloaded from the given peer, it is downloaded from the server.
+	 * 
+	 * @param key
+	 *        the key of the BLOB to download
+	 * @param offset
+	 *        the offset of the chunk
+	 * @param channel
+	 *        the file channel to write the chunk to
+	 * @param source
+	 *        the peer to download the chunk from or <code>null</code> to download it from the server
+	 * @return the total size of the BLOB in bytes
+	 * @throws IOException
+	 *         thrown if an I/O error occurs during the data transfer
+	 */
+	private long fetchChunk(final BlobKey key, final long offset, final FileChannel channel,
+			final InetSocketAddress source) throws IOException {
+
+		if (source != null) {
+			try {
+				return BlobService.getRange(key, offset, this.chunkSize, channel, source, this.peerTimeout);
+			} catch (IOException ioe) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Cannot download chunk at offset " + offset + " of BLOB " + key + " from peer " + source
+						+ ": " + ioe.getMessage());
+				}
+			}
+		}
+
+		return BlobService.getRange(key, offset, this.chunkSize, channel, this.serverAddress, 0);
+	}
+
+	/**
+	 * Asks the server component for the peer to download the BLOB with the given key from.
+	 * 
+	 * @param key
+	 *        the key of the BLOB to download
+	 * @return the peer to download the BLOB from or <code>null</code> to download it from the server
+	 */
+	private InetSocketAddress locateParent(final BlobKey key) {
+
+		final int peerPort = (this.peerSocket == null) ? -1 : this.peerSocket.getLocalPort();
+		try {
+			return BlobService.locate(key, peerPort, this.serverAddress);
+		} catch (IOException ioe) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug("Cannot locate a peer for BLOB " + key + ": " + ioe.getMessage());
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Tells the server component in the background that this proxy no longer holds the BLOB with the given key, so it
+	 * is not assigned to peers as their parent anymore.
+	 * 
+	 * @param key
+	 *        the key of the BLOB which is no longer held
+	 */
+	private void releaseHolder(final BlobKey key) {
+
+		// The index reports evictions already during construction, before the proxy serves peers
+		if (this.peerSocket == null || this.shutdownRequested) {
+			return;
+		}
+
+		final int peerPort = this.peerSocket.getLocalPort();
+		try {
+			this.fetchExecutor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					try {
+						BlobService.release(key, peerPort, ProxyImpl.this.serverAddress);
+					} catch (IOException ioe) {
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("Cannot release BLOB " + key + " at the server: " + ioe.getMessage());
+						}
+					}
+				}
+			});
+		} catch (RejectedExecutionException ree) {
+			// The proxy is shutting down
+		}
+	}
+
+	/**
+	 * Accepts the connections of peers until the proxy is shut down.
+	 */
+	private void acceptPeers() {
+
+		while (!this.shutdownRequested) {
+
+			try {
+				final Socket socket = this.peerSocket.accept();
+				new BlobConnection(this, socket).start();
+			} catch (IOException ioe) {
+				if (!this.shutdownRequested && LOG.isErrorEnabled()) {
+					LOG.error(StringUtils.stringifyException(ioe));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Opens the server socket to serve BLOBs to peers on.
+	 * 
+	 * @param peerPort
+	 *        the port to serve BLOBs to peers on, 0 for an ephemeral port or a negative value to not serve BLOBs
+	 * @return the server socket or <code>null</code> if the proxy does not serve BLOBs
+	 */
+	private static ServerSocket openPeerSocket(final int peerPort) {
+
+		if (peerPort < 0) {
+			return null;
+		}
+
+		try {
+			return new ServerSocket(peerPort);
+		} catch (IOException ioe) {
+			if (LOG.isErrorEnabled()) {
+				LOG.error("Cannot serve BLOBs to peers on port " + peerPort + ": " + ioe.getMessage());
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Computes the BLOB key of the given file.
+	 * 
+	 * @param file
+	 *        the file to compute the BLOB key for
+	 * @return the BLOB key of the file
+	 * @throws IOException
+	 *         thrown if an I/O error occurs while reading the file
+	 */
+	private static BlobKey computeKey(final File file) throws IOException {
+
+		final MessageDigest md = BlobService.getMessageDigest();
+		final byte[] buf = new byte[64 * 1024];
+		final FileInputStream fis = new FileInputStream(file);
+		try {
+			int read;
+			while ((read = fis.read(buf)) >= 0) {
+				md.update(buf, 0, read);
+			}
+		} finally {
+			fis.close();
+		}
+
+		return new BlobKey(md.digest());
+	}
+
+	/**
+	 * Removes the temporary files of downloads which have been interrupted, for example by a crash of a process which
+	 * used the cache directory before.
+	 */
+	private void removeStaleTempFiles() {
+
+		final File[] files = this.storageDirectory.listFiles();
+		if (files == null) {
+			return;
+		}
+
+		final long threshold = System.currentTimeMillis() - STALE_TEMP_FILE_AGE;
+		for (final File file : files) {
+			if (file.getName().startsWith(TEMP_FILE_PREFIX) && file.lastModified() < threshold) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns the preferred directory of the persistent BLOB cache. Only one process at a time uses it, see
+	 * {@link CacheDirectoryLock}.
+	 * 
+	 * @return the preferred directory of the persistent BLOB cache
+	 */
+	private static File getCacheDirectory() {
+
+		final String dir = GlobalConfiguration.getString(ConfigConstants.BLOB_CACHE_DIRECTORY, null);
+		final File baseDir = new File((dir != null) ? dir : System.getProperty("java.io.tmpdir"));
+
+		String userName = System.getProperty("user.name");
+		if (userName == null) {
+			userName = "default";
+		}
+
+		return new File(baseDir, "blob-cache-" + userName);
+	}
+
+	/**
+	 * An input stream to a cached BLOB which keeps the BLOB pinned until the stream is closed.
+	 */
+	private final class PinnedInputStream extends FileInputStream {
+
+		private final BlobKey key;
+
+		private boolean closed = false;
+
+		private PinnedInputStream(final File file, final BlobKey key) throws FileNotFoundException {
+			super(file);
+			this.key = key;
+		}
+
+		@Override
+		public void close() throws IOException {
+
+			try {
+				super.close();
+			} finally {
+				synchronized (this) {
+					if (!this.closed) {
+						this.closed = true;
+						ProxyImpl.this.index.unpin(this.key);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * An exclusive lock on a cache directory. The process holding the lock is the only one to add BLOBs to the
+	 * directory and to evict them, so its index always reflects the directory's content. Since a restarted process
+	 * acquires the first free directory again, the cache still survives restarts.
+	 */
+	private static final class CacheDirectoryLock {
+
+		/**
+		 * The locked cache directory.
+		 */
+		private final File directory;
+
+		/**
+		 * The lock file, <code>null</code> if the directory could not be locked.
+		 */
+		private final RandomAccessFile lockFile;
+
+		/**
+		 * The lock, <code>null</code> if the directory could not be locked.
+		 */
+		private final FileLock lock;
+
+		private CacheDirectoryLock(final File directory, final RandomAccessFile lockFile, final FileLock lock) {
+			this.directory = directory;
+			this.lockFile = lockFile;
+			this.lock = lock;
+		}
+
+		/**
+		 * Locks the given directory or, if another process or proxy holds it, the first free sibling directory.
+		 * 
+		 * @param baseDirectory
+		 *        the preferred cache directory
+		 * @return the lock of the cache directory to use
+		 */
+		private static CacheDirectoryLock acquire(final File baseDirectory) {
+
+			for (int i = 0; i < MAX_CACHE_DIRECTORIES; ++i) {
+
+				final File directory = (i == 0) ? baseDirectory : new File(baseDirectory.getPath() + "-" + i);
+				directory.mkdirs();
+
+				RandomAccessFile lockFile = null;
+				try {
+					lockFile = new RandomAccessFile(new File(directory, LOCK_FILE_NAME), "rw");
+					final FileLock lock = lockFile.getChannel().tryLock();
+					if (lock != null) {
+						return new CacheDirectoryLock(directory, lockFile, lock);
+					}
+				} catch (OverlappingFileLockException ofle) {
+					// Another proxy of this process holds the directory
+				} catch (IOException ioe) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Cannot lock cache directory " + directory + ": " + ioe.getMessage());
+					}
+				}
+
+				closeQuietly(lockFile);
+			}
+
+			if (LOG.isWarnEnabled()) {
+				LOG.warn("Cannot lock a BLOB cache directory, using " + baseDirectory + " without a lock");
+			}
+
+			return new CacheDirectoryLock(baseDirectory, null, null);
+		}
+
+		/**
+		 * Releases the lock, so a later process can reuse the directory.
+		 */
+		private void release() {
+
+			if (this.lock != null) {
+				try {
+					this.lock.release();
+				} catch (IOException ioe) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug(StringUtils.stringifyException(ioe));
+					}
+				}
+			}
+
+			closeQuietly(this.lockFile);
+		}
+
+		private static void closeQuietly(final RandomAccessFile file) {
+
+			if (file == null) {
+				return;
+			}
+
+			try {
+				file.close();
+			} catch (IOException ioe) {
+				if (LOG.isDebugEnabled()) {
+					LOG.debug(StringUtils.stringifyException(ioe));
+				}
+			}
 		}
+	}
+
+	/**
+	 * The progress of a BLOB download, which allows peers to wait for the chunks they request.
+	 */
+	private static final class PartialBlob {
+
+		/**
+		 * The temporary file the BLOB is downloaded to.
+		 */
+		private final File file;
+
+		/**
+		 * The size of the chunks the BLOB is downloaded in.
+		 */
+		private final int chunkSize;
+
+		/**
+		 * The completed chunks, <code>null</code> as long as the size of the BLOB is unknown.
+		 */
+		private boolean[] completed = null;
+
+		/**
+		 * The size of the BLOB in bytes.
+		 */
+		private long totalLength = -1L;
+
+		/**
+		 * Indicates whether the download has ended.
+		 */
+		private boolean closed = false;
+
+		private PartialBlob(final File file, final int chunkSize) {
+			this.file = file;
+			this.chunkSize = chunkSize;
+		}
+
+		/**
+		 * Announces the size of the BLOB and resets the completed chunks.
+		 */
+		private synchronized void start(final long totalLength) {
 
-		throw new FileNotFoundException();
+			this.totalLength = totalLength;
+			this.completed = new boolean[(int) ((totalLength + this.chunkSize - 1) / this.chunkSize)];
+		}
+
+		/**
+		 * Marks the chunk starting at the given offset as completed.
+		 */
+		private synchronized void complete(final long offset) {
+
+			final int chunk = (int) (offset / this.chunkSize);
+			if (chunk < this.completed.length) {
+				this.completed[chunk] = true;
+			}
+			notifyAll();
+		}
+
+		/**
+		 * Marks the download as ended.
+		 */
+		private synchronized void close() {
+
+			this.closed = true;
+			notifyAll();
+		}
+
+		/**
+		 * Waits until the given byte range of the BLOB has been downloaded, but at most for the given time.
+		 * 
+		 * @return <code>true</code> if the range can be read from the temporary file, <code>false</code> if the
+		 *         download has ended in the meantime or the range has not arrived in time
+		 */
+		private synchronized boolean await(final long offset, final int length, final long timeout)
+				throws InterruptedException {
+
+			final long deadline = System.currentTimeMillis() + timeout;
+			while (!this.closed && !isAvailable(offset, length)) {
+				final long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0L) {
+					return false;
+				}
+				wait(remaining);
+			}
+
+			return !this.closed;
+		}
+
+		private boolean isAvailable(final long offset, final int length) {
+
+			if (this.completed == null) {
+				return false;
+			}
+
+			final long end = Math.min(offset + length, this.totalLength);
+			for (long chunk = offset / this.chunkSize; chunk * this.chunkSize < end; ++chunk) {
+				if (!this.completed[(int) chunk]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
 	}
 }
@@ -20,15 +20,19 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.URL;
 import java.security.MessageDigest;
+import java.util.Collection;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.nephele.jobgraph.JobID;
 import eu.stratosphere.util.StringUtils;
 
@@ -60,6 +64,11 @@ final class ServerImpl extends AbstractBaseImpl implements Runnable {
 	 */
 	private volatile boolean shutdownRequested = false;
 
+	/**
+	 * The registry arranging the proxies which download the same BLOB in a tree.
+	 */
+	private final BlobPeerRegistry peerRegistry;
+
 	/**
 	 * Constructs a new server component of the BLOB service.
 	 * 
@@ -69,8 +78,25 @@ final class ServerImpl extends AbstractBaseImpl implements Runnable {
 	 *         thrown if an error occurs while binding/initializing the server socket
 	 */
 	ServerImpl(final InetSocketAddress socketAddress) throws IOException {
+		this(socketAddress, GlobalConfiguration.getInteger(ConfigConstants.BLOB_PEER_FANOUT,
+			ConfigConstants.DEFAULT_BLOB_PEER_FANOUT));
+	}
+
+	/**
+	 * Constructs a new server component of the BLOB service.
+	 * 
+	 * @param socketAddress
+	 *        the socket address the server shall listen on
+	 * @param peerFanout
+	 *        the number of peers each holder of a BLOB serves the BLOB to
+	 * @throws IOException
+	 *         thrown if an error occurs while binding/initializing the server socket
+	 */
+	ServerImpl(final InetSocketAddress socketAddress, final int peerFanout) throws IOException {
 		super();
 
+		this.peerRegistry = new BlobPeerRegistry(Math.max(1, peerFanout));
+
 		this.serverSocket = new ServerSocket();
 		this.serverSocket.bind(socketAddress);
 
@@ -137,8 +163,8 @@ final class ServerImpl extends AbstractBaseImpl implements Runnable {
 					break;
 				}
 
-				md.update(buf);
-				fos.write(buf);
+				md.update(buf, 0, read);
+				fos.write(buf, 0, read);
 			}
 
 			// Close file stream and compute key
@@ -284,6 +310,34 @@ final class ServerImpl extends AbstractBaseImpl implements Runnable {
 		}
 	}
 
+	/**
+	 * Returns the registry arranging the proxies which download the same BLOB in a tree.
+	 * 
+	 * @return the registry arranging the proxies which download the same BLOB in a tree
+	 */
+	BlobPeerRegistry getPeerRegistry() {
+
+		return this.peerRegistry;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void removePeers(final Collection<BlobKey> keys) {
+
+		this.peerRegistry.removeBlobs(keys);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void removePeerHost(final InetAddress host) {
+
+		this.peerRegistry.removeHost(host);
+	}
+
 	/**
 	 * Starts the thread listening for incoming network connections.
 	 */
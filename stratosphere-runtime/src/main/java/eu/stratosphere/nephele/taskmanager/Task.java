@@ -56,6 +56,13 @@ public final class Task implements ExecutionObserver {
 	 */
 	private volatile ExecutionState executionState = ExecutionState.STARTING;
 
+	/**
+	 * Serializes the state changes of this task, which are reported by the task's own thread as well as by the
+	 * threads that cancel the task or detect its failure. Holding the lock until the job manager has received an
+	 * update keeps the updates of this task in order.
+	 */
+	private final Object stateLock = new Object();
+
 	private Queue<ExecutionListener> registeredListeners = new ConcurrentLinkedQueue<ExecutionListener>();
 
 	public Task(ExecutionVertexID vertexID, final RuntimeEnvironment environment, TaskManager taskManager) {
@@ -242,27 +249,29 @@ public final class Task implements ExecutionObserver {
 	@Override
 	public void executionStateChanged(final ExecutionState newExecutionState, final String optionalMessage) {
 
-		// Check the state transition
-		ExecutionStateTransition.checkTransition(false, getTaskName(), this.executionState, newExecutionState);
+		synchronized (this.stateLock) {
+			// Check the state transition
+			ExecutionStateTransition.checkTransition(false, getTaskName(), this.executionState, newExecutionState);
 
-		// Make sure the reason for a transition to FAILED appears in the log files
-		if (newExecutionState == ExecutionState.FAILED) {
-			LOG.error(optionalMessage);
-		}
+			// Make sure the reason for a transition to FAILED appears in the log files
+			if (newExecutionState == ExecutionState.FAILED) {
+				LOG.error(optionalMessage);
+			}
 
-		// Notify all listener objects
-		final Iterator<ExecutionListener> it = this.registeredListeners.iterator();
-		while (it.hasNext()) {
-			it.next().executionStateChanged(this.environment.getJobID(), this.vertexID, newExecutionState,
-					optionalMessage);
-		}
+			// Notify all listener objects
+			final Iterator<ExecutionListener> it = this.registeredListeners.iterator();
+			while (it.hasNext()) {
+				it.next().executionStateChanged(this.environment.getJobID(), this.vertexID, newExecutionState,
+						optionalMessage);
+			}
 
-		// Store the new execution state
-		this.executionState = newExecutionState;
+			// Store the new execution state
+			this.executionState = newExecutionState;
 
-		// Finally propagate the state change to the job manager
-		this.taskManager.executionStateChanged(this.environment.getJobID(), this.vertexID, newExecutionState,
-				optionalMessage);
+			// Finally propagate the state change to the job manager
+			this.taskManager.executionStateChanged(this.environment.getJobID(), this.vertexID, newExecutionState,
+					optionalMessage);
+		}
 	}
 
 	/**
@@ -0,0 +1,84 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.taskmanager;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.nephele.execution.TaskActivitySample;
+
+/**
+ * A task activity report carries the activity samples of all tasks running on a task manager from the task manager to
+ * the job manager.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class TaskActivityReport implements IOReadableWritable {
+
+	private final List<TaskActivitySample> samples = new ArrayList<TaskActivitySample>();
+
+	/**
+	 * Adds a sample to the report.
+	 *
+	 * @param sample
+	 *        the sample to add
+	 */
+	public void addSample(final TaskActivitySample sample) {
+		this.samples.add(sample);
+	}
+
+	/**
+	 * Returns the samples contained in the report.
+	 *
+	 * @return the samples contained in the report
+	 */
+	public List<TaskActivitySample> getSamples() {
+		return Collections.unmodifiableList(this.samples);
+	}
+
+	/**
+	 * Checks whether the report contains any samples.
+	 *
+	 * @return <code>true</code> if the report contains no samples, <code>false</code> otherwise
+	 */
+	public boolean isEmpty() {
+		return this.samples.isEmpty();
+	}
+
+	@Override
+	public void write(final DataOutput out) throws IOException {
+
+		out.writeInt(this.samples.size());
+		for (final TaskActivitySample sample : this.samples) {
+			sample.write(out);
+		}
+	}
+
+	@Override
+	public void read(final DataInput in) throws IOException {
+
+		this.samples.clear();
+		final int size = in.readInt();
+		for (int i = 0; i < size; ++i) {
+			final TaskActivitySample sample = new TaskActivitySample();
+			sample.read(in);
+			this.samples.add(sample);
+		}
+	}
+}
@@ -14,8 +14,11 @@
 package eu.stratosphere.nephele.taskmanager;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayDeque;
+import java.util.Queue;
 
+import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.io.InputSplit;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
 import eu.stratosphere.nephele.jobgraph.JobID;
@@ -30,6 +33,10 @@ import eu.stratosphere.util.StringUtils;
  * interface. It is called by a task in order to acquire a new input split to consume. The task input split provider in
  * return will call the global input split provider to retrieve a new input split.
  * <p>
+ * To save round trips to the job manager, the provider fetches the splits in small batches (see
+ * {@link ConfigConstants#TASK_MANAGER_INPUT_SPLIT_PREFETCH_KEY}). Apart from the first split, a batch only contains
+ * splits which are stored on the task's host, so prefetching does not take remote work away from other tasks.
+ * <p>
  * This class is thread-safe.
  * 
  */
@@ -41,27 +48,77 @@ public class TaskInputSplitProvider implements InputSplitProvider {
 
 	private final InputSplitProviderProtocol globalInputSplitProvider;
 
-	private final AtomicInteger sequenceNumber = new AtomicInteger(0);
+	/**
+	 * The maximum number of splits to request at once.
+	 */
+	private final int prefetchSize;
+
+	/**
+	 * The splits which have been fetched, but not yet handed to the task.
+	 */
+	private final Queue<InputSplit> prefetchedSplits = new ArrayDeque<InputSplit>();
+
+	/**
+	 * The sequence number of the next split to request.
+	 */
+	private int sequenceNumber = 0;
+
+	/**
+	 * Set once the job manager has no more splits for the task.
+	 */
+	private boolean exhausted = false;
 
 	TaskInputSplitProvider(final JobID jobID, final ExecutionVertexID executionVertexID,
 			final InputSplitProviderProtocol globalInputSplitProvider) {
 
+		this(jobID, executionVertexID, globalInputSplitProvider, GlobalConfiguration.getInteger(
+			ConfigConstants.TASK_MANAGER_INPUT_SPLIT_PREFETCH_KEY,
+			ConfigConstants.DEFAULT_TASK_MANAGER_INPUT_SPLIT_PREFETCH));
+	}
+
+	TaskInputSplitProvider(final JobID jobID, final ExecutionVertexID executionVertexID,
+			final InputSplitProviderProtocol globalInputSplitProvider, final int prefetchSize) {
+
 		this.jobID = jobID;
 		this.executionVertexID = executionVertexID;
 		this.globalInputSplitProvider = globalInputSplitProvider;
+		this.prefetchSize = Math.max(1, prefetchSize);
 	}
 
 
 	@Override
-	public InputSplit getNextInputSplit() {
+	public synchronized InputSplit getNextInputSplit() {
+
+		InputSplit next = this.prefetchedSplits.poll();
+		if (next != null || this.exhausted) {
+			return next;
+		}
 
 		try {
 
+			final InputSplitWrapper wrapper;
 			synchronized (this.globalInputSplitProvider) {
-				final InputSplitWrapper wrapper = this.globalInputSplitProvider.requestNextInputSplit(this.jobID,
-					this.executionVertexID, new IntegerRecord(this.sequenceNumber.getAndIncrement()));
-				return wrapper.getInputSplit();
+				if (this.prefetchSize == 1) {
+					wrapper = this.globalInputSplitProvider.requestNextInputSplit(this.jobID,
+						this.executionVertexID, new IntegerRecord(this.sequenceNumber));
+				} else {
+					wrapper = this.globalInputSplitProvider.requestNextInputSplits(this.jobID,
+						this.executionVertexID, new IntegerRecord(this.sequenceNumber), new IntegerRecord(
+							this.prefetchSize));
+				}
+			}
+
+			final InputSplit[] splits = wrapper.getInputSplits();
+			if (splits.length == 0) {
+				this.exhausted = true;
+				return null;
+			}
+
+			this.sequenceNumber += splits.length;
+			for (int i = 1; i < splits.length; ++i) {
+				this.prefetchedSplits.add(splits[i]);
 			}
+			return splits[0];
 
 		} catch (IOException ioe) {
 			// Convert IOException into a RuntimException and let the regular fault tolerance routines take care of the
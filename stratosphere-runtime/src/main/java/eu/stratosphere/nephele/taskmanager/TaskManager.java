@@ -35,8 +35,10 @@ import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -62,9 +64,11 @@ import eu.stratosphere.configuration.ConfigConstants;
 import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.fs.Path;
+import eu.stratosphere.nephele.deployment.TaskDeploymentBatch;
 import eu.stratosphere.nephele.deployment.TaskDeploymentDescriptor;
 import eu.stratosphere.nephele.execution.ExecutionState;
 import eu.stratosphere.nephele.execution.RuntimeEnvironment;
+import eu.stratosphere.nephele.execution.TaskActivitySample;
 import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
 import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
 import eu.stratosphere.nephele.instance.HardwareDescription;
@@ -73,6 +77,8 @@ import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
 import eu.stratosphere.nephele.ipc.RPC;
 import eu.stratosphere.nephele.ipc.Server;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.metrics.Gauge;
+import eu.stratosphere.nephele.metrics.MetricRegistry;
 import eu.stratosphere.nephele.net.NetUtils;
 import eu.stratosphere.nephele.profiling.ProfilingUtils;
 import eu.stratosphere.nephele.profiling.TaskManagerProfiler;
@@ -81,6 +87,7 @@ import eu.stratosphere.nephele.protocols.ChannelLookupProtocol;
 import eu.stratosphere.nephele.protocols.InputSplitProviderProtocol;
 import eu.stratosphere.nephele.protocols.JobManagerProtocol;
 import eu.stratosphere.nephele.protocols.TaskOperationProtocol;
+import eu.stratosphere.nephele.services.blob.BlobService;
 import eu.stratosphere.nephele.services.iomanager.IOManager;
 import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
 import eu.stratosphere.nephele.services.memorymanager.spi.DefaultMemoryManager;
@@ -190,6 +197,14 @@ public class TaskManager implements TaskOperationProtocol {
 			LOG.info("Connecting to JobManager at: " + jobManagerAddress);
 		}
 
+		// Retrieve the libraries of the jobs through the BLOB service's proxy, unless the job manager runs in the same
+		// process and has already initialized the BLOB service as a server
+		{
+			final int blobPort = GlobalConfiguration.getInteger(ConfigConstants.BLOB_SERVICE_PORT,
+				ConfigConstants.DEFAULT_BLOB_SERVICE_PORT);
+			BlobService.initProxy(new InetSocketAddress(jobManagerAddress.getAddress(), blobPort));
+		}
+
 		// Create RPC connection to the JobManager
 		try {
 			this.jobManager = RPC.getProxy(JobManagerProtocol.class, jobManagerAddress, NetUtils.getSocketFactory());
@@ -402,6 +417,41 @@ public class TaskManager implements TaskOperationProtocol {
 				}
 			}).start();
 		}
+
+		// --------------------------------------------------------------------
+		// Runtime Metrics
+		// --------------------------------------------------------------------
+
+		final MetricRegistry metrics = MetricRegistry.getInstance();
+		metrics.register("taskmanager.runningTasks", new Gauge() {
+			@Override
+			public long getValue() {
+				return runningTasks.size();
+			}
+		});
+		metrics.exportToJMX();
+
+		final int metricsLogIntervalMs = GlobalConfiguration.getInteger(
+				ConfigConstants.TASK_MANAGER_METRICS_LOG_INTERVAL_MS,
+				ConfigConstants.DEFAULT_TASK_MANAGER_METRICS_LOG_INTERVAL_MS);
+
+		if (metricsLogIntervalMs > 0 && LOG.isInfoEnabled()) {
+			final Thread metricsLogThread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (!isShutDown()) {
+							Thread.sleep(metricsLogIntervalMs);
+							LOG.info("Metrics: " + metrics.snapshot());
+						}
+					} catch (InterruptedException e) {
+						LOG.warn("Unexpected interruption of metrics logger thread.");
+					}
+				}
+			}, "Metrics Logger");
+			metricsLogThread.setDaemon(true);
+			metricsLogThread.start();
+		}
 	}
 
 	private int getAvailablePort() {
@@ -519,6 +569,17 @@ public class TaskManager implements TaskOperationProtocol {
 					LOG.error("Sending the heart beat caused an exception: " + e.getMessage(), e);
 				}
 			}
+
+			// report the activity of the running tasks
+			try {
+				reportTaskActivity();
+			} catch (IOException e) {
+				if (shutdownStarted.get()) {
+					break;
+				} else {
+					LOG.error("Reporting the task activity caused an exception: " + e.getMessage(), e);
+				}
+			}
 			
 			// sleep until the next heart beat
 			try {
@@ -532,6 +593,28 @@ public class TaskManager implements TaskOperationProtocol {
 		}
 	}
 
+	/**
+	 * Samples the activity of all running tasks and reports it to the job manager.
+	 * 
+	 * @throws IOException
+	 *         thrown if an error occurs while reporting the activity
+	 */
+	private void reportTaskActivity() throws IOException {
+
+		final TaskActivityReport report = new TaskActivityReport();
+		for (final Task task : this.runningTasks.values()) {
+			final TaskActivitySample sample = task.getEnvironment().getTaskActivity().sample(task.getJobID(),
+				task.getVertexID());
+			if (sample != null) {
+				report.addSample(sample);
+			}
+		}
+
+		if (!report.isEmpty()) {
+			this.jobManager.reportTaskActivity(report);
+		}
+	}
+
 	/**
 	 * The states of address detection mechanism.
 	 * There is only a state transition if the current state failed to determine the address.
@@ -699,71 +782,151 @@ public class TaskManager implements TaskOperationProtocol {
 
 
 	@Override
-	public List<TaskSubmissionResult> submitTasks(final List<TaskDeploymentDescriptor> tasks) throws IOException {
-
-		final List<TaskSubmissionResult> submissionResultList = new SerializableArrayList<TaskSubmissionResult>();
-		final List<Task> tasksToStart = new ArrayList<Task>();
-
-		// Make sure all tasks are fully registered before they are started
-		for (final TaskDeploymentDescriptor tdd : tasks) {
-
-			final JobID jobID = tdd.getJobID();
-			final ExecutionVertexID vertexID = tdd.getVertexID();
-			RuntimeEnvironment re;
+	public List<TaskSubmissionResult> submitTasks(final TaskDeploymentBatch batch) throws IOException {
+
+		final List<TaskDeploymentDescriptor> tasks = batch.getTasks();
+		final int numberOfTasks = tasks.size();
+		final TaskSubmissionResult[] results = new TaskSubmissionResult[numberOfTasks];
+		final Task[] tasksToStart = new Task[numberOfTasks];
+
+		// Make sure all tasks are fully registered before they are started. The environments of the individual tasks
+		// are independent of each other, so they are set up in parallel.
+		if (numberOfTasks == 1) {
+			setUpTask(tasks.get(0), 0, results, tasksToStart);
+		} else {
+			final List<Future<?>> setUps = new ArrayList<Future<?>>(numberOfTasks);
+			for (int i = 0; i < numberOfTasks; ++i) {
+				final int index = i;
+				setUps.add(this.executorService.submit(new Runnable() {
+
+					@Override
+					public void run() {
+						setUpTask(tasks.get(index), index, results, tasksToStart);
+					}
+				}));
+			}
 
-			// retrieve the registered cache files from job configuration and create the local tmp file.
-			Map<String, FutureTask<Path>> cpTasks = new HashMap<String, FutureTask<Path>>();
-			for (Entry<String, DistributedCacheEntry> e : DistributedCache.readFileInfoFromConfig(tdd.getJobConfiguration())) {
-				FutureTask<Path> cp = this.fileCache.createTmpFile(e.getKey(), e.getValue(), jobID);
-				cpTasks.put(e.getKey(), cp);
+			for (int i = 0; i < numberOfTasks; ++i) {
+				try {
+					setUps.get(i).get();
+				} catch (InterruptedException e) {
+					throw new IOException("Interrupted while setting up tasks", e);
+				} catch (ExecutionException e) {
+					final TaskSubmissionResult result = new TaskSubmissionResult(tasks.get(i).getVertexID(),
+						AbstractTaskResult.ReturnCode.DEPLOYMENT_ERROR);
+					result.setDescription(StringUtils.stringifyException(e.getCause()));
+					LOG.error(result.getDescription(), e.getCause());
+					results[i] = result;
+					releaseLibraries(tasks.get(i).getJobID());
+				}
 			}
+		}
 
-			try {
-				re = new RuntimeEnvironment(tdd, this.memoryManager, this.ioManager, new TaskInputSplitProvider(jobID,
-					vertexID, this.globalInputSplitProvider), this.accumulatorProtocolProxy, cpTasks);
-			} catch (Throwable t) {
-				final TaskSubmissionResult result = new TaskSubmissionResult(vertexID,
-					AbstractTaskResult.ReturnCode.DEPLOYMENT_ERROR);
-				result.setDescription(StringUtils.stringifyException(t));
-				LOG.error(result.getDescription(), t);
-				submissionResultList.add(result);
-				continue;
+		// Now start the tasks
+		final List<TaskSubmissionResult> submissionResultList = new SerializableArrayList<TaskSubmissionResult>(
+			numberOfTasks);
+		for (int i = 0; i < numberOfTasks; ++i) {
+			if (tasksToStart[i] != null) {
+				tasksToStart[i].startExecution();
 			}
+			submissionResultList.add(results[i]);
+		}
 
-			final Configuration jobConfiguration = tdd.getJobConfiguration();
+		return submissionResultList;
+	}
 
-			// Register the task
-			Task task;
-			try {
-				task = createAndRegisterTask(vertexID, jobConfiguration, re);
-			} catch (InsufficientResourcesException e) {
-				final TaskSubmissionResult result = new TaskSubmissionResult(vertexID,
-					AbstractTaskResult.ReturnCode.INSUFFICIENT_RESOURCES);
-				result.setDescription(e.getMessage());
-				LOG.error(result.getDescription(), e);
-				submissionResultList.add(result);
-				continue;
-			}
+	/**
+	 * Creates the runtime environment of the given task and registers the task. This method is called concurrently
+	 * for the tasks of one submission, each call writes only the slots of its own task.
+	 * 
+	 * @param tdd
+	 *        the deployment descriptor of the task
+	 * @param index
+	 *        the index of the task within its submission
+	 * @param results
+	 *        the submission results, indexed like the submitted tasks
+	 * @param tasksToStart
+	 *        the registered tasks to be started, indexed like the submitted tasks
+	 */
+	private void setUpTask(final TaskDeploymentDescriptor tdd, final int index, final TaskSubmissionResult[] results,
+			final Task[] tasksToStart) {
+
+		final JobID jobID = tdd.getJobID();
+		final ExecutionVertexID vertexID = tdd.getVertexID();
+		RuntimeEnvironment re;
+
+		// retrieve the registered cache files from job configuration and create the local tmp file.
+		Map<String, FutureTask<Path>> cpTasks = new HashMap<String, FutureTask<Path>>();
+		for (Entry<String, DistributedCacheEntry> e : DistributedCache.readFileInfoFromConfig(tdd.getJobConfiguration())) {
+			FutureTask<Path> cp = this.fileCache.createTmpFile(e.getKey(), e.getValue(), jobID);
+			cpTasks.put(e.getKey(), cp);
+		}
 
-			if (task == null) {
-				final TaskSubmissionResult result = new TaskSubmissionResult(vertexID,
-					AbstractTaskResult.ReturnCode.TASK_NOT_FOUND);
-				result.setDescription("Task " + re.getTaskNameWithIndex() + " (" + vertexID + ") was already running");
-				LOG.error(result.getDescription());
-				submissionResultList.add(result);
-				continue;
-			}
+		try {
+			re = new RuntimeEnvironment(tdd, this.memoryManager, this.ioManager, new TaskInputSplitProvider(jobID,
+				vertexID, this.globalInputSplitProvider), this.accumulatorProtocolProxy, cpTasks);
+		} catch (Throwable t) {
+			final TaskSubmissionResult result = new TaskSubmissionResult(vertexID,
+				AbstractTaskResult.ReturnCode.DEPLOYMENT_ERROR);
+			result.setDescription(StringUtils.stringifyException(t));
+			LOG.error(result.getDescription(), t);
+			results[index] = result;
+			releaseLibraries(jobID);
+			return;
+		}
 
-			submissionResultList.add(new TaskSubmissionResult(vertexID, AbstractTaskResult.ReturnCode.SUCCESS));
-			tasksToStart.add(task);
+		final Configuration jobConfiguration = tdd.getJobConfiguration();
+
+		// Register the task
+		Task task;
+		try {
+			task = createAndRegisterTask(vertexID, jobConfiguration, re);
+		} catch (InsufficientResourcesException e) {
+			final TaskSubmissionResult result = new TaskSubmissionResult(vertexID,
+				AbstractTaskResult.ReturnCode.INSUFFICIENT_RESOURCES);
+			result.setDescription(e.getMessage());
+			LOG.error(result.getDescription(), e);
+			results[index] = result;
+			releaseLibraries(jobID);
+			return;
+		} catch (Throwable t) {
+			final TaskSubmissionResult result = new TaskSubmissionResult(vertexID,
+				AbstractTaskResult.ReturnCode.DEPLOYMENT_ERROR);
+			result.setDescription(StringUtils.stringifyException(t));
+			LOG.error(result.getDescription(), t);
+			results[index] = result;
+			releaseLibraries(jobID);
+			return;
 		}
 
-		// Now start the tasks
-		for (final Task task : tasksToStart) {
-			task.startExecution();
+		if (task == null) {
+			final TaskSubmissionResult result = new TaskSubmissionResult(vertexID,
+				AbstractTaskResult.ReturnCode.TASK_NOT_FOUND);
+			result.setDescription("Task " + re.getTaskNameWithIndex() + " (" + vertexID + ") was already running");
+			LOG.error(result.getDescription());
+			results[index] = result;
+			releaseLibraries(jobID);
+			return;
 		}
 
-		return submissionResultList;
+		results[index] = new TaskSubmissionResult(vertexID, AbstractTaskResult.ReturnCode.SUCCESS);
+		tasksToStart[index] = task;
+	}
+
+	/**
+	 * Releases the library cache reference of a task which could not be set up. Tasks which have been registered
+	 * release their reference when they are unregistered.
+	 * 
+	 * @param jobID
+	 *        the ID of the job the task belongs to
+	 */
+	private static void releaseLibraries(final JobID jobID) {
+
+		try {
+			LibraryCacheManager.unregister(jobID);
+		} catch (Throwable t) {
+			LOG.error("Cannot release the libraries of job " + jobID, t);
+		}
 	}
 
 	/**
@@ -885,14 +1048,13 @@ public class TaskManager implements TaskOperationProtocol {
 			// Unregister the task (free all buffers, remove all channels, task-specific class loaders, etc...)
 			unregisterTask(id);
 		}
-		// Get lock on the jobManager object and propagate the state change
-		synchronized (this.jobManager) {
-			try {
-				this.jobManager.updateTaskExecutionState(new TaskExecutionState(jobID, id, newExecutionState,
-					optionalDescription));
-			} catch (IOException e) {
-				LOG.error(e);
-			}
+		// Propagate the state change. The updates of concurrent tasks are pipelined on the job manager connection,
+		// the updates of a single task remain ordered because the task reports them under its state lock.
+		try {
+			this.jobManager.updateTaskExecutionState(new TaskExecutionState(jobID, id, newExecutionState,
+				optionalDescription));
+		} catch (IOException e) {
+			LOG.error(e);
 		}
 	}
 
@@ -17,8 +17,14 @@ import eu.stratosphere.api.common.cache.DistributedCache;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
@@ -27,9 +33,12 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import eu.stratosphere.api.common.cache.DistributedCache.DistributedCacheEntry;
 import eu.stratosphere.configuration.ConfigConstants;
+import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.configuration.GlobalConfiguration;
 import eu.stratosphere.core.fs.FSDataInputStream;
 import eu.stratosphere.core.fs.FSDataOutputStream;
@@ -38,6 +47,8 @@ import eu.stratosphere.core.fs.FileSystem;
 import eu.stratosphere.core.fs.Path;
 import eu.stratosphere.core.fs.local.LocalFileSystem;
 import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.services.blob.BlobKey;
+import eu.stratosphere.nephele.services.blob.BlobService;
 import eu.stratosphere.nephele.taskmanager.runtime.ExecutorThreadFactory;
 import eu.stratosphere.nephele.util.IOUtils;
 
@@ -45,9 +56,17 @@ import eu.stratosphere.nephele.util.IOUtils;
  * The FileCache is used to create the local files for the registered cache files when a task is deployed. 
  * The files will be removed when the task is unregistered after a 5 second delay.
  * A given file x will be placed in "<system-tmp-dir>/tmp_<jobID>/".
+ * <p>
+ * Regular files are published through the BLOB service by the client before it submits the job, see
+ * {@link #publishCachedFiles(JobID, Configuration, InetSocketAddress)}. The task managers then fetch them from the BLOB service, which
+ * verifies their content hash and distributes them among the task managers peer-to-peer, instead of all reading them
+ * from their original path. Directories and files which could not be published are still copied from their original
+ * path.
  */
 public class FileCache {
 
+	private static final Log LOG = LogFactory.getLog(FileCache.class);
+
 	private LocalFileSystem lfs = new LocalFileSystem();
 
 	private static final Object lock = new Object();
@@ -105,6 +124,74 @@ public class FileCache {
 		}
 	}
 
+	/**
+	 * Stores the regular files registered with the job's distributed cache in the BLOB service and records their
+	 * content keys in the job configuration. Called by the client before the job is submitted, so the job manager
+	 * never reads the files itself.
+	 * @param jobID
+	 * @param jobConfiguration configuration holding the registered cache files
+	 * @param serverAddress address of the BLOB server
+	 */
+	public static void publishCachedFiles(JobID jobID, Configuration jobConfiguration,
+			InetSocketAddress serverAddress) {
+		for (Entry<String, DistributedCacheEntry> e : DistributedCache.readFileInfoFromConfig(jobConfiguration)) {
+			if (e.getValue().contentKey != null) {
+				continue;
+			}
+			Path path = new Path(e.getValue().filePath);
+			try {
+				FileSystem fs = path.getFileSystem();
+				if (fs.getFileStatus(path).isDir()) {
+					continue;
+				}
+				InputStream in = fs.open(path);
+				BlobKey key;
+				try {
+					key = BlobService.put(jobID, in, serverAddress);
+				} finally {
+					in.close();
+				}
+				DistributedCache.writeContentKeyToConfig(e.getKey(), key.toString(), jobConfiguration);
+				if (LOG.isInfoEnabled()) {
+					LOG.info("Published cached file " + path + " as BLOB " + key);
+				}
+			} catch (IOException ioe) {
+				if (LOG.isWarnEnabled()) {
+					LOG.warn("Cannot publish cached file " + path + ", task managers will copy it from its original path: "
+						+ ioe.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the keys of the cache files which have been published through the BLOB service.
+	 * @param jobConfiguration configuration holding the registered cache files
+	 * @return the content keys of the published cache files
+	 */
+	public static Collection<BlobKey> getPublishedFiles(Configuration jobConfiguration) {
+		List<BlobKey> keys = new ArrayList<BlobKey>();
+		for (Entry<String, DistributedCacheEntry> e : DistributedCache.readFileInfoFromConfig(jobConfiguration)) {
+			if (e.getValue().contentKey != null) {
+				keys.add(BlobKey.fromString(e.getValue().contentKey));
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Copies the BLOB with the given key to the target path unless the target path already exists.
+	 */
+	public static void copy(BlobKey key, Path targetPath, boolean executable) throws IOException {
+		FileSystem tFS = targetPath.getFileSystem();
+		if (!tFS.exists(targetPath)) {
+			InputStream blobInput = BlobService.get(key);
+			FSDataOutputStream lfsOutput = tFS.create(targetPath, false);
+			IOUtils.copyBytes(blobInput, lfsOutput);
+			new File(targetPath.toString()).setExecutable(executable);
+		}
+	}
+
 	public static void copy(Path sourcePath, Path targetPath, boolean executable) throws IOException {
 		FileSystem sFS = sourcePath.getFileSystem();
 		FileSystem tFS = targetPath.getFileSystem();
@@ -143,11 +230,13 @@ public class FileCache {
 		private String name;
 		private String filePath;
 		private Boolean executable;
+		private BlobKey contentKey;
 
 		public CopyProcess(String name, DistributedCacheEntry e, JobID jobID) {
 			this.name = name;
 			this.filePath = e.filePath;
 			this.executable = e.isExecutable;
+			this.contentKey = e.contentKey == null ? null : BlobKey.fromString(e.contentKey);
 			this.jobID = jobID;
 		}
 		@Override
@@ -155,7 +244,11 @@ public class FileCache {
 			Path tmp = getTempDir(jobID, filePath.substring(filePath.lastIndexOf("/") + 1));
 			try {
 				synchronized (lock) {
-					copy(new Path(filePath), tmp, this.executable);
+					if (this.contentKey != null) {
+						copy(this.contentKey, tmp, this.executable);
+					} else {
+						copy(new Path(filePath), tmp, this.executable);
+					}
 				}
 			} catch (IOException e1) {
 				throw new RuntimeException("Error copying a file from hdfs to the local fs", e1);
@@ -0,0 +1,288 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.ListMemorySegmentSource;
+import eu.stratosphere.pact.runtime.io.RandomAccessInputView;
+import eu.stratosphere.pact.runtime.io.SimpleCollectingOutputView;
+import eu.stratosphere.pact.runtime.util.MathUtils;
+
+/**
+ * A hash set of records that lives entirely in managed memory. Records are considered equal if their keys, as
+ * determined by the type comparator, are equal. The table keeps the first record it sees for every key and never
+ * spills: once the memory is exhausted, it rejects further records until it is reset.
+ * <p>
+ * The memory is split into a bucket area and a record area. The bucket area is an open addressing table with linear
+ * probing, where every slot holds the offset of the serialized record in the record area and its hash code. The
+ * records themselves are appended to the record area.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> The type of the records in the table.
+ */
+public class DistinctHashTable<T> {
+
+	/**
+	 * The possible outcomes of an attempt to insert a record into the table.
+	 */
+	public static enum InsertResult {
+		/** The key was not yet contained in the table and the record has been added. */
+		INSERTED,
+		/** The table already contains a record with the same key. */
+		DUPLICATE,
+		/** The key was not yet contained in the table, but there is no space left to add the record. */
+		TABLE_FULL
+	}
+
+	/** The minimal number of memory segments, one for the buckets and one for the records. */
+	private static final int MIN_NUM_MEMORY_SEGMENTS = 2;
+
+	/** The fraction of the memory segments used for the buckets. */
+	private static final int BUCKET_SEGMENT_FRACTION = 8;
+
+	/** The maximal fraction of occupied slots before the table is considered full. */
+	private static final float MAX_LOAD_FACTOR = 0.75f;
+
+	/** The size of a slot: an eight byte record pointer followed by a four byte hash code and four bytes padding. */
+	private static final int SLOT_SIZE_BITS = 4;
+
+	private static final int HASH_CODE_OFFSET = 8;
+
+	private static final long EMPTY_SLOT = -1L;
+
+	// ------------------------------------------------------------------------
+
+	private final TypeSerializer<T> serializer;
+
+	private final TypeComparator<T> comparator;
+
+	private final MemorySegment[] buckets;
+
+	private final ArrayList<MemorySegment> freeMemory;
+
+	private final ArrayList<MemorySegment> recordSegments;
+
+	private final SimpleCollectingOutputView recordCollector;
+
+	private final RandomAccessInputView recordReader;
+
+	private final int slotsPerSegmentBits;
+
+	private final int slotsPerSegmentMask;
+
+	private final int slotMask;
+
+	private final int maxNumRecords;
+
+	private int numRecords;
+
+	private boolean full;
+
+	private T candidate;
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a new hash table on top of the given memory segments.
+	 *
+	 * @param serializer The serializer for the records.
+	 * @param comparator The comparator that determines the keys of the records. It must not be shared with other
+	 *                   users, because the table sets references on it.
+	 * @param memory The memory segments for the table. The segments must all have the same size.
+	 */
+	public DistinctHashTable(TypeSerializer<T> serializer, TypeComparator<T> comparator, List<MemorySegment> memory) {
+		if (serializer == null || comparator == null || memory == null) {
+			throw new NullPointerException();
+		}
+		if (memory.size() < MIN_NUM_MEMORY_SEGMENTS) {
+			throw new IllegalArgumentException("The distinct hash table requires at least " + MIN_NUM_MEMORY_SEGMENTS
+				+ " memory segments.");
+		}
+
+		this.serializer = serializer;
+		this.comparator = comparator;
+
+		final int segmentSize = memory.get(0).size();
+		final int numBucketSegments = MathUtils.roundDownToPowerOf2(Math.max(1, memory.size() / BUCKET_SEGMENT_FRACTION));
+
+		this.buckets = new MemorySegment[numBucketSegments];
+		this.freeMemory = new ArrayList<MemorySegment>(memory.size() - numBucketSegments);
+		for (int i = 0; i < memory.size(); i++) {
+			if (i < numBucketSegments) {
+				this.buckets[i] = memory.get(i);
+			} else {
+				this.freeMemory.add(memory.get(i));
+			}
+		}
+
+		final int slotsPerSegment = segmentSize >>> SLOT_SIZE_BITS;
+		this.slotsPerSegmentBits = MathUtils.log2strict(slotsPerSegment);
+		this.slotsPerSegmentMask = slotsPerSegment - 1;
+		this.slotMask = numBucketSegments * slotsPerSegment - 1;
+		this.maxNumRecords = (int) ((this.slotMask + 1) * MAX_LOAD_FACTOR);
+
+		this.recordSegments = new ArrayList<MemorySegment>(16);
+		this.recordCollector = new SimpleCollectingOutputView(this.recordSegments,
+			new ListMemorySegmentSource(this.freeMemory), segmentSize);
+		this.recordReader = new RandomAccessInputView(this.recordSegments, segmentSize);
+		this.candidate = serializer.createInstance();
+
+		clearBuckets();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Adds the given record to the table, unless the table already contains a record with the same key.
+	 *
+	 * @param record The record to add.
+	 * @return The outcome of the attempt to add the record.
+	 * @throws IOException Thrown, if the record could not be serialized or a contained record could not be read.
+	 */
+	public InsertResult insertIfAbsent(T record) throws IOException {
+		final int hashCode = MutableHashTable.hash(this.comparator.hash(record), 0);
+		final int slot = findSlot(record, hashCode);
+		final MemorySegment bucket = this.buckets[slot >>> this.slotsPerSegmentBits];
+		final int offset = (slot & this.slotsPerSegmentMask) << SLOT_SIZE_BITS;
+
+		if (bucket.getLong(offset) != EMPTY_SLOT) {
+			return InsertResult.DUPLICATE;
+		}
+		if (this.full || this.numRecords >= this.maxNumRecords) {
+			this.full = true;
+			return InsertResult.TABLE_FULL;
+		}
+
+		final long pointer = this.recordCollector.getCurrentOffset();
+		try {
+			this.serializer.serialize(record, this.recordCollector);
+		} catch (EOFException eofex) {
+			this.full = true;
+			return InsertResult.TABLE_FULL;
+		}
+
+		bucket.putLong(offset, pointer);
+		bucket.putInt(offset + HASH_CODE_OFFSET, hashCode);
+		this.numRecords++;
+		return InsertResult.INSERTED;
+	}
+
+	/**
+	 * Checks whether the table contains a record with the same key as the given record.
+	 *
+	 * @param record The record whose key to look up.
+	 * @return True, if the table contains a record with the same key, false otherwise.
+	 * @throws IOException Thrown, if a contained record could not be read.
+	 */
+	public boolean contains(T record) throws IOException {
+		final int hashCode = MutableHashTable.hash(this.comparator.hash(record), 0);
+		final int slot = findSlot(record, hashCode);
+		return this.buckets[slot >>> this.slotsPerSegmentBits].getLong((slot & this.slotsPerSegmentMask) << SLOT_SIZE_BITS) != EMPTY_SLOT;
+	}
+
+	/**
+	 * Gets the number of records in the table.
+	 *
+	 * @return The number of records in the table.
+	 */
+	public int size() {
+		return this.numRecords;
+	}
+
+	/**
+	 * Checks whether the table has rejected a record because its memory was exhausted.
+	 *
+	 * @return True, if the table is full, false otherwise.
+	 */
+	public boolean isFull() {
+		return this.full;
+	}
+
+	/**
+	 * Removes all records from the table.
+	 */
+	public void reset() {
+		this.freeMemory.addAll(this.recordSegments);
+		this.recordSegments.clear();
+		this.recordCollector.reset();
+		this.numRecords = 0;
+		this.full = false;
+
+		clearBuckets();
+	}
+
+	/**
+	 * Collects all memory segments used by the table. The table must not be used any more afterwards.
+	 *
+	 * @return All memory segments of the table.
+	 */
+	public List<MemorySegment> dispose() {
+		final ArrayList<MemorySegment> memory = new ArrayList<MemorySegment>(this.buckets.length
+			+ this.freeMemory.size() + this.recordSegments.size());
+		for (MemorySegment bucket : this.buckets) {
+			memory.add(bucket);
+		}
+		memory.addAll(this.freeMemory);
+		memory.addAll(this.recordSegments);
+		this.freeMemory.clear();
+		this.recordSegments.clear();
+		return memory;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Probes for the slot holding the key of the given record. If the key is not contained, the first empty slot of the
+	 * probe sequence is returned.
+	 */
+	private int findSlot(T record, int hashCode) throws IOException {
+		this.comparator.setReference(record);
+
+		int slot = hashCode & this.slotMask;
+		while (true) {
+			final MemorySegment bucket = this.buckets[slot >>> this.slotsPerSegmentBits];
+			final int offset = (slot & this.slotsPerSegmentMask) << SLOT_SIZE_BITS;
+			final long pointer = bucket.getLong(offset);
+
+			if (pointer == EMPTY_SLOT) {
+				return slot;
+			}
+			if (bucket.getInt(offset + HASH_CODE_OFFSET) == hashCode) {
+				this.recordReader.setReadPosition(pointer);
+				this.candidate = this.serializer.deserialize(this.candidate, this.recordReader);
+				if (this.comparator.equalToReference(this.candidate)) {
+					return slot;
+				}
+			}
+			slot = (slot + 1) & this.slotMask;
+		}
+	}
+
+	private void clearBuckets() {
+		final int segmentSize = this.buckets[0].size();
+		for (MemorySegment bucket : this.buckets) {
+			for (int offset = 0; offset < segmentSize; offset += (1 << SLOT_SIZE_BITS)) {
+				bucket.putLong(offset, EMPTY_SLOT);
+			}
+		}
+	}
+}
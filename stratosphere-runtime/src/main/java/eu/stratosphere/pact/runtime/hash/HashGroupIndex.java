@@ -0,0 +1,495 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.hash;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypePairComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.ListMemorySegmentSource;
+import eu.stratosphere.pact.runtime.io.RandomAccessInputView;
+import eu.stratosphere.pact.runtime.io.SimpleCollectingOutputView;
+import eu.stratosphere.pact.runtime.util.MathUtils;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * An index over groups of records with equal keys that lives entirely in managed memory. The records of every group
+ * are stored back to back in a record area, like the adjacency lists in a compressed sparse row layout. The bucket
+ * area is an open addressing table with linear probing, where every slot holds the offset of the first record of a
+ * group, the hash code of the group's key, and the number of records in the group.
+ * <p>
+ * The index is built once from an input that is grouped on the key, and then probed repeatedly with the keys of
+ * another input. It never spills: once its memory is exhausted, it rejects further records. The group that was
+ * being added at that point can be taken back via {@link #removeOpenGroup()}, such that the index contains only
+ * complete groups.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> The type of the records in the index.
+ */
+public class HashGroupIndex<T> {
+
+	/** The minimal number of memory segments, one for the buckets and one for the records. */
+	private static final int MIN_NUM_MEMORY_SEGMENTS = 2;
+
+	/** The fraction of the memory segments used for the buckets. */
+	private static final int BUCKET_SEGMENT_FRACTION = 8;
+
+	/** The maximal fraction of occupied slots before the index is considered full. */
+	private static final float MAX_LOAD_FACTOR = 0.75f;
+
+	/** The size of a slot: an eight byte pointer to the group, its four byte hash code and its four byte size. */
+	private static final int SLOT_SIZE_BITS = 4;
+
+	private static final int HASH_CODE_OFFSET = 8;
+
+	private static final int GROUP_SIZE_OFFSET = 12;
+
+	private static final long EMPTY_SLOT = -1L;
+
+	// ------------------------------------------------------------------------
+
+	private final TypeSerializer<T> serializer;
+
+	private final TypeComparator<T> comparator;
+
+	private final MemorySegment[] buckets;
+
+	private final ArrayList<MemorySegment> freeMemory;
+
+	private final ArrayList<MemorySegment> recordSegments;
+
+	private final SimpleCollectingOutputView recordCollector;
+
+	private final RandomAccessInputView recordReader;
+
+	private final int segmentSize;
+
+	private final int slotsPerSegmentBits;
+
+	private final int slotsPerSegmentMask;
+
+	private final int slotMask;
+
+	private final int maxNumGroups;
+
+	private int numGroups;
+
+	private long numRecords;
+
+	private int openSlot = -1;
+
+	private boolean full;
+
+	private T candidate;
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a new index on top of the given memory segments.
+	 *
+	 * @param serializer The serializer for the records.
+	 * @param comparator The comparator that determines the keys of the records. It must not be shared with other
+	 *                   users, because the index sets references on it.
+	 * @param memory The memory segments for the index. The segments must all have the same size.
+	 */
+	public HashGroupIndex(TypeSerializer<T> serializer, TypeComparator<T> comparator, List<MemorySegment> memory) {
+		if (serializer == null || comparator == null || memory == null) {
+			throw new NullPointerException();
+		}
+		if (memory.size() < MIN_NUM_MEMORY_SEGMENTS) {
+			throw new IllegalArgumentException("The hash group index requires at least " + MIN_NUM_MEMORY_SEGMENTS
+				+ " memory segments.");
+		}
+
+		this.serializer = serializer;
+		this.comparator = comparator;
+
+		this.segmentSize = memory.get(0).size();
+		final int numBucketSegments = MathUtils.roundDownToPowerOf2(Math.max(1, memory.size() / BUCKET_SEGMENT_FRACTION));
+
+		this.buckets = new MemorySegment[numBucketSegments];
+		this.freeMemory = new ArrayList<MemorySegment>(memory.size() - numBucketSegments);
+		for (int i = 0; i < memory.size(); i++) {
+			if (i < numBucketSegments) {
+				this.buckets[i] = memory.get(i);
+			} else {
+				this.freeMemory.add(memory.get(i));
+			}
+		}
+
+		final int slotsPerSegment = this.segmentSize >>> SLOT_SIZE_BITS;
+		this.slotsPerSegmentBits = MathUtils.log2strict(slotsPerSegment);
+		this.slotsPerSegmentMask = slotsPerSegment - 1;
+		this.slotMask = numBucketSegments * slotsPerSegment - 1;
+		this.maxNumGroups = (int) ((this.slotMask + 1) * MAX_LOAD_FACTOR);
+
+		this.recordSegments = new ArrayList<MemorySegment>(16);
+		this.recordCollector = new SimpleCollectingOutputView(this.recordSegments,
+			new ListMemorySegmentSource(this.freeMemory), this.segmentSize);
+		this.recordReader = new RandomAccessInputView(this.recordSegments, this.segmentSize);
+		this.candidate = serializer.createInstance();
+
+		final int segmentSize = this.segmentSize;
+		for (MemorySegment bucket : this.buckets) {
+			for (int offset = 0; offset < segmentSize; offset += (1 << SLOT_SIZE_BITS)) {
+				bucket.putLong(offset, EMPTY_SLOT);
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	//                                Building
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Starts a new group with the given record. The group that was open before is complete afterwards.
+	 *
+	 * @param record The first record of the new group.
+	 * @return True, if the record has been added, false, if the index is full.
+	 * @throws IOException Thrown, if the record could not be serialized or a contained record could not be read.
+	 * @throws IllegalStateException Thrown, if the index contains a group with the same key already, which means
+	 *                               that the input is not grouped.
+	 */
+	public boolean startGroup(T record) throws IOException {
+		this.openSlot = -1;
+		if (this.full) {
+			return false;
+		}
+
+		final int hashCode = MutableHashTable.hash(this.comparator.hash(record), 0);
+		final int slot = findSlot(record, hashCode);
+		final MemorySegment bucket = this.buckets[slot >>> this.slotsPerSegmentBits];
+		final int offset = (slot & this.slotsPerSegmentMask) << SLOT_SIZE_BITS;
+
+		if (bucket.getLong(offset) != EMPTY_SLOT) {
+			throw new IllegalStateException("The key of the record is contained in the index already. " +
+				"The input to the index must be grouped.");
+		}
+		if (this.numGroups >= this.maxNumGroups) {
+			this.full = true;
+			return false;
+		}
+
+		final long pointer = this.recordCollector.getCurrentOffset();
+		try {
+			this.serializer.serialize(record, this.recordCollector);
+		} catch (EOFException eofex) {
+			this.full = true;
+			return false;
+		}
+
+		bucket.putLong(offset, pointer);
+		bucket.putInt(offset + HASH_CODE_OFFSET, hashCode);
+		bucket.putInt(offset + GROUP_SIZE_OFFSET, 1);
+		this.numGroups++;
+		this.numRecords++;
+		this.openSlot = slot;
+		return true;
+	}
+
+	/**
+	 * Adds the given record to the open group. The key of the record must be equal to the key of the group.
+	 *
+	 * @param record The record to add.
+	 * @return True, if the record has been added, false, if the index is full.
+	 * @throws IOException Thrown, if the record could not be serialized.
+	 */
+	public boolean addToGroup(T record) throws IOException {
+		if (this.openSlot == -1) {
+			throw new IllegalStateException("No group has been started.");
+		}
+		if (this.full) {
+			return false;
+		}
+
+		try {
+			this.serializer.serialize(record, this.recordCollector);
+		} catch (EOFException eofex) {
+			this.full = true;
+			return false;
+		}
+
+		final MemorySegment bucket = this.buckets[this.openSlot >>> this.slotsPerSegmentBits];
+		final int offset = ((this.openSlot & this.slotsPerSegmentMask) << SLOT_SIZE_BITS) + GROUP_SIZE_OFFSET;
+		bucket.putInt(offset, bucket.getInt(offset) + 1);
+		this.numRecords++;
+		return true;
+	}
+
+	/**
+	 * Removes the group that was being added when the index ran full. The removed records are returned, such that
+	 * the caller may store them elsewhere, together with the rest of the group. If no group is open, because the
+	 * index ran full when a new group was started, no records are removed.
+	 * <p>
+	 * The returned iterator reads the records from the index' memory. It is valid until the index is disposed.
+	 *
+	 * @return An iterator over the records of the removed group.
+	 */
+	public MutableObjectIterator<T> removeOpenGroup() {
+		if (this.openSlot == -1) {
+			return new GroupReader(0, 0);
+		}
+
+		final MemorySegment bucket = this.buckets[this.openSlot >>> this.slotsPerSegmentBits];
+		final int offset = (this.openSlot & this.slotsPerSegmentMask) << SLOT_SIZE_BITS;
+		final long pointer = bucket.getLong(offset);
+		final int size = bucket.getInt(offset + GROUP_SIZE_OFFSET);
+
+		// the open group was inserted last, so no probe sequence runs across its slot
+		bucket.putLong(offset, EMPTY_SLOT);
+		this.numGroups--;
+		this.numRecords -= size;
+		this.openSlot = -1;
+		this.full = true;
+
+		return new GroupReader(pointer, size);
+	}
+
+	// ------------------------------------------------------------------------
+	//                                Access
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Creates a prober that looks up the groups of this index for records of another type.
+	 *
+	 * @param probeSideComparator The comparator for the probing records. Its hash codes must be consistent with the
+	 *                            hash codes of the index' comparator.
+	 * @param pairComparator The comparator between the probing records and the records in the index.
+	 * @return A prober for this index.
+	 */
+	public <PT> Prober<PT> getProber(TypeComparator<PT> probeSideComparator, TypePairComparator<PT, T> pairComparator) {
+		return new Prober<PT>(probeSideComparator, pairComparator);
+	}
+
+	/**
+	 * Gets the number of groups in the index.
+	 *
+	 * @return The number of groups in the index.
+	 */
+	public int getNumGroups() {
+		return this.numGroups;
+	}
+
+	/**
+	 * Gets the number of records in the index.
+	 *
+	 * @return The number of records in the index.
+	 */
+	public long getNumRecords() {
+		return this.numRecords;
+	}
+
+	/**
+	 * Checks whether the index has rejected a record because its memory was exhausted.
+	 *
+	 * @return True, if the index is full, false otherwise.
+	 */
+	public boolean isFull() {
+		return this.full;
+	}
+
+	/**
+	 * Collects all memory segments used by the index. The index must not be used any more afterwards.
+	 *
+	 * @return All memory segments of the index.
+	 */
+	public List<MemorySegment> dispose() {
+		final ArrayList<MemorySegment> memory = new ArrayList<MemorySegment>(this.buckets.length
+			+ this.freeMemory.size() + this.recordSegments.size());
+		for (MemorySegment bucket : this.buckets) {
+			memory.add(bucket);
+		}
+		memory.addAll(this.freeMemory);
+		memory.addAll(this.recordSegments);
+		this.freeMemory.clear();
+		this.recordSegments.clear();
+		return memory;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Probes for the slot holding the key of the given record. If the key is not contained, the first empty slot of the
+	 * probe sequence is returned.
+	 */
+	private int findSlot(T record, int hashCode) throws IOException {
+		this.comparator.setReference(record);
+
+		int slot = hashCode & this.slotMask;
+		while (true) {
+			final MemorySegment bucket = this.buckets[slot >>> this.slotsPerSegmentBits];
+			final int offset = (slot & this.slotsPerSegmentMask) << SLOT_SIZE_BITS;
+			final long pointer = bucket.getLong(offset);
+
+			if (pointer == EMPTY_SLOT) {
+				return slot;
+			}
+			if (bucket.getInt(offset + HASH_CODE_OFFSET) == hashCode) {
+				this.recordReader.setReadPosition(pointer);
+				this.candidate = this.serializer.deserialize(this.candidate, this.recordReader);
+				if (this.comparator.equalToReference(this.candidate)) {
+					return slot;
+				}
+			}
+			slot = (slot + 1) & this.slotMask;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Looks up the groups of the index for records of another type.
+	 *
+	 * @param <PT> The type of the probing records.
+	 */
+	public final class Prober<PT> {
+
+		private final TypeComparator<PT> probeSideComparator;
+
+		private final TypePairComparator<PT, T> pairComparator;
+
+		private final RandomAccessInputView reader;
+
+		private final GroupIterator group;
+
+		private T candidate;
+
+		private Prober(TypeComparator<PT> probeSideComparator, TypePairComparator<PT, T> pairComparator) {
+			this.probeSideComparator = probeSideComparator;
+			this.pairComparator = pairComparator;
+			this.reader = new RandomAccessInputView(HashGroupIndex.this.recordSegments, HashGroupIndex.this.segmentSize);
+			this.group = new GroupIterator(this.reader);
+			this.candidate = HashGroupIndex.this.serializer.createInstance();
+		}
+
+		/**
+		 * Looks up the group with the same key as the given record. The returned iterator is reused by every call
+		 * to this method and is valid until the next call.
+		 *
+		 * @param probeSideRecord The record whose key to look up.
+		 * @return An iterator over the records of the group, or null, if the index contains no group with the key.
+		 * @throws IOException Thrown, if a contained record could not be read.
+		 */
+		public Iterator<T> getMatchesFor(PT probeSideRecord) throws IOException {
+			final int hashCode = MutableHashTable.hash(this.probeSideComparator.hash(probeSideRecord), 0);
+			final MemorySegment[] buckets = HashGroupIndex.this.buckets;
+			final int slotsPerSegmentBits = HashGroupIndex.this.slotsPerSegmentBits;
+			final int slotsPerSegmentMask = HashGroupIndex.this.slotsPerSegmentMask;
+			final int slotMask = HashGroupIndex.this.slotMask;
+
+			this.pairComparator.setReference(probeSideRecord);
+
+			int slot = hashCode & slotMask;
+			while (true) {
+				final MemorySegment bucket = buckets[slot >>> slotsPerSegmentBits];
+				final int offset = (slot & slotsPerSegmentMask) << SLOT_SIZE_BITS;
+				final long pointer = bucket.getLong(offset);
+
+				if (pointer == EMPTY_SLOT) {
+					return null;
+				}
+				if (bucket.getInt(offset + HASH_CODE_OFFSET) == hashCode) {
+					this.reader.setReadPosition(pointer);
+					this.candidate = HashGroupIndex.this.serializer.deserialize(this.candidate, this.reader);
+					if (this.pairComparator.equalToReference(this.candidate)) {
+						this.group.set(pointer, bucket.getInt(offset + GROUP_SIZE_OFFSET));
+						return this.group;
+					}
+				}
+				slot = (slot + 1) & slotMask;
+			}
+		}
+	}
+
+	/**
+	 * Iterator over the records of one group, read from the record area.
+	 */
+	private final class GroupIterator implements Iterator<T> {
+
+		private final RandomAccessInputView reader;
+
+		private T reuse;
+
+		private int remaining;
+
+		private GroupIterator(RandomAccessInputView reader) {
+			this.reader = reader;
+			this.reuse = HashGroupIndex.this.serializer.createInstance();
+		}
+
+		private void set(long pointer, int size) {
+			this.reader.setReadPosition(pointer);
+			this.remaining = size;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.remaining > 0;
+		}
+
+		@Override
+		public T next() {
+			if (this.remaining <= 0) {
+				throw new NoSuchElementException();
+			}
+			try {
+				this.reuse = HashGroupIndex.this.serializer.deserialize(this.reuse, this.reader);
+			} catch (IOException ioex) {
+				throw new RuntimeException("Error reading a record from the hash group index: " + ioex.getMessage(), ioex);
+			}
+			this.remaining--;
+			return this.reuse;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Reads the records of a removed group back from the record area.
+	 */
+	private final class GroupReader implements MutableObjectIterator<T> {
+
+		private final RandomAccessInputView reader;
+
+		private int remaining;
+
+		private GroupReader(long pointer, int size) {
+			this.reader = new RandomAccessInputView(HashGroupIndex.this.recordSegments, HashGroupIndex.this.segmentSize);
+			this.remaining = size;
+			if (size > 0) {
+				this.reader.setReadPosition(pointer);
+			}
+		}
+
+		@Override
+		public T next(T reuse) throws IOException {
+			if (this.remaining <= 0) {
+				return null;
+			}
+			this.remaining--;
+			return HashGroupIndex.this.serializer.deserialize(reuse, this.reader);
+		}
+	}
+}
@@ -29,6 +29,8 @@ import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.core.memory.MemorySegmentSource;
 import eu.stratosphere.core.memory.SeekableDataOutputView;
+import eu.stratosphere.nephele.metrics.Counter;
+import eu.stratosphere.nephele.metrics.MetricRegistry;
 import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
 import eu.stratosphere.nephele.services.iomanager.BulkBlockChannelReader;
 import eu.stratosphere.nephele.services.iomanager.Channel;
@@ -87,6 +89,16 @@ import eu.stratosphere.util.MutableObjectIterator;
 public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 	
 	private static final Log LOG = LogFactory.getLog(MutableHashTable.class);
+
+	/**
+	 * The number of records inserted into the initial tables.
+	 */
+	private static final Counter BUILD_RECORDS = MetricRegistry.getInstance().counter("hash.buildRecords");
+
+	/**
+	 * The number of partitions spilled to disk.
+	 */
+	private static final Counter SPILLED_PARTITIONS = MetricRegistry.getInstance().counter("hash.spilledPartitions");
 	
 	// ------------------------------------------------------------------------
 	//                         Internal Constants
@@ -697,10 +709,13 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		BT record = this.buildSideSerializer.createInstance();
 
 		// go over the complete input and insert every element into the hash table
+		long numRecords = 0L;
 		while (this.running && ((record = input.next(record)) != null)) {
 			final int hashCode = hash(buildTypeComparator.hash(record), 0);
 			insertIntoTable(record, hashCode);
+			++numRecords;
 		}
+		BUILD_RECORDS.add(numRecords);
 		
 		if (!this.running) {
 			return;
@@ -1098,6 +1113,7 @@ public class MutableHashTable<BT, PT> implements MemorySegmentSource {
 		// spill the partition
 		int numBuffersFreed = p.spillPartition(this.availableMemory, this.ioManager, 
 										this.currentEnumerator.next(), this.writeBehindBuffers);
+		SPILLED_PARTITIONS.inc();
 		this.writeBehindBuffersAvailable += numBuffersFreed;
 		// grab as many buffers as are available directly
 		MemorySegment currBuff = null;
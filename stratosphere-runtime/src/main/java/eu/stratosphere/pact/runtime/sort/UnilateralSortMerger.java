@@ -32,6 +32,9 @@ import eu.stratosphere.api.common.typeutils.TypeComparator;
 import eu.stratosphere.api.common.typeutils.TypeSerializer;
 import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
 import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.metrics.Counter;
+import eu.stratosphere.nephele.metrics.Histogram;
+import eu.stratosphere.nephele.metrics.MetricRegistry;
 import eu.stratosphere.nephele.services.iomanager.BlockChannelAccess;
 import eu.stratosphere.nephele.services.iomanager.BlockChannelReader;
 import eu.stratosphere.nephele.services.iomanager.BlockChannelWriter;
@@ -64,6 +67,21 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 	 * Logging.
 	 */
 	private static final Log LOG = LogFactory.getLog(UnilateralSortMerger.class);
+
+	/**
+	 * The time it takes to sort a buffer in nanoseconds.
+	 */
+	private static final Histogram SORT_TIME = MetricRegistry.getInstance().histogram("sort.sortNanos");
+
+	/**
+	 * The number of blocks written when spilling sorted buffers.
+	 */
+	private static final Counter SPILLED_BLOCKS = MetricRegistry.getInstance().counter("sort.spilledBlocks");
+
+	/**
+	 * The number of blocks written by intermediate merges.
+	 */
+	private static final Counter MERGED_BLOCKS = MetricRegistry.getInstance().counter("sort.mergedBlocks");
 	
 	/**
 	 * Fix length records with a length below this threshold will be in-place sorted, if possible.
@@ -1126,7 +1144,9 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 						LOG.debug("Sorting buffer " + element.id + ".");
 					}
 					
+					final long start = System.nanoTime();
 					this.sorter.sort(element.buffer);
+					SORT_TIME.update(System.nanoTime() - start);
 					
 					if (LOG.isDebugEnabled()) {
 						LOG.debug("Sorted buffer " + element.id + ".");
@@ -1317,6 +1337,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 				unregisterOpenChannelToBeRemovedAtShudown(writer);
 				
 				channelIDs.add(new ChannelWithBlockCount(channel, output.getBlockCount()));
+				SPILLED_BLOCKS.add(output.getBlockCount());
 
 				// pass empty sort-buffer to reading thread
 				element.buffer.reset();
@@ -1528,6 +1549,7 @@ public class UnilateralSortMerger<E> implements Sorter<E> {
 			}
 			output.close();
 			final int numBlocksWritten = output.getBlockCount();
+			MERGED_BLOCKS.add(numBlocksWritten);
 			
 			// register merged result to be removed at shutdown
 			unregisterOpenChannelToBeRemovedAtShudown(writer);
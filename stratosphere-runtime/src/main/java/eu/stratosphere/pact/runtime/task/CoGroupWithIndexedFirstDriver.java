@@ -0,0 +1,337 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericCoGrouper;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypePairComparator;
+import eu.stratosphere.api.common.typeutils.TypePairComparatorFactory;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.pact.runtime.hash.HashGroupIndex;
+import eu.stratosphere.pact.runtime.resettable.SpillingResettableMutableObjectIterator;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.pact.runtime.util.EmptyIterator;
+import eu.stratosphere.pact.runtime.util.KeyGroupedIterator;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * CoGroup task that indexes the groups of its first input in managed memory and probes the index with the groups
+ * of its second input. Only groups of the second input are passed to the CoGroup function, together with the
+ * matching group of the first input, or an empty group. Groups of the first input without a partner in the second
+ * input are skipped.
+ * <p>
+ * The driver is used inside iterations, where the first input is typically static. Like the cached build side match
+ * drivers, it reads and indexes the first input once, when it is initialized in the first superstep, and releases the
+ * index when it is torn down. Every superstep only probes the index, which spares re-reading and re-sorting the first
+ * input. Both inputs are expected to be sorted on the keys. If the first input does not fit into the index, the
+ * remaining groups are kept in a spilling buffer and merged with the second input.
+ *
+ * @param <IT1> The type of the indexed input.
+ * @param <IT2> The type of the probing input.
+ * @param <OT> The type of the produced records.
+ */
+public class CoGroupWithIndexedFirstDriver<IT1, IT2, OT> implements ResettablePactDriver<GenericCoGrouper<IT1, IT2, OT>, OT> {
+
+	private static final Log LOG = LogFactory.getLog(CoGroupWithIndexedFirstDriver.class);
+
+	/** The minimal number of pages kept back for the groups that do not fit into the index. */
+	private static final int MIN_NUM_OVERFLOW_PAGES = 4;
+
+	/** The fraction of the driver's pages kept back for the groups that do not fit into the index. */
+	private static final int OVERFLOW_PAGES_FRACTION = 16;
+
+
+	private PactTaskContext<GenericCoGrouper<IT1, IT2, OT>, OT> taskContext;
+
+	private MemoryManager memManager;
+
+	private HashGroupIndex<IT1> index;
+
+	private SpillingResettableMutableObjectIterator<IT1> overflow;
+
+	private List<MemorySegment> overflowMemory;
+
+	private TypeSerializer<IT1> serializer1;
+
+	private TypeSerializer<IT2> serializer2;
+
+	private TypeComparator<IT1> comparator1;
+
+	private TypeComparator<IT2> comparator2;
+
+	private TypePairComparator<IT1, IT2> pairComparator12;
+
+	private TypePairComparator<IT2, IT1> pairComparator21;
+
+
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<GenericCoGrouper<IT1, IT2, OT>, OT> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 2;
+	}
+
+	@Override
+	public Class<GenericCoGrouper<IT1, IT2, OT>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericCoGrouper<IT1, IT2, OT>> clazz = (Class<GenericCoGrouper<IT1, IT2, OT>>) (Class<?>) GenericCoGrouper.class;
+		return clazz;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	@Override
+	public boolean isInputResettable(int inputNum) {
+		if (inputNum < 0 || inputNum > 1) {
+			throw new IndexOutOfBoundsException();
+		}
+		// the first input is consumed once, its contents are kept in the index
+		return inputNum == 0;
+	}
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void initialize() throws Exception {
+		buildIndex();
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		// the index is built once in initialize()
+		if (this.index == null) {
+			throw new Exception("The indexed co-group driver was not initialized. It can only be used inside iterations.");
+		}
+	}
+
+	@Override
+	public void run() throws Exception {
+		final GenericCoGrouper<IT1, IT2, OT> coGroupStub = this.taskContext.getStub();
+		final Collector<OT> collector = this.taskContext.getOutputCollector();
+
+		final KeyGroupedIterator<IT2> probeSide = new KeyGroupedIterator<IT2>(this.taskContext.<IT2>getInput(1),
+			this.serializer2, this.comparator2);
+		final HashGroupIndex<IT1>.Prober<IT2> prober = this.index.getProber(this.comparator2.duplicate(), this.pairComparator21);
+		final Iterator<IT1> emptyIndexedSide = EmptyIterator.<IT1>get();
+
+		// the groups that did not fit into the index, in sorted order
+		KeyGroupedIterator<IT1> overflowGroups = null;
+		boolean overflowHasGroup = false;
+		if (this.overflow != null) {
+			this.overflow.reset();
+			overflowGroups = new KeyGroupedIterator<IT1>(this.overflow, this.serializer1, this.comparator1.duplicate());
+			overflowHasGroup = overflowGroups.nextKey();
+		}
+
+		final TypePairComparator<IT1, IT2> pairComparator12 = this.pairComparator12;
+
+		while (this.running && probeSide.nextKey()) {
+			final IT2 current = probeSide.getCurrent();
+			Iterator<IT1> indexedGroup = prober.getMatchesFor(current);
+
+			if (indexedGroup == null && overflowHasGroup) {
+				// merge with the overflow groups, skipping those with smaller keys
+				int cmp;
+				pairComparator12.setReference(overflowGroups.getCurrent());
+				while ((cmp = pairComparator12.compareToReference(current)) > 0 &&
+						(overflowHasGroup = overflowGroups.nextKey()))
+				{
+					pairComparator12.setReference(overflowGroups.getCurrent());
+				}
+				if (overflowHasGroup && cmp == 0) {
+					indexedGroup = overflowGroups.getValues();
+				}
+			}
+
+			coGroupStub.coGroup(indexedGroup == null ? emptyIndexedSide : indexedGroup, probeSide.getValues(), collector);
+		}
+	}
+
+	@Override
+	public void cleanup() throws Exception {}
+
+	@Override
+	public void reset() {}
+
+	@Override
+	public void teardown() throws Exception {
+		if (this.overflow != null) {
+			this.memManager.release(this.overflow.close());
+			this.overflow = null;
+		}
+		if (this.overflowMemory != null) {
+			this.memManager.release(this.overflowMemory);
+			this.overflowMemory = null;
+		}
+		if (this.index != null) {
+			this.memManager.release(this.index.dispose());
+			this.index = null;
+		}
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Reads the first input and adds its groups to the index. The groups that do not fit are cached in a spilling
+	 * buffer.
+	 */
+	private void buildIndex() throws Exception {
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		if (config.getDriverStrategy() != DriverStrategy.CO_GROUP_INDEXED_FIRST) {
+			throw new Exception("Unrecognized driver strategy for indexed co-group driver: " + config.getDriverStrategy().name());
+		}
+
+		this.memManager = this.taskContext.getMemoryManager();
+		this.serializer1 = this.taskContext.<IT1>getInputSerializer(0).getSerializer();
+		this.serializer2 = this.taskContext.<IT2>getInputSerializer(1).getSerializer();
+		this.comparator1 = this.taskContext.getInputComparator(0);
+		this.comparator2 = this.taskContext.getInputComparator(1);
+
+		final TypePairComparatorFactory<IT1, IT2> pairComparatorFactory =
+			config.getPairComparatorFactory(this.taskContext.getUserCodeClassLoader());
+		this.pairComparator12 = pairComparatorFactory.createComparator12(this.comparator1.duplicate(), this.comparator2.duplicate());
+		this.pairComparator21 = pairComparatorFactory.createComparator21(this.comparator1.duplicate(), this.comparator2.duplicate());
+
+		final int numPages = this.memManager.computeNumberOfPages(config.getMemoryDriver());
+		final int numOverflowPages = Math.max(numPages / OVERFLOW_PAGES_FRACTION, MIN_NUM_OVERFLOW_PAGES);
+		if (numPages - numOverflowPages < 2) {
+			throw new Exception("Too little memory provided to indexed co-group driver. Required are at least "
+				+ (MIN_NUM_OVERFLOW_PAGES + 2) + " pages.");
+		}
+
+		final List<MemorySegment> memory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(),
+			numPages - numOverflowPages);
+		final HashGroupIndex<IT1> index = new HashGroupIndex<IT1>(this.serializer1, this.comparator1.duplicate(), memory);
+		this.index = index;
+		this.overflowMemory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(), numOverflowPages);
+
+		final KeyGroupedIterator<IT1> groups = new KeyGroupedIterator<IT1>(this.taskContext.<IT1>getInput(0),
+			this.serializer1, this.comparator1.duplicate());
+
+		while (this.running && groups.nextKey()) {
+			final KeyGroupedIterator<IT1>.ValuesIterator values = groups.getValues();
+
+			IT1 record = values.next();
+			if (!index.startGroup(record)) {
+				spillRemaining(record, values, groups);
+				return;
+			}
+			while (values.hasNext()) {
+				record = values.next();
+				if (!index.addToGroup(record)) {
+					spillRemaining(record, values, groups);
+					return;
+				}
+			}
+		}
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Indexed " + index.getNumRecords() + " records in "
+				+ index.getNumGroups() + " groups."));
+		}
+	}
+
+	/**
+	 * Caches the group that did not fit into the index, together with all following groups.
+	 */
+	private void spillRemaining(IT1 pending, Iterator<IT1> pendingGroup, KeyGroupedIterator<IT1> groups) throws IOException {
+		final MutableObjectIterator<IT1> removed = this.index.removeOpenGroup();
+
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Index full after " + this.index.getNumRecords() + " records in "
+				+ this.index.getNumGroups() + " groups. Caching the remaining groups."));
+		}
+
+		this.overflow = new SpillingResettableMutableObjectIterator<IT1>(
+			new RemainingGroupsIterator(removed, pending, pendingGroup, groups), this.serializer1,
+			this.memManager, this.taskContext.getIOManager(), this.overflowMemory);
+		this.overflowMemory = null;
+		this.overflow.consumeAndCacheRemainingData();
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Iterator over the records of the group that was removed from the index, the record that did not fit, the rest
+	 * of its group, and all following groups. The records are returned in the order of the input.
+	 */
+	private final class RemainingGroupsIterator implements MutableObjectIterator<IT1> {
+
+		private final KeyGroupedIterator<IT1> groups;
+
+		private MutableObjectIterator<IT1> removed;
+
+		private IT1 pending;
+
+		private Iterator<IT1> currentGroup;
+
+		private RemainingGroupsIterator(MutableObjectIterator<IT1> removed, IT1 pending, Iterator<IT1> pendingGroup,
+				KeyGroupedIterator<IT1> groups)
+		{
+			this.removed = removed;
+			this.pending = pending;
+			this.currentGroup = pendingGroup;
+			this.groups = groups;
+		}
+
+		@Override
+		public IT1 next(IT1 reuse) throws IOException {
+			if (this.removed != null) {
+				final IT1 record = this.removed.next(reuse);
+				if (record != null) {
+					return record;
+				}
+				this.removed = null;
+			}
+			if (this.pending != null) {
+				final IT1 record = CoGroupWithIndexedFirstDriver.this.serializer1.copy(this.pending, reuse);
+				this.pending = null;
+				return record;
+			}
+			while (this.currentGroup != null) {
+				if (this.currentGroup.hasNext()) {
+					return CoGroupWithIndexedFirstDriver.this.serializer1.copy(this.currentGroup.next(), reuse);
+				}
+				this.currentGroup = this.groups.nextKey() ? this.groups.getValues() : null;
+			}
+			return null;
+		}
+	}
+}
@@ -57,11 +57,18 @@ public enum DriverStrategy {
 	// partially grouping inputs (best effort resulting possibly in duplicates --> combiner)
 	SORTED_GROUP_COMBINE(GroupReduceCombineDriver.class, SynchronousChainedCombineDriver.class, MATERIALIZING, true),
 
+	// removing duplicate keys with a hash table and sorting what does not fit into it
+	HASHED_DISTINCT(HashDistinctDriver.class, null, MATERIALIZING, true),
+	// hashed partial distinct is the combiner for the distinct. never spills, may produce duplicates
+	HASHED_PARTIAL_DISTINCT(HashDistinctCombineDriver.class, null, MATERIALIZING, true),
+
 	// both inputs are merged, but materialized to the side for block-nested-loop-join among values with equal key
 	MERGE(MatchDriver.class, null, MATERIALIZING, MATERIALIZING, true),
 
 	// co-grouping inputs
 	CO_GROUP(CoGroupDriver.class, null, PIPELINED, PIPELINED, true),
+	// co-grouping inputs, the groups of the first input are indexed in memory and kept across supersteps
+	CO_GROUP_INDEXED_FIRST(CoGroupWithIndexedFirstDriver.class, null, FULL_DAM, PIPELINED, true),
 	
 	// the first input is build side, the second side is probe side of a hybrid hash table
 	HYBRIDHASH_BUILD_FIRST(MatchDriver.class, null, FULL_DAM, MATERIALIZING, true),
@@ -0,0 +1,141 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.pact.runtime.hash.DistinctHashTable;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * Combine operator for Distinct, standalone (not chained).
+ * Drops records whose key has been seen before, using a hash table in managed memory. Every record
+ * with a new key is forwarded immediately. When the hash table is full, it is cleared, so the combiner
+ * never spills, but may forward multiple records with the same key.
+ *
+ * @param <T> The data type consumed and produced by the combiner.
+ */
+public class HashDistinctCombineDriver<T> implements PactDriver<GenericReduce<T>, T> {
+
+	private static final Log LOG = LogFactory.getLog(HashDistinctCombineDriver.class);
+
+
+	private PactTaskContext<GenericReduce<T>, T> taskContext;
+
+	private TypeSerializer<T> serializer;
+
+	private Collector<T> output;
+
+
+	private MemoryManager memManager;
+
+	private DistinctHashTable<T> table;
+
+
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<GenericReduce<T>, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	@Override
+	public Class<GenericReduce<T>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericReduce<T>> clazz = (Class<GenericReduce<T>>) (Class<?>) GenericReduce.class;
+		return clazz;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		if (this.taskContext.getTaskConfig().getDriverStrategy() != DriverStrategy.HASHED_PARTIAL_DISTINCT) {
+			throw new Exception("Invalid strategy " + this.taskContext.getTaskConfig().getDriverStrategy() + " for distinct combiner.");
+		}
+
+		this.memManager = this.taskContext.getMemoryManager();
+		final int numMemoryPages = this.memManager.computeNumberOfPages(this.taskContext.getTaskConfig().getMemoryDriver());
+
+		this.serializer = this.taskContext.<T>getInputSerializer(0).getSerializer();
+		this.output = this.taskContext.getOutputCollector();
+
+		final List<MemorySegment> memory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(), numMemoryPages);
+		this.table = new DistinctHashTable<T>(this.serializer, this.taskContext.<T>getInputComparator(0).duplicate(), memory);
+	}
+
+	@Override
+	public void run() throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Distinct combiner starting."));
+		}
+
+		final MutableObjectIterator<T> in = this.taskContext.getInput(0);
+		final DistinctHashTable<T> table = this.table;
+		final Collector<T> output = this.output;
+
+		T value = this.serializer.createInstance();
+
+		while (this.running && (value = in.next(value)) != null) {
+			switch (table.insertIfAbsent(value)) {
+			case INSERTED:
+				output.collect(value);
+				break;
+			case DUPLICATE:
+				break;
+			case TABLE_FULL:
+				// start over with an empty table, the final distinct removes the duplicates
+				table.reset();
+				if (table.insertIfAbsent(value) != DistinctHashTable.InsertResult.INSERTED) {
+					throw new IOException("Cannot write record to fresh hash table. Record too large.");
+				}
+				output.collect(value);
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		if (this.table != null) {
+			this.memManager.release(this.table.dispose());
+			this.table = null;
+		}
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+}
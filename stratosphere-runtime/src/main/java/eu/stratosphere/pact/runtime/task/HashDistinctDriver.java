@@ -0,0 +1,232 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.common.typeutils.TypeSerializer;
+import eu.stratosphere.api.common.typeutils.TypeSerializerFactory;
+import eu.stratosphere.core.memory.MemorySegment;
+import eu.stratosphere.nephele.services.memorymanager.MemoryManager;
+import eu.stratosphere.pact.runtime.hash.DistinctHashTable;
+import eu.stratosphere.pact.runtime.sort.UnilateralSortMerger;
+import eu.stratosphere.pact.runtime.task.util.TaskConfig;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+/**
+ * Distinct task which is executed by a Nephele task manager. The task expects an input that is partitioned
+ * on the key, but not necessarily grouped.
+ * <p>
+ * The driver forwards the first record of every key and remembers the key in a hash table in managed memory.
+ * If the hash table runs full, it is frozen: the remaining input is filtered against it and the records whose
+ * keys are not contained are sorted, such that their duplicates can be removed group-wise. The sorter uses the
+ * part of the driver's memory that is not given to the hash table.
+ *
+ * @param <T> The data type consumed and produced by the distinct.
+ */
+public class HashDistinctDriver<T> implements PactDriver<GenericReduce<T>, T> {
+
+	private static final Log LOG = LogFactory.getLog(HashDistinctDriver.class);
+
+	/** The minimal number of pages kept back for the sorter in case the hash table runs full. */
+	private static final int MIN_NUM_SORT_PAGES = 12;
+
+	/** The fraction of the driver's pages kept back for the sorter in case the hash table runs full. */
+	private static final int SORT_PAGES_FRACTION = 4;
+
+
+	private PactTaskContext<GenericReduce<T>, T> taskContext;
+
+	private TypeSerializerFactory<T> serializerFactory;
+
+	private TypeComparator<T> comparator;
+
+	private MemoryManager memManager;
+
+	private DistinctHashTable<T> table;
+
+	private UnilateralSortMerger<T> sorter;
+
+	private long sortMemory;
+
+
+	private volatile boolean running;
+
+	// ------------------------------------------------------------------------
+
+	@Override
+	public void setup(PactTaskContext<GenericReduce<T>, T> context) {
+		this.taskContext = context;
+		this.running = true;
+	}
+
+	@Override
+	public int getNumberOfInputs() {
+		return 1;
+	}
+
+	@Override
+	public Class<GenericReduce<T>> getStubType() {
+		@SuppressWarnings("unchecked")
+		final Class<GenericReduce<T>> clazz = (Class<GenericReduce<T>>) (Class<?>) GenericReduce.class;
+		return clazz;
+	}
+
+	@Override
+	public boolean requiresComparatorOnInput() {
+		return true;
+	}
+
+	@Override
+	public void prepare() throws Exception {
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		if (config.getDriverStrategy() != DriverStrategy.HASHED_DISTINCT) {
+			throw new Exception("Unrecognized driver strategy for hash distinct driver: " + config.getDriverStrategy().name());
+		}
+
+		this.memManager = this.taskContext.getMemoryManager();
+		this.serializerFactory = this.taskContext.getInputSerializer(0);
+		this.comparator = this.taskContext.getInputComparator(0);
+
+		final int numPages = this.memManager.computeNumberOfPages(config.getMemoryDriver());
+		final int numSortPages = Math.max(numPages / SORT_PAGES_FRACTION, MIN_NUM_SORT_PAGES);
+		if (numPages - numSortPages < 2) {
+			throw new Exception("Too little memory provided to hash distinct driver. Required are at least "
+				+ (MIN_NUM_SORT_PAGES + 2) + " pages.");
+		}
+		this.sortMemory = ((long) numSortPages) * this.memManager.getPageSize();
+
+		final List<MemorySegment> memory = this.memManager.allocatePages(this.taskContext.getOwningNepheleTask(),
+			numPages - numSortPages);
+		this.table = new DistinctHashTable<T>(this.serializerFactory.getSerializer(), this.comparator.duplicate(), memory);
+	}
+
+	@Override
+	public void run() throws Exception {
+		if (LOG.isDebugEnabled()) {
+			LOG.debug(this.taskContext.formatLogString("Distinct preprocessing done. Running hash distinct."));
+		}
+
+		final MutableObjectIterator<T> input = this.taskContext.getInput(0);
+		final DistinctHashTable<T> table = this.table;
+		final Collector<T> output = this.taskContext.getOutputCollector();
+
+		T value = this.serializerFactory.getSerializer().createInstance();
+
+		while (this.running && (value = input.next(value)) != null) {
+			final DistinctHashTable.InsertResult result = table.insertIfAbsent(value);
+			if (result == DistinctHashTable.InsertResult.INSERTED) {
+				output.collect(value);
+			} else if (result == DistinctHashTable.InsertResult.TABLE_FULL) {
+				break;
+			}
+		}
+
+		if (this.running && value != null) {
+			if (LOG.isDebugEnabled()) {
+				LOG.debug(this.taskContext.formatLogString("Hash table full after " + table.size()
+					+ " distinct records. Sorting the remaining input."));
+			}
+			runSorted(new FilteringIterator(value, input));
+		}
+	}
+
+	/**
+	 * Sorts the given input and forwards the first record of every key group.
+	 */
+	private void runSorted(MutableObjectIterator<T> remaining) throws Exception {
+		final TaskConfig config = this.taskContext.getTaskConfig();
+		this.sorter = new UnilateralSortMerger<T>(this.memManager, this.taskContext.getIOManager(), remaining,
+			this.taskContext.getOwningNepheleTask(), this.serializerFactory, this.comparator.duplicate(),
+			this.sortMemory, config.getFilehandlesDriver(), config.getSpillingThresholdDriver());
+
+		final MutableObjectIterator<T> input = this.sorter.getIterator();
+		final TypeSerializer<T> serializer = this.serializerFactory.getSerializer();
+		final TypeComparator<T> comparator = this.comparator;
+		final Collector<T> output = this.taskContext.getOutputCollector();
+
+		T current = input.next(serializer.createInstance());
+		T next = serializer.createInstance();
+
+		// iterate over key groups
+		while (this.running && current != null) {
+			output.collect(current);
+			comparator.setReference(current);
+
+			// skip the rest of the key group
+			while ((next = input.next(next)) != null && comparator.equalToReference(next));
+
+			final T tmp = current;
+			current = next;
+			next = tmp;
+		}
+	}
+
+	@Override
+	public void cleanup() {
+		if (this.sorter != null) {
+			this.sorter.close();
+			this.sorter = null;
+		}
+		if (this.table != null) {
+			this.memManager.release(this.table.dispose());
+			this.table = null;
+		}
+	}
+
+	@Override
+	public void cancel() {
+		this.running = false;
+	}
+
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Iterator over the record that did not fit into the hash table and the rest of the input, skipping the
+	 * records whose keys are contained in the frozen hash table. Those records have been forwarded already.
+	 */
+	private final class FilteringIterator implements MutableObjectIterator<T> {
+
+		private final MutableObjectIterator<T> input;
+
+		private T pending;
+
+		private FilteringIterator(T pending, MutableObjectIterator<T> input) {
+			this.pending = pending;
+			this.input = input;
+		}
+
+		@Override
+		public T next(T reuse) throws IOException {
+			if (this.pending != null) {
+				final T record = this.pending;
+				this.pending = null;
+				return record;
+			}
+			while ((reuse = this.input.next(reuse)) != null) {
+				if (!HashDistinctDriver.this.table.contains(reuse)) {
+					return reuse;
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -15,6 +15,10 @@ package eu.stratosphere.runtime.io.api;
 
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.nephele.event.task.AbstractEvent;
+import eu.stratosphere.nephele.execution.TaskActivity;
+import eu.stratosphere.nephele.metrics.Counter;
+import eu.stratosphere.nephele.metrics.Histogram;
+import eu.stratosphere.nephele.metrics.MetricRegistry;
 import eu.stratosphere.nephele.template.AbstractInputTask;
 import eu.stratosphere.nephele.template.AbstractInvokable;
 import eu.stratosphere.nephele.template.AbstractTask;
@@ -36,8 +40,18 @@ import java.io.IOException;
  */
 public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 
+	private static final Counter RECORDS_EMITTED = MetricRegistry.getInstance().counter("output.records");
+
+	private static final Counter BUFFERS_EMITTED = MetricRegistry.getInstance().counter("output.buffers");
+
+	/** Time spent waiting for an empty buffer, which indicates back pressure from the consumers */
+	private static final Histogram BUFFER_WAIT_TIME = MetricRegistry.getInstance().histogram("output.bufferWaitNanos");
+
 	private final BufferProvider bufferPool;
 
+	/** Records the time spent waiting for empty buffers as the task's back pressure */
+	private final TaskActivity taskActivity;
+
 	private final ChannelSelector<T> channelSelector;
 
 	private int numChannels;
@@ -45,6 +59,9 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 	/** RecordSerializer per outgoing channel */
 	private RecordSerializer<T>[] serializers;
 
+	/** Records emitted but not yet added to the shared counter, which is only updated once per buffer */
+	private long pendingRecords;
+
 	// -----------------------------------------------------------------------------------------------------------------
 
 	public RecordWriter(AbstractTask task) {
@@ -70,6 +87,7 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 		super(invokable);
 
 		this.bufferPool = invokable.getEnvironment().getOutputBufferProvider();
+		this.taskActivity = invokable.getEnvironment().getTaskActivity();
 		this.channelSelector = channelSelector;
 	}
 
@@ -85,6 +103,7 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 	}
 
 	public void emit(final T record) throws IOException, InterruptedException {
+		++this.pendingRecords;
 		for (int targetChannel : this.channelSelector.selectChannels(record, this.numChannels)) {
 			// serialize with corresponding serializer and send full buffer
 			RecordSerializer<T> serializer = this.serializers[targetChannel];
@@ -94,9 +113,23 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 				Buffer buffer = serializer.getCurrentBuffer();
 				if (buffer != null) {
 					sendBuffer(buffer, targetChannel);
+					reportEmittedBuffer();
 				}
 
-				buffer = this.bufferPool.requestBufferBlocking(this.bufferPool.getBufferSize());
+				// one pair of time stamps feeds both the histogram and the task's back pressure
+				final long start = System.nanoTime();
+				if (this.taskActivity != null) {
+					this.taskActivity.beginBackPressure(start);
+				}
+				try {
+					buffer = this.bufferPool.requestBufferBlocking(this.bufferPool.getBufferSize());
+				} finally {
+					final long end = System.nanoTime();
+					if (this.taskActivity != null) {
+						this.taskActivity.endBackPressure(end);
+					}
+					BUFFER_WAIT_TIME.update(end - start);
+				}
 				result = serializer.setNextBuffer(buffer);
 			}
 		}
@@ -109,12 +142,21 @@ public class RecordWriter<T extends IOReadableWritable> extends BufferWriter {
 			Buffer buffer = serializer.getCurrentBuffer();
 			if (buffer != null) {
 				sendBuffer(buffer, targetChannel);
+				reportEmittedBuffer();
 			}
 
 			serializer.clear();
 		}
 	}
 
+	private void reportEmittedBuffer() {
+		BUFFERS_EMITTED.inc();
+		if (this.pendingRecords > 0) {
+			RECORDS_EMITTED.add(this.pendingRecords);
+			this.pendingRecords = 0;
+		}
+	}
+
 	@Override
 	public void broadcastEvent(AbstractEvent event) throws IOException, InterruptedException {
 		for (int targetChannel = 0; targetChannel < this.numChannels; targetChannel++) {
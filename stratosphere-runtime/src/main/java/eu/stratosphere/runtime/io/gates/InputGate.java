@@ -20,6 +20,9 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import eu.stratosphere.nephele.deployment.ChannelDeploymentDescriptor;
 import eu.stratosphere.nephele.deployment.GateDeploymentDescriptor;
+import eu.stratosphere.nephele.metrics.Counter;
+import eu.stratosphere.nephele.metrics.Histogram;
+import eu.stratosphere.nephele.metrics.MetricRegistry;
 import eu.stratosphere.runtime.io.Buffer;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferAvailabilityListener;
 import eu.stratosphere.runtime.io.network.bufferprovider.BufferProvider;
@@ -33,6 +36,7 @@ import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.nephele.event.task.AbstractEvent;
 import eu.stratosphere.nephele.event.task.AbstractTaskEvent;
 import eu.stratosphere.nephele.execution.Environment;
+import eu.stratosphere.nephele.execution.TaskActivity;
 import eu.stratosphere.runtime.io.channels.InputChannel;
 import eu.stratosphere.nephele.jobgraph.JobID;
 
@@ -81,6 +85,25 @@ public class InputGate<T extends IOReadableWritable> extends Gate<T> implements
 
 	private LocalBufferPool bufferPool;
 
+	/**
+	 * The number of records read but not yet added to the shared counter, which is only updated once per buffer.
+	 */
+	private long pendingRecords;
+
+	/**
+	 * The activity of the task owning this gate, may be <code>null</code>.
+	 */
+	private final TaskActivity taskActivity;
+
+	private static final Counter RECORDS_READ = MetricRegistry.getInstance().counter("input.records");
+
+	private static final Counter BUFFERS_READ = MetricRegistry.getInstance().counter("input.buffers");
+
+	/**
+	 * The time spent waiting for input, which indicates that the producers are the bottleneck.
+	 */
+	private static final Histogram INPUT_WAIT_TIME = MetricRegistry.getInstance().histogram("input.waitNanos");
+
 	/**
 	 * Constructs a new runtime input gate.
 	 * 
@@ -92,7 +115,24 @@ public class InputGate<T extends IOReadableWritable> extends Gate<T> implements
 	 *        the index assigned to this input gate at the {@link Environment} object
 	 */
 	public InputGate(final JobID jobID, final GateID gateID, final int index) {
+		this(jobID, gateID, index, null);
+	}
+
+	/**
+	 * Constructs a new runtime input gate which records the time spent waiting for input in the given task activity.
+	 * 
+	 * @param jobID
+	 *        the ID of the job this input gate belongs to
+	 * @param gateID
+	 *        the ID of the gate
+	 * @param index
+	 *        the index assigned to this input gate at the {@link Environment} object
+	 * @param taskActivity
+	 *        the activity of the task owning this gate or <code>null</code> if the activity is not recorded
+	 */
+	public InputGate(final JobID jobID, final GateID gateID, final int index, final TaskActivity taskActivity) {
 		super(jobID, gateID, index);
+		this.taskActivity = taskActivity;
 	}
 
 	public void initializeChannels(GateDeploymentDescriptor inputGateDescriptor){
@@ -165,16 +205,33 @@ public class InputGate<T extends IOReadableWritable> extends Gate<T> implements
 				throw new InterruptedException();
 			}
 				
-			this.channelToReadFrom = waitForAnyChannelToBecomeAvailable();
+			// one pair of time stamps feeds both the histogram and the task's idle time
+			final long start = System.nanoTime();
+			if (this.taskActivity != null) {
+				this.taskActivity.beginIdle(start);
+			}
+			try {
+				this.channelToReadFrom = waitForAnyChannelToBecomeAvailable();
+			} finally {
+				final long end = System.nanoTime();
+				if (this.taskActivity != null) {
+					this.taskActivity.endIdle(end);
+				}
+				INPUT_WAIT_TIME.update(end - start);
+			}
 		}
 			
 		InputChannelResult result = this.getInputChannel(this.channelToReadFrom).readRecord(target);
 		switch (result) {
 			case INTERMEDIATE_RECORD_FROM_BUFFER: // full record and we can stay on the same channel
+				++this.pendingRecords;
 				return InputChannelResult.INTERMEDIATE_RECORD_FROM_BUFFER;
 				
 			case LAST_RECORD_FROM_BUFFER: // full record, but we must switch the channel afterwards
 				this.channelToReadFrom = -1;
+				BUFFERS_READ.inc();
+				RECORDS_READ.add(this.pendingRecords + 1);
+				this.pendingRecords = 0;
 				return InputChannelResult.LAST_RECORD_FROM_BUFFER;
 				
 			case END_OF_SUPERSTEP:
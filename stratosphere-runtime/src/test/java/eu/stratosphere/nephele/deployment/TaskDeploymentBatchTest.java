@@ -0,0 +1,171 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.deployment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.services.blob.BlobKey;
+import eu.stratosphere.nephele.util.FileLineReader;
+import eu.stratosphere.nephele.util.FileLineWriter;
+import eu.stratosphere.nephele.util.SerializableArrayList;
+import eu.stratosphere.nephele.util.ServerTestUtils;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * This class contains unit tests for the {@link TaskDeploymentBatch} class.
+ */
+public class TaskDeploymentBatchTest {
+
+	private static final int NUMBER_OF_SUBTASKS = 20;
+
+	/**
+	 * Tests the serialization/deserialization of the {@link TaskDeploymentBatch} class and checks that shared
+	 * configurations are transmitted only once.
+	 */
+	@Test
+	public void testSerialization() {
+
+		final JobID jobID = new JobID();
+		final List<BlobKey> requiredJarFiles = new ArrayList<BlobKey>(0);
+
+		final Configuration jobConfiguration = new Configuration();
+		for (int i = 0; i < 50; ++i) {
+			jobConfiguration.setString("job.key." + i, "job value " + i);
+		}
+		final Configuration readerConfiguration = new Configuration();
+		readerConfiguration.setString("task.key", "reader");
+		final Configuration writerConfiguration = new Configuration();
+		writerConfiguration.setString("task.key", "writer");
+
+		final List<TaskDeploymentDescriptor> tasks = new SerializableArrayList<TaskDeploymentDescriptor>();
+		for (int i = 0; i < NUMBER_OF_SUBTASKS; ++i) {
+			tasks.add(new TaskDeploymentDescriptor(jobID, new ExecutionVertexID(), "reader", i, NUMBER_OF_SUBTASKS,
+				jobConfiguration, readerConfiguration, FileLineReader.class,
+				new SerializableArrayList<GateDeploymentDescriptor>(0),
+				new SerializableArrayList<GateDeploymentDescriptor>(0), requiredJarFiles));
+			tasks.add(new TaskDeploymentDescriptor(jobID, new ExecutionVertexID(), "writer", i, NUMBER_OF_SUBTASKS,
+				jobConfiguration, writerConfiguration, FileLineWriter.class,
+				new SerializableArrayList<GateDeploymentDescriptor>(0),
+				new SerializableArrayList<GateDeploymentDescriptor>(0), requiredJarFiles));
+		}
+
+		final TaskDeploymentBatch orig = new TaskDeploymentBatch(tasks);
+
+		try {
+			// The job configuration dominates the size, a batch must carry it only once
+			assertTrue(getSerializedLength(orig) < getSerializedLength((IOReadableWritable) tasks) / 10);
+
+			final TaskDeploymentBatch copy = ServerTestUtils.createCopy(orig);
+			assertEquals(orig.size(), copy.size());
+
+			for (int i = 0; i < orig.size(); ++i) {
+
+				final TaskDeploymentDescriptor o = orig.getTasks().get(i);
+				final TaskDeploymentDescriptor c = copy.getTasks().get(i);
+
+				assertEquals(o.getJobID(), c.getJobID());
+				assertEquals(o.getVertexID(), c.getVertexID());
+				assertEquals(o.getTaskName(), c.getTaskName());
+				assertEquals(o.getIndexInSubtaskGroup(), c.getIndexInSubtaskGroup());
+				assertEquals(o.getCurrentNumberOfSubtasks(), c.getCurrentNumberOfSubtasks());
+				assertEquals(o.getInvokableClass(), c.getInvokableClass());
+				assertEquals(o.getJobConfiguration(), c.getJobConfiguration());
+				assertEquals(o.getTaskConfiguration(), c.getTaskConfiguration());
+			}
+
+			// Every task must receive its own configuration objects
+			final TaskDeploymentDescriptor first = copy.getTasks().get(0);
+			final TaskDeploymentDescriptor third = copy.getTasks().get(2);
+			assertFalse(first.getJobConfiguration() == third.getJobConfiguration());
+			assertFalse(first.getTaskConfiguration() == third.getTaskConfiguration());
+
+			// Each deserialized task holds one reference to the job's libraries
+			for (int i = 0; i < copy.size(); ++i) {
+				LibraryCacheManager.unregister(jobID);
+			}
+		} catch (IOException ioe) {
+			fail(StringUtils.stringifyException(ioe));
+		}
+	}
+
+	/**
+	 * Checks that a batch which cannot be read completely releases all library references taken while reading it.
+	 */
+	@Test
+	public void testTruncatedBatchReleasesLibraries() {
+
+		final JobID jobID = new JobID();
+		final List<BlobKey> requiredJarFiles = new ArrayList<BlobKey>(0);
+
+		final List<TaskDeploymentDescriptor> tasks = new SerializableArrayList<TaskDeploymentDescriptor>();
+		for (int i = 0; i < 4; ++i) {
+			tasks.add(new TaskDeploymentDescriptor(jobID, new ExecutionVertexID(), "reader", i, 4,
+				new Configuration(), new Configuration(), FileLineReader.class,
+				new SerializableArrayList<GateDeploymentDescriptor>(0),
+				new SerializableArrayList<GateDeploymentDescriptor>(0), requiredJarFiles));
+		}
+
+		try {
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			final DataOutputStream dos = new DataOutputStream(baos);
+			new TaskDeploymentBatch(tasks).write(dos);
+			dos.close();
+
+			// Cut off the last task, so that the first tasks have been registered when the read fails
+			final byte[] truncated = new byte[baos.size() - 4];
+			System.arraycopy(baos.toByteArray(), 0, truncated, 0, truncated.length);
+
+			final TaskDeploymentBatch copy = new TaskDeploymentBatch();
+			try {
+				copy.read(new DataInputStream(new ByteArrayInputStream(truncated)));
+				fail("Reading a truncated batch must fail");
+			} catch (IOException expected) {
+			}
+
+			assertEquals(0, copy.size());
+			assertNull(LibraryCacheManager.getClassLoader(jobID));
+		} catch (IOException ioe) {
+			fail(StringUtils.stringifyException(ioe));
+		}
+	}
+
+	private static int getSerializedLength(final IOReadableWritable record) throws IOException {
+
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		final DataOutputStream dos = new DataOutputStream(baos);
+		record.write(dos);
+		dos.close();
+
+		return baos.size();
+	}
+}
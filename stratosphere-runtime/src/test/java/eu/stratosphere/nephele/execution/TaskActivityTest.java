@@ -0,0 +1,112 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import eu.stratosphere.nephele.executiongraph.ExecutionVertexID;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.taskmanager.TaskActivityReport;
+import eu.stratosphere.nephele.util.ServerTestUtils;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * This class contains unit tests for the {@link TaskActivity}.
+ */
+public class TaskActivityTest {
+
+	private static final long SLEEP_TIME = 50L;
+
+	private static final float EPSILON = 0.0001f;
+
+	/**
+	 * Checks that waits, including a wait in progress, are accounted for in the samples.
+	 */
+	@Test
+	public void testSample() {
+
+		final JobID jobID = new JobID();
+		final ExecutionVertexID vertexID = new ExecutionVertexID();
+		final TaskActivity activity = new TaskActivity();
+
+		assertNull(activity.sample(jobID, vertexID));
+
+		try {
+			activity.start();
+
+			activity.beginBackPressure(System.nanoTime());
+			Thread.sleep(SLEEP_TIME);
+			activity.endBackPressure(System.nanoTime());
+
+			activity.beginIdle(System.nanoTime());
+			Thread.sleep(SLEEP_TIME);
+
+			// The wait for input is still in progress
+			final TaskActivitySample first = activity.sample(jobID, vertexID);
+			assertNotNull(first);
+			assertEquals(jobID, first.getJobID());
+			assertEquals(vertexID, first.getVertexID());
+			assertTrue(first.getBackPressureRatio() > 0.0f);
+			assertTrue(first.getIdleRatio() > 0.0f);
+			assertEquals(1.0f, first.getBusyRatio() + first.getBackPressureRatio() + first.getIdleRatio(), EPSILON);
+
+			Thread.sleep(SLEEP_TIME);
+			activity.endIdle(System.nanoTime());
+			activity.stop();
+
+			final TaskActivitySample second = activity.sample(jobID, vertexID);
+			assertNotNull(second);
+			assertEquals(0.0f, second.getBackPressureRatio(), 0.0f);
+			assertTrue(second.getIdleRatio() > 0.5f);
+
+			// No time passes after the task has been stopped
+			assertNull(activity.sample(jobID, vertexID));
+		} catch (InterruptedException e) {
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	/**
+	 * Checks the serialization of a task activity report.
+	 */
+	@Test
+	public void testReportSerialization() {
+
+		final TaskActivityReport report = new TaskActivityReport();
+		report.addSample(new TaskActivitySample(new JobID(), new ExecutionVertexID(), 0.5f, 0.25f, 0.25f));
+		report.addSample(new TaskActivitySample(new JobID(), new ExecutionVertexID(), 0.0f, 1.0f, 0.0f));
+
+		try {
+			final TaskActivityReport copy = ServerTestUtils.createCopy(report);
+			assertEquals(report.getSamples().size(), copy.getSamples().size());
+			for (int i = 0; i < report.getSamples().size(); ++i) {
+				final TaskActivitySample orig = report.getSamples().get(i);
+				final TaskActivitySample sample = copy.getSamples().get(i);
+				assertEquals(orig.getJobID(), sample.getJobID());
+				assertEquals(orig.getVertexID(), sample.getVertexID());
+				assertEquals(orig.getBusyRatio(), sample.getBusyRatio(), 0.0f);
+				assertEquals(orig.getBackPressureRatio(), sample.getBackPressureRatio(), 0.0f);
+				assertEquals(orig.getIdleRatio(), sample.getIdleRatio(), 0.0f);
+			}
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.ipc;
+
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+
+import eu.stratosphere.nephele.ipc.RPCTest.TestProtocol;
+import eu.stratosphere.nephele.ipc.RPCTest.TestProtocolImpl;
+import eu.stratosphere.nephele.types.IntegerRecord;
+
+/**
+ * Measures the number of RPC calls per second over the loopback interface. The first argument is the number of
+ * calling threads (default 4), the second the duration of a run in seconds (default 10). The optional third argument
+ * is the number of outstanding asynchronous calls per thread (default 1, which makes synchronous calls).
+ */
+public class RPCBenchmark {
+
+	private static final int NUM_HANDLERS = 4;
+
+	public static void main(final String[] args) throws Exception {
+
+		final int numThreads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		final long durationMillis = 1000L * (args.length > 1 ? Integer.parseInt(args[1]) : 10);
+		final int window = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+
+		final RPC.Server server = RPC.getServer(new TestProtocolImpl(), "localhost", 0, NUM_HANDLERS);
+		server.start();
+		final InetSocketAddress address = new InetSocketAddress("localhost", server.getListenerAddress().getPort());
+
+		try {
+			// Warm up
+			runCalls(address, numThreads, window, durationMillis / 5);
+
+			final long calls = runCalls(address, numThreads, window, durationMillis);
+			System.out.println(numThreads + " threads, " + window + " outstanding: " + calls + " calls in " + durationMillis + " ms, "
+				+ (calls * 1000 / durationMillis) + " calls/sec");
+		} finally {
+			server.stop();
+		}
+	}
+
+	private static long runCalls(final InetSocketAddress address, final int numThreads, final int window,
+			final long durationMillis) throws Exception {
+
+		final Method add = TestProtocol.class.getMethod("add", IntegerRecord.class, IntegerRecord.class);
+
+		final AtomicLong calls = new AtomicLong();
+		final long end = System.currentTimeMillis() + durationMillis;
+
+		final Thread[] threads = new Thread[numThreads];
+		for (int i = 0; i < numThreads; ++i) {
+			threads[i] = new Thread() {
+
+				@Override
+				public void run() {
+					try {
+						final TestProtocol proxy = RPC.getProxy(TestProtocol.class, address);
+						final IntegerRecord a = new IntegerRecord(1);
+						final IntegerRecord b = new IntegerRecord(2);
+						long count = 0;
+						if (window <= 1) {
+							while (System.currentTimeMillis() < end) {
+								proxy.add(a, b);
+								++count;
+							}
+						} else {
+							final Queue<Future<IOReadableWritable>> outstanding = new ArrayDeque<Future<IOReadableWritable>>();
+							while (System.currentTimeMillis() < end) {
+								outstanding.add(RPC.callAsync(proxy, add, a, b));
+								if (outstanding.size() >= window) {
+									outstanding.poll().get();
+									++count;
+								}
+							}
+							while (!outstanding.isEmpty()) {
+								outstanding.poll().get();
+								++count;
+							}
+						}
+						RPC.stopProxy(proxy);
+						calls.addAndGet(count);
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		for (int i = 0; i < numThreads; ++i) {
+			threads[i].join();
+		}
+
+		return calls.get();
+	}
+}
@@ -0,0 +1,220 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.io.IOReadableWritable;
+import eu.stratosphere.core.io.StringRecord;
+import eu.stratosphere.core.protocols.VersionedProtocol;
+import eu.stratosphere.nephele.types.IntegerRecord;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * This class checks the RPC calls and the method dispatch of the {@link RPC} class.
+ */
+public class RPCTest {
+
+	/**
+	 * Protocol used for the tests.
+	 */
+	public static interface TestProtocol extends VersionedProtocol {
+
+		IntegerRecord add(IntegerRecord a, IntegerRecord b) throws IOException;
+
+		IntegerRecord add(IntegerRecord a) throws IOException;
+
+		StringRecord echo(StringRecord value) throws IOException;
+
+		void fail(StringRecord message) throws IOException;
+	}
+
+	/**
+	 * A subtype of a declared parameter type.
+	 */
+	public static final class DoubledIntegerRecord extends IntegerRecord {
+
+		public DoubledIntegerRecord() {
+		}
+
+		public DoubledIntegerRecord(final int value) {
+			super(value);
+		}
+
+		@Override
+		public int getValue() {
+			return 2 * super.getValue();
+		}
+	}
+
+	/**
+	 * Implementation of the test protocol.
+	 */
+	public static final class TestProtocolImpl implements TestProtocol {
+
+		@Override
+		public IntegerRecord add(final IntegerRecord a, final IntegerRecord b) {
+			return new IntegerRecord(a.getValue() + b.getValue());
+		}
+
+		@Override
+		public IntegerRecord add(final IntegerRecord a) {
+			return new IntegerRecord(a.getValue() + 1);
+		}
+
+		@Override
+		public StringRecord echo(final StringRecord value) {
+			return value;
+		}
+
+		@Override
+		public void fail(final StringRecord message) throws IOException {
+			throw new IOException(message.toString());
+		}
+	}
+
+	@Test
+	public void testCalls() {
+
+		RPC.Server server = null;
+		TestProtocol proxy = null;
+		try {
+			server = RPC.getServer(new TestProtocolImpl(), "localhost", 0, 1);
+			server.start();
+
+			proxy = RPC.getProxy(TestProtocol.class, new InetSocketAddress("localhost", server.getListenerAddress()
+				.getPort()));
+
+			// Overloaded methods are told apart by their IDs
+			assertEquals(5, proxy.add(new IntegerRecord(2), new IntegerRecord(3)).getValue());
+			assertEquals(3, proxy.add(new IntegerRecord(2)).getValue());
+
+			// Parameters of a subtype of the declared type keep their class
+			assertEquals(4 + 3, proxy.add(new DoubledIntegerRecord(2), new IntegerRecord(3)).getValue());
+
+			assertEquals("hello", proxy.echo(new StringRecord("hello")).toString());
+			assertNull(proxy.echo(null));
+
+			try {
+				proxy.fail(new StringRecord("expected"));
+				org.junit.Assert.fail("Exception was not forwarded to the caller");
+			} catch (IOException e) {
+				assertTrue(e.getMessage().contains("expected"));
+			}
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		} finally {
+			if (proxy != null) {
+				RPC.stopProxy(proxy);
+			}
+			if (server != null) {
+				server.stop();
+			}
+		}
+	}
+
+	@Test
+	public void testAsyncCalls() {
+
+		final int numCalls = 1000;
+
+		RPC.Server server = null;
+		TestProtocol proxy = null;
+		try {
+			server = RPC.getServer(new TestProtocolImpl(), "localhost", 0, 4);
+			server.start();
+
+			proxy = RPC.getProxy(TestProtocol.class, new InetSocketAddress("localhost", server.getListenerAddress()
+				.getPort()));
+
+			final Method add = TestProtocol.class.getMethod("add", IntegerRecord.class, IntegerRecord.class);
+			final Method fail = TestProtocol.class.getMethod("fail", StringRecord.class);
+
+			// Issue all calls before waiting for the first result, the responses may arrive out of order
+			final List<Future<IOReadableWritable>> futures = new ArrayList<Future<IOReadableWritable>>(numCalls);
+			for (int i = 0; i < numCalls; ++i) {
+				futures.add(RPC.callAsync(proxy, add, new IntegerRecord(i), new IntegerRecord(i)));
+			}
+			final Future<IOReadableWritable> failed = RPC.callAsync(proxy, fail, new StringRecord("expected"));
+
+			for (int i = 0; i < numCalls; ++i) {
+				assertEquals(2 * i, ((IntegerRecord) futures.get(i).get()).getValue());
+			}
+
+			try {
+				failed.get();
+				org.junit.Assert.fail("Exception was not forwarded to the future");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RemoteException);
+				assertTrue(e.getCause().getMessage().contains("expected"));
+			}
+			assertTrue(failed.isDone());
+
+			// Synchronous calls still work on the same connection
+			assertEquals(3, proxy.add(new IntegerRecord(2)).getValue());
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		} finally {
+			if (proxy != null) {
+				RPC.stopProxy(proxy);
+			}
+			if (server != null) {
+				server.stop();
+			}
+		}
+	}
+
+	@Test
+	public void testDispatchTableIsStable() {
+		try {
+			final ProtocolDispatchTable table = ProtocolDispatchTable.forProtocol(TestProtocol.class);
+			assertTrue(table == ProtocolDispatchTable.forProtocol(TestProtocol.class));
+
+			final Method[] methods = TestProtocol.class.getMethods();
+			for (final Method method : methods) {
+				assertEquals(method, table.getMethod(table.getMethodID(method)));
+			}
+
+			// The IDs follow the sorted signatures, independent of the order of reflection
+			final Method addOne = TestProtocol.class.getMethod("add", IntegerRecord.class);
+			final Method addTwo = TestProtocol.class.getMethod("add", IntegerRecord.class, IntegerRecord.class);
+			final Method echo = TestProtocol.class.getMethod("echo", StringRecord.class);
+			assertEquals(0, table.getMethodID(addOne));
+			assertEquals(1, table.getMethodID(addTwo));
+			assertEquals(2, table.getMethodID(echo));
+
+			try {
+				table.getMethod(methods.length);
+				org.junit.Assert.fail("Unknown method ID was accepted");
+			} catch (IOException e) {
+				// expected
+			}
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+}
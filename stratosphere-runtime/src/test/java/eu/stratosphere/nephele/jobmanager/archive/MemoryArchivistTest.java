@@ -0,0 +1,135 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager.archive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import eu.stratosphere.nephele.event.job.ExecutionStateChangeEvent;
+import eu.stratosphere.nephele.event.job.JobEvent;
+import eu.stratosphere.nephele.event.job.RecentJobEvent;
+import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.jobgraph.JobStatus;
+import eu.stratosphere.nephele.managementgraph.ManagementGraph;
+import eu.stratosphere.nephele.managementgraph.ManagementVertexID;
+
+/**
+ * This class contains unit tests for the {@link MemoryArchivist}.
+ */
+public class MemoryArchivistTest {
+
+	private static final ManagementVertexID VERTEX_ID = new ManagementVertexID();
+
+	/**
+	 * Checks that the time stamps of the first status changes are indexed.
+	 */
+	@Test
+	public void testTimeIndex() {
+
+		final MemoryArchivist archivist = new MemoryArchivist(5);
+		final JobID jobID = archiveJob(archivist, 1000L);
+
+		assertEquals(1000L, archivist.getJobTime(jobID, JobStatus.SCHEDULED));
+		assertEquals(1002L, archivist.getJobTime(jobID, JobStatus.FINISHED));
+		assertEquals(0L, archivist.getJobTime(jobID, JobStatus.FAILED));
+		assertEquals(1001L, archivist.getVertexTime(jobID, VERTEX_ID, ExecutionState.RUNNING));
+		assertEquals(0L, archivist.getVertexTime(jobID, VERTEX_ID, ExecutionState.FAILED));
+		assertEquals(0L, archivist.getVertexTime(new JobID(), VERTEX_ID, ExecutionState.RUNNING));
+		assertEquals(4, archivist.getEvents(jobID).size());
+	}
+
+	/**
+	 * Checks that old jobs are dropped and that the details of summarized jobs are discarded.
+	 */
+	@Test
+	public void testSummaryWithoutSpilling() {
+
+		final MemoryArchivist archivist = new MemoryArchivist(2, 1, null);
+		final JobID first = archiveJob(archivist, 1000L);
+		final JobID second = archiveJob(archivist, 2000L);
+		final JobID third = archiveJob(archivist, 3000L);
+
+		assertEquals(2, archivist.getJobs().size());
+		assertNull(archivist.getJob(first));
+
+		// The second job is summarized
+		assertNotNull(archivist.getJob(second));
+		assertEquals(2002L, archivist.getJobTime(second, JobStatus.FINISHED));
+		assertNull(archivist.getManagementGraph(second));
+		assertNull(archivist.getEvents(second));
+
+		assertEquals(third, archivist.getManagementGraph(third).getJobID());
+	}
+
+	/**
+	 * Checks that the details of summarized jobs are read back from the spill directory.
+	 */
+	@Test
+	public void testSummaryWithSpilling() {
+
+		final File spillDirectory = new File(System.getProperty("java.io.tmpdir"), "archive-" + new JobID());
+		try {
+			final MemoryArchivist archivist = new MemoryArchivist(3, 1, spillDirectory);
+			final JobID first = archiveJob(archivist, 1000L);
+			final JobID second = archiveJob(archivist, 2000L);
+			assertEquals(1, spillDirectory.list().length);
+
+			// Reading the first job back summarizes the second
+			assertEquals(first, archivist.getManagementGraph(first).getJobID());
+			assertEquals(1001L, archivist.getVertexTime(first, VERTEX_ID, ExecutionState.RUNNING));
+			assertEquals(4, archivist.getEvents(first).size());
+			assertEquals(2, spillDirectory.list().length);
+
+			assertEquals(second, archivist.getManagementGraph(second).getJobID());
+
+			// Dropping the jobs deletes their files
+			archiveJob(archivist, 3000L);
+			archiveJob(archivist, 4000L);
+			archiveJob(archivist, 5000L);
+			assertNull(archivist.getJob(first));
+			assertNull(archivist.getJob(second));
+			assertEquals(2, spillDirectory.list().length);
+		} finally {
+			final File[] files = spillDirectory.listFiles();
+			if (files != null) {
+				for (final File file : files) {
+					file.delete();
+				}
+			}
+			spillDirectory.delete();
+		}
+	}
+
+	/**
+	 * Archives a finished job with a single vertex the same way the event collector does.
+	 */
+	private static JobID archiveJob(final MemoryArchivist archivist, final long time) {
+
+		final JobID jobID = new JobID();
+		archivist.archiveEvent(jobID, new JobEvent(time, JobStatus.SCHEDULED, null));
+		archivist.archiveEvent(jobID, new ExecutionStateChangeEvent(time + 1L, VERTEX_ID, ExecutionState.RUNNING));
+		archivist.archiveEvent(jobID, new JobEvent(time + 2L, JobStatus.FINISHED, null));
+		archivist.archiveEvent(jobID, new JobEvent(time + 3L, JobStatus.FINISHED, null));
+		archivist.archiveJobevent(jobID, new RecentJobEvent(jobID, "job", JobStatus.FINISHED, false, time, time + 3L));
+		archivist.archiveManagementGraph(jobID, new ManagementGraph(jobID));
+
+		return jobID;
+	}
+}
@@ -0,0 +1,337 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager.scheduler.slot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import eu.stratosphere.configuration.Configuration;
+import eu.stratosphere.core.io.StringRecord;
+import eu.stratosphere.nephele.execution.ExecutionState;
+import eu.stratosphere.nephele.execution.librarycache.LibraryCacheManager;
+import eu.stratosphere.nephele.executiongraph.ExecutionGraph;
+import eu.stratosphere.nephele.executiongraph.ExecutionVertex;
+import eu.stratosphere.nephele.instance.AbstractInstance;
+import eu.stratosphere.nephele.instance.AllocatedResource;
+import eu.stratosphere.nephele.instance.AllocationID;
+import eu.stratosphere.nephele.instance.HardwareDescription;
+import eu.stratosphere.nephele.instance.HardwareDescriptionFactory;
+import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
+import eu.stratosphere.nephele.instance.InstanceException;
+import eu.stratosphere.nephele.instance.InstanceListener;
+import eu.stratosphere.nephele.instance.InstanceManager;
+import eu.stratosphere.nephele.instance.InstanceRequestMap;
+import eu.stratosphere.nephele.instance.InstanceType;
+import eu.stratosphere.nephele.instance.InstanceTypeDescription;
+import eu.stratosphere.nephele.instance.InstanceTypeDescriptionFactory;
+import eu.stratosphere.nephele.instance.InstanceTypeFactory;
+import eu.stratosphere.nephele.jobgraph.JobGraph;
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.nephele.jobgraph.JobInputVertex;
+import eu.stratosphere.nephele.jobgraph.JobOutputVertex;
+import eu.stratosphere.nephele.jobmanager.DeploymentManager;
+import eu.stratosphere.nephele.services.blob.BlobKey;
+import eu.stratosphere.nephele.template.AbstractGenericInputTask;
+import eu.stratosphere.nephele.template.AbstractOutputTask;
+import eu.stratosphere.nephele.topology.NetworkTopology;
+import eu.stratosphere.runtime.io.api.RecordReader;
+import eu.stratosphere.runtime.io.api.RecordWriter;
+import eu.stratosphere.runtime.io.channels.ChannelType;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * This class checks the functionality of the {@link SlotScheduler} class.
+ */
+public class SlotSchedulerTest {
+
+	/**
+	 * Test input task.
+	 */
+	public static final class InputTask extends AbstractGenericInputTask {
+
+		@Override
+		public void registerInputOutput() {
+			new RecordWriter<StringRecord>(this);
+		}
+
+		@Override
+		public void invoke() throws Exception {
+			// Nothing to do here
+		}
+	}
+
+	/**
+	 * Test output task.
+	 */
+	public static final class OutputTask extends AbstractOutputTask {
+
+		@Override
+		public void registerInputOutput() {
+			new RecordReader<StringRecord>(this, StringRecord.class);
+		}
+
+		@Override
+		public void invoke() throws Exception {
+			// Nothing to do here
+		}
+	}
+
+	/**
+	 * Checks that a job which does not fit into the free slots waits for the running job instead of failing and
+	 * is deployed as soon as the running job releases its slot.
+	 */
+	@Test
+	public void testSecondJobWaitsForFreeSlot() {
+
+		final SingleSlotInstanceManager instanceManager = new SingleSlotInstanceManager();
+		final RecordingDeploymentManager deploymentManager = new RecordingDeploymentManager();
+		final SlotScheduler scheduler = new SlotScheduler(deploymentManager, instanceManager);
+		instanceManager.setInstanceListener(scheduler);
+
+		final ExecutionGraph first = createExecutionGraph(instanceManager);
+		final ExecutionGraph second = createExecutionGraph(instanceManager);
+
+		try {
+			scheduler.schedulJob(first);
+			deploymentManager.waitForDeployments(1);
+			assertEquals(first.getJobID(), deploymentManager.getDeployedJobs().get(0));
+
+			// The only slot is occupied, so the second job has to wait
+			scheduler.schedulJob(second);
+			assertEquals(1, scheduler.getNumberOfWaitingStages());
+			assertEquals(1, deploymentManager.getDeployedJobs().size());
+
+			// Simulate the life cycle of the first job's vertices, which releases the slot
+			for (final ExecutionVertex vertex : deploymentManager.getDeployedVertices(0)) {
+				vertex.updateExecutionState(ExecutionState.STARTING);
+				vertex.updateExecutionState(ExecutionState.RUNNING);
+				vertex.updateExecutionState(ExecutionState.FINISHING);
+				vertex.updateExecutionState(ExecutionState.FINISHED);
+			}
+
+			deploymentManager.waitForDeployments(2);
+			assertEquals(second.getJobID(), deploymentManager.getDeployedJobs().get(1));
+			assertEquals(0, scheduler.getNumberOfWaitingStages());
+			assertEquals(1, instanceManager.getNumberOfReleaseMethodCalls());
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		} finally {
+			try {
+				LibraryCacheManager.unregister(first.getJobID());
+				LibraryCacheManager.unregister(second.getJobID());
+			} catch (IOException ioe) {
+				// Ignore exception here
+			}
+		}
+	}
+
+	/**
+	 * Constructs a sample execution graph consisting of two vertices connected by an in-memory channel.
+	 */
+	private ExecutionGraph createExecutionGraph(final InstanceManager instanceManager) {
+
+		final JobGraph jobGraph = new JobGraph("Job Graph");
+
+		final JobInputVertex inputVertex = new JobInputVertex("Input 1", jobGraph);
+		inputVertex.setInputClass(InputTask.class);
+		inputVertex.setNumberOfSubtasks(1);
+
+		final JobOutputVertex outputVertex = new JobOutputVertex("Output 1", jobGraph);
+		outputVertex.setOutputClass(OutputTask.class);
+		outputVertex.setNumberOfSubtasks(1);
+
+		try {
+			inputVertex.connectTo(outputVertex, ChannelType.IN_MEMORY);
+
+			final List<BlobKey> requiredJarFiles = Collections.emptyList();
+			LibraryCacheManager.register(jobGraph.getJobID(), requiredJarFiles);
+			return new ExecutionGraph(jobGraph, instanceManager);
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		}
+
+		return null;
+	}
+
+	// --------------------------------------------------------------------------------------------
+
+	/**
+	 * An instance manager that manages a single slot.
+	 */
+	private static final class SingleSlotInstanceManager implements InstanceManager {
+
+		private static final InstanceType INSTANCE_TYPE = InstanceTypeFactory.construct("test", 1, 1, 1024, 1024, 10);
+
+		private final Map<InstanceType, InstanceTypeDescription> instanceMap =
+			new HashMap<InstanceType, InstanceTypeDescription>();
+
+		private final AbstractInstance instance;
+
+		private volatile InstanceListener instanceListener;
+
+		private boolean slotOccupied;
+
+		private volatile int numberOfReleaseCalls;
+
+		private SingleSlotInstanceManager() {
+
+			final HardwareDescription hd = HardwareDescriptionFactory.construct(1, 1L, 1L);
+			this.instanceMap.put(INSTANCE_TYPE, InstanceTypeDescriptionFactory.construct(INSTANCE_TYPE, hd, 1));
+
+			try {
+				final InstanceConnectionInfo ici = new InstanceConnectionInfo(Inet4Address.getLocalHost(), 1, 1);
+				final NetworkTopology nt = new NetworkTopology();
+				this.instance = new AbstractInstance(INSTANCE_TYPE, ici, nt.getRootNode(), nt, hd) {};
+			} catch (UnknownHostException e) {
+				throw new RuntimeException(StringUtils.stringifyException(e));
+			}
+		}
+
+		@Override
+		public synchronized void requestInstance(final JobID jobID, final Configuration conf,
+				final InstanceRequestMap instanceRequestMap, final List<String> splitAffinityList)
+				throws InstanceException {
+
+			if (this.slotOccupied) {
+				throw new InstanceException("No free slot");
+			}
+			this.slotOccupied = true;
+
+			final InstanceListener il = this.instanceListener;
+			final List<AllocatedResource> resources = new ArrayList<AllocatedResource>();
+			resources.add(new AllocatedResource(this.instance, INSTANCE_TYPE, new AllocationID()));
+
+			new Thread() {
+
+				@Override
+				public void run() {
+					il.resourcesAllocated(jobID, resources);
+				}
+			}.start();
+		}
+
+		@Override
+		public synchronized void releaseAllocatedResource(final JobID jobID, final Configuration conf,
+				final AllocatedResource allocatedResource) throws InstanceException {
+
+			this.slotOccupied = false;
+			++this.numberOfReleaseCalls;
+		}
+
+		int getNumberOfReleaseMethodCalls() {
+			return this.numberOfReleaseCalls;
+		}
+
+		@Override
+		public InstanceType getSuitableInstanceType(final int minNumComputeUnits, final int minNumCPUCores,
+				final int minMemorySize, final int minDiskCapacity, final int maxPricePerHour) {
+			throw new IllegalStateException("getSuitableInstanceType called on SingleSlotInstanceManager");
+		}
+
+		@Override
+		public void reportHeartBeat(final InstanceConnectionInfo instanceConnectionInfo,
+				final HardwareDescription hardwareDescription) {
+			throw new IllegalStateException("reportHeartBeat called on SingleSlotInstanceManager");
+		}
+
+		@Override
+		public InstanceType getInstanceTypeByName(final String instanceTypeName) {
+			throw new IllegalStateException("getInstanceTypeByName called on SingleSlotInstanceManager");
+		}
+
+		@Override
+		public InstanceType getDefaultInstanceType() {
+			return INSTANCE_TYPE;
+		}
+
+		@Override
+		public NetworkTopology getNetworkTopology(final JobID jobID) {
+			throw new IllegalStateException("getNetworkTopology called on SingleSlotInstanceManager");
+		}
+
+		@Override
+		public void setInstanceListener(final InstanceListener instanceListener) {
+			this.instanceListener = instanceListener;
+		}
+
+		@Override
+		public Map<InstanceType, InstanceTypeDescription> getMapOfAvailableInstanceTypes() {
+			return this.instanceMap;
+		}
+
+		@Override
+		public AbstractInstance getInstanceByName(final String name) {
+			throw new IllegalStateException("getInstanceByName called on SingleSlotInstanceManager");
+		}
+
+		@Override
+		public void cancelPendingRequests(final JobID jobID) {
+			throw new IllegalStateException("cancelPendingRequests called on SingleSlotInstanceManager");
+		}
+
+		@Override
+		public void shutdown() {
+			throw new IllegalStateException("shutdown called on SingleSlotInstanceManager");
+		}
+
+		@Override
+		public int getNumberOfTaskTrackers() {
+			return 1;
+		}
+	}
+
+	/**
+	 * A deployment manager that records the deployments.
+	 */
+	private static final class RecordingDeploymentManager implements DeploymentManager {
+
+		private final List<JobID> deployedJobs = new ArrayList<JobID>();
+
+		private final List<List<ExecutionVertex>> deployedVertices = new ArrayList<List<ExecutionVertex>>();
+
+		@Override
+		public synchronized void deploy(final JobID jobID, final AbstractInstance instance,
+				final List<ExecutionVertex> verticesToBeDeployed) {
+
+			this.deployedJobs.add(jobID);
+			this.deployedVertices.add(verticesToBeDeployed);
+			notifyAll();
+		}
+
+		synchronized List<JobID> getDeployedJobs() {
+			return new ArrayList<JobID>(this.deployedJobs);
+		}
+
+		synchronized List<ExecutionVertex> getDeployedVertices(final int deployment) {
+			return this.deployedVertices.get(deployment);
+		}
+
+		synchronized void waitForDeployments(final int numberOfDeployments) throws InterruptedException {
+			while (this.deployedJobs.size() < numberOfDeployments) {
+				wait(50);
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.jobmanager.splitassigner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.junit.Test;
+
+import eu.stratosphere.core.io.GenericInputSplit;
+import eu.stratosphere.nephele.instance.AbstractInstance;
+import eu.stratosphere.nephele.instance.HardwareDescriptionFactory;
+import eu.stratosphere.nephele.instance.InstanceConnectionInfo;
+import eu.stratosphere.nephele.instance.InstanceTypeFactory;
+import eu.stratosphere.nephele.topology.NetworkTopology;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * This class checks the functionality of the {@link InputSplitHostIndex} class.
+ */
+public class InputSplitHostIndexTest {
+
+	@Test
+	public void testLocalSplitsFirst() {
+		try {
+			final InputSplitHostIndex<GenericInputSplit> index = new InputSplitHostIndex<GenericInputSplit>();
+			index.addSplit(new GenericInputSplit(0, 4), new String[] { "host1" });
+			index.addSplit(new GenericInputSplit(1, 4), new String[] { "host2" });
+			index.addSplit(new GenericInputSplit(2, 4), new String[] { "HOST1", "host2" });
+			index.addSplit(new GenericInputSplit(3, 4), null);
+
+			final AbstractInstance host1 = createInstance("host1", 1);
+
+			// The local splits come first, in insertion order
+			assertEquals(0, index.getNextLocalInputSplit(host1).getSplitNumber());
+			assertEquals(2, index.getNextInputSplit(host1).getSplitNumber());
+			assertNull(index.getNextLocalInputSplit(host1));
+
+			// Then the split without location, then the remote split
+			assertEquals(3, index.getNextInputSplit(host1).getSplitNumber());
+			assertEquals(1, index.getNextInputSplit(host1).getSplitNumber());
+			assertNull(index.getNextInputSplit(host1));
+			assertEquals(0, index.getNumberOfRemainingSplits());
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testStealFromMostLoadedHost() {
+		try {
+			final InputSplitHostIndex<GenericInputSplit> index = new InputSplitHostIndex<GenericInputSplit>();
+			index.addSplit(new GenericInputSplit(0, 4), new String[] { "host1" });
+			index.addSplit(new GenericInputSplit(1, 4), new String[] { "host2" });
+			index.addSplit(new GenericInputSplit(2, 4), new String[] { "host2" });
+
+			// An instance without local splits, known by its IP address only
+			final AbstractInstance host3 = createInstance("host3", 3);
+			assertEquals(1, index.getNextInputSplit(host3).getSplitNumber());
+			assertEquals(3 - 1, index.getNumberOfRemainingSplits());
+
+			// Both hosts have one split left now
+			final int stolen = index.getNextInputSplit(host3).getSplitNumber();
+			assertTrue(stolen == 0 || stolen == 2);
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	@Test
+	public void testConcurrentAssignment() {
+		try {
+			final int numSplits = 10000;
+			final int numHosts = 8;
+
+			final InputSplitHostIndex<GenericInputSplit> index = new InputSplitHostIndex<GenericInputSplit>();
+			for (int i = 0; i < numSplits; ++i) {
+				index.addSplit(new GenericInputSplit(i, numSplits), new String[] { "host" + (i % numHosts),
+					"host" + ((i + 1) % numHosts) });
+			}
+
+			final AtomicIntegerArray assigned = new AtomicIntegerArray(numSplits);
+			final AtomicBoolean endedEarly = new AtomicBoolean(false);
+			final Thread[] threads = new Thread[numHosts];
+			for (int t = 0; t < numHosts; ++t) {
+				final AbstractInstance instance = createInstance("host" + t, t + 1);
+				threads[t] = new Thread() {
+
+					@Override
+					public void run() {
+						GenericInputSplit split;
+						while ((split = index.getNextInputSplit(instance)) != null) {
+							assigned.incrementAndGet(split.getSplitNumber());
+						}
+						// A task must not be told that the input is exhausted while splits are still unassigned
+						if (index.getNumberOfRemainingSplits() != 0) {
+							endedEarly.set(true);
+						}
+					}
+				};
+				threads[t].start();
+			}
+
+			for (int t = 0; t < numHosts; ++t) {
+				threads[t].join();
+			}
+
+			for (int i = 0; i < numSplits; ++i) {
+				assertEquals("Split " + i, 1, assigned.get(i));
+			}
+			assertEquals(0, index.getNumberOfRemainingSplits());
+			assertFalse(endedEarly.get());
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		}
+	}
+
+	private static AbstractInstance createInstance(final String hostName, final int address) throws Exception {
+
+		final InstanceConnectionInfo ici = new InstanceConnectionInfo(InetAddress.getByAddress(new byte[] { 10, 0, 0,
+			(byte) address }), hostName, null, 1, 1);
+		final NetworkTopology nt = new NetworkTopology();
+
+		return new AbstractInstance(InstanceTypeFactory.construct("test", 1, 1, 1024, 1024, 10), ici,
+			nt.getRootNode(), nt, HardwareDescriptionFactory.construct(1, 1L, 1L)) {
+		};
+	}
+}
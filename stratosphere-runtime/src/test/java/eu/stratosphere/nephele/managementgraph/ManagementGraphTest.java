@@ -132,6 +132,9 @@ public class ManagementGraphTest {
 		assertEquals(origVertex.getIndexInGroup(), copyVertex.getIndexInGroup());
 		assertEquals(origVertex.getInstanceName(), copyVertex.getInstanceName());
 		assertEquals(origVertex.getInstanceType(), copyVertex.getInstanceType());
+		assertEquals(origVertex.getBusyRatio(), copyVertex.getBusyRatio(), 0.0f);
+		assertEquals(origVertex.getBackPressureRatio(), copyVertex.getBackPressureRatio(), 0.0f);
+		assertEquals(origVertex.getIdleRatio(), copyVertex.getIdleRatio(), 0.0f);
 		assertEquals(origVertex.getNumberOfInputGates(), copyVertex.getNumberOfInputGates());
 		assertEquals(origVertex.getNumberOfOutputGates(), copyVertex.getNumberOfOutputGates());
 
@@ -253,6 +256,7 @@ public class ManagementGraphTest {
 			"medium", 0);
 		final ManagementVertex vertex2_2 = new ManagementVertex(groupVertex2, new ManagementVertexID(), "Host 2",
 			"medium", 1);
+		vertex2_2.setActivity(0.25f, 0.5f, 0.25f);
 		final ManagementVertex vertex3_1 = new ManagementVertex(groupVertex3, new ManagementVertexID(), "Host 2",
 			"medium", 0);
 		final ManagementVertex vertex4_1 = new ManagementVertex(groupVertex4, new ManagementVertexID(), "Host 2",
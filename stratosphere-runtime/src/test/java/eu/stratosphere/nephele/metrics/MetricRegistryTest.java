@@ -0,0 +1,135 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import eu.stratosphere.nephele.util.ServerTestUtils;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * This class contains unit tests for the {@link MetricRegistry} and its metrics.
+ */
+public class MetricRegistryTest {
+
+	private static final int NUMBER_OF_THREADS = 8;
+
+	private static final int UPDATES_PER_THREAD = 100000;
+
+	/**
+	 * Checks that no updates of a counter are lost when many threads update it concurrently.
+	 */
+	@Test
+	public void testConcurrentCounter() {
+
+		final Counter counter = new Counter();
+		final Histogram histogram = new Histogram();
+		final Thread[] threads = new Thread[NUMBER_OF_THREADS];
+		for (int i = 0; i < threads.length; ++i) {
+			threads[i] = new Thread() {
+
+				@Override
+				public void run() {
+					for (int j = 0; j < UPDATES_PER_THREAD; ++j) {
+						counter.inc();
+						counter.add(2L);
+						histogram.update(j);
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		try {
+			for (final Thread thread : threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			fail(StringUtils.stringifyException(e));
+		}
+
+		assertEquals(3L * NUMBER_OF_THREADS * UPDATES_PER_THREAD, counter.get());
+		assertEquals((long) NUMBER_OF_THREADS * UPDATES_PER_THREAD, histogram.getCount());
+		assertEquals((long) NUMBER_OF_THREADS * UPDATES_PER_THREAD * (UPDATES_PER_THREAD - 1) / 2, histogram.getSum());
+		assertEquals(UPDATES_PER_THREAD - 1, histogram.getMax());
+	}
+
+	/**
+	 * Checks that the quantiles of a histogram are bounded by twice the exact value.
+	 */
+	@Test
+	public void testHistogramQuantiles() {
+
+		final Histogram histogram = new Histogram();
+		assertEquals(0L, histogram.getQuantile(0.5));
+
+		for (int i = 1; i <= 1000; ++i) {
+			histogram.update(i);
+		}
+
+		final long median = histogram.getQuantile(0.5);
+		assertTrue(median >= 500L && median < 1000L);
+		final long p99 = histogram.getQuantile(0.99);
+		assertTrue(p99 >= 990L && p99 <= 1000L);
+		assertEquals(1000L, histogram.getQuantile(1.0));
+		assertEquals(500.5, histogram.getMean(), 0.0001);
+	}
+
+	/**
+	 * Checks the registry lookup, the snapshot serialization and the export to JMX.
+	 */
+	@Test
+	public void testSnapshot() {
+
+		final MetricRegistry registry = MetricRegistry.getInstance();
+		final Counter counter = registry.counter("test.counter");
+		assertSame(counter, registry.counter("test.counter"));
+		counter.add(42L);
+
+		registry.histogram("test.histogram").update(7L);
+		registry.register("test.gauge", new Gauge() {
+
+			@Override
+			public long getValue() {
+				return 23L;
+			}
+		});
+
+		try {
+			final MetricsSnapshot snapshot = ServerTestUtils.createCopy(registry.snapshot());
+			assertEquals(Long.valueOf(42L), snapshot.get("test.counter"));
+			assertEquals(Long.valueOf(23L), snapshot.get("test.gauge"));
+			assertEquals(Long.valueOf(1L), snapshot.get("test.histogram.count"));
+			assertEquals(Long.valueOf(7L), snapshot.get("test.histogram.max"));
+
+			registry.exportToJMX();
+			registry.exportToJMX();
+			assertEquals(Long.valueOf(23L), ManagementFactory.getPlatformMBeanServer().getAttribute(
+				new ObjectName(MetricRegistry.OBJECT_NAME), "test.gauge"));
+		} catch (Exception e) {
+			fail(StringUtils.stringifyException(e));
+		} finally {
+			registry.unregister("test.gauge");
+		}
+	}
+}
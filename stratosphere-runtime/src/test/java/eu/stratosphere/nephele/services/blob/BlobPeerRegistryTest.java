@@ -0,0 +1,102 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.blob;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * This class contains unit tests for the {@link BlobPeerRegistry} class.
+ */
+public final class BlobPeerRegistryTest {
+
+	private static BlobKey createKey(final int seed) {
+
+		final byte[] key = new byte[20];
+		for (int i = 0; i < key.length; ++i) {
+			key[i] = (byte) (seed + i);
+		}
+
+		return new BlobKey(key);
+	}
+
+	private static InetSocketAddress createPeer(final int host) throws Exception {
+
+		return new InetSocketAddress(InetAddress.getByAddress(new byte[] { 10, 0, 0, (byte) host }), 6125);
+	}
+
+	/**
+	 * Tests that a BLOB is forgotten once its last holder has released it.
+	 */
+	@Test
+	public void testRemoveHolder() throws Exception {
+
+		final BlobPeerRegistry registry = new BlobPeerRegistry(1);
+		final BlobKey key = createKey(0);
+
+		assertNull(registry.assignParent(key, createPeer(1)));
+		assertEquals(createPeer(1), registry.assignParent(key, createPeer(2)));
+
+		registry.removeHolder(key, createPeer(1));
+		assertEquals(1, registry.getNumberOfBlobs());
+		registry.removeHolder(key, createPeer(2));
+		assertEquals(0, registry.getNumberOfBlobs());
+
+		// The server serves the next requester again
+		assertNull(registry.assignParent(key, createPeer(3)));
+	}
+
+	/**
+	 * Tests that the BLOBs of a finished job are forgotten.
+	 */
+	@Test
+	public void testRemoveBlobs() throws Exception {
+
+		final BlobPeerRegistry registry = new BlobPeerRegistry(2);
+		final BlobKey key1 = createKey(0);
+		final BlobKey key2 = createKey(1);
+
+		registry.assignParent(key1, createPeer(1));
+		registry.assignParent(key2, createPeer(1));
+		assertEquals(2, registry.getNumberOfBlobs());
+
+		registry.removeBlobs(Collections.singletonList(key1));
+		assertEquals(1, registry.getNumberOfBlobs());
+	}
+
+	/**
+	 * Tests that a lost host is no longer offered as a parent.
+	 */
+	@Test
+	public void testRemoveHost() throws Exception {
+
+		final BlobPeerRegistry registry = new BlobPeerRegistry(1);
+		final BlobKey key1 = createKey(0);
+		final BlobKey key2 = createKey(1);
+
+		registry.assignParent(key1, createPeer(1));
+		registry.assignParent(key1, createPeer(2));
+		registry.assignParent(key2, createPeer(1));
+
+		registry.removeHost(createPeer(1).getAddress());
+		assertEquals(1, registry.getNumberOfBlobs());
+		assertEquals(createPeer(2), registry.assignParent(key1, createPeer(3)));
+	}
+}
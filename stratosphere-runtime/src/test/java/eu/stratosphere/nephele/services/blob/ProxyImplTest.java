@@ -0,0 +1,295 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.nephele.services.blob;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import eu.stratosphere.nephele.jobgraph.JobID;
+import eu.stratosphere.util.StringUtils;
+
+/**
+ * This class contains unit tests for the BLOB service's proxy component and its persistent cache.
+ */
+public final class ProxyImplTest {
+
+	/**
+	 * The size of the chunks the proxy fetches in parallel.
+	 */
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	/**
+	 * The size of the BLOBs used by the unit tests, deliberately not a multiple of the chunk size.
+	 */
+	private static final int BLOB_SIZE = 3 * CHUNK_SIZE + 17;
+
+	/**
+	 * The capacity of the cache, which fits two but not three of the test BLOBs.
+	 */
+	private static final long CACHE_SIZE = 7L * CHUNK_SIZE;
+
+	private ServerImpl server;
+
+	private InetSocketAddress serverAddress;
+
+	private File cacheDirectory;
+
+	@Before
+	public void startServer() throws IOException {
+
+		final ServerSocket socket = new ServerSocket(0);
+		final int port = socket.getLocalPort();
+		socket.close();
+
+		this.serverAddress = new InetSocketAddress("localhost", port);
+		// With a fanout of one, only the first proxy downloads a BLOB from the server
+		this.server = new ServerImpl(new InetSocketAddress(port), 1);
+		this.server.start();
+
+		this.cacheDirectory = new File(System.getProperty("java.io.tmpdir"), "blob-cache-test-" + new Random().nextLong());
+	}
+
+	@After
+	public void stopServer() {
+
+		if (this.server != null) {
+			this.server.shutdown();
+		}
+
+		final File[] files = this.cacheDirectory.listFiles();
+		if (files != null) {
+			for (final File file : files) {
+				file.delete();
+			}
+		}
+		this.cacheDirectory.delete();
+	}
+
+	/**
+	 * Tests that a BLOB fetched in several chunks arrives intact and stays cached after the server is gone.
+	 */
+	@Test
+	public void testFetchAndPersist() {
+
+		try {
+			final byte[] data = createData(1);
+			final BlobKey key = this.server.put(JobID.generate(), data, 0, data.length);
+
+			final ProxyImpl proxy = createProxy();
+			try {
+				assertArrayEquals(data, readFully(proxy.get(key)));
+				assertTrue(toCacheFile(key).isFile());
+			} finally {
+				proxy.shutdown();
+			}
+
+			this.server.shutdown();
+			this.server = null;
+
+			// A new proxy must serve the BLOB from the cache directory without contacting the server
+			final ProxyImpl restarted = createProxy();
+			try {
+				assertArrayEquals(data, readFully(restarted.get(key)));
+			} finally {
+				restarted.shutdown();
+			}
+		} catch (IOException ioe) {
+			fail(StringUtils.stringifyException(ioe));
+		}
+	}
+
+	/**
+	 * Tests that the least recently used unpinned BLOB is evicted once the cache exceeds its capacity.
+	 */
+	@Test
+	public void testEviction() {
+
+		try {
+			final JobID jobID = JobID.generate();
+			final byte[] data1 = createData(1);
+			final byte[] data2 = createData(2);
+			final byte[] data3 = createData(3);
+			final BlobKey key1 = this.server.put(jobID, data1, 0, data1.length);
+			final BlobKey key2 = this.server.put(jobID, data2, 0, data2.length);
+			final BlobKey key3 = this.server.put(jobID, data3, 0, data3.length);
+
+			final ProxyImpl proxy = createProxy();
+			try {
+				proxy.getURL(key1);
+				proxy.getURL(key2);
+				proxy.getURL(key1);
+
+				// The third BLOB displaces the second one, which has not been used for the longest time
+				proxy.getURL(key3);
+				assertTrue(toCacheFile(key1).isFile());
+				assertFalse(toCacheFile(key2).exists());
+				assertTrue(toCacheFile(key3).isFile());
+
+				// Pinned BLOBs survive even if the cache exceeds its capacity, and an open stream pins its BLOB
+				proxy.pin(key1);
+				proxy.pin(key3);
+				final InputStream stream2 = proxy.get(key2);
+				assertTrue(toCacheFile(key1).isFile());
+				assertTrue(toCacheFile(key2).isFile());
+				assertTrue(toCacheFile(key3).isFile());
+
+				// Releasing the pin makes room again
+				proxy.unpin(key1);
+				assertFalse(toCacheFile(key1).exists());
+				assertTrue(toCacheFile(key2).isFile());
+				assertTrue(toCacheFile(key3).isFile());
+				assertArrayEquals(data2, readFully(stream2));
+				proxy.unpin(key3);
+				assertTrue(toCacheFile(key2).isFile());
+				assertTrue(toCacheFile(key3).isFile());
+			} finally {
+				proxy.shutdown();
+			}
+		} catch (IOException ioe) {
+			fail(StringUtils.stringifyException(ioe));
+		}
+	}
+
+	/**
+	 * Tests that a proxy downloads a BLOB from the peer the server assigns to it.
+	 */
+	@Test
+	public void testPeerDistribution() {
+
+		final File peerCacheDirectory = new File(this.cacheDirectory, "peer");
+		ProxyImpl seed = null;
+		ProxyImpl peer = null;
+		try {
+			final byte[] data = createData(4);
+			final BlobKey key = this.server.put(JobID.generate(), data, 0, data.length);
+
+			seed = new ProxyImpl(this.serverAddress, this.cacheDirectory, CACHE_SIZE, 4, CHUNK_SIZE, 0);
+			peer = new ProxyImpl(this.serverAddress, peerCacheDirectory, CACHE_SIZE, 4, CHUNK_SIZE, 0);
+
+			assertArrayEquals(data, readFully(seed.get(key)));
+
+			// Remove the BLOB from the server, so the second proxy can only obtain it from the first one
+			assertTrue(this.server.keyToFilename(key).delete());
+			assertArrayEquals(data, readFully(peer.get(key)));
+			assertTrue(new File(peerCacheDirectory, AbstractBaseImpl.BLOB_FILE_PREFIX + key.toString()).isFile());
+		} catch (IOException ioe) {
+			fail(StringUtils.stringifyException(ioe));
+		} finally {
+			if (seed != null) {
+				seed.shutdown();
+			}
+			if (peer != null) {
+				peer.shutdown();
+			}
+			final File[] files = peerCacheDirectory.listFiles();
+			if (files != null) {
+				for (final File file : files) {
+					file.delete();
+				}
+			}
+			peerCacheDirectory.delete();
+		}
+	}
+
+	/**
+	 * Tests that a second proxy does not use a cache directory which is locked by another proxy.
+	 */
+	@Test
+	public void testCacheDirectoryLock() {
+
+		final File siblingDirectory = new File(this.cacheDirectory.getPath() + "-1");
+		ProxyImpl first = null;
+		ProxyImpl second = null;
+		try {
+			final byte[] data = createData(5);
+			final BlobKey key = this.server.put(JobID.generate(), data, 0, data.length);
+
+			first = createProxy();
+			second = createProxy();
+
+			assertArrayEquals(data, readFully(second.get(key)));
+			assertFalse(toCacheFile(key).exists());
+			assertTrue(new File(siblingDirectory, AbstractBaseImpl.BLOB_FILE_PREFIX + key.toString()).isFile());
+		} catch (IOException ioe) {
+			fail(StringUtils.stringifyException(ioe));
+		} finally {
+			if (first != null) {
+				first.shutdown();
+			}
+			if (second != null) {
+				second.shutdown();
+			}
+			final File[] files = siblingDirectory.listFiles();
+			if (files != null) {
+				for (final File file : files) {
+					file.delete();
+				}
+			}
+			siblingDirectory.delete();
+		}
+	}
+
+	private ProxyImpl createProxy() {
+
+		return new ProxyImpl(this.serverAddress, this.cacheDirectory, CACHE_SIZE, 4, CHUNK_SIZE, -1);
+	}
+
+	private File toCacheFile(final BlobKey key) {
+
+		return new File(this.cacheDirectory, AbstractBaseImpl.BLOB_FILE_PREFIX + key.toString());
+	}
+
+	private static byte[] createData(final long seed) {
+
+		final byte[] data = new byte[BLOB_SIZE];
+		new Random(seed).nextBytes(data);
+
+		return data;
+	}
+
+	private static byte[] readFully(final InputStream inputStream) throws IOException {
+
+		final byte[] data = new byte[BLOB_SIZE];
+		try {
+			int offset = 0;
+			while (offset < data.length) {
+				final int read = inputStream.read(data, offset, data.length - offset);
+				if (read < 0) {
+					break;
+				}
+				offset += read;
+			}
+			assertEquals(data.length, offset);
+			assertEquals(-1, inputStream.read());
+		} finally {
+			inputStream.close();
+		}
+
+		return data;
+	}
+}
@@ -0,0 +1,191 @@
+/***********************************************************************************************************************
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task.drivers;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.functions.AbstractFunction;
+import eu.stratosphere.api.common.functions.GenericCoGrouper;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.api.java.typeutils.TypeExtractor;
+import eu.stratosphere.api.java.typeutils.runtime.RuntimePairComparatorFactory;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.pact.runtime.task.CoGroupWithIndexedFirstDriver;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.util.Collector;
+import eu.stratosphere.util.MutableObjectIterator;
+
+public class CoGroupWithIndexedFirstDriverTest {
+	
+	private static final int DEGREE = 10;
+
+	@Test
+	public void testIndexInMemory() {
+		runSupersteps(100, 1024 * 1024);
+	}
+	
+	@Test
+	public void testIndexWithOverflow() {
+		// eight pages: four for the index and four for the overflow groups
+		runSupersteps(5000, 8 * 32 * 1024);
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private void runSupersteps(int numKeys, long driverMemory) {
+		final IOManager ioManager = new IOManager();
+		try {
+			TestTaskContext<GenericCoGrouper<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>, Tuple2<Integer, Integer>>, Tuple2<Integer, Integer>> context =
+					new TestTaskContext<GenericCoGrouper<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>, Tuple2<Integer, Integer>>, Tuple2<Integer, Integer>>(2 * 1024 * 1024);
+			context.getTaskConfig().setMemoryDriver(driverMemory);
+			context.getTaskConfig().setDriverPairComparator(new RuntimePairComparatorFactory<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>>());
+			context.setIOManager(ioManager);
+			
+			TupleTypeInfo<Tuple2<Integer, Integer>> typeInfo = (TupleTypeInfo<Tuple2<Integer, Integer>>) TypeExtractor.getForObject(new Tuple2<Integer, Integer>(0, 0));
+			TypeComparator<Tuple2<Integer, Integer>> comparator1 = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			TypeComparator<Tuple2<Integer, Integer>> comparator2 = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<Integer, Integer>> result = new GatheringCollector<Tuple2<Integer, Integer>>(typeInfo.createSerializer());
+			
+			context.setDriverStrategy(DriverStrategy.CO_GROUP_INDEXED_FIRST);
+			context.setInput1(new GroupsIterator(numKeys, DEGREE, 1), typeInfo.createSerializer());
+			context.setComparator1(comparator1);
+			context.setComparator2(comparator2);
+			context.setUdf(new CountingCoGroup());
+			context.setCollector(result);
+			
+			CoGroupWithIndexedFirstDriver<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>, Tuple2<Integer, Integer>> driver =
+					new CoGroupWithIndexedFirstDriver<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>, Tuple2<Integer, Integer>>();
+			driver.setup(context);
+			
+			// the second input contains keys without partner in the first input
+			for (int superstep = 1; superstep <= 3; superstep++) {
+				context.setInput2(new GroupsIterator(numKeys + 100, 2, superstep + 1), typeInfo.createSerializer());
+				if (superstep == 1) {
+					driver.initialize();
+				}
+				driver.prepare();
+				driver.run();
+				driver.cleanup();
+				driver.reset();
+				
+				checkResult(result.getList(), numKeys, superstep + 1);
+				result.getList().clear();
+			}
+			
+			driver.teardown();
+			Assert.assertTrue("Memory was not released.", context.getMemoryManager().verifyEmpty());
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+	
+	private static void checkResult(List<Tuple2<Integer, Integer>> result, int numKeys, int probeStep) {
+		Map<Integer, Integer> counts = new HashMap<Integer, Integer>();
+		for (Tuple2<Integer, Integer> t : result) {
+			Assert.assertNull("Key " + t.f0 + " was co-grouped twice.", counts.put(t.f0, t.f1));
+		}
+		
+		int expectedGroups = 0;
+		for (int key = 0; key < numKeys + 100; key += probeStep) {
+			Integer count = counts.get(key);
+			Assert.assertNotNull("Missing group for key " + key, count);
+			Assert.assertEquals("Wrong group sizes for key " + key, (key < numKeys ? DEGREE : 0) * 100 + 2, count.intValue());
+			expectedGroups++;
+		}
+		Assert.assertEquals(expectedGroups, counts.size());
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	/**
+	 * Emits the key and the sizes of both groups.
+	 */
+	private static final class CountingCoGroup extends AbstractFunction
+			implements GenericCoGrouper<Tuple2<Integer, Integer>, Tuple2<Integer, Integer>, Tuple2<Integer, Integer>>
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public void coGroup(Iterator<Tuple2<Integer, Integer>> records1, Iterator<Tuple2<Integer, Integer>> records2,
+				Collector<Tuple2<Integer, Integer>> out)
+		{
+			int key = -1;
+			int count = 0;
+			while (records1.hasNext()) {
+				Tuple2<Integer, Integer> record = records1.next();
+				Assert.assertTrue(key == -1 || key == record.f0);
+				key = record.f0;
+				count += 100;
+			}
+			while (records2.hasNext()) {
+				Tuple2<Integer, Integer> record = records2.next();
+				Assert.assertTrue(key == -1 || key == record.f0);
+				key = record.f0;
+				count++;
+			}
+			out.collect(new Tuple2<Integer, Integer>(key, count));
+		}
+	}
+	
+	/**
+	 * Produces groups of records sorted by key, for every key that is a multiple of the step.
+	 */
+	private static final class GroupsIterator implements MutableObjectIterator<Tuple2<Integer, Integer>> {
+		
+		private final int numKeys;
+		
+		private final int groupSize;
+		
+		private final int step;
+		
+		private int key;
+		
+		private int count;
+		
+		private GroupsIterator(int numKeys, int groupSize, int step) {
+			this.numKeys = numKeys;
+			this.groupSize = groupSize;
+			this.step = step;
+		}
+		
+		@Override
+		public Tuple2<Integer, Integer> next(Tuple2<Integer, Integer> reuse) {
+			if (this.count == this.groupSize) {
+				this.count = 0;
+				this.key += this.step;
+			}
+			if (this.key >= this.numKeys) {
+				return null;
+			}
+			reuse.f0 = this.key;
+			reuse.f1 = this.count++;
+			return reuse;
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2014 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.pact.runtime.task.drivers;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.functions.GenericReduce;
+import eu.stratosphere.api.common.typeutils.TypeComparator;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.api.java.typeutils.TupleTypeInfo;
+import eu.stratosphere.api.java.typeutils.TypeExtractor;
+import eu.stratosphere.nephele.services.iomanager.IOManager;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.HashDistinctCombineDriver;
+import eu.stratosphere.pact.runtime.task.HashDistinctDriver;
+import eu.stratosphere.pact.runtime.util.RegularToMutableObjectIterator;
+import eu.stratosphere.util.MutableObjectIterator;
+
+public class HashDistinctDriverTest {
+
+	@Test
+	public void testCombineDriver() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<GenericReduce<Tuple2<String,Integer>>, Tuple2<String,Integer>>(1024 * 1024);
+			context.getTaskConfig().setMemoryDriver(512 * 1024);
+			
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			Collections.shuffle(data);
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = new RegularToMutableObjectIterator<Tuple2<String, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setDriverStrategy(DriverStrategy.HASHED_PARTIAL_DISTINCT);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			
+			HashDistinctCombineDriver<Tuple2<String, Integer>> driver = new HashDistinctCombineDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			assertDistinctKeys(result.getList(), 6);
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testDistinctDriver() {
+		try {
+			TestTaskContext<GenericReduce<Tuple2<String, Integer>>, Tuple2<String, Integer>> context =
+					new TestTaskContext<GenericReduce<Tuple2<String,Integer>>, Tuple2<String,Integer>>(1024 * 1024);
+			context.getTaskConfig().setMemoryDriver(512 * 1024);
+			
+			List<Tuple2<String, Integer>> data = DriverTestData.createReduceImmutableData();
+			Collections.shuffle(data);
+			
+			TupleTypeInfo<Tuple2<String, Integer>> typeInfo = (TupleTypeInfo<Tuple2<String, Integer>>) TypeExtractor.getForObject(data.get(0));
+			MutableObjectIterator<Tuple2<String, Integer>> input = new RegularToMutableObjectIterator<Tuple2<String, Integer>>(data.iterator(), typeInfo.createSerializer());
+			TypeComparator<Tuple2<String, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<String, Integer>> result = new GatheringCollector<Tuple2<String,Integer>>(typeInfo.createSerializer());
+			
+			context.setDriverStrategy(DriverStrategy.HASHED_DISTINCT);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			
+			HashDistinctDriver<Tuple2<String, Integer>> driver = new HashDistinctDriver<Tuple2<String,Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			assertDistinctKeys(result.getList(), 6);
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+	}
+	
+	@Test
+	public void testDistinctDriverWithFullHashTable() {
+		final IOManager ioManager = new IOManager();
+		try {
+			final int numKeys = 20000;
+			
+			TestTaskContext<GenericReduce<Tuple2<Integer, Integer>>, Tuple2<Integer, Integer>> context =
+					new TestTaskContext<GenericReduce<Tuple2<Integer, Integer>>, Tuple2<Integer, Integer>>(1024 * 1024);
+			context.getTaskConfig().setMemoryDriver(512 * 1024);
+			context.getTaskConfig().setFilehandlesDriver(16);
+			context.getTaskConfig().setSpillingThresholdDriver(0.8f);
+			context.setIOManager(ioManager);
+			
+			TupleTypeInfo<Tuple2<Integer, Integer>> typeInfo = (TupleTypeInfo<Tuple2<Integer, Integer>>) TypeExtractor.getForObject(new Tuple2<Integer, Integer>(0, 0));
+			MutableObjectIterator<Tuple2<Integer, Integer>> input = new RepeatingKeysIterator(numKeys, 5 * numKeys);
+			TypeComparator<Tuple2<Integer, Integer>> comparator = typeInfo.createComparator(new int[]{0}, new boolean[] {true});
+			
+			GatheringCollector<Tuple2<Integer, Integer>> result = new GatheringCollector<Tuple2<Integer, Integer>>(typeInfo.createSerializer());
+			
+			context.setDriverStrategy(DriverStrategy.HASHED_DISTINCT);
+			context.setInput1(input, typeInfo.createSerializer());
+			context.setComparator1(comparator);
+			context.setCollector(result);
+			
+			HashDistinctDriver<Tuple2<Integer, Integer>> driver = new HashDistinctDriver<Tuple2<Integer, Integer>>();
+			driver.setup(context);
+			driver.prepare();
+			driver.run();
+			driver.cleanup();
+			
+			assertDistinctKeys(result.getList(), numKeys);
+		}
+		catch (Exception e) {
+			System.err.println(e.getMessage());
+			e.printStackTrace();
+			Assert.fail(e.getMessage());
+		}
+		finally {
+			ioManager.shutdown();
+		}
+	}
+	
+	// --------------------------------------------------------------------------------------------
+	
+	private static <K> void assertDistinctKeys(List<? extends Tuple2<K, ?>> result, int numKeys) {
+		Set<K> keys = new HashSet<K>();
+		for (Tuple2<K, ?> t : result) {
+			Assert.assertTrue("Duplicate key " + t.f0, keys.add(t.f0));
+		}
+		Assert.assertEquals(numKeys, keys.size());
+	}
+	
+	private static final class RepeatingKeysIterator implements MutableObjectIterator<Tuple2<Integer, Integer>> {
+		
+		private final int numKeys;
+		
+		private final int numRecords;
+		
+		private int count;
+		
+		private RepeatingKeysIterator(int numKeys, int numRecords) {
+			this.numKeys = numKeys;
+			this.numRecords = numRecords;
+		}
+		
+		@Override
+		public Tuple2<Integer, Integer> next(Tuple2<Integer, Integer> reuse) {
+			if (this.count >= this.numRecords) {
+				return null;
+			}
+			reuse.f0 = (this.count * 7919) % this.numKeys;
+			reuse.f1 = this.count++;
+			return reuse;
+		}
+	}
+}
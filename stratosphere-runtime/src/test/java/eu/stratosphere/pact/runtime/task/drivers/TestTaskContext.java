@@ -54,6 +54,8 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 	private Collector<T> outputCollector;
 	
 	private MemoryManager memoryManager;
+	
+	private IOManager ioManager;
 
 	// --------------------------------------------------------------------------------------------
 	//  Constructors
@@ -69,6 +71,10 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 	//  Setters
 	// --------------------------------------------------------------------------------------------
 	
+	public void setIOManager(IOManager ioManager) {
+		this.ioManager = ioManager;
+	}
+	
 	public <X> void setInput1(MutableObjectIterator<X> input, TypeSerializerFactory<X> serializer) {
 		this.input1 = input;
 		this.serializer1 = serializer;
@@ -136,7 +142,7 @@ public class TestTaskContext<S, T> implements PactTaskContext<S, T> {
 
 	@Override
 	public IOManager getIOManager() {
-		return null;
+		return this.ioManager;
 	}
 
 	@Override
@@ -18,6 +18,7 @@ import eu.stratosphere.core.fs.Path;
 import eu.stratosphere.core.io.IOReadableWritable;
 import eu.stratosphere.core.memory.MemorySegment;
 import eu.stratosphere.nephele.execution.Environment;
+import eu.stratosphere.nephele.execution.TaskActivity;
 import eu.stratosphere.runtime.io.gates.InputChannelResult;
 import eu.stratosphere.runtime.io.gates.RecordAvailabilityListener;
 import eu.stratosphere.runtime.io.serialization.AdaptiveSpanningRecordDeserializer;
@@ -66,6 +67,8 @@ public class MockEnvironment implements Environment, BufferProvider, LocalBuffer
 
 	private final JobID jobID = new JobID();
 
+	private final TaskActivity taskActivity = new TaskActivity();
+
 	private final Buffer mockBuffer;
 
 	public MockEnvironment(long memorySize, MockInputSplitProvider inputSplitProvider, int bufferSize) {
@@ -341,6 +344,11 @@ public class MockEnvironment implements Environment, BufferProvider, LocalBuffer
 		return this;
 	}
 
+	@Override
+	public TaskActivity getTaskActivity() {
+		return this.taskActivity;
+	}
+
 	@Override
 	public Map<String, FutureTask<Path>> getCopyTask() {
 		return null;
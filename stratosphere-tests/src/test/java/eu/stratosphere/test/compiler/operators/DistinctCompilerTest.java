@@ -0,0 +1,69 @@
+/***********************************************************************************************************************
+ *
+ * Copyright (C) 2010-2013 by the Stratosphere project (http://stratosphere.eu)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License is distributed on
+ * an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations under the License.
+ *
+ **********************************************************************************************************************/
+
+package eu.stratosphere.test.compiler.operators;
+
+import static org.junit.Assert.fail;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import eu.stratosphere.api.common.Plan;
+import eu.stratosphere.api.java.DataSet;
+import eu.stratosphere.api.java.ExecutionEnvironment;
+import eu.stratosphere.api.java.tuple.Tuple2;
+import eu.stratosphere.compiler.plan.OptimizedPlan;
+import eu.stratosphere.compiler.plan.SingleInputPlanNode;
+import eu.stratosphere.compiler.plan.SinkPlanNode;
+import eu.stratosphere.pact.runtime.shipping.ShipStrategyType;
+import eu.stratosphere.pact.runtime.task.DriverStrategy;
+import eu.stratosphere.pact.runtime.task.util.LocalStrategy;
+import eu.stratosphere.test.compiler.util.CompilerTestBase;
+
+public class DistinctCompilerTest extends CompilerTestBase {
+	
+	/**
+	 * Checks that a distinct is executed with a hash combiner, a hash partitioning, and a hash distinct,
+	 * without sorting the input.
+	 */
+	@Test
+	public void testHashDistinct() {
+		try {
+			final ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+			env.setDegreeOfParallelism(DEFAULT_PARALLELISM);
+			
+			@SuppressWarnings("unchecked")
+			DataSet<Tuple2<Long, Long>> input = env.fromElements(new Tuple2<Long, Long>(1l, 2l));
+			input.distinct(0).print();
+			
+			Plan p = env.createProgramPlan();
+			OptimizedPlan op = compileNoStats(p);
+			
+			SinkPlanNode sinkPlanNode = op.getDataSinks().iterator().next();
+			SingleInputPlanNode distinct = (SingleInputPlanNode) sinkPlanNode.getInput().getSource();
+			Assert.assertEquals(DriverStrategy.HASHED_DISTINCT, distinct.getDriverStrategy());
+			Assert.assertEquals(ShipStrategyType.PARTITION_HASH, distinct.getInput().getShipStrategy());
+			Assert.assertEquals(LocalStrategy.NONE, distinct.getInput().getLocalStrategy());
+			
+			SingleInputPlanNode combiner = (SingleInputPlanNode) distinct.getInput().getSource();
+			Assert.assertEquals(DriverStrategy.HASHED_PARTIAL_DISTINCT, combiner.getDriverStrategy());
+			Assert.assertEquals(ShipStrategyType.FORWARD, combiner.getInput().getShipStrategy());
+		}
+		catch (Exception e) {
+			e.printStackTrace();
+			fail(e.getMessage());
+		}
+	}
+}
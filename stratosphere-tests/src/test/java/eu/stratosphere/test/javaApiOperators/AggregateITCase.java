@@ -29,6 +29,7 @@ import eu.stratosphere.api.java.aggregation.Aggregations;
 import eu.stratosphere.api.java.tuple.Tuple1;
 import eu.stratosphere.api.java.tuple.Tuple2;
 import eu.stratosphere.api.java.tuple.Tuple3;
+import eu.stratosphere.api.java.tuple.Tuple5;
 import eu.stratosphere.configuration.Configuration;
 import eu.stratosphere.test.javaApiOperators.util.CollectionDataSets;
 import eu.stratosphere.test.util.JavaProgramTestBase;
@@ -36,7 +37,7 @@ import eu.stratosphere.test.util.JavaProgramTestBase;
 @RunWith(Parameterized.class)
 public class AggregateITCase extends JavaProgramTestBase {
 	
-	private static int NUM_PROGRAMS = 3;
+	private static int NUM_PROGRAMS = 7;
 	
 	private int curProgId = config.getInteger("ProgramId", -1);
 	private String resultPath;
@@ -141,6 +142,89 @@ public class AggregateITCase extends JavaProgramTestBase {
 				// return expected result
 				return "1\n";
 			}
+			case 4: {
+				/*
+				 * Grouped Average
+				 */
+				
+				final ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+				
+				DataSet<Tuple3<Integer, Long, String>> ds = CollectionDataSets.get3TupleDataSet(env);
+				DataSet<Tuple2<Long, Integer>> aggregateDs = ds.groupBy(1)
+						.aggregate(Aggregations.AVG, 0)
+						.project(1, 0).types(Long.class, Integer.class);
+				
+				aggregateDs.writeAsCsv(resultPath);
+				env.execute();
+				
+				// return expected result
+				return "1,1\n" +
+				"2,2\n" +
+				"3,5\n" +
+				"4,8\n" +
+				"5,13\n" +
+				"6,18\n";
+			}
+			case 5: {
+				/*
+				 * Full Aggregate with Average
+				 */
+				
+				final ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+				
+				DataSet<Tuple3<Integer, Long, String>> ds = CollectionDataSets.get3TupleDataSet(env);
+				DataSet<Tuple2<Integer, Long>> aggregateDs = ds
+						.aggregate(Aggregations.AVG, 0)
+						.and(Aggregations.MAX, 1)
+						.project(0, 1).types(Integer.class, Long.class);
+				
+				aggregateDs.writeAsCsv(resultPath);
+				env.execute();
+				
+				// return expected result
+				return "11,6\n";
+			}
+			case 6: {
+				/*
+				 * Grouped Approximate Distinct Count
+				 */
+				
+				final ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+				
+				DataSet<Tuple5<Integer, Long, Integer, String, Long>> ds = CollectionDataSets.get5TupleDataSet(env);
+				DataSet<Tuple2<Integer, Long>> aggregateDs = ds.groupBy(0)
+						.aggregate(Aggregations.approxCountDistinct(0.05), 3, 4)
+						.project(0, 4).types(Integer.class, Long.class);
+				
+				aggregateDs.writeAsCsv(resultPath);
+				env.execute();
+				
+				// return expected result
+				return "1,1\n" +
+				"2,2\n" +
+				"3,3\n" +
+				"4,4\n" +
+				"5,5\n";
+			}
+			case 7: {
+				/*
+				 * Approximate Median and Most Frequent Value
+				 */
+				
+				final ExecutionEnvironment env = ExecutionEnvironment.getExecutionEnvironment();
+				
+				DataSet<Tuple3<Integer, Long, String>> ds = CollectionDataSets.get3TupleDataSet(env);
+				DataSet<Tuple2<Integer, Long>> aggregateDs = ds
+						.aggregate(Aggregations.APPROX_MEDIAN, 0)
+						.and(Aggregations.APPROX_MOST_FREQUENT, 1)
+						.project(0, 1).types(Integer.class, Long.class);
+				
+				aggregateDs.writeAsCsv(resultPath);
+				env.execute();
+				
+				// return expected result
+				return "11,6\n";
+			}
 			default: 
 				throw new IllegalArgumentException("Invalid program id");
 			}